@@ -48,6 +48,11 @@ android {
     buildFeatures {
         viewBinding = true
     }
+
+    // android.util.Log и другие методы Android в JVM-тестах возвращают значения по умолчанию
+    testOptions {
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
@@ -62,6 +67,7 @@ dependencies {
     implementation("com.squareup.retrofit2:converter-gson:2.9.0")
     implementation(libs.preference)
     testImplementation(libs.junit)
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
     implementation("io.socket:socket.io-client:2.0.0")
@@ -92,6 +98,10 @@ dependencies {
     implementation("io.reactivex.rxjava3:rxandroid:3.0.2")
     implementation("com.squareup.retrofit2:adapter-rxjava3:2.9.0")
 
+    // Paging 3 для постраничной загрузки списков рецептов
+    implementation("androidx.paging:paging-runtime:3.2.1")
+    implementation("androidx.paging:paging-rxjava3:3.2.1")
+
     // Зависимости Navigation Component
     val nav_version = "2.7.7"
 
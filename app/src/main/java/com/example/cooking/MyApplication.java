@@ -3,6 +3,8 @@ package com.example.cooking;
 import android.app.Application;
 import androidx.preference.PreferenceManager;
 import android.content.SharedPreferences;
+import com.example.cooking.data.repositories.OutboxRepository;
+import com.example.cooking.utils.AppExecutors;
 import com.example.cooking.utils.ThemeUtils;
 
 
@@ -20,6 +22,10 @@ public class MyApplication extends Application {
         // Инициализация темы приложения при запуске
         initializeTheme();
 
+        // Отложенные лайки могли не уйти на сервер до закрытия приложения
+        AppExecutors.getInstance().diskIO().execute(() ->
+                OutboxRepository.getInstance(this).scheduleReplayIfPending());
+
         
 
     }
@@ -0,0 +1,166 @@
+package com.example.cooking.auth;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.auth.GetTokenResult;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Кэш Firebase ID токена текущего пользователя для сетевых запросов.
+ * Токен хранится в памяти вместе со временем истечения, поэтому обычный запрос
+ * получает его без обращения к Firebase. Незадолго до истечения токен обновляется в фоне,
+ * а одновременные запросы, которым нужен новый токен, ждут одно общее обновление.
+ */
+public class FirebaseTokenCache {
+
+    private static final String TAG = "FirebaseTokenCache";
+    private static final long TOKEN_TIMEOUT_SECONDS = 10;
+    // За сколько до истечения начинать фоновое обновление
+    private static final long REFRESH_AHEAD_MS = TimeUnit.MINUTES.toMillis(5);
+    // Запас на расхождение часов: токен с меньшим остатком считается истекшим
+    private static final long EXPIRY_SKEW_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+    private static volatile FirebaseTokenCache INSTANCE;
+
+    /**
+     * Неизменяемая запись кэша: токен, пользователь и время истечения.
+     */
+    private static final class CachedToken {
+        final String uid;
+        final String token;
+        final long expiresAtMillis;
+
+        CachedToken(String uid, String token, long expiresAtMillis) {
+            this.uid = uid;
+            this.token = token;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private volatile CachedToken cachedToken;
+    private Task<GetTokenResult> pendingRefresh;
+
+    private FirebaseTokenCache() {
+        // При выходе или смене пользователя кэшированный токен больше не действителен
+        FirebaseAuth.getInstance().addIdTokenListener((FirebaseAuth.IdTokenListener) auth -> {
+            FirebaseUser user = auth.getCurrentUser();
+            CachedToken cached = cachedToken;
+            if (cached != null && (user == null || !user.getUid().equals(cached.uid))) {
+                cachedToken = null;
+            }
+        });
+    }
+
+    public static FirebaseTokenCache getInstance() {
+        if (INSTANCE == null) {
+            synchronized (FirebaseTokenCache.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new FirebaseTokenCache();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Возвращает действующий токен пользователя.
+     * Если до истечения осталось меньше {@link #REFRESH_AHEAD_MS}, запускает фоновое обновление
+     * и возвращает текущий токен; если токен истек или отсутствует, ждет обновления.
+     * @throws IOException если токен не удалось получить
+     */
+    @Nullable
+    public String getToken(@NonNull FirebaseUser user) throws IOException {
+        CachedToken cached = cachedToken;
+        long now = System.currentTimeMillis();
+        if (cached != null && cached.uid.equals(user.getUid())) {
+            if (now < cached.expiresAtMillis - REFRESH_AHEAD_MS) {
+                return cached.token;
+            }
+            if (now < cached.expiresAtMillis - EXPIRY_SKEW_MS) {
+                refresh(user, false);
+                return cached.token;
+            }
+        }
+        return await(refresh(user, false));
+    }
+
+    /**
+     * Принудительно обновляет токен, например после ответа 401, и ждет результата.
+     * Если принудительное обновление уже выполняется, используется оно.
+     * @param rejectedToken токен, который отклонил сервер; удаляется из кэша
+     * @throws IOException если токен не удалось получить
+     */
+    @Nullable
+    public String forceRefresh(@NonNull FirebaseUser user, @Nullable String rejectedToken) throws IOException {
+        CachedToken cached = cachedToken;
+        if (cached != null && cached.token.equals(rejectedToken)) {
+            cachedToken = null;
+        } else if (cached != null && cached.uid.equals(user.getUid())
+                && System.currentTimeMillis() < cached.expiresAtMillis - EXPIRY_SKEW_MS) {
+            // Другой запрос уже получил новый токен
+            return cached.token;
+        }
+        return await(refresh(user, true));
+    }
+
+    /**
+     * Сбрасывает кэшированный токен.
+     */
+    public void clear() {
+        cachedToken = null;
+    }
+
+    /**
+     * Запускает обновление токена или возвращает уже выполняющееся.
+     * Принудительное обновление не объединяется с обычным, так как обычное может вернуть отклоненный токен.
+     */
+    private synchronized Task<GetTokenResult> refresh(FirebaseUser user, boolean force) {
+        if (pendingRefresh != null && !pendingRefresh.isComplete() && !force) {
+            return pendingRefresh;
+        }
+        Log.d(TAG, force ? "Принудительное обновление токена" : "Обновление токена");
+        String uid = user.getUid();
+        Task<GetTokenResult> task = user.getIdToken(force);
+        task.addOnSuccessListener(DIRECT_EXECUTOR, result -> store(uid, result));
+        task.addOnFailureListener(DIRECT_EXECUTOR, e -> Log.w(TAG, "Не удалось обновить токен: " + e.getMessage()));
+        pendingRefresh = task;
+        return task;
+    }
+
+    private void store(String uid, GetTokenResult result) {
+        if (result.getToken() == null) {
+            return;
+        }
+        // Время истечения приходит в секундах
+        long expiresAtMillis = TimeUnit.SECONDS.toMillis(result.getExpirationTimestamp());
+        CachedToken current = cachedToken;
+        if (current == null || !current.uid.equals(uid) || current.expiresAtMillis <= expiresAtMillis) {
+            cachedToken = new CachedToken(uid, result.getToken(), expiresAtMillis);
+        }
+    }
+
+    private String await(Task<GetTokenResult> task) throws IOException {
+        try {
+            return Tasks.await(task, TOKEN_TIMEOUT_SECONDS, TimeUnit.SECONDS).getToken();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ошибка получения токена аутентификации", e);
+        } catch (ExecutionException | TimeoutException e) {
+            Log.e(TAG, "Ошибка при получении Firebase ID токена: " + e.getMessage(), e);
+            throw new IOException("Ошибка получения токена аутентификации", e);
+        }
+    }
+}
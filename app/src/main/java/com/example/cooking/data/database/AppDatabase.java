@@ -1,22 +1,152 @@
 package com.example.cooking.data.database;
 
 import android.content.Context;
+import android.database.Cursor;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.RoomDatabase.JournalMode;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.cooking.data.database.converters.DataConverters;
 
 /**
  * Основной класс базы данных приложения, построенный на Room Persistence Library.
  * Определяет сущности базы данных, версию схемы и предоставляет доступ к Data Access Objects (DAO).
  * Реализован как Singleton для обеспечения единственного экземпляра на все приложение.
  */
-@Database(entities = {RecipeEntity.class, LikedRecipeEntity.class}, version = 6, exportSchema = false)
+@Database(entities = {RecipeEntity.class, LikedRecipeEntity.class, RecipeFtsEntity.class,
+        RecipeIngredientEntity.class, RecipeStepEntity.class, SyncStateEntity.class,
+        PendingMutationEntity.class, MissingRecipeEntity.class}, version = 12, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
     
     private static final String DATABASE_NAME = "recipes_database";
     private static volatile AppDatabase INSTANCE;
+
+    /**
+     * Миграция 6 -> 7: добавляет полнотекстовый индекс recipes_fts и заполняет его из существующих рецептов.
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `recipes_fts` USING FTS4(" +
+                    "`title` TEXT, `ingredients` TEXT, `instructions` TEXT, tokenize=unicode61)");
+            try (Cursor cursor = db.query("SELECT id, title, ingredients, instructions FROM recipes")) {
+                while (cursor.moveToNext()) {
+                    db.execSQL("INSERT INTO recipes_fts(rowid, title, ingredients, instructions) VALUES (?, ?, ?, ?)",
+                            new Object[]{
+                                    cursor.getInt(0),
+                                    cursor.getString(1),
+                                    RecipeFtsEntity.joinIngredientNames(DataConverters.toIngredientList(cursor.getString(2))),
+                                    RecipeFtsEntity.joinInstructions(DataConverters.toStepList(cursor.getString(3)))
+                            });
+                }
+            }
+        }
+    };
+
+    /**
+     * Миграция 7 -> 8: переносит ингредиенты и шаги из JSON-столбцов таблицы recipes
+     * в дочерние таблицы recipe_ingredients и recipe_steps.
+     * SQLite не умеет удалять столбцы, поэтому таблица recipes пересоздается.
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `recipes` RENAME TO `recipes_legacy`");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `recipes` (`id` INTEGER NOT NULL, `title` TEXT, " +
+                    "`created_at` TEXT, `userId` TEXT, `mealType` TEXT, `foodType` TEXT, `photo_url` TEXT, " +
+                    "`isLiked` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+            db.execSQL("INSERT INTO `recipes` (id, title, created_at, userId, mealType, foodType, photo_url, isLiked) " +
+                    "SELECT id, title, created_at, userId, mealType, foodType, photo_url, isLiked FROM `recipes_legacy`");
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `recipe_ingredients` (`recipeId` INTEGER NOT NULL, " +
+                    "`position` INTEGER NOT NULL, `name` TEXT, `count` REAL NOT NULL, `type` TEXT, " +
+                    "PRIMARY KEY(`recipeId`, `position`), FOREIGN KEY(`recipeId`) REFERENCES `recipes`(`id`) " +
+                    "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `recipe_steps` (`recipeId` INTEGER NOT NULL, " +
+                    "`position` INTEGER NOT NULL, `number` INTEGER NOT NULL, `instruction` TEXT, `url` TEXT, " +
+                    "PRIMARY KEY(`recipeId`, `position`), FOREIGN KEY(`recipeId`) REFERENCES `recipes`(`id`) " +
+                    "ON UPDATE NO ACTION ON DELETE CASCADE )");
+
+            try (Cursor cursor = db.query("SELECT id, ingredients, instructions FROM `recipes_legacy`")) {
+                while (cursor.moveToNext()) {
+                    int recipeId = cursor.getInt(0);
+                    for (RecipeIngredientEntity row : RecipeIngredientEntity.fromIngredients(
+                            recipeId, DataConverters.toIngredientList(cursor.getString(1)))) {
+                        db.execSQL("INSERT INTO `recipe_ingredients` (recipeId, position, name, count, type) " +
+                                "VALUES (?, ?, ?, ?, ?)",
+                                new Object[]{recipeId, row.getPosition(), row.getName(), row.getCount(), row.getType()});
+                    }
+                    for (RecipeStepEntity row : RecipeStepEntity.fromSteps(
+                            recipeId, DataConverters.toStepList(cursor.getString(2)))) {
+                        db.execSQL("INSERT INTO `recipe_steps` (recipeId, position, number, instruction, url) " +
+                                "VALUES (?, ?, ?, ?, ?)",
+                                new Object[]{recipeId, row.getPosition(), row.getNumber(), row.getInstruction(), row.getUrl()});
+                    }
+                }
+            }
+
+            db.execSQL("DROP TABLE `recipes_legacy`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_mealType` ON `recipes` (`mealType`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_foodType` ON `recipes` (`foodType`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_title` ON `recipes` (`title`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_recipe_ingredients_name` ON `recipe_ingredients` (`name`)");
+        }
+    };
+
+    /**
+     * Миграция 8 -> 9: добавляет таблицу sync_state с курсорами инкрементальной синхронизации.
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `sync_state` (`resource` TEXT NOT NULL, `cursor` TEXT, " +
+                    "`lastSyncedAt` INTEGER NOT NULL, PRIMARY KEY(`resource`))");
+        }
+    };
+
+    /**
+     * Миграция 9 -> 10: добавляет столбец contentHash в таблицу recipes.
+     * Существующие строки получают хэш 0 и будут перезаписаны при следующей полной синхронизации.
+     */
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `recipes` ADD COLUMN `contentHash` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    /**
+     * Миграция 10 -> 11: добавляет очередь неотправленных изменений pending_mutations.
+     */
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `pending_mutations` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`idempotencyKey` TEXT NOT NULL, `type` TEXT NOT NULL, `recipeId` INTEGER NOT NULL, " +
+                    "`liked` INTEGER NOT NULL, `payload` TEXT, `imagePath` TEXT, `createdAt` INTEGER NOT NULL, " +
+                    "`attempts` INTEGER NOT NULL, `lastError` TEXT)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_pending_mutations_idempotencyKey` " +
+                    "ON `pending_mutations` (`idempotencyKey`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_pending_mutations_recipeId` " +
+                    "ON `pending_mutations` (`recipeId`)");
+        }
+    };
+
+    /**
+     * Миграция 11 -> 12: добавляет таблицу missing_recipes (негативный кэш загрузки рецептов по ID).
+     */
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `missing_recipes` (`recipeId` INTEGER NOT NULL, " +
+                    "`checkedAt` INTEGER NOT NULL, PRIMARY KEY(`recipeId`))");
+        }
+    };
     
     /**
      * Предоставляет Data Access Object (DAO) для работы с сущностями рецептов ({@link RecipeEntity}).
@@ -29,6 +159,24 @@ public abstract class AppDatabase extends RoomDatabase {
      * @return {@link LikedRecipeDao} для операций с лайкнутыми рецептами.
      */
     public abstract LikedRecipeDao likedRecipeDao();
+
+    /**
+     * Предоставляет Data Access Object (DAO) для работы с курсорами синхронизации ({@link SyncStateEntity}).
+     * @return {@link SyncStateDao} для чтения и сохранения курсоров.
+     */
+    public abstract SyncStateDao syncStateDao();
+
+    /**
+     * Предоставляет Data Access Object (DAO) для очереди неотправленных изменений ({@link PendingMutationEntity}).
+     * @return {@link PendingMutationDao} для работы с очередью.
+     */
+    public abstract PendingMutationDao pendingMutationDao();
+
+    /**
+     * Предоставляет Data Access Object (DAO) для негативного кэша рецептов ({@link MissingRecipeEntity}).
+     * @return {@link MissingRecipeDao} для работы с кэшем.
+     */
+    public abstract MissingRecipeDao missingRecipeDao();
     
     /**
      * Возвращает единственный экземпляр {@link AppDatabase}.
@@ -45,6 +193,8 @@ public abstract class AppDatabase extends RoomDatabase {
                             AppDatabase.class,
                             DATABASE_NAME)
                             .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                            .addMigrations(MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10,
+                                    MIGRATION_10_11, MIGRATION_11_12)
                             .fallbackToDestructiveMigration() 
                             .build();
                 }
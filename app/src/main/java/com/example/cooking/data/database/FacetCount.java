@@ -0,0 +1,75 @@
+package com.example.cooking.data.database;
+
+import com.example.cooking.domain.entities.RecipeFacetCounts;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Строка результата запроса счетчиков фасетов {@link RecipeFacetQuery#counts}:
+ * фасет, его значение и число рецептов с этим значением.
+ */
+public class FacetCount {
+    private String facet;
+    private String value;   // null для общего числа результатов и рецептов без значения фасета
+    private int count;
+
+    public FacetCount() {
+    }
+
+    /**
+     * Собирает строки результата в доменную модель. Рецепты без значения фасета не учитываются.
+     */
+    public static RecipeFacetCounts toFacetCounts(List<FacetCount> rows) {
+        Map<String, Integer> mealTypes = new LinkedHashMap<>();
+        Map<String, Integer> foodTypes = new LinkedHashMap<>();
+        int liked = 0;
+        int notLiked = 0;
+        int total = 0;
+        if (rows != null) {
+            for (FacetCount row : rows) {
+                if (RecipeFacetQuery.FACET_TOTAL.equals(row.facet)) {
+                    total = row.count;
+                } else if (row.value == null) {
+                    // Рецепты без значения фасета в счетчики значений не попадают
+                } else if (RecipeFacetQuery.FACET_MEAL_TYPE.equals(row.facet)) {
+                    mealTypes.put(row.value, row.count);
+                } else if (RecipeFacetQuery.FACET_FOOD_TYPE.equals(row.facet)) {
+                    foodTypes.put(row.value, row.count);
+                } else if (RecipeFacetQuery.FACET_LIKED.equals(row.facet)) {
+                    if ("1".equals(row.value)) {
+                        liked = row.count;
+                    } else {
+                        notLiked = row.count;
+                    }
+                }
+            }
+        }
+        return new RecipeFacetCounts(mealTypes, foodTypes, liked, notLiked, total);
+    }
+
+    public String getFacet() {
+        return facet;
+    }
+
+    public void setFacet(String facet) {
+        this.facet = facet;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.cooking.data.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * Data Access Object (DAO) для негативного кэша отсутствующих на сервере рецептов {@link MissingRecipeEntity}.
+ */
+@Dao
+public interface MissingRecipeDao {
+
+    /**
+     * ID из списка, отсутствие которых на сервере подтверждено не раньше notBefore.
+     * Список ID не должен превышать {@link RecipeDao#MAX_BIND_ARGS}.
+     */
+    @Query("SELECT recipeId FROM missing_recipes WHERE recipeId IN (:recipeIds) AND checkedAt >= :notBefore")
+    List<Integer> getKnownMissingIds(List<Integer> recipeIds, long notBefore);
+
+    /**
+     * Запоминает отсутствующие рецепты, обновляя время проверки уже известных.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(List<MissingRecipeEntity> recipes);
+
+    /**
+     * Удаляет устаревшие записи.
+     */
+    @Query("DELETE FROM missing_recipes WHERE checkedAt < :notBefore")
+    void deleteOlderThan(long notBefore);
+
+    @Query("DELETE FROM missing_recipes")
+    void deleteAll();
+}
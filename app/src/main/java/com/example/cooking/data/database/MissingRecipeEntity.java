@@ -0,0 +1,38 @@
+package com.example.cooking.data.database;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Негативный кэш: ID рецепта, который сервер вернул в результатах поиска или чата,
+ * но не нашел при загрузке по ID (рецепт удален). Пока запись не устарела,
+ * повторная загрузка этого ID не выполняется.
+ */
+@Entity(tableName = "missing_recipes")
+public class MissingRecipeEntity {
+
+    @PrimaryKey
+    private int recipeId;
+    private long checkedAt;      // Время ответа сервера без этого рецепта, мс
+
+    public MissingRecipeEntity(int recipeId, long checkedAt) {
+        this.recipeId = recipeId;
+        this.checkedAt = checkedAt;
+    }
+
+    public int getRecipeId() {
+        return recipeId;
+    }
+
+    public void setRecipeId(int recipeId) {
+        this.recipeId = recipeId;
+    }
+
+    public long getCheckedAt() {
+        return checkedAt;
+    }
+
+    public void setCheckedAt(long checkedAt) {
+        this.checkedAt = checkedAt;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.cooking.data.database;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * Data Access Object (DAO) для очереди неотправленных изменений {@link PendingMutationEntity}.
+ */
+@Dao
+public interface PendingMutationDao {
+
+    /**
+     * Добавляет изменение в конец очереди.
+     * @return ID записи, он же порядковый номер в очереди
+     */
+    @Insert
+    long insert(PendingMutationEntity mutation);
+
+    /**
+     * Все изменения в порядке их создания.
+     */
+    @Query("SELECT * FROM pending_mutations ORDER BY id ASC")
+    List<PendingMutationEntity> getAll();
+
+    /**
+     * Изменения лайков в порядке их создания. Последняя запись по рецепту задает его локальный статус.
+     */
+    @Query("SELECT * FROM pending_mutations WHERE type = 'LIKE' ORDER BY id ASC")
+    List<PendingMutationEntity> getPendingLikes();
+
+    /**
+     * Последнее изменение лайка рецепта в очереди или null.
+     */
+    @Query("SELECT * FROM pending_mutations WHERE type = 'LIKE' AND recipeId = :recipeId ORDER BY id DESC LIMIT 1")
+    PendingMutationEntity getLastPendingLike(int recipeId);
+
+    /**
+     * ID рецептов, содержимое которых изменено локально и еще не отправлено.
+     * Синхронизация не должна перезаписывать или удалять такие строки.
+     */
+    @Query("SELECT DISTINCT recipeId FROM pending_mutations WHERE type != 'LIKE'")
+    List<Integer> getRecipeIdsWithPendingChanges();
+
+    /**
+     * Наименьший ID рецепта в очереди. Временные ID новых рецептов не должны совпадать
+     * с ID, на которые еще ссылаются неотправленные изменения.
+     */
+    @Query("SELECT COALESCE(MIN(recipeId), 0) FROM pending_mutations")
+    int getMinRecipeId();
+
+    /**
+     * Количество изменений, добавленных в очередь после изменения с указанным ID.
+     */
+    @Query("SELECT COUNT(*) FROM pending_mutations WHERE id > :id")
+    int countNewerThan(long id);
+
+    /**
+     * Количество неотправленных изменений.
+     */
+    @Query("SELECT COUNT(*) FROM pending_mutations")
+    LiveData<Integer> observeCount();
+
+    /**
+     * Удаляет отправленное или отброшенное изменение.
+     */
+    @Query("DELETE FROM pending_mutations WHERE id = :id")
+    void deleteById(long id);
+
+    /**
+     * Удаляет отправленные изменения.
+     */
+    @Query("DELETE FROM pending_mutations WHERE id IN (:ids)")
+    void deleteByIds(List<Long> ids);
+
+    /**
+     * Удаляет все изменения рецепта.
+     */
+    @Query("DELETE FROM pending_mutations WHERE recipeId = :recipeId")
+    void deleteByRecipeId(int recipeId);
+
+    /**
+     * Фиксирует неудачную попытку отправки.
+     */
+    @Query("UPDATE pending_mutations SET attempts = attempts + 1, lastError = :error WHERE id = :id")
+    void recordFailure(long id, String error);
+
+    /**
+     * Переносит изменения с временного ID нового рецепта на ID, выданный сервером.
+     */
+    @Query("UPDATE pending_mutations SET recipeId = :serverId WHERE recipeId = :tempId")
+    void remapRecipeId(int tempId, int serverId);
+
+    /**
+     * Полностью очищает очередь. Используется при выходе из аккаунта.
+     */
+    @Query("DELETE FROM pending_mutations")
+    void deleteAll();
+}
@@ -0,0 +1,142 @@
+package com.example.cooking.data.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Изменение рецепта, уже примененное к локальным таблицам, но еще не отправленное на сервер.
+ * Очередь (outbox) воспроизводится по возрастанию {@link #id}, поэтому изменения одного рецепта
+ * уходят на сервер в том порядке, в котором их сделал пользователь.
+ * Ключ идемпотентности отправляется в заголовке Idempotency-Key и позволяет серверу
+ * не применять повторно запрос, ответ на который потерялся.
+ */
+@Entity(tableName = "pending_mutations",
+        indices = {@Index(value = "idempotencyKey", unique = true), @Index("recipeId")})
+public class PendingMutationEntity {
+
+    public static final String TYPE_LIKE = "LIKE";
+    public static final String TYPE_CREATE = "CREATE";
+    public static final String TYPE_UPDATE = "UPDATE";
+    public static final String TYPE_DELETE = "DELETE";
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+    @NonNull
+    private String idempotencyKey;
+    @NonNull
+    private String type;
+    private int recipeId;        // Для нового рецепта - временный отрицательный ID до ответа сервера
+    private boolean liked;       // Целевой статус лайка для TYPE_LIKE
+    private String payload;      // Рецепт в JSON для TYPE_CREATE и TYPE_UPDATE
+    private String imagePath;    // Файл с новым изображением рецепта или null
+    private long createdAt;
+    private int attempts;        // Количество неудачных попыток отправки
+    private String lastError;
+
+    public PendingMutationEntity(@NonNull String idempotencyKey, @NonNull String type, int recipeId,
+                                 boolean liked, String payload, String imagePath, long createdAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.type = type;
+        this.recipeId = recipeId;
+        this.liked = liked;
+        this.payload = payload;
+        this.imagePath = imagePath;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    @NonNull
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(@NonNull String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    @NonNull
+    public String getType() {
+        return type;
+    }
+
+    public void setType(@NonNull String type) {
+        this.type = type;
+    }
+
+    public int getRecipeId() {
+        return recipeId;
+    }
+
+    public void setRecipeId(int recipeId) {
+        this.recipeId = recipeId;
+    }
+
+    public boolean isLiked() {
+        return liked;
+    }
+
+    public void setLiked(boolean liked) {
+        this.liked = liked;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "PendingMutationEntity{" +
+                "id=" + id +
+                ", type='" + type + '\'' +
+                ", recipeId=" + recipeId +
+                ", liked=" + liked +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.cooking.data.database;
+
+import androidx.annotation.NonNull;
+
+import com.example.cooking.domain.entities.Recipe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Облегченная проекция рецепта для списков (карточек).
+ * Содержит только столбцы, которые отображает {@link com.example.cooking.ui.adapters.Recipe.RecipeListAdapter}:
+ * ID, название, фото и статус лайка. Ингредиенты и шаги не загружаются —
+ * полный рецепт читается только при открытии экрана деталей.
+ */
+public class RecipeCard {
+    private int id;
+    private String title;
+    private String photo_url;
+    private boolean isLiked;
+
+    public RecipeCard() {
+    }
+
+    /**
+     * Преобразует карточку в доменную модель {@link Recipe} с пустыми списками ингредиентов и шагов.
+     */
+    public Recipe toRecipe() {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setTitle(title);
+        recipe.setPhoto_url(photo_url);
+        recipe.setLiked(isLiked);
+        recipe.setIngredients(new ArrayList<>());
+        recipe.setSteps(new ArrayList<>());
+        return recipe;
+    }
+
+    /**
+     * Преобразует список карточек в список доменных моделей.
+     */
+    public static List<Recipe> toRecipes(List<RecipeCard> cards) {
+        List<Recipe> recipes = new ArrayList<>();
+        if (cards == null) return recipes;
+        for (RecipeCard card : cards) {
+            recipes.add(card.toRecipe());
+        }
+        return recipes;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getPhoto_url() {
+        return photo_url;
+    }
+
+    public void setPhoto_url(String photo_url) {
+        this.photo_url = photo_url;
+    }
+
+    public boolean isLiked() {
+        return isLiked;
+    }
+
+    public void setLiked(boolean liked) {
+        isLiked = liked;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RecipeCard that = (RecipeCard) o;
+        return id == that.id &&
+               isLiked == that.isLiked &&
+               Objects.equals(title, that.title) &&
+               Objects.equals(photo_url, that.photo_url);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, photo_url, isLiked);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "RecipeCard{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", isLiked=" + isLiked +
+                '}';
+    }
+}
@@ -5,10 +5,14 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RawQuery;
 import androidx.room.Update;
 import androidx.room.Delete;
 import androidx.room.Transaction;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -17,12 +21,19 @@ import java.util.List;
  */
 @Dao
 public interface RecipeDao {
+
+    /**
+     * Максимальное число параметров в одном запросе со списком ID.
+     * SQLite на старых версиях Android ограничивает запрос 999 параметрами.
+     */
+    int MAX_BIND_ARGS = 900;
     
     /**
-     * Получает все рецепты из базы данных, отсортированные по названию.
+     * Получает все рецепты вместе с ингредиентами и шагами, отсортированные по названию.
      */
+    @Transaction
     @Query("SELECT * FROM recipes ORDER BY title ASC")
-    LiveData<List<RecipeEntity>> getAllRecipes();
+    LiveData<List<RecipeWithDetails>> getAllRecipes();
     
     /**
      * Получает все рецепты из базы данных, отсортированные по названию.
@@ -37,11 +48,12 @@ public interface RecipeDao {
     RecipeEntity getRecipeById(int recipeId);
     
     /**
-     * Получает рецепт по его уникальному идентификатору (ID) синхронно
+     * Получает рецепт вместе с ингредиентами и шагами по его ID синхронно
      */
+    @Transaction
     @Query("SELECT * FROM recipes WHERE id = :recipeId")
-    RecipeEntity getRecipeByIdSync(int recipeId);
-    
+    RecipeWithDetails getRecipeByIdSync(int recipeId);
+
     /**
      * Вставляет список рецептов в базу данных.
      */
@@ -91,6 +103,12 @@ public interface RecipeDao {
      */
     @Query("UPDATE recipes SET isLiked = :isLiked WHERE id = :recipeId")
     void updateLikeStatus(int recipeId, boolean isLiked);
+
+    /**
+     * Обновляет URL изображения рецепта, например после загрузки изображения на сервер.
+     */
+    @Query("UPDATE recipes SET photo_url = :photoUrl WHERE id = :recipeId")
+    void updatePhotoUrl(int recipeId, String photoUrl);
     
     /**
      * Удаляет указанный рецепт из базы данных.
@@ -106,20 +124,23 @@ public interface RecipeDao {
 
     /**
      * Получает список рецептов, отфильтрованных по типу приема пищи (mealType), отсортированных по названию.*/
+    @Transaction
     @Query("SELECT * FROM recipes WHERE mealType = :mealType ")
-    List<RecipeEntity> getRecipesByMealType(String mealType);
+    List<RecipeWithDetails> getRecipesByMealType(String mealType);
 
     /**
      * Получает список рецептов, отфильтрованных по типу блюда (foodType), отсортированных по названию.
      */
+    @Transaction
     @Query("SELECT * FROM recipes WHERE foodType = :foodType ")
-    List<RecipeEntity> getRecipesByFoodType(String foodType);
+    List<RecipeWithDetails> getRecipesByFoodType(String foodType);
 
     /**
-     * Получает все рецепты из базы данных.
+     * Получает все рецепты вместе с ингредиентами и шагами.
      */
+    @Transaction
     @Query("SELECT * FROM recipes ORDER BY title ASC")
-    List<RecipeEntity> getAllRecipesSync();
+    List<RecipeWithDetails> getAllRecipesSync();
 
     /**
      * Сбрасывает статус лайка для всех рецептов.
@@ -127,15 +148,6 @@ public interface RecipeDao {
     @Query("UPDATE recipes SET isLiked = 0")
     void clearAllLikeStatus();
 
-    /**
-     * Транзакционный метод для атомарного удаления и вставки всех рецептов
-     */
-    @Transaction
-    default void replaceAllRecipes(List<RecipeEntity> recipes) {
-        deleteAll();
-        insertAll(recipes);
-    }
-
     /**
      * Получает все ID рецептов из базы данных.
      * Используется для определения какие рецепты нужно добавить, обновить или удалить.
@@ -144,6 +156,33 @@ public interface RecipeDao {
     @Query("SELECT id FROM recipes")
     List<Integer> getAllRecipeIds();
 
+    /**
+     * ID из списка, рецепты с которыми есть в базе.
+     * Список ID не должен превышать {@link #MAX_BIND_ARGS}.
+     */
+    @Query("SELECT id FROM recipes WHERE id IN (:recipeIds)")
+    List<Integer> getExistingRecipeIds(List<Integer> recipeIds);
+
+    /**
+     * Наименьший ID рецепта в базе. Используется для выдачи временных отрицательных ID
+     * рецептам, созданным без подключения к сети.
+     */
+    @Query("SELECT COALESCE(MIN(id), 0) FROM recipes")
+    int getMinRecipeId();
+
+    /**
+     * Получает ID, хэш содержимого и статус лайка всех рецептов.
+     * Используется для сравнения с данными сервера без чтения ингредиентов и шагов.
+     */
+    @Query("SELECT id, contentHash, isLiked FROM recipes")
+    List<RecipeRowState> getRecipeRowStates();
+
+    /**
+     * Устанавливает статус "лайк" для списка рецептов.
+     */
+    @Query("UPDATE recipes SET isLiked = :isLiked WHERE id IN (:recipeIds)")
+    void updateLikeStatusForIds(List<Integer> recipeIds, boolean isLiked);
+
     /**
      * Вставляет новые рецепты в базу данных, игнорируя конфликты.
      * Используется для добавления рецептов, которых ещё нет в базе.
@@ -167,4 +206,298 @@ public interface RecipeDao {
      */
     @Query("DELETE FROM recipes WHERE id IN (:idsToDelete)")
     void deleteRecipesByIds(List<Integer> idsToDelete);
-} 
\ No newline at end of file
+
+    // --- Полнотекстовый индекс recipes_fts ---
+
+    /**
+     * Вставляет или заменяет записи полнотекстового индекса.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertFtsEntries(List<RecipeFtsEntity> entries);
+
+    /**
+     * Удаляет записи полнотекстового индекса по ID рецептов.
+     */
+    @Query("DELETE FROM recipes_fts WHERE rowid IN (:recipeIds)")
+    void deleteFtsEntries(List<Integer> recipeIds);
+
+    /**
+     * Записи полнотекстового индекса по ID рецептов. Используются для построения
+     * ранжирующего индекса в памяти, см. {@link com.example.cooking.data.repositories.LocalSearchIndex}.
+     * Список ID не должен превышать {@link #MAX_BIND_ARGS}.
+     */
+    @Query("SELECT rowid, title, ingredients, instructions FROM recipes_fts WHERE rowid IN (:recipeIds)")
+    List<RecipeFtsEntity> getFtsEntries(List<Integer> recipeIds);
+
+    /**
+     * Полностью очищает полнотекстовый индекс.
+     */
+    @Query("DELETE FROM recipes_fts")
+    void deleteAllFtsEntries();
+
+    /**
+     * Полнотекстовый поиск по названию, ингредиентам и шагам.
+     * Результаты ранжируются по полю совпадения: сначала название, затем ингредиенты, затем шаги.
+     * Возвращает карточки: результаты поиска показываются в списках.
+     * @param matchQuery выражение MATCH, см. {@link RecipeFtsEntity#buildMatchQuery(String)}
+     */
+    @Query("SELECT recipes.id, recipes.title, recipes.photo_url, recipes.isLiked FROM recipes " +
+           "JOIN recipes_fts ON recipes.id = recipes_fts.rowid " +
+           "WHERE recipes_fts MATCH :matchQuery " +
+           "ORDER BY CASE " +
+           "WHEN recipes.id IN (SELECT rowid FROM recipes_fts WHERE title MATCH :matchQuery) THEN 0 " +
+           "WHEN recipes.id IN (SELECT rowid FROM recipes_fts WHERE ingredients MATCH :matchQuery) THEN 1 " +
+           "ELSE 2 END, recipes.title ASC")
+    List<RecipeCard> searchRecipesFts(String matchQuery);
+
+    // --- Облегченные карточки для списков ---
+
+    /**
+     * Получает карточки всех рецептов, отсортированные по названию.
+     */
+    @Query("SELECT id, title, photo_url, isLiked FROM recipes ORDER BY title ASC")
+    LiveData<List<RecipeCard>> getAllRecipeCards();
+
+    /**
+     * Получает карточки всех рецептов синхронно, отсортированные по названию.
+     */
+    @Query("SELECT id, title, photo_url, isLiked FROM recipes ORDER BY title ASC")
+    List<RecipeCard> getAllRecipeCardsSync();
+
+    /**
+     * Получает карточки лайкнутых рецептов, отсортированные по названию.
+     */
+    @Query("SELECT id, title, photo_url, isLiked FROM recipes WHERE isLiked = 1 ORDER BY title ASC")
+    LiveData<List<RecipeCard>> getLikedRecipeCards();
+
+    /**
+     * Получает карточки рецептов по списку ID. Порядок результата не гарантируется,
+     * список ID не должен превышать {@link #MAX_BIND_ARGS}.
+     */
+    @Query("SELECT id, title, photo_url, isLiked FROM recipes WHERE id IN (:recipeIds)")
+    List<RecipeCard> getRecipeCardsByIds(List<Integer> recipeIds);
+
+    // --- Фасетные фильтры, запросы собирает RecipeFacetQuery ---
+
+    /**
+     * Карточки рецептов по фасетному фильтру, см. {@link RecipeFacetQuery#cards}.
+     * Поток обновляется при изменении рецептов и их ингредиентов.
+     */
+    @RawQuery(observedEntities = {RecipeEntity.class, RecipeIngredientEntity.class})
+    LiveData<List<RecipeCard>> observeRecipeCardsByFacets(SupportSQLiteQuery query);
+
+    /**
+     * Счетчики фасетов одним агрегирующим запросом, см. {@link RecipeFacetQuery#counts}.
+     * Поток обновляется при изменении рецептов и их ингредиентов.
+     */
+    @RawQuery(observedEntities = {RecipeEntity.class, RecipeIngredientEntity.class})
+    LiveData<List<FacetCount>> observeFacetCounts(SupportSQLiteQuery query);
+
+    /**
+     * Карточки рецептов по фасетному фильтру, синхронно. Также используется для keyset-пагинации,
+     * см. {@link RecipeFacetQuery#cardsFirstPage}, {@link RecipeFacetQuery#cardsAfter}
+     * и {@link RecipeFacetQuery#cardsBefore}.
+     */
+    @RawQuery
+    List<RecipeCard> getRecipeCardsByFacets(SupportSQLiteQuery query);
+
+    /**
+     * Количество карточек по фасетному фильтру, см. {@link RecipeFacetQuery#count}
+     * и {@link RecipeFacetQuery#countBefore}.
+     */
+    @RawQuery
+    int countRecipeCardsByFacets(SupportSQLiteQuery query);
+
+    // --- Дочерние таблицы recipe_ingredients и recipe_steps ---
+
+    /**
+     * Вставляет или заменяет ингредиенты рецептов.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertIngredients(List<RecipeIngredientEntity> ingredients);
+
+    /**
+     * Вставляет или заменяет шаги рецептов.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertSteps(List<RecipeStepEntity> steps);
+
+    /**
+     * Обновляет один ингредиент без перезаписи остального рецепта.
+     */
+    @Update
+    void updateIngredient(RecipeIngredientEntity ingredient);
+
+    /**
+     * Обновляет один шаг без перезаписи остального рецепта.
+     */
+    @Update
+    void updateStep(RecipeStepEntity step);
+
+    /**
+     * Получает ингредиенты рецепта в исходном порядке.
+     */
+    @Query("SELECT * FROM recipe_ingredients WHERE recipeId = :recipeId ORDER BY position ASC")
+    List<RecipeIngredientEntity> getIngredientsForRecipe(int recipeId);
+
+    /**
+     * Получает ингредиенты нескольких рецептов, сгруппированные по рецепту.
+     * Список ID не должен превышать {@link #MAX_BIND_ARGS}.
+     */
+    @Query("SELECT * FROM recipe_ingredients WHERE recipeId IN (:recipeIds) ORDER BY recipeId, position ASC")
+    List<RecipeIngredientEntity> getIngredientsForRecipes(List<Integer> recipeIds);
+
+    /**
+     * Получает шаги рецепта в исходном порядке.
+     */
+    @Query("SELECT * FROM recipe_steps WHERE recipeId = :recipeId ORDER BY position ASC")
+    List<RecipeStepEntity> getStepsForRecipe(int recipeId);
+
+    /**
+     * Получает ID рецептов, содержащих ингредиент с указанным названием.
+     */
+    @Query("SELECT DISTINCT recipeId FROM recipe_ingredients WHERE name = :name")
+    List<Integer> getRecipeIdsByIngredientName(String name);
+
+    /**
+     * Удаляет ингредиенты рецепта, позиция которых больше или равна count.
+     * Используется после перезаписи ингредиентов, если их стало меньше.
+     */
+    @Query("DELETE FROM recipe_ingredients WHERE recipeId = :recipeId AND position >= :count")
+    void trimIngredients(int recipeId, int count);
+
+    /**
+     * Удаляет шаги рецепта, позиция которых больше или равна count.
+     */
+    @Query("DELETE FROM recipe_steps WHERE recipeId = :recipeId AND position >= :count")
+    void trimSteps(int recipeId, int count);
+
+    /**
+     * Полностью очищает таблицу ингредиентов.
+     */
+    @Query("DELETE FROM recipe_ingredients")
+    void deleteAllIngredients();
+
+    /**
+     * Полностью очищает таблицу шагов.
+     */
+    @Query("DELETE FROM recipe_steps")
+    void deleteAllSteps();
+
+    /**
+     * Вставляет ингредиенты и шаги для новых рецептов одной пачкой.
+     * Предполагается, что у рецептов еще нет дочерних записей.
+     */
+    default void insertDetails(List<RecipeEntity> recipes) {
+        List<RecipeIngredientEntity> ingredients = new ArrayList<>();
+        List<RecipeStepEntity> steps = new ArrayList<>();
+        for (RecipeEntity recipe : recipes) {
+            ingredients.addAll(RecipeIngredientEntity.fromIngredients(recipe.getId(), recipe.getIngredients()));
+            steps.addAll(RecipeStepEntity.fromSteps(recipe.getId(), recipe.getInstructions()));
+        }
+        if (!ingredients.isEmpty()) insertIngredients(ingredients);
+        if (!steps.isEmpty()) insertSteps(steps);
+    }
+
+    /**
+     * Перезаписывает ингредиенты и шаги существующего рецепта.
+     * Строки заменяются по позиции, лишние хвостовые строки удаляются.
+     */
+    default void replaceDetails(RecipeEntity recipe) {
+        List<RecipeIngredientEntity> ingredients =
+                RecipeIngredientEntity.fromIngredients(recipe.getId(), recipe.getIngredients());
+        List<RecipeStepEntity> steps = RecipeStepEntity.fromSteps(recipe.getId(), recipe.getInstructions());
+        if (!ingredients.isEmpty()) insertIngredients(ingredients);
+        if (!steps.isEmpty()) insertSteps(steps);
+        trimIngredients(recipe.getId(), ingredients.size());
+        trimSteps(recipe.getId(), steps.size());
+    }
+
+    /**
+     * Вставляет рецепт вместе с ингредиентами, шагами и записью полнотекстового индекса.
+     */
+    @Transaction
+    default void insertRecipe(RecipeEntity recipe) {
+        insert(recipe);
+        replaceDetails(recipe);
+        insertFtsEntries(Collections.singletonList(RecipeFtsEntity.fromEntity(recipe)));
+    }
+
+    /**
+     * Обновляет рецепт вместе с ингредиентами, шагами и записью полнотекстового индекса.
+     */
+    @Transaction
+    default void updateRecipe(RecipeEntity recipe) {
+        update(recipe);
+        replaceDetails(recipe);
+        insertFtsEntries(Collections.singletonList(RecipeFtsEntity.fromEntity(recipe)));
+    }
+
+    /**
+     * Удаляет рецепт вместе с записью полнотекстового индекса.
+     * Ингредиенты и шаги удаляются каскадно по внешнему ключу.
+     */
+    @Transaction
+    default void deleteRecipe(int recipeId) {
+        deleteById(recipeId);
+        deleteFtsEntries(Collections.singletonList(recipeId));
+    }
+
+    /**
+     * Применяет дифференциальные изменения к таблице рецептов, дочерним таблицам и индексу за одну транзакцию.
+     * Для рецептов, у которых изменился только статус лайка, обновляется один столбец isLiked.
+     * Списки ID обрабатываются пачками, чтобы не превысить лимит параметров запроса SQLite.
+     */
+    @Transaction
+    default void applyRecipeChanges(List<RecipeEntity> toInsert, List<RecipeEntity> toUpdate,
+                                    List<Integer> toLike, List<Integer> toUnlike, List<Integer> toDelete) {
+        for (int i = 0; i < toDelete.size(); i += MAX_BIND_ARGS) {
+            List<Integer> chunk = toDelete.subList(i, Math.min(i + MAX_BIND_ARGS, toDelete.size()));
+            deleteRecipesByIds(chunk);
+            deleteFtsEntries(chunk);
+        }
+        if (!toInsert.isEmpty()) {
+            insertNewRecipes(toInsert);
+            insertDetails(toInsert);
+            insertFtsEntries(RecipeFtsEntity.fromEntities(toInsert));
+        }
+        if (!toUpdate.isEmpty()) {
+            updateExistingRecipes(toUpdate);
+            for (RecipeEntity recipe : toUpdate) {
+                replaceDetails(recipe);
+            }
+            insertFtsEntries(RecipeFtsEntity.fromEntities(toUpdate));
+        }
+        for (int i = 0; i < toLike.size(); i += MAX_BIND_ARGS) {
+            updateLikeStatusForIds(toLike.subList(i, Math.min(i + MAX_BIND_ARGS, toLike.size())), true);
+        }
+        for (int i = 0; i < toUnlike.size(); i += MAX_BIND_ARGS) {
+            updateLikeStatusForIds(toUnlike.subList(i, Math.min(i + MAX_BIND_ARGS, toUnlike.size())), false);
+        }
+    }
+
+    /**
+     * Применяет инкрементальные изменения с сервера за одну транзакцию.
+     * Сначала удаляются рецепты из списка удаленных (tombstones), затем добавляются или обновляются измененные.
+     * Удаление выполняется пачками, чтобы не превысить лимит параметров запроса SQLite.
+     * @param upserts добавленные и измененные рецепты
+     * @param deletedIds ID рецептов, удаленных на сервере
+     */
+    @Transaction
+    default void applyRecipeDelta(List<RecipeEntity> upserts, List<Integer> deletedIds) {
+        for (int i = 0; i < deletedIds.size(); i += MAX_BIND_ARGS) {
+            List<Integer> chunk = deletedIds.subList(i, Math.min(i + MAX_BIND_ARGS, deletedIds.size()));
+            deleteRecipesByIds(chunk);
+            deleteFtsEntries(chunk);
+        }
+        if (!upserts.isEmpty()) {
+            // REPLACE удалил бы строку вместе с дочерними записями, поэтому вставка и обновление раздельно
+            insertNewRecipes(upserts);
+            updateExistingRecipes(upserts);
+            for (RecipeEntity recipe : upserts) {
+                replaceDetails(recipe);
+            }
+            insertFtsEntries(RecipeFtsEntity.fromEntities(upserts));
+        }
+    }
+}
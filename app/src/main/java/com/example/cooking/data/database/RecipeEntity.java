@@ -1,15 +1,14 @@
 package com.example.cooking.data.database;
 
 import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.Ignore;
 import androidx.room.PrimaryKey;
-import androidx.room.TypeConverters;
 
 import com.example.cooking.domain.entities.Ingredient;
 import com.example.cooking.domain.entities.Recipe;
 import com.example.cooking.domain.entities.Step;
-import com.example.cooking.data.database.converters.DataConverters;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,8 +16,9 @@ import java.util.Objects;
 
 /**
  * Представляет сущность рецепта для хранения в базе данных Room.
- * Использует {@link TypeConverters} для сохранения списков ингредиентов и шагов.
- * Поддерживает ленивую сериализацию для оптимизации производительности.
+ * Ингредиенты и шаги хранятся в дочерних таблицах {@link RecipeIngredientEntity}
+ * и {@link RecipeStepEntity}; поля {@code ingredients} и {@code instructions} не являются
+ * столбцами таблицы и заполняются только при записи или через {@link RecipeWithDetails}.
  */
 @Entity(tableName = "recipes", 
         indices = {
@@ -26,28 +26,25 @@ import java.util.Objects;
             @androidx.room.Index(value = "foodType", name = "index_foodType"),
             @androidx.room.Index(value = "title", name = "index_title")
         })
-@TypeConverters(DataConverters.class)
 public class RecipeEntity {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     @PrimaryKey
     private int id;
     private String title;        // Название рецепта
-    private List<Ingredient> ingredients; // Список ингредиентов
-    private List<Step> instructions;   // Список шагов приготовления
+    @Ignore
+    private List<Ingredient> ingredients; // Список ингредиентов (таблица recipe_ingredients)
+    @Ignore
+    private List<Step> instructions;   // Список шагов приготовления (таблица recipe_steps)
     private String created_at;
     private String userId;
     private String mealType;
     private String foodType;
     private String photo_url;
     private boolean isLiked;
-
-    @Ignore
-    private String cachedIngredientsJson;
-    @Ignore  
-    private String cachedInstructionsJson;
-    @Ignore
-    private boolean ingredientsCacheValid = false;
-    @Ignore
-    private boolean instructionsCacheValid = false;
+    @ColumnInfo(defaultValue = "0")
+    private long contentHash;    // Хэш содержимого рецепта без учета isLiked, см. computeContentHash
 
     /**
      * Конструктор по умолчанию.
@@ -59,6 +56,7 @@ public class RecipeEntity {
     /**
      * Создает сущность рецепта на основе доменной модели а.
      */
+    @Ignore
     public RecipeEntity(Recipe recipe) {
         this.id = recipe.getId();
         this.title = recipe.getTitle();
@@ -71,8 +69,61 @@ public class RecipeEntity {
         this.userId = recipe.getUserId();
         this.photo_url = recipe.getPhoto_url();
         this.isLiked = recipe.isLiked();
-        // Кэш инициализируется как невалидный
-        invalidateCache();
+        this.contentHash = computeContentHash();
+    }
+
+    /**
+     * Вычисляет 64-битный хэш FNV-1a по всем полям рецепта, пришедшим с сервера,
+     * включая ингредиенты и шаги. Статус лайка не учитывается: он меняется локально
+     * и сравнивается отдельно.
+     * @return хэш содержимого; 0 зарезервирован для строк, у которых хэш еще не вычислен
+     */
+    public long computeContentHash() {
+        long hash = FNV_OFFSET_BASIS;
+        hash = mix(hash, title);
+        hash = mix(hash, created_at);
+        hash = mix(hash, userId);
+        hash = mix(hash, mealType);
+        hash = mix(hash, foodType);
+        hash = mix(hash, photo_url);
+        if (ingredients != null) {
+            for (Ingredient ingredient : ingredients) {
+                if (ingredient == null) continue;
+                hash = mix(hash, ingredient.getName());
+                hash = mix(hash, Float.floatToIntBits(ingredient.getCount()));
+                hash = mix(hash, ingredient.getType());
+            }
+        }
+        hash = mix(hash, -1); // Разделитель между ингредиентами и шагами
+        if (instructions != null) {
+            for (Step step : instructions) {
+                if (step == null) continue;
+                hash = mix(hash, step.getNumber());
+                hash = mix(hash, step.getInstruction());
+                hash = mix(hash, step.getUrl());
+            }
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return mix(hash, 0x7fffffff);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        // Длина отделяет соседние строки друг от друга ("ab"+"c" != "a"+"bc")
+        return mix(hash, value.length());
+    }
+
+    private static long mix(long hash, int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            hash ^= (value >>> shift) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
     }
 
     /**
@@ -94,56 +145,6 @@ public class RecipeEntity {
         return recipe;
     }
 
-    // --- Методы для ленивой сериализации ---
-
-    /**
-     * Получает JSON представление списка ингредиентов с кэшированием.
-     * @return JSON строка или null если список пуст
-     */
-    public String getIngredientsJson() {
-        if (!ingredientsCacheValid || cachedIngredientsJson == null) {
-            cachedIngredientsJson = DataConverters.fromIngredientList(ingredients);
-            ingredientsCacheValid = true;
-        }
-        return cachedIngredientsJson;
-    }
-
-    /**
-     * Получает JSON представление списка инструкций с кэшированием.
-     * @return JSON строка или null если список пуст
-     */
-    public String getInstructionsJson() {
-        if (!instructionsCacheValid || cachedInstructionsJson == null) {
-            cachedInstructionsJson = DataConverters.fromStepList(instructions);
-            instructionsCacheValid = true;
-        }
-        return cachedInstructionsJson;
-    }
-
-    /**
-     * Инвалидирует весь кэш сериализации.
-     */
-    private void invalidateCache() {
-        invalidateIngredientsCache();
-        invalidateInstructionsCache();
-    }
-
-    /**
-     * Инвалидирует кэш ингредиентов.
-     */
-    private void invalidateIngredientsCache() {
-        ingredientsCacheValid = false;
-        cachedIngredientsJson = null;
-    }
-
-    /**
-     * Инвалидирует кэш инструкций.
-     */
-    private void invalidateInstructionsCache() {
-        instructionsCacheValid = false;
-        cachedInstructionsJson = null;
-    }
-
     // Геттеры и сеттеры
     public int getId() {
         return id;
@@ -167,8 +168,6 @@ public class RecipeEntity {
 
     public void setIngredients(List<Ingredient> ingredients) {
         this.ingredients = ingredients;
-        // Инвалидируем кэш при изменении данных
-        invalidateIngredientsCache();
     }
 
     public List<Step> getInstructions() {
@@ -177,8 +176,6 @@ public class RecipeEntity {
 
     public void setInstructions(List<Step> instructions) {
         this.instructions = instructions;
-        // Инвалидируем кэш при изменении данных
-        invalidateInstructionsCache();
     }
 
     public String getMealType() {
@@ -227,35 +224,12 @@ public class RecipeEntity {
         isLiked = liked;
     }
 
-    // --- Дополнительные утилитные методы ---
-
-    /**
-     * Проверяет, валиден ли кэш ингредиентов.
-     * @return true если кэш валиден
-     */
-    @Ignore
-    public boolean isIngredientsCacheValid() {
-        return ingredientsCacheValid;
-    }
-
-    /**
-     * Проверяет, валиден ли кэш инструкций.
-     * @return true если кэш валиден
-     */
-    @Ignore
-    public boolean isInstructionsCacheValid() {
-        return instructionsCacheValid;
+    public long getContentHash() {
+        return contentHash;
     }
 
-    /**
-     * Принудительно обновляет кэш сериализации.
-     */
-    @Ignore
-    public void refreshCache() {
-        invalidateCache();
-        // Заранее загружаем кэш
-        getIngredientsJson();
-        getInstructionsJson();
+    public void setContentHash(long contentHash) {
+        this.contentHash = contentHash;
     }
 
     @Override
@@ -289,7 +263,6 @@ public class RecipeEntity {
                 ", isLiked=" + isLiked +
                 ", mealType='" + mealType + '\'' +
                 ", foodType='" + foodType + '\'' +
-                ", cacheValid=[ingredients:" + ingredientsCacheValid + ", instructions:" + instructionsCacheValid + "]" +
                 '}';
     }
 } 
\ No newline at end of file
@@ -0,0 +1,210 @@
+package com.example.cooking.data.database;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import com.example.cooking.domain.entities.RecipeFilter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Компилирует {@link RecipeFilter} в один параметризованный SQL-запрос для {@link RecipeDao}.
+ * Значения фильтров передаются только через параметры, в текст запроса попадают лишь имена столбцов.
+ * Типы приема пищи и блюда проверяются через IN, что позволяет использовать индексы
+ * index_mealType и index_foodType, ингредиенты - через подзапросы по index_recipe_ingredients_name.
+ * <p>
+ * Счетчики фасетов считаются по принципу дизъюнктивных фасетов: для значений фасета применяются
+ * все фильтры, кроме фильтра этого же фасета, поэтому счетчик показывает, сколько рецептов
+ * будет найдено, если добавить значение к выбору.
+ * <p>
+ * Для keyset-пагинации по (title, id) условие ключа тоже собирается здесь: в запрос попадают
+ * только заданные фильтры, без конструкций вида (:param IS NULL OR column = :param),
+ * которые не дают SQLite использовать индексы. NULL в title сортируется первым,
+ * поэтому вариант условия выбирается по тому, известен ли title ключа.
+ */
+public final class RecipeFacetQuery {
+
+    public static final String FACET_MEAL_TYPE = "meal_type";
+    public static final String FACET_FOOD_TYPE = "food_type";
+    public static final String FACET_LIKED = "liked";
+    public static final String FACET_TOTAL = "total";
+
+    private static final String CARD_COLUMNS = "id, title, photo_url, isLiked";
+
+    private RecipeFacetQuery() {
+    }
+
+    /**
+     * Запрос карточек рецептов, удовлетворяющих фильтру, в порядке (title, id).
+     * Результат - {@link RecipeCard}.
+     */
+    public static SupportSQLiteQuery cards(RecipeFilter filter) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + CARD_COLUMNS + " FROM recipes" + where(filter, null, args)
+                + " ORDER BY title ASC, id ASC";
+        return new SimpleSQLiteQuery(sql, args.toArray());
+    }
+
+    /**
+     * Первая страница карточек в порядке (title, id). Результат - {@link RecipeCard}.
+     */
+    public static SupportSQLiteQuery cardsFirstPage(RecipeFilter filter, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + CARD_COLUMNS + " FROM recipes" + where(filter, null, args)
+                + " ORDER BY title ASC, id ASC LIMIT ?";
+        args.add(limit);
+        return new SimpleSQLiteQuery(sql, args.toArray());
+    }
+
+    /**
+     * Страница карточек, следующих строго после ключа (title, id). Результат - {@link RecipeCard}.
+     */
+    public static SupportSQLiteQuery cardsAfter(RecipeFilter filter, String title, int id, int limit) {
+        List<Object> args = new ArrayList<>();
+        List<String> conditions = conditions(filter, null, args);
+        if (title == null) {
+            conditions.add("(title IS NOT NULL OR id > ?)");
+            args.add(id);
+        } else {
+            conditions.add("(title > ? OR (title = ? AND id > ?))");
+            args.add(title);
+            args.add(title);
+            args.add(id);
+        }
+        String sql = "SELECT " + CARD_COLUMNS + " FROM recipes" + join(conditions)
+                + " ORDER BY title ASC, id ASC LIMIT ?";
+        args.add(limit);
+        return new SimpleSQLiteQuery(sql, args.toArray());
+    }
+
+    /**
+     * Страница карточек, предшествующих строго ключу (title, id), в обратном порядке.
+     * Результат - {@link RecipeCard}.
+     */
+    public static SupportSQLiteQuery cardsBefore(RecipeFilter filter, String title, int id, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + CARD_COLUMNS + " FROM recipes" + join(before(filter, title, id, args))
+                + " ORDER BY title DESC, id DESC LIMIT ?";
+        args.add(limit);
+        return new SimpleSQLiteQuery(sql, args.toArray());
+    }
+
+    /**
+     * Количество карточек, удовлетворяющих фильтру. Результат - одно число.
+     */
+    public static SupportSQLiteQuery count(RecipeFilter filter) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM recipes" + where(filter, null, args);
+        return new SimpleSQLiteQuery(sql, args.toArray());
+    }
+
+    /**
+     * Количество карточек, предшествующих ключу (title, id). Результат - одно число.
+     */
+    public static SupportSQLiteQuery countBefore(RecipeFilter filter, String title, int id) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM recipes" + join(before(filter, title, id, args));
+        return new SimpleSQLiteQuery(sql, args.toArray());
+    }
+
+    /**
+     * Один агрегирующий запрос счетчиков всех фасетов и общего числа результатов.
+     * Результат - {@link FacetCount}.
+     */
+    public static SupportSQLiteQuery counts(RecipeFilter filter) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT '" + FACET_MEAL_TYPE + "' AS facet, mealType AS value, COUNT(*) AS count FROM recipes"
+                + where(filter, FACET_MEAL_TYPE, args) + " GROUP BY mealType"
+                + " UNION ALL "
+                + "SELECT '" + FACET_FOOD_TYPE + "', foodType, COUNT(*) FROM recipes"
+                + where(filter, FACET_FOOD_TYPE, args) + " GROUP BY foodType"
+                + " UNION ALL "
+                + "SELECT '" + FACET_LIKED + "', CAST(isLiked AS TEXT), COUNT(*) FROM recipes"
+                + where(filter, FACET_LIKED, args) + " GROUP BY isLiked"
+                + " UNION ALL "
+                + "SELECT '" + FACET_TOTAL + "', NULL, COUNT(*) FROM recipes"
+                + where(filter, null, args);
+        return new SimpleSQLiteQuery(sql, args.toArray());
+    }
+
+    /**
+     * Условие WHERE для фильтра (с ведущим пробелом) или пустая строка, если фильтров нет.
+     * @param skippedFacet фасет, фильтр которого не применяется, или null
+     * @param args список, в который добавляются параметры в порядке их появления в условии
+     */
+    private static String where(RecipeFilter filter, String skippedFacet, List<Object> args) {
+        return join(conditions(filter, skippedFacet, args));
+    }
+
+    /**
+     * Условия фильтра и условие "строго перед ключом (title, id)".
+     */
+    private static List<String> before(RecipeFilter filter, String title, int id, List<Object> args) {
+        List<String> conditions = conditions(filter, null, args);
+        if (title == null) {
+            conditions.add("title IS NULL AND id < ?");
+            args.add(id);
+        } else {
+            conditions.add("(title IS NULL OR title < ? OR (title = ? AND id < ?))");
+            args.add(title);
+            args.add(title);
+            args.add(id);
+        }
+        return conditions;
+    }
+
+    /**
+     * Условия фильтра без ключевого слова WHERE, параметры добавляются в args.
+     */
+    private static List<String> conditions(RecipeFilter filter, String skippedFacet, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (!FACET_MEAL_TYPE.equals(skippedFacet) && !filter.getMealTypes().isEmpty()) {
+            conditions.add("mealType IN (" + placeholders(filter.getMealTypes(), args) + ")");
+        }
+        if (!FACET_FOOD_TYPE.equals(skippedFacet) && !filter.getFoodTypes().isEmpty()) {
+            conditions.add("foodType IN (" + placeholders(filter.getFoodTypes(), args) + ")");
+        }
+        if (!FACET_LIKED.equals(skippedFacet) && filter.getLiked() != null) {
+            conditions.add("isLiked = ?");
+            args.add(filter.getLiked() ? 1 : 0);
+        }
+        if (filter.getAuthorId() != null) {
+            conditions.add("userId = ?");
+            args.add(filter.getAuthorId());
+        }
+        for (String ingredient : filter.getIncludedIngredients()) {
+            conditions.add("id IN (SELECT recipeId FROM recipe_ingredients WHERE name = ?)");
+            args.add(ingredient);
+        }
+        if (!filter.getExcludedIngredients().isEmpty()) {
+            conditions.add("id NOT IN (SELECT recipeId FROM recipe_ingredients WHERE name IN ("
+                    + placeholders(filter.getExcludedIngredients(), args) + "))");
+        }
+        return conditions;
+    }
+
+    /**
+     * Объединяет условия через AND в WHERE (с ведущим пробелом) или возвращает пустую строку.
+     */
+    private static String join(List<String> conditions) {
+        if (conditions.isEmpty()) return "";
+        StringBuilder sb = new StringBuilder(" WHERE ");
+        for (int i = 0; i < conditions.size(); i++) {
+            if (i > 0) sb.append(" AND ");
+            sb.append(conditions.get(i));
+        }
+        return sb.toString();
+    }
+
+    private static String placeholders(Collection<String> values, List<Object> args) {
+        StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append('?');
+            args.add(value);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.cooking.data.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+import com.example.cooking.domain.entities.Ingredient;
+import com.example.cooking.domain.entities.Step;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Полнотекстовый индекс (FTS4) по рецептам.
+ * Хранит название, названия ингредиентов и текст шагов приготовления.
+ * rowid совпадает с {@link RecipeEntity#getId()}, синхронизация с таблицей recipes
+ * выполняется транзакционными методами {@link RecipeDao}.
+ */
+@Fts4(tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "recipes_fts")
+public class RecipeFtsEntity {
+
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private int rowId;
+    private String title;
+    private String ingredients;  // Названия ингредиентов через пробел
+    private String instructions; // Текст всех шагов через пробел
+
+    public RecipeFtsEntity() {
+    }
+
+    /**
+     * Создает запись индекса на основе сущности рецепта.
+     */
+    public static RecipeFtsEntity fromEntity(RecipeEntity entity) {
+        RecipeFtsEntity fts = new RecipeFtsEntity();
+        fts.rowId = entity.getId();
+        fts.title = entity.getTitle();
+        fts.ingredients = joinIngredientNames(entity.getIngredients());
+        fts.instructions = joinInstructions(entity.getInstructions());
+        return fts;
+    }
+
+    /**
+     * Создает записи индекса для списка сущностей рецептов.
+     */
+    public static List<RecipeFtsEntity> fromEntities(List<RecipeEntity> entities) {
+        List<RecipeFtsEntity> entries = new ArrayList<>(entities.size());
+        for (RecipeEntity entity : entities) {
+            entries.add(fromEntity(entity));
+        }
+        return entries;
+    }
+
+    /**
+     * Склеивает названия ингредиентов в одну строку для индексации.
+     */
+    public static String joinIngredientNames(List<Ingredient> ingredients) {
+        if (ingredients == null || ingredients.isEmpty()) return "";
+        StringBuilder sb = new StringBuilder();
+        for (Ingredient ingredient : ingredients) {
+            if (ingredient != null && ingredient.getName() != null) {
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(ingredient.getName());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Склеивает текст шагов в одну строку для индексации.
+     */
+    public static String joinInstructions(List<Step> steps) {
+        if (steps == null || steps.isEmpty()) return "";
+        StringBuilder sb = new StringBuilder();
+        for (Step step : steps) {
+            if (step != null && step.getInstruction() != null) {
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(step.getInstruction());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Преобразует пользовательский запрос в выражение для FTS MATCH.
+     * Каждое слово превращается в префиксный терм ("борщ" -> "борщ*"), термы объединяются через AND.
+     * Спецсимволы синтаксиса FTS отбрасываются.
+     * @return выражение MATCH или null, если в запросе нет ни одного слова
+     */
+    public static String buildMatchQuery(String query) {
+        if (query == null) return null;
+        String[] tokens = query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        StringBuilder sb = new StringBuilder();
+        for (String token : tokens) {
+            if (token.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(token).append('*');
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+
+    public int getRowId() {
+        return rowId;
+    }
+
+    public void setRowId(int rowId) {
+        this.rowId = rowId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getIngredients() {
+        return ingredients;
+    }
+
+    public void setIngredients(String ingredients) {
+        this.ingredients = ingredients;
+    }
+
+    public String getInstructions() {
+        return instructions;
+    }
+
+    public void setInstructions(String instructions) {
+        this.instructions = instructions;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "RecipeFtsEntity{" +
+                "rowId=" + rowId +
+                ", title='" + title + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.cooking.data.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+import com.example.cooking.domain.entities.Ingredient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Ингредиент рецепта, хранящийся в отдельной таблице recipe_ingredients.
+ * Строка идентифицируется парой (recipeId, position), что позволяет
+ * обновлять отдельный ингредиент без перезаписи всего рецепта.
+ * При удалении рецепта ингредиенты удаляются каскадно.
+ */
+@Entity(tableName = "recipe_ingredients",
+        primaryKeys = {"recipeId", "position"},
+        foreignKeys = @ForeignKey(
+                entity = RecipeEntity.class,
+                parentColumns = "id",
+                childColumns = "recipeId",
+                onDelete = ForeignKey.CASCADE),
+        indices = {
+            @Index(value = "name", name = "index_recipe_ingredients_name")
+        })
+public class RecipeIngredientEntity {
+    private int recipeId;
+    private int position;   // Порядковый номер ингредиента в рецепте, начиная с 0
+    private String name;
+    private float count;
+    private String type;
+
+    public RecipeIngredientEntity() {
+    }
+
+    /**
+     * Создает строки таблицы для списка ингредиентов рецепта.
+     */
+    public static List<RecipeIngredientEntity> fromIngredients(int recipeId, List<Ingredient> ingredients) {
+        List<RecipeIngredientEntity> rows = new ArrayList<>();
+        if (ingredients == null) return rows;
+        for (int i = 0; i < ingredients.size(); i++) {
+            Ingredient ingredient = ingredients.get(i);
+            if (ingredient == null) continue;
+            RecipeIngredientEntity row = new RecipeIngredientEntity();
+            row.recipeId = recipeId;
+            row.position = rows.size();
+            row.name = ingredient.getName();
+            row.count = ingredient.getCount();
+            row.type = ingredient.getType();
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Преобразует строку таблицы в доменную модель {@link Ingredient}.
+     */
+    public Ingredient toIngredient() {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName(name);
+        ingredient.setCount(count);
+        ingredient.setType(type);
+        return ingredient;
+    }
+
+    public int getRecipeId() {
+        return recipeId;
+    }
+
+    public void setRecipeId(int recipeId) {
+        this.recipeId = recipeId;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public float getCount() {
+        return count;
+    }
+
+    public void setCount(float count) {
+        this.count = count;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RecipeIngredientEntity that = (RecipeIngredientEntity) o;
+        return recipeId == that.recipeId &&
+               position == that.position &&
+               Float.compare(count, that.count) == 0 &&
+               Objects.equals(name, that.name) &&
+               Objects.equals(type, that.type);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(recipeId, position, name, count, type);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "RecipeIngredientEntity{" +
+                "recipeId=" + recipeId +
+                ", position=" + position +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
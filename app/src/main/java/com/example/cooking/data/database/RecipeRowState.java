@@ -0,0 +1,39 @@
+package com.example.cooking.data.database;
+
+/**
+ * Проекция строки рецепта для сравнения с данными сервера:
+ * ID, хэш содержимого и статус лайка. Позволяет определить измененные рецепты,
+ * не загружая ингредиенты и шаги.
+ */
+public class RecipeRowState {
+    private int id;
+    private long contentHash;
+    private boolean isLiked;
+
+    public RecipeRowState() {
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(long contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public boolean isLiked() {
+        return isLiked;
+    }
+
+    public void setLiked(boolean liked) {
+        isLiked = liked;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.cooking.data.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+
+import com.example.cooking.domain.entities.Step;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Шаг приготовления рецепта, хранящийся в отдельной таблице recipe_steps.
+ * Строка идентифицируется парой (recipeId, position).
+ * При удалении рецепта шаги удаляются каскадно.
+ */
+@Entity(tableName = "recipe_steps",
+        primaryKeys = {"recipeId", "position"},
+        foreignKeys = @ForeignKey(
+                entity = RecipeEntity.class,
+                parentColumns = "id",
+                childColumns = "recipeId",
+                onDelete = ForeignKey.CASCADE))
+public class RecipeStepEntity {
+    private int recipeId;
+    private int position;   // Порядковый номер шага в списке, начиная с 0
+    private int number;     // Номер шага, отображаемый пользователю
+    private String instruction;
+    private String url;
+
+    public RecipeStepEntity() {
+    }
+
+    /**
+     * Создает строки таблицы для списка шагов рецепта.
+     * Некорректные номера шагов (<= 0) заменяются порядковым номером.
+     */
+    public static List<RecipeStepEntity> fromSteps(int recipeId, List<Step> steps) {
+        List<RecipeStepEntity> rows = new ArrayList<>();
+        if (steps == null) return rows;
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            if (step == null) continue;
+            RecipeStepEntity row = new RecipeStepEntity();
+            row.recipeId = recipeId;
+            row.position = rows.size();
+            row.number = step.getNumber() > 0 ? step.getNumber() : row.position + 1;
+            row.instruction = step.getInstruction();
+            row.url = step.getUrl();
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Преобразует строку таблицы в доменную модель {@link Step}.
+     */
+    public Step toStep() {
+        Step step = new Step();
+        step.setNumber(number);
+        step.setInstruction(instruction);
+        step.setUrl(url);
+        return step;
+    }
+
+    public int getRecipeId() {
+        return recipeId;
+    }
+
+    public void setRecipeId(int recipeId) {
+        this.recipeId = recipeId;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public void setNumber(int number) {
+        this.number = number;
+    }
+
+    public String getInstruction() {
+        return instruction;
+    }
+
+    public void setInstruction(String instruction) {
+        this.instruction = instruction;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RecipeStepEntity that = (RecipeStepEntity) o;
+        return recipeId == that.recipeId &&
+               position == that.position &&
+               number == that.number &&
+               Objects.equals(instruction, that.instruction) &&
+               Objects.equals(url, that.url);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(recipeId, position, number, instruction, url);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "RecipeStepEntity{" +
+                "recipeId=" + recipeId +
+                ", position=" + position +
+                ", number=" + number +
+                '}';
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.cooking.data.database;
+
+import androidx.room.Embedded;
+import androidx.room.Relation;
+
+import com.example.cooking.domain.entities.Ingredient;
+import com.example.cooking.domain.entities.Recipe;
+import com.example.cooking.domain.entities.Step;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Рецепт вместе с ингредиентами и шагами, загружаемыми Room через {@link Relation}.
+ * Используется DAO-запросами, которым нужен полный рецепт.
+ */
+public class RecipeWithDetails {
+
+    @Embedded
+    public RecipeEntity recipe;
+
+    @Relation(parentColumn = "id", entityColumn = "recipeId")
+    public List<RecipeIngredientEntity> ingredients;
+
+    @Relation(parentColumn = "id", entityColumn = "recipeId")
+    public List<RecipeStepEntity> steps;
+
+    /**
+     * Преобразует рецепт с дочерними записями в доменную модель {@link Recipe}.
+     * Ингредиенты и шаги упорядочиваются по позиции.
+     */
+    public Recipe toRecipe() {
+        Recipe result = recipe.toRecipe();
+        result.setIngredients(toIngredients(ingredients));
+        result.setSteps(toSteps(steps));
+        return result;
+    }
+
+    /**
+     * Преобразует список результатов запроса в список доменных моделей.
+     */
+    public static List<Recipe> toRecipes(List<RecipeWithDetails> rows) {
+        List<Recipe> recipes = new ArrayList<>();
+        if (rows == null) return recipes;
+        for (RecipeWithDetails row : rows) {
+            recipes.add(row.toRecipe());
+        }
+        return recipes;
+    }
+
+    private static ArrayList<Ingredient> toIngredients(List<RecipeIngredientEntity> rows) {
+        ArrayList<Ingredient> result = new ArrayList<>();
+        if (rows == null || rows.isEmpty()) return result;
+        List<RecipeIngredientEntity> sorted = new ArrayList<>(rows);
+        Collections.sort(sorted, Comparator.comparingInt(RecipeIngredientEntity::getPosition));
+        for (RecipeIngredientEntity row : sorted) {
+            result.add(row.toIngredient());
+        }
+        return result;
+    }
+
+    private static ArrayList<Step> toSteps(List<RecipeStepEntity> rows) {
+        ArrayList<Step> result = new ArrayList<>();
+        if (rows == null || rows.isEmpty()) return result;
+        List<RecipeStepEntity> sorted = new ArrayList<>(rows);
+        Collections.sort(sorted, Comparator.comparingInt(RecipeStepEntity::getPosition));
+        for (RecipeStepEntity row : sorted) {
+            result.add(row.toStep());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.cooking.data.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+/**
+ * Data Access Object (DAO) для работы с курсорами синхронизации {@link SyncStateEntity}.
+ */
+@Dao
+public interface SyncStateDao {
+
+    /**
+     * Получает курсор синхронизации ресурса.
+     * @return курсор или null, если синхронизация еще не выполнялась
+     */
+    @Query("SELECT cursor FROM sync_state WHERE resource = :resource")
+    String getCursor(String resource);
+
+    /**
+     * Сохраняет состояние синхронизации ресурса.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(SyncStateEntity state);
+
+    /**
+     * Сбрасывает курсор ресурса, следующая синхронизация будет полной.
+     */
+    @Query("DELETE FROM sync_state WHERE resource = :resource")
+    void clear(String resource);
+}
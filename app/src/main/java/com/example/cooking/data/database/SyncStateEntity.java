@@ -0,0 +1,63 @@
+package com.example.cooking.data.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Состояние синхронизации набора данных с сервером.
+ * Хранит курсор (since), полученный от сервера при последней успешной синхронизации.
+ * Одна строка на синхронизируемый ресурс, например {@link #RESOURCE_RECIPES}.
+ */
+@Entity(tableName = "sync_state")
+public class SyncStateEntity {
+
+    public static final String RESOURCE_RECIPES = "recipes";
+
+    @PrimaryKey
+    @NonNull
+    private String resource;
+    private String cursor;       // Непрозрачный курсор сервера (updated_at или версия)
+    private long lastSyncedAt;   // Время последней успешной синхронизации, мс
+
+    public SyncStateEntity(@NonNull String resource, String cursor, long lastSyncedAt) {
+        this.resource = resource;
+        this.cursor = cursor;
+        this.lastSyncedAt = lastSyncedAt;
+    }
+
+    @NonNull
+    public String getResource() {
+        return resource;
+    }
+
+    public void setResource(@NonNull String resource) {
+        this.resource = resource;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public long getLastSyncedAt() {
+        return lastSyncedAt;
+    }
+
+    public void setLastSyncedAt(long lastSyncedAt) {
+        this.lastSyncedAt = lastSyncedAt;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "SyncStateEntity{" +
+                "resource='" + resource + '\'' +
+                ", cursor='" + cursor + '\'' +
+                ", lastSyncedAt=" + lastSyncedAt +
+                '}';
+    }
+}
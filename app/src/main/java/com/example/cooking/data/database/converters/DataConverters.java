@@ -9,15 +9,13 @@ import com.google.gson.reflect.TypeToken;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Type Converters для Room.
- * Преобразует списки {@link Ingredient} и {@link Step} в JSON-строку для хранения в базе данных
- * и обратно при извлечении.
- * Поддерживает ленивую сериализацию для оптимизации производительности.
+ * Преобразование списков {@link Ingredient} и {@link Step} в JSON-строку и обратно.
+ * Ингредиенты и шаги хранятся в отдельных таблицах, поэтому Room эти конвертеры не использует:
+ * JSON разбирается только при миграции старых версий базы, каждая строка один раз.
+ * По этой причине результаты не кэшируются, каждый вызов возвращает новый изменяемый список.
  */
 public class DataConverters {
     private static final String TAG = "DataConverters";
@@ -25,15 +23,10 @@ public class DataConverters {
     private static final Type INGREDIENT_LIST_TYPE = new TypeToken<ArrayList<Ingredient>>() {}.getType();
     private static final Type STEP_LIST_TYPE = new TypeToken<ArrayList<Step>>() {}.getType();
 
-    private static final ConcurrentHashMap<String, List<Ingredient>> INGREDIENT_CACHE = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, List<Step>> STEP_CACHE = new ConcurrentHashMap<>();
-    private static final int MAX_CACHE_SIZE = 100; // Ограничиваем размер кэша
-
     // --- Ingredient List Converters ---
 
     /**
      * Конвертирует список объектов {@link Ingredient} в JSON-строку.
-     * Оптимизирован для работы с кэшированием.
      */
     @TypeConverter
     public static String fromIngredientList(List<Ingredient> ingredients) {
@@ -51,41 +44,26 @@ public class DataConverters {
 
     /**
      * Конвертирует JSON-строку обратно в список объектов Ingredient.
-     * Использует кэширование для часто запрашиваемых данных.
      */
     @TypeConverter
     public static List<Ingredient> toIngredientList(String ingredientsString) {
         if (ingredientsString == null || ingredientsString.isEmpty()) {
-            return Collections.emptyList();
-        }
-        
-        // Проверяем кэш
-        List<Ingredient> cached = INGREDIENT_CACHE.get(ingredientsString);
-        if (cached != null) {
-            return new ArrayList<>(cached); // Возвращаем копию
+            return new ArrayList<>();
         }
         
         try {
             List<Ingredient> list = GSON_INSTANCE.fromJson(ingredientsString, INGREDIENT_LIST_TYPE);
-            if (list == null) {
-                return Collections.emptyList();
-            }
-            
-            // Добавляем в кэш если есть место
-            if (INGREDIENT_CACHE.size() < MAX_CACHE_SIZE) {
-                INGREDIENT_CACHE.put(ingredientsString, new ArrayList<>(list));
-            }
-            
-            return list;
+            return list != null ? list : new ArrayList<>();
         } catch (Exception e) {
             Log.e(TAG, "Ошибка при преобразовании JSON в список ингредиентов: " + ingredientsString, e);
-            return Collections.emptyList();
+            return new ArrayList<>();
         }
     }
 
+    // --- Step List Converters ---
+
     /**
      * Конвертирует список объектов Step в JSON-строку.
-     * Оптимизирован для работы с кэшированием.
      */
     @TypeConverter
     public static String fromStepList(List<Step> steps) {
@@ -103,24 +81,18 @@ public class DataConverters {
 
     /**
      * Конвертирует JSON-строку обратно в список объектов Step.
-     * Использует кэширование и валидацию данных.
+     * Шагам без номера присваивается номер по их позиции в списке.
      */
     @TypeConverter
     public static List<Step> toStepList(String stepsString) {
         if (stepsString == null || stepsString.isEmpty()) {
-            return Collections.emptyList();
-        }
-        
-        // Проверяем кэш
-        List<Step> cached = STEP_CACHE.get(stepsString);
-        if (cached != null) {
-            return new ArrayList<>(cached); // Возвращаем копию
+            return new ArrayList<>();
         }
         
         try {
             List<Step> list = GSON_INSTANCE.fromJson(stepsString, STEP_LIST_TYPE);
             if (list == null) {
-                return Collections.emptyList();
+                return new ArrayList<>();
             }
             
             // Валидация и исправление номеров шагов
@@ -130,62 +102,10 @@ public class DataConverters {
                     step.setNumber(i + 1);
                 }
             }
-            
-            // Добавляем в кэш если есть место
-            if (STEP_CACHE.size() < MAX_CACHE_SIZE) {
-                STEP_CACHE.put(stepsString, new ArrayList<>(list));
-            }
-            
             return list;
         } catch (Exception e) {
             Log.e(TAG, "Ошибка при преобразовании JSON в список шагов: " + stepsString, e);
-            return Collections.emptyList();
+            return new ArrayList<>();
         }
     }
-
-    // --- Вспомогательные методы для оптимизации ---
-
-    /**
-     * Очищает кэш для освобождения памяти.
-     * Рекомендуется вызывать периодически или при нехватке памяти.
-     */
-    public static void clearCache() {
-        INGREDIENT_CACHE.clear();
-        STEP_CACHE.clear();
-        Log.d(TAG, "Кэш DataConverters очищен");
-    }
-
-    /**
-     * Возвращает статистику использования кэша.
-     */
-    public static String getCacheStats() {
-        return String.format("Cache stats: Ingredients=%d, Steps=%d, Max=%d", 
-                           INGREDIENT_CACHE.size(), STEP_CACHE.size(), MAX_CACHE_SIZE);
-    }
-
-    /**
-     * Предварительно загружает данные в кэш для часто используемых объектов.
-     * @param ingredientJsons список JSON строк ингредиентов для кэширования
-     * @param stepJsons список JSON строк шагов для кэширования
-     */
-    public static void preloadCache(List<String> ingredientJsons, List<String> stepJsons) {
-        if (ingredientJsons != null) {
-            for (String json : ingredientJsons) {
-                if (json != null && !json.isEmpty()) {
-                    toIngredientList(json); // Загружает в кэш как побочный эффект
-                }
-            }
-        }
-        
-        if (stepJsons != null) {
-            for (String json : stepJsons) {
-                if (json != null && !json.isEmpty()) {
-                    toStepList(json); // Загружает в кэш как побочный эффект
-                }
-            }
-        }
-        
-        Log.d(TAG, "Кэш предварительно загружен: " + getCacheStats());
-    }
-
-} 
\ No newline at end of file
+}
@@ -40,9 +40,8 @@ public class ChatRepository extends NetworkRepository {
 
     public LiveData<ChatHistoryResponse> getChatHistory() {
         return LiveDataReactiveStreams.fromPublisher(
-            apiService.getChatHistory()
+            singleFlight("chatbot/get-history", null, apiService.getChatHistory().subscribeOn(Schedulers.io()))
                 .toFlowable()
-                .subscribeOn(Schedulers.io())
                 .onErrorReturnItem(new ChatHistoryResponse())
         );
     }
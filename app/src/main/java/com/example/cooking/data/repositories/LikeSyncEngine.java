@@ -0,0 +1,374 @@
+package com.example.cooking.data.repositories;
+
+import android.util.Log;
+
+import com.example.cooking.data.database.AppDatabase;
+import com.example.cooking.data.database.LikedRecipeDao;
+import com.example.cooking.data.database.LikedRecipeEntity;
+import com.example.cooking.data.database.PendingMutationDao;
+import com.example.cooking.data.database.PendingMutationEntity;
+import com.example.cooking.data.database.RecipeDao;
+import com.example.cooking.network.api.ApiService;
+import com.example.cooking.network.models.likes.LikeBatchRequest;
+import com.example.cooking.network.models.likes.LikeBatchResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Notification;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+import retrofit2.HttpException;
+
+/**
+ * Синхронизация лайков для {@link OutboxRepository}.
+ * Нажатия на лайк сразу меняют локальный статус, а на сервер уходит только итоговое изменение:
+ * <ul>
+ *     <li>неотправленное изменение лайка и следующее за ним противоположное гасят друг друга,
+ *     поэтому двойное нажатие не порождает запросов и не может оставить неверный статус
+ *     из-за переключающей семантики сервера;</li>
+ *     <li>отправка очереди откладывается на {@link #DEBOUNCE_MS} после последнего нажатия,
+ *     но не дольше {@link #MAX_WAIT_MS} после первого;</li>
+ *     <li>лайки разных рецептов отправляются одним пакетным запросом с итоговыми статусами.
+ *     Если сервер не поддерживает пакетный запрос, изменения отправляются переключениями по одному.</li>
+ * </ul>
+ * Локальные статусы, API и планировщик передаются в конструктор, поэтому движок проверяется
+ * unit-тестами без Android: с тестовым планировщиком RxJava и сервером MockWebServer.
+ */
+final class LikeSyncEngine {
+
+    private static final String TAG = "LikeSyncEngine";
+    static final long DEBOUNCE_MS = 1500;
+    static final long MAX_WAIT_MS = 5000;
+    private static final int MAX_BATCH_SIZE = 100;
+
+    /**
+     * Локальные статусы лайков
+     */
+    interface LocalLikes {
+        /**
+         * Выполняет действие в одной транзакции с очередью изменений.
+         */
+        <T> T runInTransaction(Callable<T> action);
+
+        boolean isLiked(int recipeId);
+
+        void setLiked(int recipeId, boolean liked);
+    }
+
+    private final LocalLikes localLikes;
+    private final PendingMutationDao outboxDao;
+    private final ApiService apiService;
+    private final Scheduler scheduler;
+    private final Runnable flushAction;
+    private final Runnable onRejected;
+
+    // Изменения, которые сейчас отправляются: их нельзя погасить новым нажатием
+    private final Object lock = new Object();
+    private final Set<Long> inFlightIds = new HashSet<>();
+    private long firstTapAt = -1;
+    private Disposable pendingFlush;
+    private volatile boolean batchUnsupported;
+
+    /**
+     * @param scheduler планировщик отложенной отправки, его часы задают паузы в нажатиях
+     * @param flushAction запускает отправку очереди после паузы в нажатиях
+     * @param onRejected вызывается, когда сервер отклонил изменения: локальный статус
+     *                   нужно восстановить следующей синхронизацией лайков
+     */
+    LikeSyncEngine(LocalLikes localLikes, PendingMutationDao outboxDao, ApiService apiService,
+                   Scheduler scheduler, Runnable flushAction, Runnable onRejected) {
+        this.localLikes = localLikes;
+        this.outboxDao = outboxDao;
+        this.apiService = apiService;
+        this.scheduler = scheduler;
+        this.flushAction = flushAction;
+        this.onRejected = onRejected;
+    }
+
+    /**
+     * Локальные статусы лайков в таблицах recipes и liked_recipes.
+     */
+    static LocalLikes databaseLikes(AppDatabase database) {
+        RecipeDao recipeDao = database.recipeDao();
+        LikedRecipeDao likedRecipeDao = database.likedRecipeDao();
+        return new LocalLikes() {
+            @Override
+            public <T> T runInTransaction(Callable<T> action) {
+                return database.runInTransaction(action);
+            }
+
+            @Override
+            public boolean isLiked(int recipeId) {
+                return likedRecipeDao.isRecipeLiked(recipeId);
+            }
+
+            @Override
+            public void setLiked(int recipeId, boolean liked) {
+                recipeDao.updateLikeStatus(recipeId, liked);
+                if (liked) {
+                    likedRecipeDao.insert(new LikedRecipeEntity(recipeId));
+                } else {
+                    likedRecipeDao.deleteById(recipeId);
+                }
+            }
+        };
+    }
+
+    /**
+     * Устанавливает статус лайка локально и ставит изменение в очередь или гасит им
+     * противоположное неотправленное изменение. Вызывать из фонового потока.
+     */
+    void setLiked(int recipeId, boolean liked) {
+        boolean changed;
+        synchronized (lock) {
+            changed = localLikes.runInTransaction(() -> {
+                if (localLikes.isLiked(recipeId) == liked) {
+                    return false;
+                }
+                localLikes.setLiked(recipeId, liked);
+                // Последнее неотправленное изменение всегда противоположно новому статусу
+                PendingMutationEntity last = outboxDao.getLastPendingLike(recipeId);
+                if (last != null && !inFlightIds.contains(last.getId())) {
+                    outboxDao.deleteById(last.getId());
+                    Log.d(TAG, "Нажатия взаимно погашены: recipeId=" + recipeId);
+                } else {
+                    outboxDao.insert(new PendingMutationEntity(UUID.randomUUID().toString(),
+                            PendingMutationEntity.TYPE_LIKE, recipeId, liked, null, null,
+                            System.currentTimeMillis()));
+                }
+                return true;
+            });
+        }
+        if (changed) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Откладывает отправку до паузы в нажатиях.
+     */
+    private void scheduleFlush() {
+        synchronized (lock) {
+            long now = scheduler.now(TimeUnit.MILLISECONDS);
+            if (firstTapAt < 0) {
+                firstTapAt = now;
+            }
+            long delay = Math.max(0, Math.min(DEBOUNCE_MS, firstTapAt + MAX_WAIT_MS - now));
+            if (pendingFlush != null) {
+                pendingFlush.dispose();
+            }
+            pendingFlush = scheduler.scheduleDirect(this::flush, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush() {
+        synchronized (lock) {
+            firstTapAt = -1;
+            pendingFlush = null;
+        }
+        flushAction.run();
+    }
+
+    /**
+     * Отменяет отложенную отправку. Используется при очистке очереди.
+     */
+    void cancel() {
+        synchronized (lock) {
+            if (pendingFlush != null) {
+                pendingFlush.dispose();
+                pendingFlush = null;
+            }
+            firstTapAt = -1;
+        }
+    }
+
+    /**
+     * Отправляет изменения лайков из очереди. Вызывается из {@link OutboxRepository#replay()}.
+     * Отправленные и отклоненные сервером изменения удаляются из очереди.
+     * @param likes изменения в порядке очереди, с ID рецептов, уже известными серверу
+     * @return ID рецептов, изменения которых не удалось отправить из-за сетевой ошибки или ошибки сервера
+     */
+    Set<Integer> send(List<PendingMutationEntity> likes) {
+        List<PendingMutationEntity> claimed = claim(likes);
+        if (claimed.isEmpty()) {
+            return Collections.emptySet();
+        }
+        try {
+            return batchUnsupported ? sendToggles(claimed) : sendBatches(claimed);
+        } finally {
+            synchronized (lock) {
+                for (PendingMutationEntity like : claimed) {
+                    inFlightIds.remove(like.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Помечает изменения как отправляемые. Изменения, погашенные нажатием после чтения очереди, пропускаются.
+     */
+    private List<PendingMutationEntity> claim(List<PendingMutationEntity> likes) {
+        synchronized (lock) {
+            Set<Long> pendingIds = new HashSet<>();
+            for (PendingMutationEntity like : outboxDao.getPendingLikes()) {
+                pendingIds.add(like.getId());
+            }
+            List<PendingMutationEntity> claimed = new ArrayList<>(likes.size());
+            for (PendingMutationEntity like : likes) {
+                if (pendingIds.contains(like.getId())) {
+                    inFlightIds.add(like.getId());
+                    claimed.add(like);
+                }
+            }
+            return claimed;
+        }
+    }
+
+    /**
+     * Отправляет итоговые статусы пакетами до {@link #MAX_BATCH_SIZE} рецептов.
+     */
+    private Set<Integer> sendBatches(List<PendingMutationEntity> likes) {
+        // Изменения по рецептам в порядке очереди, итоговый статус задает последнее из них
+        Map<Integer, List<PendingMutationEntity>> byRecipe = new LinkedHashMap<>();
+        for (PendingMutationEntity like : likes) {
+            List<PendingMutationEntity> recipeLikes = byRecipe.get(like.getRecipeId());
+            if (recipeLikes == null) {
+                recipeLikes = new ArrayList<>();
+                byRecipe.put(like.getRecipeId(), recipeLikes);
+            }
+            recipeLikes.add(like);
+        }
+
+        Set<Integer> failed = new HashSet<>();
+        List<Integer> recipeIds = new ArrayList<>(byRecipe.keySet());
+        for (int i = 0; i < recipeIds.size(); i += MAX_BATCH_SIZE) {
+            List<Integer> chunkIds = recipeIds.subList(i, Math.min(i + MAX_BATCH_SIZE, recipeIds.size()));
+            List<PendingMutationEntity> chunk = new ArrayList<>();
+            List<LikeBatchRequest.LikeChange> changes = new ArrayList<>(chunkIds.size());
+            for (Integer recipeId : chunkIds) {
+                List<PendingMutationEntity> recipeLikes = byRecipe.get(recipeId);
+                chunk.addAll(recipeLikes);
+                changes.add(new LikeBatchRequest.LikeChange(recipeId,
+                        recipeLikes.get(recipeLikes.size() - 1).isLiked()));
+            }
+
+            Notification<LikeBatchResponse> result = apiService
+                    .setLikesBatch(batchKey(chunk), new LikeBatchRequest(changes))
+                    .materialize().blockingGet();
+            Throwable error = result.getError();
+            if (error == null) {
+                onBatchSent(chunk, result.getValue());
+                continue;
+            }
+            if (isBatchUnsupported(error)) {
+                Log.w(TAG, "Сервер не поддерживает пакетную установку лайков, отправка по одному");
+                batchUnsupported = true;
+                List<PendingMutationEntity> rest = new ArrayList<>();
+                for (Integer recipeId : recipeIds.subList(i, recipeIds.size())) {
+                    rest.addAll(byRecipe.get(recipeId));
+                }
+                failed.addAll(sendToggles(rest));
+                break;
+            }
+            if (OutboxRepository.isRejected(error)) {
+                Log.w(TAG, "Сервер отклонил пакет лайков: " + error.getMessage());
+                discard(chunk);
+            } else {
+                Log.w(TAG, "Не удалось отправить пакет лайков, повтор позже", error);
+                for (PendingMutationEntity like : chunk) {
+                    outboxDao.recordFailure(like.getId(), error.getMessage());
+                }
+                failed.addAll(chunkIds);
+            }
+        }
+        return failed;
+    }
+
+    private void onBatchSent(List<PendingMutationEntity> chunk, LikeBatchResponse response) {
+        Set<Integer> rejectedIds = response != null
+                ? new HashSet<>(response.getRejectedIds()) : Collections.emptySet();
+        List<Long> sentIds = new ArrayList<>(chunk.size());
+        List<PendingMutationEntity> rejected = new ArrayList<>();
+        for (PendingMutationEntity like : chunk) {
+            if (rejectedIds.contains(like.getRecipeId())) {
+                rejected.add(like);
+            } else {
+                sentIds.add(like.getId());
+            }
+        }
+        outboxDao.deleteByIds(sentIds);
+        if (!rejected.isEmpty()) {
+            Log.w(TAG, "Сервер отклонил лайки рецептов " + rejectedIds);
+            discard(rejected);
+        }
+        Log.d(TAG, "Пакет лайков отправлен: рецептов=" + (chunk.size() - rejected.size()));
+    }
+
+    /**
+     * Отправляет изменения переключениями по одному в порядке очереди.
+     * Погашенные пары уже удалены из очереди, поэтому каждое переключение меняет статус на сервере.
+     */
+    private Set<Integer> sendToggles(List<PendingMutationEntity> likes) {
+        Set<Integer> failed = new HashSet<>();
+        for (PendingMutationEntity like : likes) {
+            if (failed.contains(like.getRecipeId())) {
+                continue;
+            }
+            Throwable error = apiService
+                    .toggleLikeRecipeCompletable(like.getIdempotencyKey(), like.getRecipeId())
+                    .materialize().blockingGet().getError();
+            if (error == null) {
+                outboxDao.deleteById(like.getId());
+            } else if (OutboxRepository.isRejected(error)) {
+                Log.w(TAG, "Сервер отклонил лайк " + like + ": " + error.getMessage());
+                discard(Collections.singletonList(like));
+            } else {
+                Log.w(TAG, "Не удалось отправить лайк " + like + ", повтор позже", error);
+                outboxDao.recordFailure(like.getId(), error.getMessage());
+                failed.add(like.getRecipeId());
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Удаляет отклоненные изменения. Локальный статус восстановит следующая синхронизация лайков.
+     */
+    private void discard(List<PendingMutationEntity> likes) {
+        List<Long> ids = new ArrayList<>(likes.size());
+        for (PendingMutationEntity like : likes) {
+            ids.add(like.getId());
+        }
+        outboxDao.deleteByIds(ids);
+        onRejected.run();
+    }
+
+    /**
+     * Ключ идемпотентности пакета: одинаковый для повтора того же набора изменений.
+     */
+    private static String batchKey(List<PendingMutationEntity> chunk) {
+        StringBuilder keys = new StringBuilder();
+        for (PendingMutationEntity like : chunk) {
+            keys.append(like.getIdempotencyKey()).append(';');
+        }
+        return UUID.nameUUIDFromBytes(keys.toString().getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static boolean isBatchUnsupported(Throwable error) {
+        if (!(error instanceof HttpException)) {
+            return false;
+        }
+        int code = ((HttpException) error).code();
+        return code == 404 || code == 405 || code == 501;
+    }
+}
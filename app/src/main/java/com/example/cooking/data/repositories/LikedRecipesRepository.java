@@ -8,7 +8,11 @@ import com.example.cooking.config.ServerConfig;
 import com.example.cooking.data.database.AppDatabase;
 import com.example.cooking.data.database.LikedRecipeDao;
 import com.example.cooking.data.database.LikedRecipeEntity;
+import com.example.cooking.data.database.PendingMutationDao;
+import com.example.cooking.data.database.PendingMutationEntity;
 import com.example.cooking.data.database.RecipeDao;
+import com.example.cooking.network.cache.ETagInterceptor;
+import com.example.cooking.network.cache.ETagStore;
 import com.example.cooking.network.models.recipeResponses.LikedRecipesResponse;
 
 import java.util.ArrayList;
@@ -24,7 +28,7 @@ public class LikedRecipesRepository extends NetworkRepository {
     private static final String API_URL = ServerConfig.BASE_API_URL;
     private final LikedRecipeDao likedRecipeDao;
     private final RecipeDao recipeDao;
-    private final RecipeLocalRepository recipeLocalRepository;
+    private final PendingMutationDao pendingMutationDao;
     private final CompositeDisposable disposables = new CompositeDisposable();
 
 
@@ -34,7 +38,7 @@ public class LikedRecipesRepository extends NetworkRepository {
         AppDatabase db = AppDatabase.getInstance(this.context);
         likedRecipeDao = db.likedRecipeDao();
         recipeDao = db.recipeDao();
-        recipeLocalRepository = new RecipeLocalRepository(this.context);
+        pendingMutationDao = db.pendingMutationDao();
         Log.d(TAG, "Constructor: END");
     }
 
@@ -51,7 +55,7 @@ public class LikedRecipesRepository extends NetworkRepository {
         Log.d(TAG, "syncLikedRecipesFromServer: Network IS available. Proceeding with sync.");
 
         disposables.add(
-            apiService.getLikedRecipes()
+            singleFlight("recipes/liked", null, apiService.getLikedRecipes()
                 .subscribeOn(Schedulers.io())
                 .doOnSuccess(response -> {
                     if (response.isSuccess() && response.getRecipeIds() != null) {
@@ -63,11 +67,20 @@ public class LikedRecipesRepository extends NetworkRepository {
                     }
                 })
                 .doOnError(throwable -> {
-                     Log.e(TAG, "[DB Sync] Исключение при выполнении запроса синхронизации лайков", throwable);
-                })
+                     if (!RecipeRemoteRepository.isNotModified(throwable)) {
+                         Log.e(TAG, "[DB Sync] Исключение при выполнении запроса синхронизации лайков", throwable);
+                     }
+                }))
                 .subscribe(
                     response -> Log.i(TAG, "[DB Sync] Синхронизация лайков успешно завершена."),
-                    throwable -> Log.e(TAG, "Критическая ошибка в цепочке syncLikedRecipesFromServer", throwable)
+                    throwable -> {
+                        if (RecipeRemoteRepository.isNotModified(throwable)) {
+                            // Лайки не изменились с последней записи в базу (304)
+                            Log.d(TAG, "[DB Sync] Лайки не изменились, запись в базу пропущена.");
+                            return;
+                        }
+                        Log.e(TAG, "Критическая ошибка в цепочке syncLikedRecipesFromServer", throwable);
+                    }
                 )
         );
     }
@@ -94,8 +107,10 @@ public class LikedRecipesRepository extends NetworkRepository {
                             recipeDao.updateLikeStatus(e.getRecipeId(), true);
                         }
                     }
+                    applyPendingLikes();
                 });
                 Log.i(TAG, "[DB Sync] Транзакция обновления лайков успешно завершена.");
+                ETagStore.getInstance(context).commit(ETagInterceptor.ENDPOINT_LIKED);
             } catch (Exception e) {
                 Log.e(TAG, "[DB Sync] Ошибка во время транзакции обновления лайков", e);    
             }
@@ -110,22 +125,18 @@ public class LikedRecipesRepository extends NetworkRepository {
 
 
     /**
-     * Обновляет статус лайка локально.
-     * Если isLiked=true, добавляет лайк; если false, удаляет его.
+     * Повторно применяет лайки из очереди неотправленных изменений поверх данных сервера,
+     * иначе синхронизация откатила бы их до отправки. Вызывать внутри транзакции.
      */
-    public void updateLikeStatusLocal(int recipeId, boolean isLiked) {
-        disposables.add(Completable.fromAction(() -> {
-            if (isLiked) likedRecipeDao.insert(new LikedRecipeEntity(recipeId));
-            else likedRecipeDao.deleteById(recipeId);
-        }).subscribeOn(Schedulers.io()).subscribe(
-                () -> {},
-                throwable -> Log.e(TAG, "Ошибка добавления лайка локально", throwable)
-        ));
-        
-        // Обновляем статус лайка в таблице recipes
-        disposables.add(Completable.fromAction(() -> {
-            recipeLocalRepository.updateLikeStatus(recipeId, isLiked);
-        }).subscribeOn(Schedulers.io()).subscribe());
+    private void applyPendingLikes() {
+        for (PendingMutationEntity like : pendingMutationDao.getPendingLikes()) {
+            recipeDao.updateLikeStatus(like.getRecipeId(), like.isLiked());
+            if (like.isLiked()) {
+                likedRecipeDao.insert(new LikedRecipeEntity(like.getRecipeId()));
+            } else {
+                likedRecipeDao.deleteById(like.getRecipeId());
+            }
+        }
     }
 
     /**
@@ -135,17 +146,6 @@ public class LikedRecipesRepository extends NetworkRepository {
         return likedRecipeDao.getLikedRecipeIdsSync();
     }
 
-
-
-    /**
-     * Отправляет запрос на сервер для переключения статуса лайка (без ожидания ответа)
-     * @param recipeId ID рецепта
-     * @return Completable для подписки
-     */
-    public Completable toggleLikeRecipeOnServer(int recipeId) {
-        return apiService.toggleLikeRecipeCompletable(recipeId);
-    }
-
     /**
      * Полностью очищает все лайки пользователя.
      * Используется при выходе из аккаунта.
@@ -156,6 +156,10 @@ public class LikedRecipesRepository extends NetworkRepository {
             likedRecipeDao.deleteAll();
             // Сбрасываем флаги isLiked у всех рецептов
             recipeDao.clearAllLikeStatus();
+            // Без локальных лайков нельзя принимать ответ 304 на сохраненный ETag
+            ETagStore.getInstance(context).invalidate(ETagInterceptor.ENDPOINT_LIKED);
+            // Неотправленные изменения принадлежат вышедшему пользователю
+            OutboxRepository.getInstance(context).clear();
             Log.d(TAG, "Все лайки успешно очищены");
         })
         .subscribeOn(Schedulers.io())
@@ -0,0 +1,188 @@
+package com.example.cooking.data.repositories;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import com.example.cooking.data.database.AppDatabase;
+import com.example.cooking.data.database.RecipeDao;
+import com.example.cooking.data.database.RecipeFtsEntity;
+import com.example.cooking.data.database.RecipeIngredientEntity;
+import com.example.cooking.data.database.RecipeRowState;
+import com.example.cooking.data.search.Bm25Index;
+import com.example.cooking.data.search.IngredientIndex;
+import com.example.cooking.data.search.TrigramIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Индексы локального поиска в памяти: ранжирующий ({@link Bm25Index}) и нечеткий,
+ * устойчивый к опечаткам ({@link TrigramIndex}), поверх таблицы recipes_fts, а также
+ * индекс ингредиентов ({@link IngredientIndex}) поверх таблицы recipe_ingredients.
+ * Индексы строятся при первом поиске и затем обновляются по изменениям: после любой записи
+ * в таблицу recipes (вставка, изменение, удаление рецепта в {@link RecipeLocalRepository}
+ * и при синхронизации) они помечаются устаревшими, а при следующем поиске сравниваются хэши
+ * содержимого рецептов, и переиндексируются только добавленные, измененные и удаленные рецепты.
+ * Методы выполняют запросы к базе и должны вызываться из фонового потока.
+ */
+public final class LocalSearchIndex {
+
+    private static final String TAG = "LocalSearchIndex";
+
+    private static volatile LocalSearchIndex INSTANCE;
+
+    private final RecipeDao recipeDao;
+    private final Bm25Index index = new Bm25Index();
+    private final TrigramIndex fuzzyIndex = new TrigramIndex();
+    private final IngredientIndex ingredientIndex = new IngredientIndex();
+    private final Map<Integer, Long> indexedHashes = new HashMap<>();
+    private volatile boolean dirty = true;
+
+    private LocalSearchIndex(Context context) {
+        AppDatabase database = AppDatabase.getInstance(context);
+        recipeDao = database.recipeDao();
+        // Наблюдатель живет столько же, сколько процесс, поэтому не снимается
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("recipes") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                dirty = true;
+            }
+        });
+    }
+
+    public static LocalSearchIndex getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (LocalSearchIndex.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new LocalSearchIndex(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Ищет рецепты по запросу.
+     * @param limit максимальное количество результатов
+     * @return ID рецептов по убыванию релевантности
+     */
+    public synchronized List<Integer> search(String query, int limit) {
+        if (dirty) {
+            sync();
+        }
+        return index.search(query, limit);
+    }
+
+    /**
+     * Нечеткий поиск по названиям и ингредиентам, допускающий опечатки в словах запроса.
+     * @param limit максимальное количество результатов
+     * @return ID рецептов по убыванию сходства
+     */
+    public synchronized List<Integer> fuzzySearch(String query, int limit) {
+        if (dirty) {
+            sync();
+        }
+        return fuzzyIndex.search(query, limit);
+    }
+
+    /**
+     * Подбор рецептов по имеющимся продуктам, см. {@link IngredientIndex#search}.
+     */
+    public synchronized List<IngredientIndex.Match> findByIngredients(Collection<String> available,
+                                                                      boolean requireAll, int limit) {
+        if (dirty) {
+            sync();
+        }
+        return ingredientIndex.search(available, requireAll, limit);
+    }
+
+    /**
+     * Приводит индексы в соответствие с базой по хэшам содержимого рецептов.
+     */
+    private void sync() {
+        long start = SystemClock.elapsedRealtime();
+        // Сбрасываем флаг до чтения, чтобы не потерять изменения, произошедшие во время синхронизации
+        dirty = false;
+        try {
+            List<RecipeRowState> rows = recipeDao.getRecipeRowStates();
+            Set<Integer> currentIds = new HashSet<>(rows.size());
+            Map<Integer, Long> changedHashes = new HashMap<>();
+            for (RecipeRowState row : rows) {
+                currentIds.add(row.getId());
+                Long indexedHash = indexedHashes.get(row.getId());
+                if (indexedHash == null || indexedHash != row.getContentHash()) {
+                    changedHashes.put(row.getId(), row.getContentHash());
+                }
+            }
+
+            List<Integer> removedIds = new ArrayList<>();
+            for (Integer id : indexedHashes.keySet()) {
+                if (!currentIds.contains(id)) {
+                    removedIds.add(id);
+                }
+            }
+            for (Integer id : removedIds) {
+                indexedHashes.remove(id);
+                index.remove(id);
+                fuzzyIndex.remove(id);
+                ingredientIndex.remove(id);
+            }
+
+            List<Integer> changedIds = new ArrayList<>(changedHashes.keySet());
+            for (int i = 0; i < changedIds.size(); i += RecipeDao.MAX_BIND_ARGS) {
+                List<Integer> chunk = changedIds.subList(i, Math.min(i + RecipeDao.MAX_BIND_ARGS, changedIds.size()));
+                for (Integer id : chunk) {
+                    index.remove(id);
+                    fuzzyIndex.remove(id);
+                }
+                for (RecipeFtsEntity entry : recipeDao.getFtsEntries(chunk)) {
+                    index.put(entry.getRowId(), entry.getTitle(), entry.getIngredients(), entry.getInstructions());
+                    fuzzyIndex.put(entry.getRowId(), entry.getTitle(), entry.getIngredients());
+                }
+                indexIngredients(chunk);
+            }
+            indexedHashes.putAll(changedHashes);
+
+            if (!changedIds.isEmpty() || !removedIds.isEmpty()) {
+                Log.d(TAG, "Индекс поиска обновлен: изменено " + changedIds.size() + ", удалено " + removedIds.size()
+                        + ", всего " + index.size() + " за " + (SystemClock.elapsedRealtime() - start) + " мс");
+            }
+        } catch (RuntimeException e) {
+            // Хэши записываются только после успешной индексации, повторная синхронизация догонит изменения
+            dirty = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Переиндексирует ингредиенты рецептов.
+     */
+    private void indexIngredients(List<Integer> recipeIds) {
+        Map<Integer, List<String>> namesByRecipe = new HashMap<>();
+        for (RecipeIngredientEntity ingredient : recipeDao.getIngredientsForRecipes(recipeIds)) {
+            List<String> names = namesByRecipe.get(ingredient.getRecipeId());
+            if (names == null) {
+                names = new ArrayList<>();
+                namesByRecipe.put(ingredient.getRecipeId(), names);
+            }
+            names.add(ingredient.getName());
+        }
+        for (Integer id : recipeIds) {
+            List<String> names = namesByRecipe.get(id);
+            if (names != null) {
+                ingredientIndex.put(id, names);
+            } else {
+                ingredientIndex.remove(id);
+            }
+        }
+    }
+}
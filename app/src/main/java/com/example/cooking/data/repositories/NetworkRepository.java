@@ -6,6 +6,11 @@ import android.net.NetworkInfo;
 
 import com.example.cooking.network.api.ApiService;
 import com.example.cooking.network.services.NetworkService;
+import com.example.cooking.network.utils.SingleFlight;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import io.reactivex.rxjava3.core.Single;
 
 /**
  * Базовый класс для репозиториев, работающих с сетью
@@ -37,4 +42,18 @@ public abstract class NetworkRepository {
         }
         return false;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Объединяет одновременные одинаковые запросы: пока запрос с тем же эндпоинтом и параметрами
+     * выполняется, вызывающий получает его результат вместо нового запроса.
+     * В ключ входит ID текущего пользователя, как и в ключ ETag: ответ, запрошенный до смены
+     * аккаунта, не достанется новому пользователю.
+     * @see SingleFlight
+     */
+    protected <T> Single<T> singleFlight(String endpoint, String params, Single<T> source) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        String userParams = "uid=" + (user != null ? user.getUid() : "");
+        return SingleFlight.getInstance().execute(endpoint,
+                params == null ? userParams : userParams + "&" + params, source);
+    }
+}
@@ -0,0 +1,560 @@
+package com.example.cooking.data.repositories;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.widget.Toast;
+
+import androidx.lifecycle.LiveData;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import com.example.cooking.R;
+import com.example.cooking.data.database.AppDatabase;
+import com.example.cooking.data.database.LikedRecipeDao;
+import com.example.cooking.data.database.LikedRecipeEntity;
+import com.example.cooking.data.database.PendingMutationDao;
+import com.example.cooking.data.database.PendingMutationEntity;
+import com.example.cooking.data.database.RecipeDao;
+import com.example.cooking.data.database.RecipeEntity;
+import com.example.cooking.data.database.RecipeWithDetails;
+import com.example.cooking.data.database.SyncStateEntity;
+import com.example.cooking.data.sync.OutboxWorker;
+import com.example.cooking.domain.entities.Recipe;
+import com.example.cooking.network.cache.ETagInterceptor;
+import com.example.cooking.network.cache.ETagStore;
+import com.example.cooking.network.models.GeneralServerResponse;
+import com.example.cooking.network.services.NetworkService;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Notification;
+import retrofit2.HttpException;
+
+/**
+ * Очередь изменений рецептов (outbox), которые пользователь сделал локально.
+ * Лайк, создание, изменение и удаление сразу применяются к локальным таблицам вместе с записью
+ * в очередь в одной транзакции, поэтому действия пользователя не ждут ответа сервера и работают без сети.
+ * Очередь отправляет {@link OutboxWorker}, когда появляется подключение.
+ * Изменения одного рецепта отправляются строго по порядку: если изменение не удалось отправить,
+ * следующие изменения того же рецепта ждут следующей попытки, остальные рецепты не блокируются.
+ * Новый рецепт до ответа сервера хранится под временным отрицательным ID.
+ */
+public class OutboxRepository {
+
+    private static final String TAG = "OutboxRepository";
+    private static volatile OutboxRepository INSTANCE;
+    private static final String IMAGE_DIR = "outbox";
+    private static final long BACKOFF_DELAY_SECONDS = 30;
+    private static final Gson gson = new Gson();
+
+    private final Context context;
+    private final AppDatabase database;
+    private final RecipeDao recipeDao;
+    private final LikedRecipeDao likedRecipeDao;
+    private final PendingMutationDao outboxDao;
+    private final RecipeRemoteRepository remoteRepository;
+    private final LikeSyncEngine likeSyncEngine;
+    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+
+    private OutboxRepository(Context context) {
+        this.context = context.getApplicationContext();
+        this.database = AppDatabase.getInstance(this.context);
+        this.recipeDao = database.recipeDao();
+        this.likedRecipeDao = database.likedRecipeDao();
+        this.outboxDao = database.pendingMutationDao();
+        this.remoteRepository = new RecipeRemoteRepository(this.context);
+        this.likeSyncEngine = new LikeSyncEngine(LikeSyncEngine.databaseLikes(database), outboxDao,
+                NetworkService.getApiService(this.context), AndroidSchedulers.mainThread(), this::scheduleReplay,
+                () -> ETagStore.getInstance(this.context).invalidate(ETagInterceptor.ENDPOINT_LIKED));
+    }
+
+    public static OutboxRepository getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (OutboxRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new OutboxRepository(context);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    // =============== Постановка в очередь ===============
+
+    /**
+     * Устанавливает статус лайка локально. Изменение отправляется после паузы в нажатиях,
+     * быстрые повторные нажатия гасят друг друга, см. {@link LikeSyncEngine}.
+     * Вызывать из фонового потока.
+     */
+    public void enqueueLike(int recipeId, boolean liked) {
+        likeSyncEngine.setLiked(recipeId, liked);
+    }
+
+    /**
+     * Сохраняет новый рецепт локально под временным ID и ставит его создание в очередь.
+     * Вызывать из фонового потока.
+     * @return рецепт с временным ID, под которым он виден в локальных списках
+     */
+    public Recipe enqueueCreate(Recipe recipe, byte[] imageBytes) throws IOException {
+        String key = newIdempotencyKey();
+        String imagePath = saveImage(key, imageBytes);
+        database.runInTransaction(() -> {
+            int tempId = Math.min(Math.min(recipeDao.getMinRecipeId(), outboxDao.getMinRecipeId()), 0) - 1;
+            recipe.setId(tempId);
+            if (imagePath != null) {
+                recipe.setPhoto_url(Uri.fromFile(new File(imagePath)).toString());
+            }
+            recipeDao.insertRecipe(new RecipeEntity(recipe));
+            outboxDao.insert(new PendingMutationEntity(key, PendingMutationEntity.TYPE_CREATE,
+                    tempId, false, gson.toJson(recipe), imagePath, System.currentTimeMillis()));
+        });
+        Log.d(TAG, "Создание рецепта поставлено в очередь, временный ID " + recipe.getId());
+        scheduleReplay();
+        return recipe;
+    }
+
+    /**
+     * Сохраняет изменения рецепта локально и ставит их отправку в очередь.
+     * Вызывать из фонового потока.
+     */
+    public Recipe enqueueUpdate(Recipe recipe, byte[] imageBytes) throws IOException {
+        String key = newIdempotencyKey();
+        String imagePath = saveImage(key, imageBytes);
+        database.runInTransaction(() -> {
+            RecipeEntity existing = recipeDao.getRecipeById(recipe.getId());
+            if (existing != null) {
+                recipe.setLiked(existing.isLiked());
+            }
+            if (imagePath != null) {
+                recipe.setPhoto_url(Uri.fromFile(new File(imagePath)).toString());
+            }
+            recipeDao.updateRecipe(new RecipeEntity(recipe));
+            outboxDao.insert(new PendingMutationEntity(key, PendingMutationEntity.TYPE_UPDATE,
+                    recipe.getId(), false, gson.toJson(recipe), imagePath, System.currentTimeMillis()));
+        });
+        scheduleReplay();
+        return recipe;
+    }
+
+    /**
+     * Удаляет рецепт локально и ставит удаление в очередь. Вызывать из фонового потока.
+     */
+    public void enqueueDelete(int recipeId) {
+        database.runInTransaction(() -> {
+            recipeDao.deleteRecipe(recipeId);
+            likedRecipeDao.deleteById(recipeId);
+            outboxDao.insert(new PendingMutationEntity(newIdempotencyKey(), PendingMutationEntity.TYPE_DELETE,
+                    recipeId, false, null, null, System.currentTimeMillis()));
+        });
+        scheduleReplay();
+    }
+
+    /**
+     * Количество неотправленных изменений.
+     */
+    public LiveData<Integer> getPendingCount() {
+        return outboxDao.observeCount();
+    }
+
+    /**
+     * Ставит отправку очереди в WorkManager. Задача запустится, когда будет подключение к сети.
+     * Если отправка уже поставлена или выполняется, новая ставится в цепочку после нее:
+     * изменение, добавленное после того, как выполняющаяся отправка проверила очередь,
+     * не останется неотправленным. Отправка пустой очереди ничего не делает.
+     */
+    public void scheduleReplay() {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(OutboxWorker.class)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_DELAY_SECONDS, TimeUnit.SECONDS)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(OutboxWorker.WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+    }
+
+    /**
+     * Ставит отправку очереди, если в ней остались изменения, например отложенные лайки,
+     * не отправленные до закрытия приложения. Вызывать из фонового потока.
+     */
+    public void scheduleReplayIfPending() {
+        if (!outboxDao.getAll().isEmpty()) {
+            scheduleReplay();
+        }
+    }
+
+    /**
+     * Очищает очередь и отменяет отправку. Используется при выходе из аккаунта:
+     * изменения принадлежат вышедшему пользователю. Вызывать из фонового потока.
+     */
+    public void clear() {
+        likeSyncEngine.cancel();
+        WorkManager.getInstance(context).cancelUniqueWork(OutboxWorker.WORK_NAME);
+        outboxDao.deleteAll();
+        File[] images = getImageDir().listFiles();
+        if (images != null) {
+            for (File image : images) {
+                image.delete();
+            }
+        }
+    }
+
+    // =============== Отправка очереди ===============
+
+    /**
+     * Отправляет накопленные изменения по порядку. Вызывается из {@link OutboxWorker}.
+     * Изменение, отклоненное сервером (4xx), удаляется из очереди, локальное состояние
+     * восстанавливается с сервера. При сетевой ошибке или 5xx изменение и все следующие изменения
+     * того же рецепта остаются в очереди. Если очередь отправлена полностью, а за время отправки
+     * в нее добавились изменения, они отправляются в том же запуске.
+     * @return true, если очередь отправлена полностью и повтор не нужен
+     */
+    public boolean replay() {
+        List<PendingMutationEntity> pending = outboxDao.getAll();
+        while (!pending.isEmpty()) {
+            long lastId = pending.get(pending.size() - 1).getId();
+            if (!replay(pending)) {
+                return false;
+            }
+            if (outboxDao.countNewerThan(lastId) == 0) {
+                return true;
+            }
+            pending = outboxDao.getAll();
+        }
+        return true;
+    }
+
+    /**
+     * Отправляет один снимок очереди.
+     * @return true, если все изменения снимка отправлены или отклонены сервером
+     */
+    private boolean replay(List<PendingMutationEntity> pending) {
+        Log.d(TAG, "Отправка очереди изменений: " + pending.size());
+
+        Map<Integer, Integer> createdIds = new HashMap<>();  // временный ID -> ID сервера
+        Set<Integer> blockedIds = new HashSet<>();
+        Set<Integer> droppedIds = new HashSet<>();
+        // Лайки копятся и отправляются одним пакетом перед следующим изменением того же рецепта или в конце
+        List<PendingMutationEntity> likes = new ArrayList<>();
+        Set<Integer> likedRecipeIds = new HashSet<>();
+        boolean complete = true;
+
+        for (PendingMutationEntity mutation : pending) {
+            Integer serverId = createdIds.get(mutation.getRecipeId());
+            if (serverId != null) {
+                mutation.setRecipeId(serverId);
+            }
+            int recipeId = mutation.getRecipeId();
+            if (droppedIds.contains(recipeId)) {
+                outboxDao.deleteById(mutation.getId());
+                continue;
+            }
+            if (blockedIds.contains(recipeId)) {
+                continue;
+            }
+            if (PendingMutationEntity.TYPE_LIKE.equals(mutation.getType())) {
+                if (recipeId > 0) {
+                    likes.add(mutation);
+                    likedRecipeIds.add(recipeId);
+                }
+                continue;
+            }
+            if (likedRecipeIds.contains(recipeId)) {
+                complete &= sendLikes(likes, likedRecipeIds, blockedIds);
+                if (blockedIds.contains(recipeId)) {
+                    continue;
+                }
+            }
+
+            Throwable error = send(mutation, createdIds);
+            if (error == null) {
+                continue;
+            }
+            if (isRejected(error)) {
+                Log.w(TAG, "Сервер отклонил изменение " + mutation + ": " + error.getMessage());
+                discard(mutation, remoteRepository.describeError(error));
+                if (PendingMutationEntity.TYPE_CREATE.equals(mutation.getType())) {
+                    droppedIds.add(recipeId);
+                }
+            } else {
+                Log.w(TAG, "Не удалось отправить изменение " + mutation + ", повтор позже", error);
+                outboxDao.recordFailure(mutation.getId(), error.getMessage());
+                blockedIds.add(recipeId);
+                complete = false;
+            }
+        }
+        complete &= sendLikes(likes, likedRecipeIds, blockedIds);
+        return complete;
+    }
+
+    /**
+     * Отправляет накопленные лайки через {@link LikeSyncEngine} и очищает накопитель.
+     * @return true, если все лайки отправлены или отклонены сервером
+     */
+    private boolean sendLikes(List<PendingMutationEntity> likes, Set<Integer> likedRecipeIds,
+                              Set<Integer> blockedIds) {
+        if (likes.isEmpty()) {
+            return true;
+        }
+        Set<Integer> failed = likeSyncEngine.send(new ArrayList<>(likes));
+        likes.clear();
+        likedRecipeIds.clear();
+        blockedIds.addAll(failed);
+        return failed.isEmpty();
+    }
+
+    /**
+     * Отправляет одно изменение и при успехе удаляет его из очереди.
+     * @return ошибка запроса или null при успехе
+     */
+    private Throwable send(PendingMutationEntity mutation, Map<Integer, Integer> createdIds) {
+        String key = mutation.getIdempotencyKey();
+        int recipeId = mutation.getRecipeId();
+        switch (mutation.getType()) {
+            case PendingMutationEntity.TYPE_CREATE: {
+                Notification<GeneralServerResponse> result;
+                try {
+                    result = remoteRepository.createRecipe(readPayload(mutation), readImage(mutation), key)
+                            .materialize().blockingGet();
+                } catch (IOException e) {
+                    return e;
+                }
+                if (result.isOnError()) {
+                    return result.getError();
+                }
+                onCreated(mutation, result.getValue(), createdIds);
+                return null;
+            }
+            case PendingMutationEntity.TYPE_UPDATE: {
+                Recipe recipe = readPayload(mutation);
+                recipe.setId(recipeId);
+                Notification<GeneralServerResponse> result;
+                try {
+                    result = remoteRepository.updateRecipe(recipe, readImage(mutation), key)
+                            .materialize().blockingGet();
+                } catch (IOException e) {
+                    return e;
+                }
+                if (result.isOnError()) {
+                    return result.getError();
+                }
+                GeneralServerResponse response = result.getValue();
+                database.runInTransaction(() -> {
+                    if (mutation.getImagePath() != null && response != null && response.getPhotoUrl() != null) {
+                        recipeDao.updatePhotoUrl(recipeId, response.getPhotoUrl());
+                    }
+                    outboxDao.deleteById(mutation.getId());
+                });
+                deleteImage(mutation);
+                return null;
+            }
+            case PendingMutationEntity.TYPE_DELETE: {
+                Throwable error = remoteRepository.deleteRecipe(recipeId, key)
+                        .materialize().blockingGet().getError();
+                if (error == null || isHttpStatus(error, 404)) {
+                    // 404: рецепт уже удален на сервере
+                    outboxDao.deleteById(mutation.getId());
+                    return null;
+                }
+                return error;
+            }
+            default:
+                Log.e(TAG, "Неизвестный тип изменения, удаляем из очереди: " + mutation);
+                outboxDao.deleteById(mutation.getId());
+                return null;
+        }
+    }
+
+    /**
+     * Переносит созданный рецепт и его изменения в очереди с временного ID на ID сервера.
+     */
+    private void onCreated(PendingMutationEntity mutation, GeneralServerResponse response,
+                           Map<Integer, Integer> createdIds) {
+        int tempId = mutation.getRecipeId();
+        if (response == null || response.getId() == null) {
+            // Без ID сервера рецепт нельзя связать с локальной строкой, ее заменит следующая синхронизация
+            Log.w(TAG, "Ответ сервера не содержит ID рецепта, временный ID " + tempId);
+            outboxDao.deleteById(mutation.getId());
+            deleteImage(mutation);
+            return;
+        }
+        int serverId = response.getId();
+        database.runInTransaction(() -> {
+            RecipeWithDetails local = recipeDao.getRecipeByIdSync(tempId);
+            if (local != null) {
+                Recipe recipe = local.toRecipe();
+                recipe.setId(serverId);
+                if (response.getPhotoUrl() != null) {
+                    recipe.setPhoto_url(response.getPhotoUrl());
+                }
+                recipeDao.deleteRecipe(tempId);
+                recipeDao.insertRecipe(new RecipeEntity(recipe));
+            }
+            if (likedRecipeDao.isRecipeLiked(tempId)) {
+                likedRecipeDao.deleteById(tempId);
+                likedRecipeDao.insert(new LikedRecipeEntity(serverId));
+            }
+            outboxDao.deleteById(mutation.getId());
+            outboxDao.remapRecipeId(tempId, serverId);
+        });
+        createdIds.put(tempId, serverId);
+        deleteImage(mutation);
+        Log.d(TAG, "Рецепт создан на сервере: временный ID " + tempId + " -> " + serverId);
+    }
+
+    /**
+     * Удаляет отклоненное сервером изменение и откатывает его локальный результат.
+     */
+    private void discard(PendingMutationEntity mutation, String error) {
+        int recipeId = mutation.getRecipeId();
+        switch (mutation.getType()) {
+            case PendingMutationEntity.TYPE_CREATE: {
+                Recipe recipe = readPayload(mutation);
+                database.runInTransaction(() -> {
+                    recipeDao.deleteRecipe(recipeId);
+                    likedRecipeDao.deleteById(recipeId);
+                    outboxDao.deleteByRecipeId(recipeId);
+                });
+                notifyUser(context.getString(R.string.outbox_create_failed,
+                        recipe != null ? recipe.getTitle() : "", formatError(error)));
+                break;
+            }
+            case PendingMutationEntity.TYPE_UPDATE:
+                outboxDao.deleteById(mutation.getId());
+                requestFullResync();
+                notifyUser(context.getString(R.string.outbox_update_failed, formatError(error)));
+                break;
+            case PendingMutationEntity.TYPE_DELETE:
+                outboxDao.deleteById(mutation.getId());
+                requestFullResync();
+                notifyUser(context.getString(R.string.outbox_delete_failed, formatError(error)));
+                break;
+            default:
+                outboxDao.deleteById(mutation.getId());
+                break;
+        }
+        deleteImage(mutation);
+    }
+
+    /**
+     * Следующая синхронизация рецептов будет полной и вернет строки, измененные локально, к версии сервера.
+     */
+    private void requestFullResync() {
+        database.syncStateDao().clear(SyncStateEntity.RESOURCE_RECIPES);
+        ETagStore.getInstance(context).invalidate(ETagInterceptor.ENDPOINT_RECIPES);
+    }
+
+    /**
+     * Ошибки 4xx, кроме 408 и 429, означают, что сервер не примет изменение и при повторе.
+     */
+    static boolean isRejected(Throwable error) {
+        if (!(error instanceof HttpException)) {
+            return false;
+        }
+        int code = ((HttpException) error).code();
+        return code >= 400 && code < 500 && code != 408 && code != 429;
+    }
+
+    private static boolean isHttpStatus(Throwable error, int code) {
+        return error instanceof HttpException && ((HttpException) error).code() == code;
+    }
+
+    private String formatError(String error) {
+        if (error != null && error.startsWith("Модерация:")) {
+            String moderationMessage = error.substring("Модерация:".length()).trim();
+            return moderationMessage.isEmpty()
+                    ? context.getString(R.string.moderation_failed_generic)
+                    : context.getString(R.string.moderation_failed, moderationMessage);
+        }
+        return error != null ? error : "";
+    }
+
+    private void notifyUser(String message) {
+        mainThreadHandler.post(() -> Toast.makeText(context, message, Toast.LENGTH_LONG).show());
+    }
+
+    // =============== Данные изменений ===============
+
+    private static String newIdempotencyKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    private Recipe readPayload(PendingMutationEntity mutation) {
+        return mutation.getPayload() != null ? gson.fromJson(mutation.getPayload(), Recipe.class) : null;
+    }
+
+    private File getImageDir() {
+        return new File(context.getFilesDir(), IMAGE_DIR);
+    }
+
+    /**
+     * Сохраняет изображение изменения в файл: массив байтов не хранится в базе.
+     * @return путь к файлу или null, если изображения нет
+     */
+    private String saveImage(String key, byte[] imageBytes) throws IOException {
+        if (imageBytes == null || imageBytes.length == 0) {
+            return null;
+        }
+        File dir = getImageDir();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Не удалось создать каталог " + dir);
+        }
+        File file = new File(dir, key + ".jpg");
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(imageBytes);
+        }
+        return file.getAbsolutePath();
+    }
+
+    private byte[] readImage(PendingMutationEntity mutation) throws IOException {
+        if (mutation.getImagePath() == null) {
+            return null;
+        }
+        File file = new File(mutation.getImagePath());
+        if (!file.exists()) {
+            Log.w(TAG, "Файл изображения изменения не найден: " + file);
+            return null;
+        }
+        byte[] bytes = new byte[(int) file.length()];
+        try (InputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = in.read(bytes, offset, bytes.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+        }
+        return bytes;
+    }
+
+    private void deleteImage(PendingMutationEntity mutation) {
+        if (mutation.getImagePath() != null) {
+            new File(mutation.getImagePath()).delete();
+        }
+    }
+}
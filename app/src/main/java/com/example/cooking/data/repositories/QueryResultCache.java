@@ -0,0 +1,138 @@
+package com.example.cooking.data.repositories;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import com.example.cooking.data.database.AppDatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Общий для приложения кэш результатов запросов к локальной базе, ключ - сигнатура запроса
+ * (например, "category:meal_type:breakfast").
+ * <p>
+ * Записи не устаревают по времени: кэш сбрасывается целиком, когда Room сообщает об изменении
+ * таблиц recipes или liked_recipes ({@link InvalidationTracker}), из какого бы репозитория
+ * ни была сделана запись. Результат запроса, во время выполнения которого таблицы изменились,
+ * не сохраняется. Размер ограничен числом записей и суммарным числом строк,
+ * вытесняются давно не использованные записи (LRU).
+ */
+public final class QueryResultCache {
+
+    private static final String TAG = "QueryResultCache";
+    private static final String[] OBSERVED_TABLES = {"recipes", "liked_recipes"};
+    private static final int MAX_ENTRIES = 32;
+    private static final int MAX_ROWS = 2000;
+
+    private static volatile QueryResultCache INSTANCE;
+
+    private final LinkedHashMap<String, List<?>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int cachedRows;
+    private long generation;    // Увеличивается при каждом изменении наблюдаемых таблиц
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    private QueryResultCache(Context context) {
+        // Наблюдатель живет столько же, сколько процесс, поэтому не снимается
+        AppDatabase.getInstance(context).getInvalidationTracker()
+                .addObserver(new InvalidationTracker.Observer(OBSERVED_TABLES) {
+                    @Override
+                    public void onInvalidated(@NonNull Set<String> tables) {
+                        invalidateAll();
+                    }
+                });
+    }
+
+    public static QueryResultCache getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (QueryResultCache.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new QueryResultCache(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Возвращает закэшированный результат запроса или выполняет запрос и кэширует его.
+     * Запрос выполняется вне блокировки, вызывать из фонового потока.
+     * @param signature сигнатура запроса, однозначно определяющая его результат
+     * @return копия результата, которую вызывающая сторона может изменять
+     */
+    public <T> List<T> getOrLoad(String signature, Callable<List<T>> loader) throws Exception {
+        long loadGeneration;
+        synchronized (this) {
+            @SuppressWarnings("unchecked")
+            List<T> cached = (List<T>) entries.get(signature);
+            if (cached != null) {
+                hits++;
+                return new ArrayList<>(cached);
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        List<T> result = loader.call();
+        if (result == null) return new ArrayList<>();
+
+        synchronized (this) {
+            if (loadGeneration == generation && result.size() <= MAX_ROWS) {
+                List<?> previous = entries.put(signature, Collections.unmodifiableList(new ArrayList<>(result)));
+                if (previous != null) cachedRows -= previous.size();
+                cachedRows += result.size();
+                trim();
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Сбрасывает все записи. Вызывается наблюдателем Room, а также репозиторием сразу после
+     * собственной записи, чтобы не ждать асинхронного уведомления.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        if (entries.isEmpty()) return;
+        entries.clear();
+        cachedRows = 0;
+        invalidations++;
+        Log.d(TAG, "Кэш запросов сброшен после изменения данных");
+    }
+
+    /**
+     * Счетчики попаданий, промахов, вытеснений и сбросов с момента запуска процесса.
+     */
+    public synchronized String getStats() {
+        long total = hits + misses;
+        return "попаданий=" + hits + ", промахов=" + misses
+                + (total > 0 ? String.format(Locale.ROOT, " (%.0f%%)", hits * 100.0 / total) : "")
+                + ", вытеснено=" + evictions + ", сбросов=" + invalidations
+                + ", записей=" + entries.size() + ", строк=" + cachedRows;
+    }
+
+    /**
+     * Вытесняет давно не использованные записи, пока кэш не уложится в ограничения.
+     */
+    private void trim() {
+        Iterator<Map.Entry<String, List<?>>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > MAX_ENTRIES || cachedRows > MAX_ROWS) && iterator.hasNext()) {
+            cachedRows -= iterator.next().getValue().size();
+            iterator.remove();
+            evictions++;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.cooking.data.repositories;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.PagingState;
+import androidx.paging.rxjava3.RxPagingSource;
+import androidx.room.InvalidationTracker;
+
+import com.example.cooking.data.database.AppDatabase;
+import com.example.cooking.data.database.RecipeCard;
+import com.example.cooking.data.database.RecipeDao;
+import com.example.cooking.data.database.RecipeFacetQuery;
+import com.example.cooking.domain.entities.Recipe;
+import com.example.cooking.domain.entities.RecipeFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import kotlin.Unit;
+
+/**
+ * Источник страниц карточек рецептов с keyset-пагинацией по (title, id).
+ * В отличие от LIMIT/OFFSET стоимость загрузки страницы не зависит от ее позиции в списке.
+ * Сообщает количество элементов до и после страницы, что позволяет показывать плейсхолдеры.
+ * Запросы собирает {@link RecipeFacetQuery}, поэтому в них входят только заданные фильтры.
+ * Инвалидируется при любом изменении таблиц recipes и recipe_ingredients.
+ */
+public class RecipeCardPagingSource extends RxPagingSource<RecipeCardPagingSource.Key, Recipe> {
+
+    private static final String TAG = "RecipeCardPagingSource";
+
+    private final RecipeDao recipeDao;
+    private final RecipeFilter filter;
+    private final InvalidationTracker invalidationTracker;
+    private final InvalidationTracker.Observer observer;
+
+    // Общее число строк фиксируется на время жизни источника: при изменении таблицы он инвалидируется
+    private volatile int totalCount = -1;
+
+    /**
+     * Ключ страницы: позиция элемента в упорядоченном списке и его значения (title, id).
+     * Позиция равна -1, если она неизвестна (ключ восстановлен из якоря при обновлении).
+     */
+    public static final class Key {
+        final String title;
+        final int id;
+        final int position;
+
+        Key(String title, int id, int position) {
+            this.title = title;
+            this.id = id;
+            this.position = position;
+        }
+    }
+
+    /**
+     * @param filter фильтр карточек; копируется, поэтому дальнейшие изменения на источник не влияют
+     */
+    public RecipeCardPagingSource(AppDatabase database, RecipeFilter filter) {
+        this.recipeDao = database.recipeDao();
+        this.filter = new RecipeFilter(filter);
+        this.invalidationTracker = database.getInvalidationTracker();
+        this.observer = new InvalidationTracker.Observer("recipes", "recipe_ingredients") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        invalidationTracker.addObserver(observer);
+        registerInvalidatedCallback(() -> {
+            invalidationTracker.removeObserver(observer);
+            return Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<LoadResult<Key, Recipe>> loadSingle(@NonNull LoadParams<Key> params) {
+        return Single.fromCallable(() -> load(params))
+                .subscribeOn(Schedulers.io())
+                .onErrorReturn(throwable -> {
+                    Log.e(TAG, "Ошибка загрузки страницы: " + throwable.getMessage(), throwable);
+                    return new LoadResult.Error<>(throwable);
+                });
+    }
+
+    private LoadResult<Key, Recipe> load(LoadParams<Key> params) {
+        int loadSize = params.getLoadSize();
+        Key key = params.getKey();
+        int total = getTotalCount();
+
+        List<RecipeCard> cards;
+        int startPosition;
+        if (params instanceof LoadParams.Prepend) {
+            cards = new ArrayList<>(recipeDao.getRecipeCardsByFacets(
+                    RecipeFacetQuery.cardsBefore(filter, key.title, key.id, loadSize)));
+            Collections.reverse(cards);
+            startPosition = key.position - cards.size();
+        } else if (params instanceof LoadParams.Append) {
+            cards = recipeDao.getRecipeCardsByFacets(
+                    RecipeFacetQuery.cardsAfter(filter, key.title, key.id, loadSize));
+            startPosition = key.position + 1;
+        } else if (key == null) {
+            cards = recipeDao.getRecipeCardsByFacets(RecipeFacetQuery.cardsFirstPage(filter, loadSize));
+            startPosition = 0;
+        } else {
+            // Обновление от якоря: загружаем страницу, начиная с самого якоря включительно
+            cards = recipeDao.getRecipeCardsByFacets(
+                    RecipeFacetQuery.cardsAfter(filter, key.title, key.id - 1, loadSize));
+            startPosition = recipeDao.countRecipeCardsByFacets(
+                    RecipeFacetQuery.countBefore(filter, key.title, key.id));
+        }
+
+        List<Recipe> recipes = RecipeCard.toRecipes(cards);
+        if (recipes.isEmpty()) {
+            return new LoadResult.Page<>(recipes, null, null);
+        }
+
+        int itemsBefore = Math.max(startPosition, 0);
+        int itemsAfter = Math.max(total - itemsBefore - recipes.size(), 0);
+        Recipe first = recipes.get(0);
+        Recipe last = recipes.get(recipes.size() - 1);
+        Key prevKey = itemsBefore > 0 ? new Key(first.getTitle(), first.getId(), itemsBefore) : null;
+        Key nextKey = itemsAfter > 0 ? new Key(last.getTitle(), last.getId(), itemsBefore + recipes.size() - 1) : null;
+        return new LoadResult.Page<>(recipes, prevKey, nextKey, itemsBefore, itemsAfter);
+    }
+
+    private int getTotalCount() {
+        if (totalCount < 0) {
+            totalCount = recipeDao.countRecipeCardsByFacets(RecipeFacetQuery.count(filter));
+        }
+        return totalCount;
+    }
+
+    @Nullable
+    @Override
+    public Key getRefreshKey(@NonNull PagingState<Key, Recipe> state) {
+        Integer anchorPosition = state.getAnchorPosition();
+        if (anchorPosition == null) {
+            return null;
+        }
+        Recipe anchor = state.closestItemToPosition(anchorPosition);
+        return anchor != null ? new Key(anchor.getTitle(), anchor.getId(), -1) : null;
+    }
+}
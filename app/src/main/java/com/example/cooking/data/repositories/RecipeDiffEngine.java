@@ -0,0 +1,161 @@
+package com.example.cooking.data.repositories;
+
+import androidx.annotation.NonNull;
+
+import com.example.cooking.data.database.RecipeEntity;
+import com.example.cooking.data.database.RecipeRowState;
+import com.example.cooking.domain.entities.Recipe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сравнивает полученные с сервера рецепты с локальными строками по хэшу содержимого за O(n).
+ * Рецепт попадает в обновление, только если изменился его хэш; если изменился лишь статус лайка,
+ * обновляется только этот столбец. Строки, которых нет в ответе сервера, помечаются на удаление.
+ * Рецепты можно передавать частями ({@link #diffChunk(List)}), тогда удаляемые строки
+ * определяются после последней части через {@link #getMissingIds()}.
+ * Защищенные строки (измененные локально и еще не отправленные на сервер) не обновляются и не удаляются.
+ */
+public final class RecipeDiffEngine {
+
+    private final Map<Integer, RecipeRowState> existingById;
+    private final Set<Integer> protectedIds;
+    private final Set<Integer> seenIds = new HashSet<>();
+
+    /**
+     * @param existing ID, хэши и статусы лайка локальных рецептов
+     */
+    public RecipeDiffEngine(List<RecipeRowState> existing) {
+        this(existing, Collections.emptySet());
+    }
+
+    /**
+     * @param existing ID, хэши и статусы лайка локальных рецептов
+     * @param protectedIds ID рецептов с неотправленными локальными изменениями
+     */
+    public RecipeDiffEngine(List<RecipeRowState> existing, Set<Integer> protectedIds) {
+        existingById = new HashMap<>(existing.size() * 2);
+        for (RecipeRowState row : existing) {
+            existingById.put(row.getId(), row);
+        }
+        this.protectedIds = protectedIds;
+    }
+
+    /**
+     * Результат сравнения: списки изменений для {@code RecipeDao.applyRecipeChanges} и счетчики.
+     */
+    public static final class Result {
+        public final List<RecipeEntity> toInsert = new ArrayList<>();
+        public final List<RecipeEntity> toUpdate = new ArrayList<>();
+        public final List<Integer> toLike = new ArrayList<>();
+        public final List<Integer> toUnlike = new ArrayList<>();
+        public final List<Integer> toDelete = new ArrayList<>();
+        private int unchanged;
+
+        public int getInsertedCount() {
+            return toInsert.size();
+        }
+
+        /**
+         * Количество обновленных рецептов, включая те, у которых изменился только статус лайка.
+         */
+        public int getUpdatedCount() {
+            return toUpdate.size() + toLike.size() + toUnlike.size();
+        }
+
+        public int getUnchangedCount() {
+            return unchanged;
+        }
+
+        public int getDeletedCount() {
+            return toDelete.size();
+        }
+
+        /**
+         * @return true, если база уже совпадает с данными сервера и запись не нужна
+         */
+        public boolean isEmpty() {
+            return toInsert.isEmpty() && toUpdate.isEmpty() && toLike.isEmpty()
+                    && toUnlike.isEmpty() && toDelete.isEmpty();
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "новых=" + getInsertedCount() + ", обновлено=" + getUpdatedCount()
+                    + ", без изменений=" + unchanged + ", удалено=" + getDeletedCount();
+        }
+    }
+
+    /**
+     * Сравнивает очередную часть рецептов сервера с текущими строками базы.
+     * Список на удаление в результате не заполняется.
+     * Если рецепт с одним ID пришел несколько раз, учитывается первое вхождение.
+     * @param incoming рецепты, полученные с сервера
+     */
+    public Result diffChunk(List<Recipe> incoming) {
+        Result result = new Result();
+        for (Recipe recipe : incoming) {
+            if (!seenIds.add(recipe.getId())) {
+                continue;
+            }
+            if (protectedIds.contains(recipe.getId())) {
+                result.unchanged++;
+                continue;
+            }
+            RecipeEntity entity = new RecipeEntity(recipe);
+            RecipeRowState row = existingById.get(recipe.getId());
+            if (row == null) {
+                result.toInsert.add(entity);
+            } else if (row.getContentHash() != entity.getContentHash()) {
+                result.toUpdate.add(entity);
+            } else if (row.isLiked() != entity.isLiked()) {
+                (entity.isLiked() ? result.toLike : result.toUnlike).add(entity.getId());
+            } else {
+                result.unchanged++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * ID локальных рецептов, которые не встретились ни в одной из переданных частей.
+     */
+    public List<Integer> getMissingIds() {
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : existingById.keySet()) {
+            if (!seenIds.contains(id) && !protectedIds.contains(id)) {
+                missing.add(id);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Сравнивает полный список рецептов сервера с текущими строками базы.
+     * @param existing ID, хэши и статусы лайка локальных рецептов
+     * @param incoming рецепты, полученные с сервера
+     */
+    public static Result diff(List<RecipeRowState> existing, List<Recipe> incoming) {
+        return diff(existing, Collections.emptySet(), incoming);
+    }
+
+    /**
+     * Сравнивает полный список рецептов сервера с текущими строками базы, не трогая защищенные строки.
+     * @param existing ID, хэши и статусы лайка локальных рецептов
+     * @param protectedIds ID рецептов с неотправленными локальными изменениями
+     * @param incoming рецепты, полученные с сервера
+     */
+    public static Result diff(List<RecipeRowState> existing, Set<Integer> protectedIds, List<Recipe> incoming) {
+        RecipeDiffEngine engine = new RecipeDiffEngine(existing, protectedIds);
+        Result result = engine.diffChunk(incoming);
+        result.toDelete.addAll(engine.getMissingIds());
+        return result;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.cooking.data.repositories;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.example.cooking.data.database.AppDatabase;
+import com.example.cooking.data.database.MissingRecipeDao;
+import com.example.cooking.data.database.MissingRecipeEntity;
+import com.example.cooking.data.database.RecipeDao;
+import com.example.cooking.domain.entities.Recipe;
+import com.example.cooking.network.models.recipeResponses.RecipesResponse;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.reactivex.rxjava3.core.Notification;
+import retrofit2.HttpException;
+
+/**
+ * Догрузка рецептов, которые сервер вернул в результатах поиска или чата,
+ * но которых еще нет в локальной базе (каталог не успел синхронизироваться).
+ * Отсутствующие ID запрашиваются пакетами через recipes/by-ids и сохраняются в Room
+ * до показа результатов. ID, которых нет и на сервере, запоминаются в негативном кэше
+ * {@link MissingRecipeEntity} и не запрашиваются повторно в течение {@link #MISSING_TTL_MS}.
+ */
+public class RecipeFillThroughRepository extends NetworkRepository {
+
+    private static final String TAG = "RecipeFillThrough";
+    private static final int FETCH_BATCH_SIZE = 100;
+    private static final long MISSING_TTL_MS = 24 * 60 * 60 * 1000L; // 24 часа
+
+    private final RecipeLocalRepository localRepository;
+    private final MissingRecipeDao missingRecipeDao;
+
+    public RecipeFillThroughRepository(Context context) {
+        super(context);
+        this.localRepository = new RecipeLocalRepository(context);
+        this.missingRecipeDao = AppDatabase.getInstance(context).missingRecipeDao();
+    }
+
+    /**
+     * Загружает с сервера рецепты из списка, которых нет в локальной базе.
+     * Ошибка сети не прерывает показ результатов: вызывающий просто получит
+     * те рецепты, что уже есть в базе. Вызывать из фонового потока.
+     * @param recipeIds ID рецептов из ответа сервера
+     * @return количество загруженных рецептов
+     */
+    public int fillMissing(List<Integer> recipeIds) {
+        if (recipeIds == null || recipeIds.isEmpty()) return 0;
+        try {
+            List<Integer> toFetch = excludeKnownMissing(localRepository.getMissingRecipeIds(recipeIds));
+            if (toFetch.isEmpty()) return 0;
+            if (!isNetworkAvailable()) {
+                Log.d(TAG, "Нет сети, пропускаем догрузку " + toFetch.size() + " рецептов");
+                return 0;
+            }
+
+            int fetched = 0;
+            for (int i = 0; i < toFetch.size(); i += FETCH_BATCH_SIZE) {
+                List<Integer> batch = toFetch.subList(i, Math.min(i + FETCH_BATCH_SIZE, toFetch.size()));
+                int batchFetched = fetchBatch(batch);
+                if (batchFetched < 0) break;
+                fetched += batchFetched;
+            }
+            Log.d(TAG, "Догружено рецептов: " + fetched + " из " + toFetch.size());
+            return fetched;
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка догрузки рецептов", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Загружает один пакет рецептов и запоминает ID, которых нет на сервере.
+     * @return количество сохраненных рецептов или -1, если запрос не удался
+     */
+    private int fetchBatch(List<Integer> batch) {
+        String ids = TextUtils.join(",", batch);
+        Notification<RecipesResponse> result = singleFlight("recipes/by-ids", ids, apiService.getRecipesByIds(ids))
+                .materialize().blockingGet();
+        if (result.isOnError()) {
+            Throwable error = result.getError();
+            if (error instanceof HttpException) {
+                Log.w(TAG, "Сервер отклонил загрузку рецептов по ID: HTTP " + ((HttpException) error).code());
+            } else {
+                Log.w(TAG, "Не удалось загрузить рецепты по ID", error);
+            }
+            return -1;
+        }
+
+        RecipesResponse response = result.getValue();
+        List<Recipe> recipes = response != null && response.getRecipes() != null
+                ? response.getRecipes() : new ArrayList<>();
+        Set<Integer> returnedIds = new HashSet<>();
+        for (Recipe recipe : recipes) {
+            returnedIds.add(recipe.getId());
+        }
+
+        long now = System.currentTimeMillis();
+        List<MissingRecipeEntity> missing = new ArrayList<>();
+        for (Integer id : batch) {
+            if (!returnedIds.contains(id)) {
+                missing.add(new MissingRecipeEntity(id, now));
+            }
+        }
+        if (!missing.isEmpty()) {
+            missingRecipeDao.upsert(missing);
+            Log.d(TAG, "Рецептов нет на сервере: " + missing.size());
+        }
+        return recipes.isEmpty() ? 0 : localRepository.upsertFetchedRecipes(recipes);
+    }
+
+    /**
+     * Убирает ID, отсутствие которых на сервере недавно подтверждено,
+     * а также временные отрицательные ID рецептов, еще не отправленных на сервер.
+     */
+    private List<Integer> excludeKnownMissing(List<Integer> recipeIds) {
+        List<Integer> candidates = new ArrayList<>(recipeIds.size());
+        for (Integer id : recipeIds) {
+            if (id != null && id > 0) {
+                candidates.add(id);
+            }
+        }
+        if (candidates.isEmpty()) return candidates;
+
+        long notBefore = System.currentTimeMillis() - MISSING_TTL_MS;
+        missingRecipeDao.deleteOlderThan(notBefore);
+        Set<Integer> knownMissing = new HashSet<>();
+        for (int i = 0; i < candidates.size(); i += RecipeDao.MAX_BIND_ARGS) {
+            List<Integer> chunk = candidates.subList(i, Math.min(i + RecipeDao.MAX_BIND_ARGS, candidates.size()));
+            knownMissing.addAll(missingRecipeDao.getKnownMissingIds(chunk, notBefore));
+        }
+        if (knownMissing.isEmpty()) return candidates;
+
+        List<Integer> result = new ArrayList<>(candidates.size());
+        for (Integer id : candidates) {
+            if (!knownMissing.contains(id)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+}
@@ -3,40 +3,56 @@ package com.example.cooking.data.repositories;
 import android.content.Context;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Transformations;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
+import com.example.cooking.domain.entities.IngredientMatch;
 import com.example.cooking.domain.entities.Recipe;
+import com.example.cooking.domain.entities.RecipeFacetCounts;
+import com.example.cooking.domain.entities.RecipeFilter;
 import com.example.cooking.data.database.AppDatabase;
+import com.example.cooking.data.database.FacetCount;
+import com.example.cooking.data.database.RecipeCard;
 import com.example.cooking.data.database.RecipeDao;
 import com.example.cooking.data.database.RecipeEntity;
-import com.example.cooking.data.database.converters.DataConverters;
+import com.example.cooking.data.database.RecipeFacetQuery;
+import com.example.cooking.data.database.RecipeFtsEntity;
+import com.example.cooking.data.database.RecipeWithDetails;
+import com.example.cooking.data.database.SyncStateEntity;
+import com.example.cooking.data.search.IngredientIndex;
 import com.example.cooking.utils.AppExecutors;
+import com.example.cooking.utils.SearchResultCache;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.HashSet;
-import java.util.stream.Collectors;
 
 /**
  * Репозиторий для работы с локальной базой данных рецептов.
- * Поддерживает ленивую сериализацию для оптимизации производительности.
+ * Ингредиенты и шаги загружаются из дочерних таблиц через {@link RecipeWithDetails}.
  */
 public class RecipeLocalRepository extends NetworkRepository{
     
     private static final String TAG = "RecipeLocalRepository";
+    private static final int PAGE_SIZE = 30;
+    private static final int LOCAL_SEARCH_LIMIT = 200;
+    private final AppDatabase database;
     private final RecipeDao recipeDao;
-    
-    // Кэш для результатов фильтрации по категориям
-    private final java.util.concurrent.ConcurrentHashMap<String, List<Recipe>> categoryFilterCache = new java.util.concurrent.ConcurrentHashMap<>();
-    private volatile long lastCacheUpdate = 0;
-    private static final long CACHE_VALIDITY_MS = 30000; // 30 секунд
 
     
     public RecipeLocalRepository(Context context) {
         super(context);
-        AppDatabase database = AppDatabase.getInstance(context);
+        database = AppDatabase.getInstance(context);
         recipeDao = database.recipeDao();
     }
     
@@ -45,21 +61,112 @@ public class RecipeLocalRepository extends NetworkRepository{
      * @return LiveData список рецептов
      */
     public LiveData<List<Recipe>> getAllRecipes() {
-        // Трансформация List<RecipeEntity> в List<Recipe>
-        return Transformations.map(
-            recipeDao.getAllRecipes(),
-            entities -> {
-                List<Recipe> recipes = new ArrayList<>();
-                if (entities != null) {
-                    for (RecipeEntity entity : entities) {
-                        recipes.add(entity.toRecipe());
-                    }
-                    // Предварительная загрузка кэша для часто используемых данных
-                    preloadCacheForEntities(entities);
+        // Трансформация List<RecipeWithDetails> в List<Recipe>
+        return Transformations.map(recipeDao.getAllRecipes(), RecipeWithDetails::toRecipes);
+    }
+
+    /**
+     * Получить карточки всех рецептов для списков.
+     * Рецепты не содержат ингредиентов и шагов.
+     * @return LiveData список рецептов
+     */
+    public LiveData<List<Recipe>> getAllRecipeCards() {
+        return Transformations.map(recipeDao.getAllRecipeCards(), RecipeCard::toRecipes);
+    }
+
+    /**
+     * Получить карточки лайкнутых рецептов для экрана избранного.
+     * @return LiveData список рецептов
+     */
+    public LiveData<List<Recipe>> getLikedRecipeCards() {
+        return Transformations.map(recipeDao.getLikedRecipeCards(), RecipeCard::toRecipes);
+    }
+
+    /**
+     * Постраничный поток карточек рецептов в порядке (title, id) с плейсхолдерами.
+     * Кэширование в области ViewModel выполняется вызывающей стороной.
+     * @param mealType фильтр по типу приема пищи или null
+     * @param foodType фильтр по типу блюда или null
+     */
+    public LiveData<PagingData<Recipe>> getRecipeCardsPaged(String mealType, String foodType) {
+        PagingConfig config = new PagingConfig(PAGE_SIZE, PAGE_SIZE, true, PAGE_SIZE * 2, PAGE_SIZE * 10);
+        Pager<RecipeCardPagingSource.Key, Recipe> pager =
+                new Pager<>(config, () -> new RecipeCardPagingSource(database, filterOf(mealType, foodType)));
+        return PagingLiveData.getLiveData(pager);
+    }
+
+    /**
+     * Количество рецептов, удовлетворяющих фильтру. Вызывать из фонового потока.
+     */
+    public int countRecipeCards(String mealType, String foodType) {
+        try {
+            return recipeDao.countRecipeCardsByFacets(RecipeFacetQuery.count(filterOf(mealType, foodType)));
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка подсчета рецептов: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Фильтр по типу приема пищи и типу блюда; null означает "без фильтра".
+     */
+    private static RecipeFilter filterOf(String mealType, String foodType) {
+        RecipeFilter filter = new RecipeFilter();
+        if (mealType != null) filter.setMealTypes(Collections.singletonList(mealType));
+        if (foodType != null) filter.setFoodTypes(Collections.singletonList(foodType));
+        return filter;
+    }
+
+    /**
+     * Получить карточки всех рецептов синхронно
+     * @return список рецептов без ингредиентов и шагов
+     */
+    public List<Recipe> getAllRecipeCardsSync() {
+        try {
+            List<Recipe> recipes = RecipeCard.toRecipes(recipeDao.getAllRecipeCardsSync());
+            Log.d(TAG, "Получено " + recipes.size() + " карточек рецептов из локальной БД");
+            return recipes;
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка при получении карточек рецептов из БД: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Получить карточки рецептов по списку ID с сохранением порядка ID.
+     * Отсутствующие в базе ID пропускаются. Должен вызываться из фонового потока.
+     */
+    public List<Recipe> getRecipeCardsByIds(List<Integer> recipeIds) {
+        List<Recipe> recipes = new ArrayList<>();
+        if (recipeIds == null || recipeIds.isEmpty()) return recipes;
+        try {
+            Map<Integer, RecipeCard> cardsById = new HashMap<>();
+            for (List<Integer> chunk : chunkIds(recipeIds)) {
+                for (RecipeCard card : recipeDao.getRecipeCardsByIds(chunk)) {
+                    cardsById.put(card.getId(), card);
                 }
-                return recipes;
             }
-        );
+            for (Integer id : recipeIds) {
+                RecipeCard card = cardsById.get(id);
+                if (card != null) recipes.add(card.toRecipe());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка при получении карточек рецептов по ID: " + e.getMessage());
+        }
+        return recipes;
+    }
+
+    /**
+     * Делит список ID на части, не превышающие лимит параметров запроса SQLite.
+     * Повторяющиеся ID запрашиваются один раз.
+     */
+    private static List<List<Integer>> chunkIds(List<Integer> recipeIds) {
+        List<Integer> uniqueIds = new ArrayList<>(new LinkedHashSet<>(recipeIds));
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int i = 0; i < uniqueIds.size(); i += RecipeDao.MAX_BIND_ARGS) {
+            chunks.add(uniqueIds.subList(i, Math.min(i + RecipeDao.MAX_BIND_ARGS, uniqueIds.size())));
+        }
+        return chunks;
     }
     
     /**
@@ -68,19 +175,8 @@ public class RecipeLocalRepository extends NetworkRepository{
      */
     public List<Recipe> getAllRecipesSync() {
         try {
-            List<RecipeEntity> entities = recipeDao.getAllRecipesSync();
-            List<Recipe> recipes = new ArrayList<>();
-            
-            if (entities != null) {
-                for (RecipeEntity entity : entities) {
-                    recipes.add(entity.toRecipe());
-                }
-                Log.d(TAG, "Получено " + recipes.size() + " рецептов из локальной БД");
-                
-                // Предварительная загрузка кэша для оптимизации последующих операций
-                preloadCacheForEntities(entities);
-            }
-            
+            List<Recipe> recipes = RecipeWithDetails.toRecipes(recipeDao.getAllRecipesSync());
+            Log.d(TAG, "Получено " + recipes.size() + " рецептов из локальной БД");
             return recipes;
         } catch (Exception e) {
             Log.e(TAG, "Ошибка при получении рецептов из БД: " + e.getMessage());
@@ -88,42 +184,6 @@ public class RecipeLocalRepository extends NetworkRepository{
         }
     }
 
-    /**
-     * Предварительно загружает кэш сериализации для списка сущностей.
-     * Это ускоряет последующие обращения к JSON данным.
-     */
-    private void preloadCacheForEntities(List<RecipeEntity> entities) {
-        if (entities == null || entities.isEmpty()) return;
-        
-        AppExecutors.getInstance().diskIO().execute(() -> {
-            try {
-                List<String> ingredientJsons = new ArrayList<>();
-                List<String> stepJsons = new ArrayList<>();
-                
-                // Собираем JSON данные из кэшированных сущностей
-                for (RecipeEntity entity : entities) {
-                    String ingredientsJson = entity.getIngredientsJson();
-                    String instructionsJson = entity.getInstructionsJson();
-                    
-                    if (ingredientsJson != null) {
-                        ingredientJsons.add(ingredientsJson);
-                    }
-                    if (instructionsJson != null) {
-                        stepJsons.add(instructionsJson);
-                    }
-                }
-                
-                // Предварительно загружаем в кэш DataConverters
-                DataConverters.preloadCache(ingredientJsons, stepJsons);
-                
-                Log.d(TAG, String.format("Кэш предварительно загружен для %d рецептов. %s", 
-                                        entities.size(), DataConverters.getCacheStats()));
-            } catch (Exception e) {
-                Log.e(TAG, "Ошибка при предварительной загрузке кэша: " + e.getMessage());
-            }
-        });
-    }
-    
     /**
      * Вставить рецепт в базу данных
      * @param recipe рецепт для вставки
@@ -131,7 +191,7 @@ public class RecipeLocalRepository extends NetworkRepository{
     public void insert(Recipe recipe) {
         AppExecutors.getInstance().diskIO().execute(() -> {
             RecipeEntity entity = new RecipeEntity(recipe);
-            recipeDao.insert(entity);
+            recipeDao.insertRecipe(entity);
             invalidateCache(); // Инвалидируем кэш
         });
     }
@@ -142,7 +202,7 @@ public class RecipeLocalRepository extends NetworkRepository{
     public void update(Recipe recipe) {
         AppExecutors.getInstance().diskIO().execute(() -> {
             RecipeEntity entity = new RecipeEntity(recipe);
-            recipeDao.update(entity);
+            recipeDao.updateRecipe(entity);
             invalidateCache(); // Инвалидируем кэш
         });
     }
@@ -161,56 +221,129 @@ public class RecipeLocalRepository extends NetworkRepository{
 
     
     /**
-     * Получает рецепты отфильтрованные по категории с оптимизацией SQL и кэшированием
-     * Использует прямые SQL запросы вместо фильтрации в памяти
+     * Получает карточки рецептов, отфильтрованных по категории, SQL-запросом с кэшированием.
+     * Результат хранится в общем кэше запросов ({@link QueryResultCache}) до первого изменения
+     * рецептов или лайков. Должен вызываться из фонового потока.
      */
     public List<Recipe> getRecipesByCategory(String filterKey, String filterType) {
-        String cacheKey = filterType + ":" + filterKey;
-        
-        // Проверяем кэш
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastCacheUpdate < CACHE_VALIDITY_MS) {
-            List<Recipe> cachedResult = categoryFilterCache.get(cacheKey);
-            if (cachedResult != null) {
-                Log.d(TAG, "Возвращен результат из кэша для " + cacheKey + " (" + cachedResult.size() + " рецептов)");
-                return new ArrayList<>(cachedResult); // Возвращаем копию для безопасности
+        RecipeFilter filter = new RecipeFilter();
+        switch (filterType) {
+            case "meal_type":
+                filter.setMealTypes(Collections.singletonList(filterKey));
+                break;
+            case "food_type":
+                filter.setFoodTypes(Collections.singletonList(filterKey));
+                break;
+            default:
+                Log.w(TAG, "Неизвестный тип фильтра: " + filterType);
+                return new ArrayList<>();
+        }
+
+        try {
+            return QueryResultCache.getInstance(context).getOrLoad("category:" + filterType + ":" + filterKey, () -> {
+                List<Recipe> recipes = RecipeCard.toRecipes(
+                        recipeDao.getRecipeCardsByFacets(RecipeFacetQuery.cards(filter)));
+                Log.d(TAG, "SQL фильтрация: найдено " + recipes.size() + " рецептов для " + filterType + "=" + filterKey);
+                return recipes;
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка при фильтрации рецептов: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Поиск по названию, ингредиентам и шагам с ранжированием BM25F и учетом словоформ,
+     * см. {@link LocalSearchIndex}. Результаты упорядочены по убыванию релевантности.
+     * Если точных совпадений нет, выполняется нечеткий поиск с учетом опечаток.
+     * Если ранжирующий индекс недоступен, выполняется полнотекстовый поиск через recipes_fts.
+     * Должен вызываться из фонового потока.
+     */
+    public List<Recipe> searchRecipes(String query) {
+        try {
+            LocalSearchIndex searchIndex = LocalSearchIndex.getInstance(context);
+            List<Integer> ids = searchIndex.search(query, LOCAL_SEARCH_LIMIT);
+            if (ids.isEmpty()) {
+                ids = searchIndex.fuzzySearch(query, LOCAL_SEARCH_LIMIT);
+                Log.d(TAG, "Нечеткий поиск '" + query + "': найдено " + ids.size() + " рецептов");
             }
+            List<Recipe> recipes = getRecipeCardsByIds(ids);
+            Log.d(TAG, "Локальный поиск '" + query + "': найдено " + recipes.size() + " рецептов");
+            return recipes;
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка ранжирующего поиска, используется FTS: " + e.getMessage(), e);
+            return searchRecipesFts(query);
         }
-        
+    }
+
+    /**
+     * Карточки рецептов по любой комбинации фасетов в порядке (title, id).
+     * Фильтр компилируется в один SQL-запрос ({@link RecipeFacetQuery}), поток обновляется
+     * при изменении рецептов и их ингредиентов.
+     */
+    public LiveData<List<Recipe>> observeRecipeCardsByFilter(RecipeFilter filter) {
+        return Transformations.map(recipeDao.observeRecipeCardsByFacets(RecipeFacetQuery.cards(filter)),
+                RecipeCard::toRecipes);
+    }
+
+    /**
+     * Счетчики фасетов для фильтра, одним агрегирующим запросом.
+     * Поток обновляется при изменении рецептов и их ингредиентов.
+     */
+    public LiveData<RecipeFacetCounts> observeFacetCounts(RecipeFilter filter) {
+        return Transformations.map(recipeDao.observeFacetCounts(RecipeFacetQuery.counts(filter)),
+                FacetCount::toFacetCounts);
+    }
+
+    /**
+     * Подбирает рецепты по имеющимся продуктам ("приготовить из того, что есть").
+     * Рецепты упорядочены по доле имеющихся ингредиентов, см. {@link LocalSearchIndex#findByIngredients}.
+     * Должен вызываться из фонового потока.
+     * @param requireAll рецепт должен содержать все указанные продукты, иначе хотя бы один
+     * @return карточки рецептов с числом имеющихся ингредиентов
+     */
+    public List<IngredientMatch> findRecipesByIngredients(List<String> available, boolean requireAll, int limit) {
+        List<IngredientMatch> result = new ArrayList<>();
+        if (available == null || available.isEmpty()) return result;
         try {
-            List<RecipeEntity> entities;
-            
-            switch (filterType) {
-                case "meal_type":
-                    entities = recipeDao.getRecipesByMealType(filterKey);
-                    break;
-                case "food_type":
-                    entities = recipeDao.getRecipesByFoodType(filterKey);
-                    break;
-                default:
-                    Log.w(TAG, "Неизвестный тип фильтра: " + filterType);
-                    return new ArrayList<>();
+            List<IngredientIndex.Match> matches = LocalSearchIndex.getInstance(context)
+                    .findByIngredients(available, requireAll, limit);
+            List<Integer> ids = new ArrayList<>(matches.size());
+            for (IngredientIndex.Match match : matches) {
+                ids.add(match.recipeId);
             }
-            
-            // Конвертируем в Recipe объекты
-            List<Recipe> recipes = new ArrayList<>();
-            if (entities != null) {
-                for (RecipeEntity entity : entities) {
-                    recipes.add(entity.toRecipe());
+            Map<Integer, Recipe> recipesById = new HashMap<>();
+            for (Recipe recipe : getRecipeCardsByIds(ids)) {
+                recipesById.put(recipe.getId(), recipe);
+            }
+            for (IngredientIndex.Match match : matches) {
+                Recipe recipe = recipesById.get(match.recipeId);
+                if (recipe != null) {
+                    result.add(new IngredientMatch(recipe, match.matchedIngredients, match.totalIngredients));
                 }
-                
-                // Предварительно загружаем кэш для отфильтрованных рецептов
-                preloadCacheForEntities(entities);
-                
-                Log.d(TAG, "SQL фильтрация: найдено " + recipes.size() + " рецептов для " + filterType + "=" + filterKey);
             }
-            
-            // Сохраняем в кэш
-            categoryFilterCache.put(cacheKey, new ArrayList<>(recipes));
-            
+            Log.d(TAG, "Подбор по продуктам " + available + ": найдено " + result.size() + " рецептов");
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка подбора рецептов по продуктам: " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    /**
+     * Полнотекстовый поиск через индекс recipes_fts.
+     * Результаты упорядочены по релевантности поля: название, ингредиенты, шаги.
+     */
+    private List<Recipe> searchRecipesFts(String query) {
+        String matchQuery = RecipeFtsEntity.buildMatchQuery(query);
+        if (matchQuery == null) {
+            return new ArrayList<>();
+        }
+        try {
+            List<Recipe> recipes = RecipeCard.toRecipes(recipeDao.searchRecipesFts(matchQuery));
+            Log.d(TAG, "FTS поиск '" + matchQuery + "': найдено " + recipes.size() + " рецептов");
             return recipes;
         } catch (Exception e) {
-            Log.e(TAG, "Ошибка при фильтрации рецептов: " + e.getMessage());
+            Log.e(TAG, "Ошибка полнотекстового поиска: " + e.getMessage(), e);
             return new ArrayList<>();
         }
     }
@@ -219,13 +352,8 @@ public class RecipeLocalRepository extends NetworkRepository{
      * Синхронно получить рецепт по идентификатору
      */
     public Recipe getRecipeByIdSync(int recipeId) {
-        RecipeEntity entity = recipeDao.getRecipeByIdSync(recipeId);
-        if (entity != null) {
-            // Предварительно загружаем кэш для этой сущности
-            entity.refreshCache();
-            return entity.toRecipe();
-        }
-        return null;
+        RecipeWithDetails entity = recipeDao.getRecipeByIdSync(recipeId);
+        return entity != null ? entity.toRecipe() : null;
     }
     
 
@@ -239,7 +367,7 @@ public class RecipeLocalRepository extends NetworkRepository{
                 try {
                     RecipeEntity recipe = recipeDao.getRecipeById(recipeId);
                     if (recipe != null) {
-                        recipeDao.delete(recipe);
+                        recipeDao.deleteRecipe(recipeId);
                         invalidateCache(); // Инвалидируем кэш
                         Log.d(TAG, "Рецепт успешно удален из базы данных: " + recipeId);
                     } else {
@@ -255,141 +383,243 @@ public class RecipeLocalRepository extends NetworkRepository{
     }
     
     /**
-     * Инвалидирует кэш фильтрации при изменении данных
+     * Сбрасывает общий кэш запросов сразу после записи, не дожидаясь
+     * асинхронного уведомления {@link androidx.room.InvalidationTracker}.
      */
     private void invalidateCache() {
-        categoryFilterCache.clear();
-        lastCacheUpdate = System.currentTimeMillis();
-        Log.d(TAG, "Кэш фильтрации инвалидирован");
+        QueryResultCache.getInstance(context).invalidateAll();
+    }
+
+    /**
+     * Каталог изменился при синхронизации: закэшированные результаты поиска
+     * будут перепроверены на сервере при следующем обращении.
+     */
+    private void invalidateSearchResults() {
+        SearchResultCache.getInstance(context).markAllStale();
     }
     
     /**
      * Умная замена рецептов с дифференциальными обновлениями.
-     * Анализирует существующие данные и выполняет только необходимые операции:
+     * Сравнивает рецепты с базой по хэшу содержимого ({@link RecipeDiffEngine})
+     * и записывает только те строки, которые действительно изменились:
      * - вставляет новые рецепты
-     * - обновляет измененные рецепты  
+     * - обновляет рецепты с измененным содержимым или статусом лайка
      * - удаляет отсутствующие рецепты
      */
     public void smartReplaceRecipes(List<Recipe> newRecipes) {
-        AppExecutors.getInstance().diskIO().execute(() -> {
-            try {
-                List<Integer> existingIds = recipeDao.getAllRecipeIds();
-                
-                List<RecipeEntity> toInsert = new ArrayList<>();
-                List<RecipeEntity> toUpdate = new ArrayList<>();
-                Set<Integer> newIds = new HashSet<>();
-                
-                for (Recipe recipe : newRecipes) {
-                    newIds.add(recipe.getId());
-                    RecipeEntity entity = new RecipeEntity(recipe);
-                    entity.refreshCache();
-                    
-                    if (existingIds.contains(recipe.getId())) {
-                        toUpdate.add(entity);
-                    } else {
-                        toInsert.add(entity);
-                    }
-                }
-                
-                List<Integer> toDelete = existingIds.stream()
-                    .filter(id -> !newIds.contains(id))
-                    .collect(Collectors.toList());
-                
-                AppDatabase.getInstance(context).runInTransaction(() -> {
-                    if (!toDelete.isEmpty()) {
-                        recipeDao.deleteRecipesByIds(toDelete);
-                        Log.d(TAG, "Удалено рецептов: " + toDelete.size());
-                    }
-                    
-                    if (!toInsert.isEmpty()) {
-                        recipeDao.insertNewRecipes(toInsert);
-                        Log.d(TAG, "Вставлено новых рецептов: " + toInsert.size());
-                    }
-                    
-                    if (!toUpdate.isEmpty()) {
-                        recipeDao.updateExistingRecipes(toUpdate);
-                        Log.d(TAG, "Обновлено рецептов: " + toUpdate.size());
-                    }
-                });
-                
-                // Предварительно загружаем кэш для новых данных
-                List<RecipeEntity> allNewEntities = new ArrayList<>();
-                allNewEntities.addAll(toInsert);
-                allNewEntities.addAll(toUpdate);
-                preloadCacheForEntities(allNewEntities);
-                
-                Log.d(TAG, String.format(
-                    "Умная замена завершена: всего=%d, новых=%d, обновлено=%d, удалено=%d", 
-                    newRecipes.size(), toInsert.size(), toUpdate.size(), toDelete.size()));
-                
+        AppExecutors.getInstance().diskIO().execute(() -> smartReplaceRecipesSync(newRecipes));
+    }
+
+    /**
+     * Синхронный вариант {@link #smartReplaceRecipes(List)}. Вызывать из фонового потока.
+     * При ошибке локальные данные остаются как есть: полная замена удалила бы рецепты
+     * с неотправленными изменениями, следующая синхронизация повторит сравнение.
+     * @return результат сравнения со счетчиками или null, если изменения не записаны
+     */
+    public RecipeDiffEngine.Result smartReplaceRecipesSync(List<Recipe> newRecipes) {
+        try {
+            RecipeDiffEngine.Result diff = RecipeDiffEngine.diff(
+                    recipeDao.getRecipeRowStates(), getProtectedRecipeIds(), newRecipes);
+            
+            if (!diff.isEmpty()) {
+                recipeDao.applyRecipeChanges(diff.toInsert, diff.toUpdate, diff.toLike, diff.toUnlike, diff.toDelete);
                 invalidateCache();
-                    
-            } catch (Exception e) {
-                Log.e(TAG, "Ошибка при умной замене рецептов: " + e.getMessage(), e);
-                replaceAllRecipes(newRecipes);
+                invalidateSearchResults();
             }
-        });
+            
+            Log.d(TAG, "Умная замена завершена: всего=" + newRecipes.size() + ", " + diff);
+            return diff;
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка при умной замене рецептов, локальные данные не изменены: " + e.getMessage(), e);
+            return null;
+        }
     }
 
     /**
-     * Заменить все рецепты в базе данных с оптимизациями производительности.
-     * Использует ленивую сериализацию и мониторинг производительности.
+     * Начинает потоковую запись полного каталога рецептов. Вызывать из фонового потока.
      */
-    public void replaceAllRecipes(List<Recipe> recipes) {
-        List<RecipeEntity> entities = new ArrayList<>();
-        if (recipes != null) {
-            final int BATCH_SIZE = 25;
-            
-            for (int i = 0; i < recipes.size(); i += BATCH_SIZE) {
-                int endIndex = Math.min(i + BATCH_SIZE, recipes.size());
-                List<Recipe> batch = recipes.subList(i, endIndex);
-                
-                for (Recipe recipe : batch) {
-                    RecipeEntity entity = new RecipeEntity(recipe);
-                    entity.refreshCache();
-                    entities.add(entity);
+    public RecipeIngestion beginRecipeIngestion() {
+        return new RecipeIngestion(new RecipeDiffEngine(recipeDao.getRecipeRowStates(), getProtectedRecipeIds()));
+    }
+
+    /**
+     * Потоковая запись полного каталога рецептов частями.
+     * Каждая часть сравнивается с базой по хэшу и записывается отдельной транзакцией,
+     * поэтому в памяти одновременно находится не больше одной части рецептов.
+     * Рецепты, отсутствующие на сервере, удаляются в {@link #finish(String)}
+     * вместе с сохранением курсора; если загрузка прервалась, удаления не выполняются.
+     */
+    public final class RecipeIngestion {
+        private final RecipeDiffEngine diffEngine;
+        private int inserted;
+        private int updated;
+        private int unchanged;
+        private int deleted;
+
+        private RecipeIngestion(RecipeDiffEngine diffEngine) {
+            this.diffEngine = diffEngine;
+        }
+
+        /**
+         * Записывает очередную часть рецептов. Вызывать из фонового потока.
+         */
+        public void ingestChunk(List<Recipe> chunk) {
+            RecipeDiffEngine.Result diff = diffEngine.diffChunk(chunk);
+            if (!diff.isEmpty()) {
+                recipeDao.applyRecipeChanges(diff.toInsert, diff.toUpdate, diff.toLike, diff.toUnlike,
+                        Collections.emptyList());
+            }
+            inserted += diff.getInsertedCount();
+            updated += diff.getUpdatedCount();
+            unchanged += diff.getUnchangedCount();
+        }
+
+        /**
+         * Удаляет рецепты, не встретившиеся в каталоге, и сохраняет курсор синхронизации.
+         * Вызывать из фонового потока после получения всех частей.
+         */
+        public void finish(String cursor) {
+            List<Integer> missingIds = diffEngine.getMissingIds();
+            database.runInTransaction(() -> {
+                if (!missingIds.isEmpty()) {
+                    recipeDao.applyRecipeChanges(Collections.emptyList(), Collections.emptyList(),
+                            Collections.emptyList(), Collections.emptyList(), missingIds);
                 }
-                
-                // Проверка прерывания потока
-                if (Thread.currentThread().isInterrupted()) {
-                    Log.w(TAG, "Операция прервана при конвертации рецептов");
-                    return;
+                saveSyncCursor(cursor);
+            });
+            deleted = missingIds.size();
+            invalidateCache();
+            if (inserted + updated + deleted > 0) {
+                invalidateSearchResults();
+            }
+            Log.d(TAG, "Потоковая запись завершена: " + this);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "новых=" + inserted + ", обновлено=" + updated
+                    + ", без изменений=" + unchanged + ", удалено=" + deleted;
+        }
+    }
+
+    /**
+     * Применяет инкрементальные изменения с сервера и сохраняет новый курсор в одной транзакции.
+     * Если транзакция не удалась, курсор остается прежним и изменения будут запрошены повторно.
+     * Вызывать из фонового потока.
+     * @param changed добавленные и измененные рецепты
+     * @param deletedIds ID рецептов, удаленных на сервере
+     * @param cursor курсор, полученный вместе с изменениями
+     */
+    public void applyRecipeDelta(List<Recipe> changed, List<Integer> deletedIds, String cursor) {
+        List<RecipeEntity> entities = new ArrayList<>(changed.size());
+        List<Integer> idsToDelete = new ArrayList<>(deletedIds.size());
+        database.runInTransaction(() -> {
+            Set<Integer> protectedIds = getProtectedRecipeIds();
+            for (Recipe recipe : changed) {
+                if (!protectedIds.contains(recipe.getId())) {
+                    entities.add(new RecipeEntity(recipe));
                 }
-                
-                // Микропауза для предотвращения блокировки UI
-                if (endIndex < recipes.size()) {
-                    try {
-                        Thread.sleep(5);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
+            }
+            for (Integer id : deletedIds) {
+                if (!protectedIds.contains(id)) {
+                    idsToDelete.add(id);
                 }
             }
+            recipeDao.applyRecipeDelta(entities, idsToDelete);
+            saveSyncCursor(cursor);
+        });
+        Log.d(TAG, String.format("Применены изменения: обновлено=%d, удалено=%d, курсор=%s",
+                entities.size(), idsToDelete.size(), cursor));
+        invalidateCache();
+        if (!entities.isEmpty() || !idsToDelete.isEmpty()) {
+            invalidateSearchResults();
         }
-        
-        try {
-            AppDatabase.getInstance(context).runInTransaction(() -> {
-                recipeDao.replaceAllRecipes(entities);
-            });
-            Log.d(TAG, "Все рецепты заменены с ленивой сериализацией, count=" + entities.size());
-            
-            DataConverters.clearCache();
-            preloadCacheForEntities(entities);
-            
-            // Инвалидируем кэш фильтрации
+    }
+
+    /**
+     * Сохраняет рецепты, загруженные с сервера по ID вне синхронизации каталога.
+     * Курсор синхронизации не меняется, поэтому следующая синхронизация может прислать
+     * те же рецепты повторно. Рецепты с неотправленными локальными изменениями пропускаются.
+     * Вызывать из фонового потока.
+     * @return количество сохраненных рецептов
+     */
+    public int upsertFetchedRecipes(List<Recipe> recipes) {
+        List<RecipeEntity> entities = new ArrayList<>(recipes.size());
+        database.runInTransaction(() -> {
+            Set<Integer> protectedIds = getProtectedRecipeIds();
+            for (Recipe recipe : recipes) {
+                if (!protectedIds.contains(recipe.getId())) {
+                    entities.add(new RecipeEntity(recipe));
+                }
+            }
+            recipeDao.applyRecipeDelta(entities, Collections.emptyList());
+        });
+        if (!entities.isEmpty()) {
             invalidateCache();
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Ошибка при replaceAllRecipes", e);
         }
+        return entities.size();
     }
-    
+
+    /**
+     * ID из списка, рецептов с которыми нет в локальной базе. Порядок ID сохраняется.
+     * Вызывать из фонового потока.
+     */
+    public List<Integer> getMissingRecipeIds(List<Integer> recipeIds) {
+        Set<Integer> existing = new HashSet<>();
+        for (List<Integer> chunk : chunkIds(recipeIds)) {
+            existing.addAll(recipeDao.getExistingRecipeIds(chunk));
+        }
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : new LinkedHashSet<>(recipeIds)) {
+            if (!existing.contains(id)) {
+                missing.add(id);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * ID рецептов, созданных, измененных или удаленных локально, изменения которых еще в очереди
+     * {@link OutboxRepository}. Синхронизация не перезаписывает и не удаляет эти строки,
+     * чтобы не откатить действия пользователя до их отправки. Вызывать из фонового потока.
+     */
+    private Set<Integer> getProtectedRecipeIds() {
+        return new HashSet<>(database.pendingMutationDao().getRecipeIdsWithPendingChanges());
+    }
+
+    /**
+     * Курсор последней успешной синхронизации рецептов. Вызывать из фонового потока.
+     * @return курсор или null, если нужна полная синхронизация
+     */
+    public String getSyncCursor() {
+        return database.syncStateDao().getCursor(SyncStateEntity.RESOURCE_RECIPES);
+    }
+
+    /**
+     * Сохраняет курсор синхронизации рецептов. Null сбрасывает курсор.
+     * Вызывать из фонового потока.
+     */
+    public void saveSyncCursor(String cursor) {
+        if (cursor == null) {
+            clearSyncCursor();
+            return;
+        }
+        database.syncStateDao().upsert(
+                new SyncStateEntity(SyncStateEntity.RESOURCE_RECIPES, cursor, System.currentTimeMillis()));
+    }
+
+    /**
+     * Сбрасывает курсор, следующая синхронизация рецептов будет полной. Вызывать из фонового потока.
+     */
+    public void clearSyncCursor() {
+        database.syncStateDao().clear(SyncStateEntity.RESOURCE_RECIPES);
+    }
+
     /**
      * Очищает весь кэш для освобождения памяти.
      */
     public void clearAllCaches() {
-        DataConverters.clearCache();
         invalidateCache();
         Log.d(TAG, "Все кэши очищены");
     }
@@ -7,6 +7,7 @@ import com.example.cooking.domain.entities.Recipe;
 
 import com.example.cooking.utils.MySharedPreferences;
 
+import java.util.Collections;
 import java.util.List;
 
 import retrofit2.Call;
@@ -16,8 +17,16 @@ import okhttp3.RequestBody;
 import com.google.gson.Gson;
 import com.example.cooking.network.models.GeneralServerResponse;
 import com.example.cooking.network.models.BaseApiResponse;
+import com.example.cooking.network.models.recipeResponses.RecipeChangesResponse;
+import com.example.cooking.network.cache.ETagInterceptor;
+import com.example.cooking.network.cache.ETagStore;
+import com.example.cooking.network.utils.RecipeStreamReader;
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.disposables.Disposable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 import retrofit2.HttpException;
 import java.io.IOException;
@@ -31,22 +40,39 @@ public class RecipeRemoteRepository extends NetworkRepository {
     private static final Gson gson = new Gson();
     private final MySharedPreferences preferences;
     private final CompositeDisposable disposables = new CompositeDisposable();
-    
-    private volatile boolean isRequestInProgress = false;
 
-    public interface RecipesCallback {
-        void onRecipesLoaded(List<Recipe> recipes);
-        void onDataNotAvailable(String error);
+    /**
+     * Обработчик потоковой загрузки. Методы вызываются в фоновом потоке внутри запроса,
+     * поэтому при объединении одновременных вызовов данные обрабатывает только обработчик первого из них.
+     */
+    public interface RecipeStreamHandler extends RecipeStreamReader.ChunkConsumer {
+        /**
+         * Все части рецептов переданы в {@link #onChunk(List)}
+         * @param cursor курсор для последующей инкрементальной синхронизации или null
+         */
+        void onStreamEnd(String cursor);
     }
 
-    public interface RecipeSaveCallback {
-        void onSuccess(GeneralServerResponse response, Recipe recipe);
-        void onFailure(String error, GeneralServerResponse errorResponse);
+    public interface RecipesStreamCallback {
+        /**
+         * Загрузка и обработка рецептов завершены
+         * @param cursor курсор для последующей инкрементальной синхронизации или null
+         */
+        void onStreamCompleted(int recipeCount, String cursor);
+        /**
+         * Каталог не изменился с последней записи в базу (ответ 304), обработчик не вызывался
+         */
+        void onNotModified();
+        void onDataNotAvailable(String error);
     }
 
-    public interface DeleteRecipeCallback {
-        void onDeleteSuccess();
-        void onDeleteFailure(String error);
+    public interface RecipeChangesCallback {
+        void onChangesLoaded(List<Recipe> changed, List<Integer> deletedIds, String cursor);
+        /**
+         * Курсор больше не принимается сервером, нужна полная синхронизация
+         */
+        void onCursorInvalid();
+        void onDataNotAvailable(String error);
     }
 
     public RecipeRemoteRepository(Context context) {
@@ -102,147 +128,158 @@ public class RecipeRemoteRepository extends NetworkRepository {
     }
 
     /**
-     * Получить рецепты с сервера
+     * Получить рецепты с сервера потоково: ответ разбирается по мере чтения,
+     * и рецепты передаются обработчику частями не больше chunkSize.
+     * Обработчик вызывается в фоновом потоке, итоговый callback — в главном.
+     * Если загрузка уже выполняется, вызов присоединяется к ней: его обработчик не вызывается,
+     * а callback получает результат текущей загрузки.
      */
-    public synchronized void getRecipes(final RecipesCallback callback) {
-        if (isRequestInProgress) {
-            callback.onDataNotAvailable("Запрос уже выполняется");
-            return;
-        }
-        
+    public void streamRecipes(int chunkSize, RecipeStreamHandler handler, final RecipesStreamCallback callback) {
         if (!isNetworkAvailable()) {
             Log.d(TAG, "Сеть недоступна, отменяем запрос рецептов");
             callback.onDataNotAvailable("Нет подключения к интернету");
             return;
         }
 
-        isRequestInProgress = true;
-        Log.d(TAG, "Начинаем запрос рецептов с сервера");
+        Log.d(TAG, "Начинаем потоковую загрузку рецептов с сервера");
 
-        // Используем RxJava для выполнения запроса в фоновом потоке
         disposables.add(
-            apiService.getRecipesRx()
-            .subscribeOn(Schedulers.io())
+            singleFlight("recipes/stream", null, apiService.getRecipesStream()
+                .subscribeOn(Schedulers.io())
+                .map(body -> {
+                    RecipeStreamReader.Summary summary = RecipeStreamReader.read(body, chunkSize, handler);
+                    handler.onStreamEnd(summary.cursor);
+                    // Каталог записан в базу, теперь его ETag можно отправлять в If-None-Match
+                    ETagStore.getInstance(context).commit(ETagInterceptor.ENDPOINT_RECIPES);
+                    return summary;
+                }))
             .observeOn(AndroidSchedulers.mainThread())
             .subscribe(
-                response -> {
-                    synchronized (RecipeRemoteRepository.this) {
-                        isRequestInProgress = false; // Сбрасываем флаг при успехе
-                    }
-                    Log.d(TAG, "Запрос рецептов успешно завершен");
-                    if (response.getRecipes() != null) {
-                        List<Recipe> recipes = response.getRecipes();
-                        Log.d(TAG, "Получено " + recipes.size() + " рецептов с сервера");
-                        callback.onRecipesLoaded(recipes);
-                    } else {
-                        Log.w(TAG, "Список рецептов в ответе пуст");
-                        callback.onDataNotAvailable("Список рецептов пуст");
-                    }
+                summary -> {
+                    Log.d(TAG, "Потоковая загрузка завершена, рецептов: " + summary.recipeCount);
+                    callback.onStreamCompleted(summary.recipeCount, summary.cursor);
                 },
                 throwable -> {
-                    synchronized (RecipeRemoteRepository.this) {
-                        isRequestInProgress = false; // Сбрасываем флаг при ошибке
+                    if (isNotModified(throwable)) {
+                        Log.d(TAG, "Каталог рецептов не изменился (304)");
+                        callback.onNotModified();
+                        return;
                     }
-                    Log.e(TAG, "Ошибка запроса рецептов: " + throwable.getMessage());
+                    Log.e(TAG, "Ошибка потоковой загрузки рецептов: " + throwable.getMessage());
                     callback.onDataNotAvailable(throwable.getMessage());
                 }
             )
         );
     }
 
-    public void saveRecipe(Recipe recipe, byte[] imageBytes, RecipeSaveCallback callback) {
-        RequestBody title = RequestBody.create(MediaType.parse("text/plain"), recipe.getTitle());
-        RequestBody ingredients = RequestBody.create(MediaType.parse("text/plain"), gson.toJson(recipe.getIngredients()));
-        RequestBody instructions = RequestBody.create(MediaType.parse("text/plain"), gson.toJson(recipe.getSteps()));
-        MultipartBody.Part imagePart = null;
-        if (imageBytes != null && imageBytes.length > 0) {
-            RequestBody file = RequestBody.create(MediaType.parse("image/*"), imageBytes);
-            imagePart = MultipartBody.Part.createFormData("photo", "image.jpg", file);
+    /**
+     * Получить изменения рецептов после курсора since.
+     * HTTP 410, флаг full_sync_required или отсутствие нового курсора означают,
+     * что курсор недействителен и нужно выполнить полную синхронизацию.
+     * Одновременные запросы с одним курсором объединяются.
+     */
+    public void getRecipeChanges(String since, final RecipeChangesCallback callback) {
+        if (!isNetworkAvailable()) {
+            Log.d(TAG, "Сеть недоступна, отменяем запрос изменений рецептов");
+            callback.onDataNotAvailable("Нет подключения к интернету");
+            return;
         }
-        
-        disposables.add(
-            apiService.addRecipe(title, ingredients, instructions, imagePart)
-            .subscribeOn(Schedulers.io())
-            .observeOn(AndroidSchedulers.mainThread())
-            .subscribe(
-                response -> { if (callback != null) callback.onSuccess(response, recipe); },
-                throwable -> { 
-                    if (callback != null) {
-                        String detailedError = parseHttpError(throwable);
-                        Log.e(TAG, "Ошибка сохранения рецепта: " + detailedError);
-                        
-                        // Попытаемся извлечь GeneralServerResponse из HttpException
-                        GeneralServerResponse errorResponse = null;
-                        if (throwable instanceof HttpException) {
-                            errorResponse = extractErrorResponse((HttpException) throwable);
-                        }
-                        
-                        callback.onFailure(detailedError, errorResponse);
-                    }
-                }
-            )
-        );
+
+        Log.d(TAG, "Запрашиваем изменения рецептов после курсора " + since);
+        disposables.add(requestChanges(
+                singleFlight("recipes/changes", "since=" + since,
+                        apiService.getRecipeChanges(since).subscribeOn(Schedulers.io())),
+                AndroidSchedulers.mainThread(), callback));
     }
 
-    public void updateRecipe(Recipe recipe, byte[] imageBytes, RecipeSaveCallback callback) {
-        RequestBody title = RequestBody.create(MediaType.parse("text/plain"), recipe.getTitle());
-        RequestBody ingredients = RequestBody.create(MediaType.parse("text/plain"), gson.toJson(recipe.getIngredients()));
-        RequestBody instructions = RequestBody.create(MediaType.parse("text/plain"), gson.toJson(recipe.getSteps()));
-        MultipartBody.Part imagePart = null;
-        if (imageBytes != null && imageBytes.length > 0) {
-            RequestBody reqFile = RequestBody.create(MediaType.parse("image/*"), imageBytes);
-            imagePart = MultipartBody.Part.createFormData("photo", "recipe_image.jpg", reqFile);
-        }
-        
-        disposables.add(
-            apiService.updateRecipe(recipe.getId(), title, ingredients, instructions, imagePart)
-            .subscribeOn(Schedulers.io())
-            .observeOn(AndroidSchedulers.mainThread())
+    /**
+     * Передает ответ на запрос изменений в callback в потоке observeOn.
+     * Новый курсор передается только вместе с изменениями, чтобы вызывающая сторона
+     * сохранила его в той же транзакции, что и сами изменения.
+     */
+    static Disposable requestChanges(Single<RecipeChangesResponse> request, Scheduler observeOn,
+                                     final RecipeChangesCallback callback) {
+        return request
+            .observeOn(observeOn)
             .subscribe(
-                response -> { if (callback != null) callback.onSuccess(response, recipe); },
-                throwable -> { 
-                    if (callback != null) {
-                        String detailedError = parseHttpError(throwable);
-                        Log.e(TAG, "Ошибка обновления рецепта: " + detailedError);
-                        
-                        // Попытаемся извлечь GeneralServerResponse из HttpException
-                        GeneralServerResponse errorResponse = null;
-                        if (throwable instanceof HttpException) {
-                            errorResponse = extractErrorResponse((HttpException) throwable);
-                        }
-                        
-                        callback.onFailure(detailedError, errorResponse);
+                response -> {
+                    if (response.isFullSyncRequired() || response.getCursor() == null) {
+                        Log.w(TAG, "Сервер требует полной синхронизации");
+                        callback.onCursorInvalid();
+                        return;
+                    }
+                    List<Recipe> changed = response.getRecipes() != null
+                            ? response.getRecipes() : Collections.emptyList();
+                    List<Integer> deletedIds = response.getDeletedIds() != null
+                            ? response.getDeletedIds() : Collections.emptyList();
+                    Log.d(TAG, "Получено изменений: " + changed.size() + ", удалений: " + deletedIds.size());
+                    callback.onChangesLoaded(changed, deletedIds, response.getCursor());
+                },
+                throwable -> {
+                    if (throwable instanceof HttpException && ((HttpException) throwable).code() == 410) {
+                        Log.w(TAG, "Курсор синхронизации устарел (410)");
+                        callback.onCursorInvalid();
+                        return;
                     }
+                    Log.e(TAG, "Ошибка запроса изменений рецептов: " + throwable.getMessage());
+                    callback.onDataNotAvailable(throwable.getMessage());
                 }
-            )
-        );
+            );
     }
 
     /**
-     * Извлекает GeneralServerResponse из HttpException для передачи в callback
+     * Создает рецепт на сервере. Вызывается из очереди изменений {@link OutboxRepository}.
+     * @param idempotencyKey ключ, сохраненный вместе с изменением в очереди
      */
-    private GeneralServerResponse extractErrorResponse(HttpException httpException) {
-        try {
-            if (httpException.response() != null && httpException.response().errorBody() != null) {
-                String errorBody = httpException.response().errorBody().string();
-                return gson.fromJson(errorBody, GeneralServerResponse.class);
-            }
-        } catch (Exception e) {
-            Log.w(TAG, "Не удалось извлечь GeneralServerResponse из ошибки", e);
+    Single<GeneralServerResponse> createRecipe(Recipe recipe, byte[] imageBytes, String idempotencyKey) {
+        return apiService.addRecipe(idempotencyKey, textPart(recipe.getTitle()),
+                textPart(gson.toJson(recipe.getIngredients())), textPart(gson.toJson(recipe.getSteps())),
+                imagePart(imageBytes, "image.jpg"));
+    }
+
+    /**
+     * Обновляет рецепт на сервере. Вызывается из очереди изменений {@link OutboxRepository}.
+     * @param idempotencyKey ключ, сохраненный вместе с изменением в очереди
+     */
+    Single<GeneralServerResponse> updateRecipe(Recipe recipe, byte[] imageBytes, String idempotencyKey) {
+        return apiService.updateRecipe(idempotencyKey, recipe.getId(), textPart(recipe.getTitle()),
+                textPart(gson.toJson(recipe.getIngredients())), textPart(gson.toJson(recipe.getSteps())),
+                imagePart(imageBytes, "recipe_image.jpg"));
+    }
+
+    /**
+     * Удаляет рецепт на сервере. Вызывается из очереди изменений {@link OutboxRepository}.
+     * @param idempotencyKey ключ, сохраненный вместе с изменением в очереди
+     */
+    Completable deleteRecipe(int recipeId, String idempotencyKey) {
+        return apiService.deleteRecipe(idempotencyKey, recipeId);
+    }
+
+    /**
+     * Сообщение об ошибке изменяющего запроса для пользователя, включая сообщения модерации.
+     */
+    String describeError(Throwable throwable) {
+        return parseHttpError(throwable);
+    }
+
+    private static RequestBody textPart(String value) {
+        return RequestBody.create(MediaType.parse("text/plain"), value != null ? value : "");
+    }
+
+    private static MultipartBody.Part imagePart(byte[] imageBytes, String fileName) {
+        if (imageBytes == null || imageBytes.length == 0) {
+            return null;
         }
-        return null;
+        RequestBody file = RequestBody.create(MediaType.parse("image/*"), imageBytes);
+        return MultipartBody.Part.createFormData("photo", fileName, file);
     }
 
-    public void deleteRecipe(int recipeId, DeleteRecipeCallback callback) {
-        disposables.add(
-            apiService.deleteRecipe(recipeId)
-            .subscribeOn(Schedulers.io())
-            .observeOn(AndroidSchedulers.mainThread())
-            .subscribe(
-                () -> { if (callback != null) callback.onDeleteSuccess(); },
-                throwable -> { if (callback != null) callback.onDeleteFailure(throwable.getMessage()); }
-            )
-        );
+    /**
+     * Ответ 304 на условный запрос: данные не изменились с последней записи в базу
+     */
+    static boolean isNotModified(Throwable throwable) {
+        return throwable instanceof HttpException
+                && ((HttpException) throwable).code() == ETagInterceptor.HTTP_NOT_MODIFIED;
     }
 
     public void clearDisposables() {
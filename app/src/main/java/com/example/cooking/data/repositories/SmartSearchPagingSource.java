@@ -0,0 +1,84 @@
+package com.example.cooking.data.repositories;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.PagingState;
+import androidx.paging.rxjava3.RxPagingSource;
+
+import com.example.cooking.domain.entities.Recipe;
+import com.example.cooking.utils.RecipeSearchService;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.reactivex.rxjava3.core.Single;
+
+/**
+ * Источник страниц результатов умного поиска. Ключ страницы - ее номер на сервере.
+ * Первая страница уже получена конвейером поиска (из кэша, гибридного или умного поиска)
+ * и передается готовой, следующие запрашиваются через {@link RecipeSearchService#searchPage}
+ * при приближении прокрутки к концу списка. Paging загружает следующую страницу, только когда
+ * завершилась предыдущая, поэтому на запрос одновременно выполняется не больше одного запроса страницы.
+ * Рецепты, уже показанные на предыдущих страницах, отбрасываются.
+ */
+public class SmartSearchPagingSource extends RxPagingSource<Integer, Recipe> {
+
+    private static final String TAG = "SmartSearchPagingSource";
+
+    private final RecipeSearchService searchService;
+    private final String query;
+    private final List<Recipe> firstPage;
+    private final boolean hasMore;
+    private final Set<Integer> shownIds = new HashSet<>();
+
+    /**
+     * @param firstPage результаты первой страницы
+     * @param hasMore есть ли на сервере следующие страницы
+     */
+    public SmartSearchPagingSource(RecipeSearchService searchService, String query,
+                                   List<Recipe> firstPage, boolean hasMore) {
+        this.searchService = searchService;
+        this.query = query;
+        this.firstPage = firstPage;
+        this.hasMore = hasMore;
+    }
+
+    @NonNull
+    @Override
+    public Single<LoadResult<Integer, Recipe>> loadSingle(@NonNull LoadParams<Integer> params) {
+        Integer page = params.getKey();
+        if (page == null || page <= 1) {
+            return Single.just(toPage(firstPage, 1, hasMore));
+        }
+        return searchService.searchPage(query, page)
+                .map(result -> toPage(result.recipes, page, result.hasMore))
+                .onErrorReturn(throwable -> {
+                    Log.e(TAG, "Ошибка загрузки страницы " + page + " поиска: " + throwable.getMessage(), throwable);
+                    return new LoadResult.Error<>(throwable);
+                });
+    }
+
+    private LoadResult<Integer, Recipe> toPage(List<Recipe> recipes, int page, boolean more) {
+        List<Recipe> unique = new ArrayList<>(recipes.size());
+        synchronized (shownIds) {
+            for (Recipe recipe : recipes) {
+                if (shownIds.add(recipe.getId())) {
+                    unique.add(recipe);
+                }
+            }
+        }
+        Log.d(TAG, "Страница " + page + ": " + unique.size() + " новых рецептов, есть еще: " + more);
+        return new LoadResult.Page<>(unique, null, more ? page + 1 : null);
+    }
+
+    @Nullable
+    @Override
+    public Integer getRefreshKey(@NonNull PagingState<Integer, Recipe> state) {
+        // Обновление всегда начинается с первой страницы
+        return null;
+    }
+}
@@ -4,35 +4,39 @@ import android.app.Application;
 import android.content.Context;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
-import android.os.Build;
 import android.util.Log;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.paging.PagingData;
 import android.os.Handler;
 import android.os.Looper;
+import com.example.cooking.domain.entities.IngredientMatch;
 import com.example.cooking.domain.entities.Recipe;
-import com.example.cooking.domain.entities.Ingredient;
-import com.example.cooking.domain.entities.Step;
-import com.example.cooking.network.models.GeneralServerResponse;
+import com.example.cooking.domain.entities.RecipeFacetCounts;
+import com.example.cooking.domain.entities.RecipeFilter;
+import com.example.cooking.network.cache.ETagInterceptor;
+import com.example.cooking.network.cache.ETagStore;
 import com.example.cooking.network.utils.Resource;
 import com.example.cooking.utils.MySharedPreferences;
 import com.example.cooking.utils.AppExecutors;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 
 public class UnifiedRecipeRepository {
     private static final String TAG = "UnifiedRecipeRepository";
     private static volatile UnifiedRecipeRepository INSTANCE;
+    // Размер части каталога, записываемой одной транзакцией при полной синхронизации
+    private static final int SYNC_CHUNK_SIZE = 200;
 
     private final RecipeLocalRepository localRepository;
     private final RecipeRemoteRepository remoteRepository;
     private final LikedRecipesRepository likedRecipesRepository;
+    private final OutboxRepository outboxRepository;
     private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
     private final Context context;
     private final ConnectivityManager connectivityManager;
@@ -49,6 +53,7 @@ public class UnifiedRecipeRepository {
         this.localRepository = new RecipeLocalRepository(application);
         this.remoteRepository = new RecipeRemoteRepository(application);
         this.likedRecipesRepository = new LikedRecipesRepository(application);
+        this.outboxRepository = OutboxRepository.getInstance(application);
         this.prefs = new MySharedPreferences(context);
         this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
     }
@@ -64,10 +69,72 @@ public class UnifiedRecipeRepository {
         return INSTANCE;
     }
 
+    /**
+     * Карточки всех рецептов из локальной базы (без ингредиентов и шагов).
+     */
     public LiveData<List<Recipe>> getAllRecipesLocal() {
-        return localRepository.getAllRecipes();
+        return localRepository.getAllRecipeCards();
     }
 
+    /**
+     * Постраничный поток карточек всех рецептов.
+     */
+    public LiveData<PagingData<Recipe>> getRecipesPaged() {
+        return localRepository.getRecipeCardsPaged(null, null);
+    }
+
+    /**
+     * Постраничный поток карточек рецептов выбранной категории.
+     * @param filterType "meal_type" или "food_type"
+     */
+    public LiveData<PagingData<Recipe>> getRecipesPagedByCategory(String filterKey, String filterType) {
+        return localRepository.getRecipeCardsPaged(
+                "meal_type".equals(filterType) ? filterKey : null,
+                "food_type".equals(filterType) ? filterKey : null);
+    }
+
+    /**
+     * Карточки рецептов по комбинации фасетов, см. {@link RecipeLocalRepository#observeRecipeCardsByFilter}.
+     */
+    public LiveData<List<Recipe>> getRecipesByFilter(RecipeFilter filter) {
+        return localRepository.observeRecipeCardsByFilter(filter);
+    }
+
+    /**
+     * Счетчики фасетов для фильтра, см. {@link RecipeLocalRepository#observeFacetCounts}.
+     */
+    public LiveData<RecipeFacetCounts> getFacetCounts(RecipeFilter filter) {
+        return localRepository.observeFacetCounts(filter);
+    }
+
+    /**
+     * Количество рецептов выбранной категории в локальной базе. Вызывать из фонового потока.
+     */
+    public int countRecipesByCategory(String filterKey, String filterType) {
+        return localRepository.countRecipeCards(
+                "meal_type".equals(filterType) ? filterKey : null,
+                "food_type".equals(filterType) ? filterKey : null);
+    }
+
+    /**
+     * Карточки лайкнутых рецептов из локальной базы.
+     */
+    public LiveData<List<Recipe>> getLikedRecipesLocal() {
+        return localRepository.getLikedRecipeCards();
+    }
+
+    /**
+     * Карточки рецептов по списку ID в порядке этого списка. Вызывать из фонового потока.
+     */
+    public List<Recipe> getRecipeCardsByIds(List<Integer> recipeIds) {
+        return localRepository.getRecipeCardsByIds(recipeIds);
+    }
+
+    /**
+     * Синхронизирует локальную базу с сервером.
+     * Если сохранен курсор предыдущей синхронизации, запрашиваются только изменения после него,
+     * иначе (или если сервер отклонил курсор) загружается полный список рецептов.
+     */
     public void syncWithRemoteData(MutableLiveData<Resource<List<Recipe>>> recipesLiveData, MutableLiveData<String> errorMessage) {
         if (!isNetworkAvailable()) {
             errorMessage.postValue("Нет подключения к сети. Отображаются сохраненные данные.");
@@ -75,28 +142,110 @@ public class UnifiedRecipeRepository {
             return;
         }
 
-        remoteRepository.getRecipes(new RecipeRemoteRepository.RecipesCallback() {
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            String cursor = localRepository.getSyncCursor();
+            if (cursor == null) {
+                fullSync(recipesLiveData, errorMessage);
+            } else {
+                deltaSync(cursor, recipesLiveData, errorMessage);
+            }
+        });
+    }
+
+    /**
+     * Полная синхронизация: потоково загружает все рецепты и записывает их в базу частями
+     * по {@link #SYNC_CHUNK_SIZE}, затем удаляет отсутствующие на сервере и сохраняет курсор.
+     * Запись выполняется внутри запроса, поэтому одновременные синхронизации пишут в базу один раз.
+     * Если каталог не изменился (304 на условный запрос), запись в базу пропускается.
+     * Вызывать из фонового потока.
+     */
+    private void fullSync(MutableLiveData<Resource<List<Recipe>>> recipesLiveData, MutableLiveData<String> errorMessage) {
+        if (localRepository.countRecipeCards(null, null) == 0) {
+            // База пуста: ответ 304 на сохраненный ETag оставил бы ее пустой
+            ETagStore.getInstance(context).invalidate(ETagInterceptor.ENDPOINT_RECIPES);
+        }
+        remoteRepository.streamRecipes(SYNC_CHUNK_SIZE, new RecipeRemoteRepository.RecipeStreamHandler() {
+            private Set<Integer> likedIds;
+            private RecipeLocalRepository.RecipeIngestion ingestion;
+
+            private RecipeLocalRepository.RecipeIngestion ingestion() {
+                if (ingestion == null) {
+                    likedIds = new HashSet<>(likedRecipesRepository.getLikedRecipeIdsSync());
+                    ingestion = localRepository.beginRecipeIngestion();
+                }
+                return ingestion;
+            }
+
+            @Override
+            public void onChunk(List<Recipe> chunk) {
+                RecipeLocalRepository.RecipeIngestion current = ingestion();
+                for (Recipe recipe : chunk) {
+                    recipe.setLiked(likedIds.contains(recipe.getId()));
+                }
+                current.ingestChunk(chunk);
+            }
+
             @Override
-            public void onRecipesLoaded(List<Recipe> remoteRecipes) {
+            public void onStreamEnd(String cursor) {
+                // Курсор сохраняется только после того, как записаны все рецепты
+                ingestion().finish(cursor);
+            }
+        }, new RecipeRemoteRepository.RecipesStreamCallback() {
+            @Override
+            public void onStreamCompleted(int recipeCount, String cursor) {
+                Log.d(TAG, "Успешно обработано " + recipeCount + " рецептов");
+                AppExecutors.getInstance().diskIO().execute(() -> postLocalRecipes(recipesLiveData));
+            }
+
+            @Override
+            public void onNotModified() {
+                // Каталог не изменился: запись в базу не нужна
+                AppExecutors.getInstance().diskIO().execute(() -> postLocalRecipes(recipesLiveData));
+            }
+
+            @Override
+            public void onDataNotAvailable(String error) {
+                errorMessage.postValue(error);
+                loadLocalData(recipesLiveData);
+            }
+        });
+    }
+
+    /**
+     * Инкрементальная синхронизация: применяет изменения и удаления после курсора.
+     * Если курсор недействителен, сбрасывает его и выполняет полную синхронизацию.
+     */
+    private void deltaSync(String cursor, MutableLiveData<Resource<List<Recipe>>> recipesLiveData,
+                           MutableLiveData<String> errorMessage) {
+        remoteRepository.getRecipeChanges(cursor, new RecipeRemoteRepository.RecipeChangesCallback() {
+            @Override
+            public void onChangesLoaded(List<Recipe> changed, List<Integer> deletedIds, String newCursor) {
                 AppExecutors.getInstance().diskIO().execute(() -> {
                     try {
-                        Set<Integer> likedIds = new HashSet<>(likedRecipesRepository.getLikedRecipeIdsSync());
-                        
-                        processRecipesInOptimizedBatches(remoteRecipes, likedIds);
-                        
-                        localRepository.smartReplaceRecipes(remoteRecipes);
-                        List<Recipe> updatedLocalRecipes = localRepository.getAllRecipesSync();
-                        recipesLiveData.postValue(Resource.success(updatedLocalRecipes));
-                        
-                        Log.d(TAG, "Успешно обработано " + remoteRecipes.size() + " рецептов");
+                        if (!changed.isEmpty()) {
+                            Set<Integer> likedIds = new HashSet<>(likedRecipesRepository.getLikedRecipeIdsSync());
+                            for (Recipe recipe : changed) {
+                                recipe.setLiked(likedIds.contains(recipe.getId()));
+                            }
+                        }
+                        localRepository.applyRecipeDelta(changed, deletedIds, newCursor);
+                        postLocalRecipes(recipesLiveData);
                     } catch (Exception e) {
-                        Log.e(TAG, "Ошибка при обработке рецептов: " + e.getMessage());
+                        Log.e(TAG, "Ошибка при применении изменений: " + e.getMessage());
                         errorMessage.postValue("Ошибка при сохранении рецептов");
                         loadLocalData(recipesLiveData);
                     }
                 });
             }
 
+            @Override
+            public void onCursorInvalid() {
+                AppExecutors.getInstance().diskIO().execute(() -> {
+                    localRepository.clearSyncCursor();
+                    fullSync(recipesLiveData, errorMessage);
+                });
+            }
+
             @Override
             public void onDataNotAvailable(String error) {
                 errorMessage.postValue(error);
@@ -106,48 +255,19 @@ public class UnifiedRecipeRepository {
     }
 
     /**
-     * Оптимизированная обработка рецептов батчами с улучшенной производительностью.
+     * Публикует карточки рецептов из базы после синхронизации.
+     * Постраничные списки обновляются сами через инвалидацию Room, поэтому LiveData может быть null.
      */
-    private void processRecipesInOptimizedBatches(List<Recipe> recipes, Set<Integer> likedIds) {
-        final int OPTIMAL_BATCH_SIZE = 25;
-        final int PAUSE_BETWEEN_BATCHES_MS = 5;
-        try {
-            for (int i = 0; i < recipes.size(); i += OPTIMAL_BATCH_SIZE) {
-                int endIndex = Math.min(i + OPTIMAL_BATCH_SIZE, recipes.size());
-                List<Recipe> batch = recipes.subList(i, endIndex);
-                
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-                    batch.parallelStream().forEach(recipe -> {
-                        recipe.setLiked(likedIds.contains(recipe.getId()));
-                    });
-                }
-
-                // Проверка прерывания потока
-                if (Thread.currentThread().isInterrupted()) {
-                    Log.w(TAG, "Обработка батчей прервана");
-                    break;
-                }
-                
-                if (endIndex < recipes.size()) {
-                    try {
-                        Thread.sleep(PAUSE_BETWEEN_BATCHES_MS);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-            }
-            
-            Log.d(TAG, String.format("Обработано %d рецептов в %d батчах с ленивой сериализацией", 
-                                   recipes.size(), (recipes.size() + OPTIMAL_BATCH_SIZE - 1) / OPTIMAL_BATCH_SIZE));
-        } catch (Exception e) {
-            Log.e(TAG, "Ошибка при обработке батчей: " + e.getMessage());
+    private void postLocalRecipes(MutableLiveData<Resource<List<Recipe>>> recipesLiveData) {
+        if (recipesLiveData != null) {
+            recipesLiveData.postValue(Resource.success(localRepository.getAllRecipeCardsSync()));
         }
     }
 
     private void loadLocalData(MutableLiveData<Resource<List<Recipe>>> recipesLiveData) {
+        if (recipesLiveData == null) return;
         AppExecutors.getInstance().diskIO().execute(() -> {
-            List<Recipe> localRecipes = localRepository.getAllRecipesSync();
+            List<Recipe> localRecipes = localRepository.getAllRecipeCardsSync();
             if (localRecipes != null && !localRecipes.isEmpty()) {
                 recipesLiveData.postValue(Resource.success(localRecipes));
             } else {
@@ -156,19 +276,22 @@ public class UnifiedRecipeRepository {
         });
     }
 
-    public void searchInLocalData(String query, MutableLiveData<List<Recipe>> searchResultsLiveData) {
-        AppExecutors.getInstance().diskIO().execute(() -> {
-            List<Recipe> allRecipes = localRepository.getAllRecipesSync();
-            if (allRecipes == null) allRecipes = Collections.emptyList();
-            String lowerQuery = query.toLowerCase();
-            List<Recipe> filteredResults = null;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-                filteredResults = allRecipes.stream()
-                        .filter(recipe -> matchesSearchQuery(recipe, lowerQuery))
-                        .collect(Collectors.toList());
-            }
-            searchResultsLiveData.postValue(filteredResults);
-        });
+    /**
+     * Локальный поиск по индексам в памяти, см. {@link RecipeLocalRepository#searchRecipes}.
+     * Выполняется при подписке на фоновом потоке.
+     */
+    public Single<List<Recipe>> searchInLocalData(String query) {
+        return Single.fromCallable(() -> localRepository.searchRecipes(query))
+                .subscribeOn(Schedulers.io());
+    }
+
+    /**
+     * Подбор рецептов по имеющимся продуктам, см. {@link RecipeLocalRepository#findRecipesByIngredients}.
+     * Выполняется при подписке на фоновом потоке.
+     */
+    public Single<List<IngredientMatch>> findRecipesByIngredients(List<String> available, boolean requireAll, int limit) {
+        return Single.fromCallable(() -> localRepository.findRecipesByIngredients(available, requireAll, limit))
+                .subscribeOn(Schedulers.io());
     }
 
     public void filterRecipesByCategory(String filterKey, String filterType, MutableLiveData<List<Recipe>> filteredResultsLiveData) {
@@ -178,102 +301,57 @@ public class UnifiedRecipeRepository {
         });
     }
 
-    private boolean matchesSearchQuery(Recipe recipe, String query) {
-        if (recipe.getTitle() != null && recipe.getTitle().toLowerCase().contains(query)) return true;
-        if (recipe.getIngredients() != null) {
-            for (Ingredient ingredient : recipe.getIngredients()) {
-                if (ingredient.getName() != null && ingredient.getName().toLowerCase().contains(query)) return true;
-            }
-        }
-        if (recipe.getSteps() != null) {
-            for (Step step : recipe.getSteps()) {
-                if (step.getInstruction() != null && step.getInstruction().toLowerCase().contains(query)) return true;
-            }
-        }
-        return false;
-    }
-
-
-
+    /**
+     * Сохраняет новый рецепт локально и ставит его отправку в очередь изменений.
+     * Колбэк получает рецепт с временным ID, рецепт будет опубликован, когда появится сеть.
+     */
     public void saveRecipe(Recipe recipe, byte[] imageBytes, RecipeCallback<Recipe> callback) {
-        remoteRepository.saveRecipe(recipe, imageBytes, new RecipeRemoteRepository.RecipeSaveCallback() {
-            @Override
-            public void onSuccess(GeneralServerResponse response, Recipe savedRecipe) {
-                if (response != null && response.getId() != null) {
-                    savedRecipe.setId(response.getId());
-                } else {
-                    Log.w(TAG, "Ответ сервера не содержит ID рецепта");
-                }
-                
-                if (response != null && response.getPhotoUrl() != null) {
-                    savedRecipe.setPhoto_url(response.getPhotoUrl());
-                    Log.d(TAG, "URL изображения получен от сервера: " + response.getPhotoUrl());
-                } else {
-                    Log.w(TAG, "Ответ сервера не содержит URL изображения");
-                }
-                
-                AppExecutors.getInstance().diskIO().execute(() -> {
-                    localRepository.insert(savedRecipe);
-                    mainThreadHandler.post(() -> callback.onSuccess(savedRecipe));
-                });
-            }
-
-            @Override
-            public void onFailure(String error, GeneralServerResponse errorResponse) {
-                callback.onFailure(error);
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            try {
+                Recipe savedRecipe = outboxRepository.enqueueCreate(recipe, imageBytes);
+                mainThreadHandler.post(() -> callback.onSuccess(savedRecipe));
+            } catch (Exception e) {
+                Log.e(TAG, "Ошибка сохранения рецепта в очередь", e);
+                mainThreadHandler.post(() -> callback.onFailure("Ошибка сохранения рецепта: " + e.getMessage()));
             }
         });
     }
 
+    /**
+     * Сохраняет изменения рецепта локально и ставит их отправку в очередь изменений.
+     */
     public void updateRecipe(Recipe recipe, byte[] imageBytes, RecipeCallback<Recipe> callback) {
-        remoteRepository.updateRecipe(recipe, imageBytes, new RecipeRemoteRepository.RecipeSaveCallback() {
-            @Override
-            public void onSuccess(GeneralServerResponse response, Recipe updatedRecipe) {
-                Recipe recipeToSave = updatedRecipe;
-                
-                if(response != null && response.getPhotoUrl() != null){
-                    recipeToSave.setPhoto_url(response.getPhotoUrl());
-                    Log.d(TAG, "URL изображения обновлен от сервера: " + response.getPhotoUrl());
-                } else {
-                    Log.d(TAG, "Сервер не вернул новый URL изображения при обновлении рецепта");
-                }
-                AppExecutors.getInstance().diskIO().execute(() -> {
-                    localRepository.update(recipeToSave);
-                    mainThreadHandler.post(() -> callback.onSuccess(recipeToSave));
-                });
-            }
-
-            @Override
-            public void onFailure(String error, GeneralServerResponse errorResponse) {
-                callback.onFailure(error);
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            try {
+                Recipe updatedRecipe = outboxRepository.enqueueUpdate(recipe, imageBytes);
+                mainThreadHandler.post(() -> callback.onSuccess(updatedRecipe));
+            } catch (Exception e) {
+                Log.e(TAG, "Ошибка сохранения изменений рецепта в очередь", e);
+                mainThreadHandler.post(() -> callback.onFailure("Ошибка обновления рецепта: " + e.getMessage()));
             }
         });
     }
     
+    /**
+     * Удаляет рецепт локально и ставит удаление в очередь изменений.
+     */
     public void deleteRecipe(int recipeId, RecipeCallback<Void> callback) {
-        remoteRepository.deleteRecipe(recipeId, new RecipeRemoteRepository.DeleteRecipeCallback() {
-            @Override
-            public void onDeleteSuccess() {
-                AppExecutors.getInstance().diskIO().execute(() -> {
-                    localRepository.deleteRecipe(recipeId);
-                    mainThreadHandler.post(() -> callback.onSuccess(null));
-                });
-            }
-            @Override
-            public void onDeleteFailure(String error) {
-                callback.onFailure(error);
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            try {
+                outboxRepository.enqueueDelete(recipeId);
+                mainThreadHandler.post(() -> callback.onSuccess(null));
+            } catch (Exception e) {
+                Log.e(TAG, "Ошибка удаления рецепта: " + recipeId, e);
+                mainThreadHandler.post(() -> callback.onFailure("Ошибка удаления рецепта: " + e.getMessage()));
             }
         });
     }
 
+    /**
+     * Устанавливает статус лайка локально и ставит его отправку в очередь изменений.
+     */
     public void setLikeStatus(int recipeId, boolean isLiked) {
-        AppExecutors.getInstance().diskIO().execute(() -> {
-            localRepository.updateLikeStatus(recipeId, isLiked);
-            likedRecipesRepository.updateLikeStatusLocal(recipeId, isLiked);
-            likedRecipesRepository.toggleLikeRecipeOnServer(recipeId)
-                .subscribeOn(Schedulers.io())
-                .subscribe(() -> {}, throwable -> Log.e(TAG, "Failed to toggle like on server", throwable));
-        });
+        AppExecutors.getInstance().diskIO().execute(() -> outboxRepository.enqueueLike(recipeId, isLiked));
     }
 
     public boolean isNetworkAvailable() {
@@ -0,0 +1,321 @@
+package com.example.cooking.data.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Инвертированный индекс рецептов с ранжированием BM25F по трем полям:
+ * название, ингредиенты, шаги (веса {@link #FIELD_WEIGHTS}).
+ * <p>
+ * Индекс изменяется по одному рецепту ({@link #put}, {@link #remove}), без перестроения целиком.
+ * Удаленные документы помечаются и пропускаются при поиске, а когда их становится много,
+ * списки вхождений уплотняются. Каждый терм запроса сопоставляется с точной основой,
+ * синонимами ({@link SearchTokenizer#synonymsOf}) и основами, которые начинаются с него
+ * (ввод слова не до конца); от документа учитывается лучшее из этих совпадений.
+ * Сначала возвращаются документы, содержащие все термы запроса, если таких нет - любой из них.
+ * <p>
+ * Класс не зависит от Android и не потокобезопасен: синхронизация выполняется владельцем индекса.
+ */
+public final class Bm25Index {
+
+    private static final int FIELD_COUNT = 3;
+
+    // Поля по порядку: название, ингредиенты, шаги
+    private static final float[] FIELD_WEIGHTS = {3.0f, 2.0f, 1.0f};
+    private static final float[] FIELD_B = {0.5f, 0.75f, 0.75f};
+    private static final float K1 = 1.2f;
+
+    private static final float SYNONYM_WEIGHT = 0.9f;
+    private static final float PREFIX_WEIGHT = 0.6f;
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final int MIN_DEAD_FOR_COMPACTION = 256;
+
+    /**
+     * Вхождения терма: номера слотов документов и частоты терма в каждом поле
+     */
+    private static final class Postings {
+        int[] slots = new int[4];
+        int[] frequencies = new int[4 * FIELD_COUNT];
+        int size;
+        int documentFrequency;  // Число живых документов с термом
+
+        void add(int slot, int[] fieldFrequencies) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2 * FIELD_COUNT);
+            }
+            slots[size] = slot;
+            System.arraycopy(fieldFrequencies, 0, frequencies, size * FIELD_COUNT, FIELD_COUNT);
+            size++;
+            documentFrequency++;
+        }
+    }
+
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+
+    // Данные документов по слотам; слот освобождается только при уплотнении
+    private int[] slotIds = new int[64];
+    private int[] fieldLengths = new int[64 * FIELD_COUNT];
+    private String[][] slotTerms = new String[64][];
+    private int slotCount;
+    private int deadCount;
+    private final long[] fieldLengthSums = new long[FIELD_COUNT];
+
+    /**
+     * Количество проиндексированных документов.
+     */
+    public int size() {
+        return slotById.size();
+    }
+
+    /**
+     * Добавляет или заменяет документ.
+     */
+    public void put(int id, String title, String ingredients, String steps) {
+        remove(id);
+
+        Map<String, int[]> termFrequencies = new HashMap<>();
+        int[] lengths = new int[FIELD_COUNT];
+        String[] fields = {title, ingredients, steps};
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            List<String> terms = SearchTokenizer.tokenize(fields[field]);
+            lengths[field] = terms.size();
+            for (String term : terms) {
+                int[] frequencies = termFrequencies.get(term);
+                if (frequencies == null) {
+                    frequencies = new int[FIELD_COUNT];
+                    termFrequencies.put(term, frequencies);
+                }
+                frequencies[field]++;
+            }
+        }
+
+        int slot = allocateSlot(id);
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            fieldLengths[slot * FIELD_COUNT + field] = lengths[field];
+            fieldLengthSums[field] += lengths[field];
+        }
+        String[] terms = new String[termFrequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, int[]> entry : termFrequencies.entrySet()) {
+            Postings termPostings = postings.get(entry.getKey());
+            if (termPostings == null) {
+                termPostings = new Postings();
+                postings.put(entry.getKey(), termPostings);
+            }
+            termPostings.add(slot, entry.getValue());
+            terms[i++] = entry.getKey();
+        }
+        slotTerms[slot] = terms;
+    }
+
+    /**
+     * Удаляет документ, если он есть в индексе.
+     */
+    public void remove(int id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) return;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            fieldLengthSums[field] -= fieldLengths[slot * FIELD_COUNT + field];
+        }
+        for (String term : slotTerms[slot]) {
+            Postings termPostings = postings.get(term);
+            if (termPostings != null && --termPostings.documentFrequency == 0) {
+                postings.remove(term);
+            }
+        }
+        slotTerms[slot] = null;
+        deadCount++;
+        if (deadCount >= MIN_DEAD_FOR_COMPACTION && deadCount * 4 > slotCount) {
+            compact();
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        slotById.clear();
+        slotCount = 0;
+        deadCount = 0;
+        Arrays.fill(slotTerms, null);
+        Arrays.fill(fieldLengthSums, 0);
+    }
+
+    /**
+     * Ищет документы по запросу.
+     * @param limit максимальное количество результатов
+     * @return ID документов по убыванию релевантности, при равенстве - по возрастанию ID
+     */
+    public List<Integer> search(String query, int limit) {
+        List<String> queryTerms = SearchTokenizer.queryTerms(query);
+        int documents = slotById.size();
+        if (queryTerms.isEmpty() || documents == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        float[] averageLengths = new float[FIELD_COUNT];
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            averageLengths[field] = Math.max(1f, (float) fieldLengthSums[field] / documents);
+        }
+
+        float[] scores = new float[slotCount];
+        int[] matchedTerms = new int[slotCount];
+        float[] termScores = new float[slotCount];
+        int[] touched = new int[slotCount];
+        for (String term : queryTerms) {
+            int touchedCount = 0;
+            for (Map.Entry<Postings, Float> expansion : expand(term).entrySet()) {
+                Postings termPostings = expansion.getKey();
+                float idf = idf(termPostings.documentFrequency, documents);
+                float weight = expansion.getValue() * idf;
+                for (int i = 0; i < termPostings.size; i++) {
+                    int slot = termPostings.slots[i];
+                    if (slotTerms[slot] == null) continue; // Удаленный документ
+                    float score = weight * saturatedFrequency(termPostings, i, slot, averageLengths);
+                    if (termScores[slot] == 0f) {
+                        touched[touchedCount++] = slot;
+                    }
+                    if (score > termScores[slot]) {
+                        termScores[slot] = score;
+                    }
+                }
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                int slot = touched[i];
+                scores[slot] += termScores[slot];
+                matchedTerms[slot]++;
+                termScores[slot] = 0f;
+            }
+        }
+
+        int requiredTerms = queryTerms.size();
+        List<Integer> candidates = collect(matchedTerms, requiredTerms);
+        if (candidates.isEmpty()) {
+            candidates = collect(matchedTerms, 1);
+        }
+        Collections.sort(candidates, (a, b) -> {
+            int byScore = Float.compare(scores[b], scores[a]);
+            return byScore != 0 ? byScore : Integer.compare(slotIds[a], slotIds[b]);
+        });
+
+        int resultSize = Math.min(limit, candidates.size());
+        List<Integer> ids = new ArrayList<>(resultSize);
+        for (int i = 0; i < resultSize; i++) {
+            ids.add(slotIds[candidates.get(i)]);
+        }
+        return ids;
+    }
+
+    /**
+     * Списки вхождений, соответствующие терму запроса, с весом совпадения.
+     */
+    private Map<Postings, Float> expand(String term) {
+        Map<Postings, Float> expansions = new HashMap<>();
+        Postings exact = postings.get(term);
+        if (exact != null) {
+            expansions.put(exact, 1f);
+        }
+        for (String synonym : SearchTokenizer.synonymsOf(term)) {
+            Postings synonymPostings = postings.get(synonym);
+            if (synonymPostings != null && !expansions.containsKey(synonymPostings)) {
+                expansions.put(synonymPostings, SYNONYM_WEIGHT);
+            }
+        }
+        if (term.length() >= MIN_PREFIX_LENGTH) {
+            SortedMap<String, Postings> prefixed = postings.subMap(term, term + Character.MAX_VALUE);
+            int added = 0;
+            for (Postings prefixPostings : prefixed.values()) {
+                if (added++ >= MAX_PREFIX_EXPANSIONS) break;
+                if (!expansions.containsKey(prefixPostings)) {
+                    expansions.put(prefixPostings, PREFIX_WEIGHT);
+                }
+            }
+        }
+        return expansions;
+    }
+
+    private static float idf(int documentFrequency, int documents) {
+        return (float) Math.log(1 + (documents - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    /**
+     * Взвешенная по полям частота терма, нормированная на длину полей, с насыщением BM25.
+     */
+    private float saturatedFrequency(Postings termPostings, int index, int slot, float[] averageLengths) {
+        float frequency = 0f;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            int tf = termPostings.frequencies[index * FIELD_COUNT + field];
+            if (tf == 0) continue;
+            float lengthRatio = fieldLengths[slot * FIELD_COUNT + field] / averageLengths[field];
+            frequency += FIELD_WEIGHTS[field] * tf / (1 - FIELD_B[field] + FIELD_B[field] * lengthRatio);
+        }
+        return frequency / (K1 + frequency);
+    }
+
+    private List<Integer> collect(int[] matchedTerms, int minMatched) {
+        List<Integer> slots = new ArrayList<>();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (matchedTerms[slot] >= minMatched) {
+                slots.add(slot);
+            }
+        }
+        return slots;
+    }
+
+    private int allocateSlot(int id) {
+        if (slotCount == slotIds.length) {
+            int capacity = slotCount * 2;
+            slotIds = Arrays.copyOf(slotIds, capacity);
+            fieldLengths = Arrays.copyOf(fieldLengths, capacity * FIELD_COUNT);
+            slotTerms = Arrays.copyOf(slotTerms, capacity);
+        }
+        int slot = slotCount++;
+        slotIds[slot] = id;
+        slotById.put(id, slot);
+        return slot;
+    }
+
+    /**
+     * Убирает удаленные документы из слотов и списков вхождений.
+     */
+    private void compact() {
+        int[] newSlots = new int[slotCount];
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slotTerms[slot] == null) {
+                newSlots[slot] = -1;
+                continue;
+            }
+            newSlots[slot] = live;
+            slotIds[live] = slotIds[slot];
+            slotTerms[live] = slotTerms[slot];
+            System.arraycopy(fieldLengths, slot * FIELD_COUNT, fieldLengths, live * FIELD_COUNT, FIELD_COUNT);
+            slotById.put(slotIds[live], live);
+            live++;
+        }
+        Arrays.fill(slotTerms, live, slotCount, null);
+        slotCount = live;
+        deadCount = 0;
+
+        for (Postings termPostings : postings.values()) {
+            int kept = 0;
+            for (int i = 0; i < termPostings.size; i++) {
+                int newSlot = newSlots[termPostings.slots[i]];
+                if (newSlot < 0) continue;
+                termPostings.slots[kept] = newSlot;
+                System.arraycopy(termPostings.frequencies, i * FIELD_COUNT,
+                        termPostings.frequencies, kept * FIELD_COUNT, FIELD_COUNT);
+                kept++;
+            }
+            termPostings.size = kept;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.cooking.data.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Инвертированный индекс ингредиентов для подбора рецептов из имеющихся продуктов.
+ * <p>
+ * Названия ингредиентов нормализуются ({@link SearchTokenizer#tokenize}: регистр, "ё", словоформы)
+ * и заносятся в словарь, где получают постоянный номер. Для каждого ингредиента словаря хранится
+ * битовое множество рецептов, в которых он встречается. Рецепты нумеруются плотно (номер слота),
+ * а освободившиеся слоты переиспользуются, поэтому длина битовых множеств не превышает
+ * числа рецептов и пересечение/объединение выполняется пословно.
+ * <p>
+ * Продукт пользователя соответствует ингредиенту словаря, если все слова продукта (или их синонимы)
+ * есть в названии ингредиента: "лук" соответствует и "лук", и "лук репчатый".
+ * Класс не зависит от Android и не потокобезопасен: синхронизация выполняется владельцем индекса.
+ */
+public final class IngredientIndex {
+
+    /**
+     * Рецепт, подходящий под набор продуктов
+     */
+    public static final class Match {
+        public final int recipeId;
+        public final int matchedIngredients;    // Ингредиенты рецепта, которые есть у пользователя
+        public final int totalIngredients;      // Все различающиеся ингредиенты рецепта
+
+        Match(int recipeId, int matchedIngredients, int totalIngredients) {
+            this.recipeId = recipeId;
+            this.matchedIngredients = matchedIngredients;
+            this.totalIngredients = totalIngredients;
+        }
+
+        /**
+         * Доля ингредиентов рецепта, которые есть у пользователя, от 0 до 1.
+         */
+        public float getCoverage() {
+            return totalIngredients > 0 ? (float) matchedIngredients / totalIngredients : 0f;
+        }
+    }
+
+    // Словарь: нормализованное название -> номер ингредиента
+    private final Map<String, Integer> ingredientIds = new HashMap<>();
+    private final List<BitSet> recipesByIngredient = new ArrayList<>();
+    private final Map<String, Set<Integer>> ingredientsByTerm = new HashMap<>();
+
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private int[] slotIds = new int[64];
+    private int[][] slotIngredients = new int[64][];
+    private int slotCount;
+    private final BitSet freeSlots = new BitSet();
+
+    /**
+     * Количество проиндексированных рецептов.
+     */
+    public int size() {
+        return slotById.size();
+    }
+
+    /**
+     * Добавляет или заменяет рецепт. Рецепт без ингредиентов не индексируется.
+     * @param ingredientNames названия ингредиентов рецепта
+     */
+    public void put(int id, Collection<String> ingredientNames) {
+        remove(id);
+        Set<Integer> ingredients = new LinkedHashSet<>();
+        for (String name : ingredientNames) {
+            String normalized = normalize(name);
+            if (normalized != null) {
+                ingredients.add(ingredientId(normalized));
+            }
+        }
+        if (ingredients.isEmpty()) return;
+
+        int slot = allocateSlot(id);
+        int[] slotIngredientIds = new int[ingredients.size()];
+        int i = 0;
+        for (Integer ingredient : ingredients) {
+            recipesByIngredient.get(ingredient).set(slot);
+            slotIngredientIds[i++] = ingredient;
+        }
+        slotIngredients[slot] = slotIngredientIds;
+    }
+
+    /**
+     * Удаляет рецепт, если он есть в индексе. Номера ингредиентов в словаре сохраняются.
+     */
+    public void remove(int id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) return;
+        for (int ingredient : slotIngredients[slot]) {
+            recipesByIngredient.get(ingredient).clear(slot);
+        }
+        slotIngredients[slot] = null;
+        freeSlots.set(slot);
+    }
+
+    public void clear() {
+        ingredientIds.clear();
+        recipesByIngredient.clear();
+        ingredientsByTerm.clear();
+        slotById.clear();
+        Arrays.fill(slotIngredients, null);
+        slotCount = 0;
+        freeSlots.clear();
+    }
+
+    /**
+     * Подбирает рецепты по имеющимся продуктам.
+     * Рецепты упорядочены по доле имеющихся ингредиентов, затем по их числу, затем по возрастанию ID.
+     * @param available продукты пользователя в свободной форме
+     * @param requireAll рецепт должен содержать все указанные продукты (пересечение),
+     *                   иначе хотя бы один из них (объединение)
+     * @param limit максимальное количество результатов
+     */
+    public List<Match> search(Collection<String> available, boolean requireAll, int limit) {
+        if (available.isEmpty() || slotById.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        BitSet candidates = null;
+        Set<Integer> availableIngredients = new HashSet<>();
+        for (String product : available) {
+            Set<Integer> ingredients = resolve(product);
+            if (ingredients == null) continue; // Пустое название
+            BitSet productRecipes = new BitSet(slotCount);
+            for (Integer ingredient : ingredients) {
+                productRecipes.or(recipesByIngredient.get(ingredient));
+            }
+            availableIngredients.addAll(ingredients);
+            if (candidates == null) {
+                candidates = productRecipes;
+            } else if (requireAll) {
+                candidates.and(productRecipes);
+            } else {
+                candidates.or(productRecipes);
+            }
+        }
+        if (candidates == null || candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        int[] matched = new int[slotCount];
+        for (Integer ingredient : availableIngredients) {
+            BitSet recipes = recipesByIngredient.get(ingredient);
+            for (int slot = recipes.nextSetBit(0); slot >= 0; slot = recipes.nextSetBit(slot + 1)) {
+                matched[slot]++;
+            }
+        }
+
+        List<Match> matches = new ArrayList<>(candidates.cardinality());
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            matches.add(new Match(slotIds[slot], matched[slot], slotIngredients[slot].length));
+        }
+        Collections.sort(matches, (a, b) -> {
+            int byCoverage = Float.compare(b.getCoverage(), a.getCoverage());
+            if (byCoverage != 0) return byCoverage;
+            int byMatched = Integer.compare(b.matchedIngredients, a.matchedIngredients);
+            return byMatched != 0 ? byMatched : Integer.compare(a.recipeId, b.recipeId);
+        });
+        return new ArrayList<>(matches.subList(0, Math.min(limit, matches.size())));
+    }
+
+    /**
+     * Ингредиенты словаря, соответствующие продукту, или null, если в названии нет слов.
+     */
+    private Set<Integer> resolve(String product) {
+        List<String> terms = SearchTokenizer.queryTerms(product);
+        if (terms.isEmpty()) return null;
+        Set<Integer> result = null;
+        for (String term : terms) {
+            Set<Integer> termIngredients = new HashSet<>();
+            addAll(termIngredients, ingredientsByTerm.get(term));
+            for (String synonym : SearchTokenizer.synonymsOf(term)) {
+                addAll(termIngredients, ingredientsByTerm.get(synonym));
+            }
+            if (result == null) {
+                result = termIngredients;
+            } else {
+                result.retainAll(termIngredients);
+            }
+        }
+        return result;
+    }
+
+    private int ingredientId(String normalized) {
+        Integer id = ingredientIds.get(normalized);
+        if (id != null) return id;
+        id = recipesByIngredient.size();
+        ingredientIds.put(normalized, id);
+        recipesByIngredient.add(new BitSet());
+        for (String term : normalized.split(" ")) {
+            Set<Integer> ingredients = ingredientsByTerm.get(term);
+            if (ingredients == null) {
+                ingredients = new HashSet<>();
+                ingredientsByTerm.put(term, ingredients);
+            }
+            ingredients.add(id);
+        }
+        return id;
+    }
+
+    private int allocateSlot(int id) {
+        int slot = freeSlots.nextSetBit(0);
+        if (slot >= 0) {
+            freeSlots.clear(slot);
+        } else {
+            if (slotCount == slotIds.length) {
+                slotIds = Arrays.copyOf(slotIds, slotCount * 2);
+                slotIngredients = Arrays.copyOf(slotIngredients, slotCount * 2);
+            }
+            slot = slotCount++;
+        }
+        slotIds[slot] = id;
+        slotById.put(id, slot);
+        return slot;
+    }
+
+    /**
+     * Нормализованное название ингредиента: основы слов через пробел, или null, если слов нет.
+     */
+    static String normalize(String name) {
+        List<String> terms = SearchTokenizer.tokenize(name);
+        if (terms.isEmpty()) return null;
+        StringBuilder sb = new StringBuilder();
+        for (String term : terms) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(term);
+        }
+        return sb.toString();
+    }
+
+    private static void addAll(Set<Integer> target, Set<Integer> source) {
+        if (source != null) target.addAll(source);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.cooking.data.search;
+
+/**
+ * Легкий стеммер русского языка: отбрасывает одно падежное или родовое окончание,
+ * оставляя основу не короче {@link #MIN_STEM_LENGTH} символов.
+ * "борща" -> "борщ", "картошки" -> "картошк", "яйцами" -> "яйц".
+ * В отличие от полного стеммера Портера не снимает суффиксы, поэтому не склеивает
+ * разные слова с общим корнем и работает за один проход по списку окончаний.
+ * Ожидает слово в нижнем регистре с "ё", замененной на "е" (см. {@link SearchTokenizer}).
+ */
+public final class RussianStemmer {
+
+    private static final int MIN_STEM_LENGTH = 3;
+
+    // Окончания упорядочены по убыванию длины: снимается самое длинное подходящее
+    private static final String[] ENDINGS = {
+            "иями",
+            "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "иях", "ией",
+            "ях", "ах", "ов", "ев", "ей", "ой", "ий", "ый", "ая", "яя", "ое", "ее", "ые", "ие",
+            "ом", "ем", "ам", "ям", "ию", "ью", "ия", "ья", "ую", "юю", "ых", "их",
+            "а", "я", "о", "е", "ы", "и", "ь", "й", "у", "ю"
+    };
+
+    private RussianStemmer() {
+    }
+
+    /**
+     * Основа слова. Слова без русского окончания (в том числе латиница и числа) возвращаются без изменений.
+     */
+    public static String stem(String word) {
+        for (String ending : ENDINGS) {
+            if (word.length() - ending.length() >= MIN_STEM_LENGTH && word.endsWith(ending)) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+        return word;
+    }
+}
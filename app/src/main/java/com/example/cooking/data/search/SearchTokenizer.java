@@ -0,0 +1,101 @@
+package com.example.cooking.data.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Разбиение текста рецептов и поисковых запросов на термы для {@link Bm25Index}.
+ * Текст приводится к нижнему регистру, "ё" заменяется на "е", слова разделяются
+ * по любым символам кроме букв и цифр, служебные слова отбрасываются,
+ * остальные приводятся к основе {@link RussianStemmer}.
+ */
+public final class SearchTokenizer {
+
+    private static final int MIN_TOKEN_LENGTH = 2;
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "и", "в", "во", "на", "с", "со", "по", "до", "для", "из", "от", "к", "ко", "о", "об",
+            "а", "но", "или", "не", "ни", "за", "под", "над", "при", "без", "через", "как", "что",
+            "это", "то", "же", "ли", "бы", "уже", "еще", "все", "его", "ее", "их"));
+
+    // Разговорные и словарные названия одних продуктов (по основам)
+    private static final Map<String, List<String>> SYNONYMS = new HashMap<>();
+
+    static {
+        addSynonyms("картошк", "картофел");
+        addSynonyms("помидор", "томат");
+        addSynonyms("куриц", "курятин");
+        addSynonyms("макарон", "паст");
+        addSynonyms("говядин", "говяж");
+        addSynonyms("свинин", "свин");
+    }
+
+    private SearchTokenizer() {
+    }
+
+    private static void addSynonyms(String first, String second) {
+        SYNONYMS.put(first, Collections.singletonList(second));
+        SYNONYMS.put(second, Collections.singletonList(first));
+    }
+
+    /**
+     * Термы текста в порядке следования, с повторами (для подсчета частоты).
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = words(text);
+        for (int i = 0; i < terms.size(); i++) {
+            terms.set(i, RussianStemmer.stem(terms.get(i)));
+        }
+        return terms;
+    }
+
+    /**
+     * Слова текста без приведения к основе, в порядке следования, с повторами.
+     * Используется нечетким поиском ({@link TrigramIndex}), которому нужна исходная форма слова.
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null || text.isEmpty()) return words;
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int length = normalized.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                addWord(words, normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Различающиеся термы поискового запроса в порядке их появления.
+     */
+    public static List<String> queryTerms(String query) {
+        return new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+    }
+
+    /**
+     * Основы-синонимы терма или пустой список.
+     */
+    static List<String> synonymsOf(String term) {
+        List<String> synonyms = SYNONYMS.get(term);
+        return synonyms != null ? synonyms : Collections.<String>emptyList();
+    }
+
+    private static void addWord(List<String> words, String word) {
+        if (word.length() < MIN_TOKEN_LENGTH || STOP_WORDS.contains(word)) return;
+        words.add(word);
+    }
+}
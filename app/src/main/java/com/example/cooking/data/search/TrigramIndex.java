@@ -0,0 +1,278 @@
+package com.example.cooking.data.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Индекс нечеткого поиска по названиям и ингредиентам рецептов, устойчивый к опечаткам.
+ * <p>
+ * Индексируется словарь: каждое различающееся слово разбивается на триграммы
+ * (с границами слова: "^ша", "шар", ..., "ка$"), для триграммы хранятся содержащие ее слова,
+ * для слова - рецепты, в которых оно встречается. Слово запроса сначала отбирает кандидатов
+ * по доле общих триграмм (коэффициент Дайса), затем кандидаты проверяются расстоянием
+ * Дамерау-Левенштейна с порогом, зависящим от длины слова. Так "шарлотко" находит "шарлотка",
+ * а "спагети" - "спагетти". Совпадение в названии весит больше совпадения в ингредиентах.
+ * <p>
+ * Индекс изменяется по одному рецепту ({@link #put}, {@link #remove}).
+ * Класс не зависит от Android и не потокобезопасен: синхронизация выполняется владельцем индекса.
+ */
+public final class TrigramIndex {
+
+    private static final int IN_TITLE = 1;
+    private static final int IN_INGREDIENTS = 2;
+    private static final float TITLE_WEIGHT = 2.0f;
+    private static final float INGREDIENT_WEIGHT = 1.0f;
+
+    private static final float MIN_TRIGRAM_SIMILARITY = 0.2f;
+    private static final int MAX_VERIFIED_CANDIDATES = 200;
+
+    /**
+     * Слово словаря и рецепты, в которых оно встречается
+     */
+    private static final class Word {
+        final String text;
+        final String[] trigrams;
+        // ID рецепта -> поля, в которых встречается слово (IN_TITLE | IN_INGREDIENTS)
+        final Map<Integer, Integer> documents = new HashMap<>();
+
+        Word(String text) {
+            this.text = text;
+            this.trigrams = trigrams(text);
+        }
+    }
+
+    private final Map<String, Word> vocabulary = new HashMap<>();
+    private final Map<String, Set<Word>> wordsByTrigram = new HashMap<>();
+    private final Map<Integer, String[]> wordsByDocument = new HashMap<>();
+
+    /**
+     * Количество проиндексированных рецептов.
+     */
+    public int size() {
+        return wordsByDocument.size();
+    }
+
+    /**
+     * Добавляет или заменяет рецепт.
+     * @param ingredients названия ингредиентов через пробел
+     */
+    public void put(int id, String title, String ingredients) {
+        remove(id);
+        Map<String, Integer> fields = new HashMap<>();
+        for (String word : SearchTokenizer.words(title)) {
+            addField(fields, word, IN_TITLE);
+        }
+        for (String word : SearchTokenizer.words(ingredients)) {
+            addField(fields, word, IN_INGREDIENTS);
+        }
+        if (fields.isEmpty()) return;
+
+        for (Map.Entry<String, Integer> entry : fields.entrySet()) {
+            Word word = vocabulary.get(entry.getKey());
+            if (word == null) {
+                word = new Word(entry.getKey());
+                vocabulary.put(word.text, word);
+                for (String trigram : word.trigrams) {
+                    Set<Word> words = wordsByTrigram.get(trigram);
+                    if (words == null) {
+                        words = new HashSet<>();
+                        wordsByTrigram.put(trigram, words);
+                    }
+                    words.add(word);
+                }
+            }
+            word.documents.put(id, entry.getValue());
+        }
+        wordsByDocument.put(id, fields.keySet().toArray(new String[0]));
+    }
+
+    /**
+     * Удаляет рецепт, если он есть в индексе. Слова, не встречающиеся больше ни в одном рецепте,
+     * удаляются из словаря.
+     */
+    public void remove(int id) {
+        String[] words = wordsByDocument.remove(id);
+        if (words == null) return;
+        for (String text : words) {
+            Word word = vocabulary.get(text);
+            if (word == null) continue;
+            word.documents.remove(id);
+            if (word.documents.isEmpty()) {
+                vocabulary.remove(text);
+                for (String trigram : word.trigrams) {
+                    Set<Word> trigramWords = wordsByTrigram.get(trigram);
+                    if (trigramWords != null) {
+                        trigramWords.remove(word);
+                        if (trigramWords.isEmpty()) wordsByTrigram.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        vocabulary.clear();
+        wordsByTrigram.clear();
+        wordsByDocument.clear();
+    }
+
+    /**
+     * Ищет рецепты, слова которых похожи на слова запроса.
+     * Сначала возвращаются рецепты, в которых нашлись все слова запроса, если таких нет - любое из них.
+     * @param limit максимальное количество результатов
+     * @return ID рецептов по убыванию сходства, при равенстве - по возрастанию ID
+     */
+    public List<Integer> search(String query, int limit) {
+        List<String> queryWords = new ArrayList<>(new LinkedHashSet<>(SearchTokenizer.words(query)));
+        if (queryWords.isEmpty() || wordsByDocument.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Map<Integer, Float> scores = new HashMap<>();
+        Map<Integer, Integer> matchedWords = new HashMap<>();
+        for (String queryWord : queryWords) {
+            // Лучшее совпадение рецепта с этим словом запроса
+            Map<Integer, Float> wordScores = new HashMap<>();
+            for (Map.Entry<Word, Float> match : similarWords(queryWord).entrySet()) {
+                float similarity = match.getValue();
+                for (Map.Entry<Integer, Integer> document : match.getKey().documents.entrySet()) {
+                    float weight = (document.getValue() & IN_TITLE) != 0 ? TITLE_WEIGHT : INGREDIENT_WEIGHT;
+                    float score = similarity * weight;
+                    Float current = wordScores.get(document.getKey());
+                    if (current == null || score > current) {
+                        wordScores.put(document.getKey(), score);
+                    }
+                }
+            }
+            for (Map.Entry<Integer, Float> entry : wordScores.entrySet()) {
+                Float score = scores.get(entry.getKey());
+                scores.put(entry.getKey(), score == null ? entry.getValue() : score + entry.getValue());
+                Integer matched = matchedWords.get(entry.getKey());
+                matchedWords.put(entry.getKey(), matched == null ? 1 : matched + 1);
+            }
+        }
+
+        List<Integer> candidates = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : matchedWords.entrySet()) {
+            if (entry.getValue() == queryWords.size()) candidates.add(entry.getKey());
+        }
+        if (candidates.isEmpty()) {
+            candidates.addAll(matchedWords.keySet());
+        }
+        Collections.sort(candidates, (a, b) -> {
+            int byScore = Float.compare(scores.get(b), scores.get(a));
+            return byScore != 0 ? byScore : Integer.compare(a, b);
+        });
+        return new ArrayList<>(candidates.subList(0, Math.min(limit, candidates.size())));
+    }
+
+    /**
+     * Слова словаря, похожие на слово запроса, со сходством от 0 до 1.
+     * Кандидаты с наибольшей долей общих триграмм проверяются расстоянием редактирования.
+     */
+    private Map<Word, Float> similarWords(String queryWord) {
+        String[] queryTrigrams = trigrams(queryWord);
+        Map<Word, Integer> common = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            Set<Word> words = wordsByTrigram.get(trigram);
+            if (words == null) continue;
+            for (Word word : words) {
+                Integer count = common.get(word);
+                common.put(word, count == null ? 1 : count + 1);
+            }
+        }
+
+        List<Word> candidates = new ArrayList<>();
+        Map<Word, Float> dice = new HashMap<>();
+        for (Map.Entry<Word, Integer> entry : common.entrySet()) {
+            Word word = entry.getKey();
+            float similarity = 2f * entry.getValue() / (queryTrigrams.length + word.trigrams.length);
+            if (similarity >= MIN_TRIGRAM_SIMILARITY) {
+                candidates.add(word);
+                dice.put(word, similarity);
+            }
+        }
+        if (candidates.size() > MAX_VERIFIED_CANDIDATES) {
+            Collections.sort(candidates, (a, b) -> Float.compare(dice.get(b), dice.get(a)));
+            candidates = candidates.subList(0, MAX_VERIFIED_CANDIDATES);
+        }
+
+        int maxDistance = maxDistance(queryWord.length());
+        Map<Word, Float> matches = new HashMap<>();
+        for (Word word : candidates) {
+            int distance = editDistance(queryWord, word.text, maxDistance);
+            if (distance <= maxDistance) {
+                matches.put(word, 1f - (float) distance / Math.max(queryWord.length(), word.text.length()));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Допустимое число опечаток в зависимости от длины слова.
+     */
+    private static int maxDistance(int length) {
+        if (length <= 4) return 1;
+        if (length <= 8) return 2;
+        return 3;
+    }
+
+    /**
+     * Расстояние Дамерау-Левенштейна (с перестановкой соседних букв).
+     * Вычисление прекращается, как только расстояние гарантированно превышает max.
+     * @return расстояние или max + 1, если оно больше max
+     */
+    static int editDistance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) return max + 1;
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) previous[j] = j;
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                if (value < rowMin) rowMin = value;
+            }
+            if (rowMin > max) return max + 1;
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+
+    /**
+     * Триграммы слова с маркерами начала и конца.
+     */
+    private static String[] trigrams(String word) {
+        String padded = "^" + word + "$";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams.toArray(new String[0]);
+    }
+
+    private static void addField(Map<String, Integer> fields, String word, int field) {
+        Integer current = fields.get(word);
+        fields.put(word, current == null ? field : current | field);
+    }
+}
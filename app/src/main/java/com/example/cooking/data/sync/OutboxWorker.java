@@ -0,0 +1,39 @@
+package com.example.cooking.data.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.cooking.data.repositories.OutboxRepository;
+
+/**
+ * Фоновая задача WorkManager, отправляющая очередь изменений рецептов на сервер.
+ * Ставится через {@link OutboxRepository#scheduleReplay()} с условием подключения к сети,
+ * поэтому запускается сама, когда сеть появляется, в том числе после перезапуска приложения.
+ * Если часть изменений не удалось отправить, WorkManager повторяет задачу с экспоненциальной задержкой.
+ */
+public class OutboxWorker extends Worker {
+
+    private static final String TAG = "OutboxWorker";
+    public static final String WORK_NAME = "recipe_outbox_replay";
+
+    public OutboxWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            boolean complete = OutboxRepository.getInstance(getApplicationContext()).replay();
+            Log.d(TAG, complete ? "Очередь изменений отправлена" : "Часть изменений будет отправлена позже");
+            return complete ? Result.success() : Result.retry();
+        } catch (Exception e) {
+            Log.e(TAG, "Ошибка отправки очереди изменений", e);
+            return Result.retry();
+        }
+    }
+}
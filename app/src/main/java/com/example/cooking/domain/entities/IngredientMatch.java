@@ -0,0 +1,43 @@
+package com.example.cooking.domain.entities;
+
+/**
+ * Рецепт, подобранный по имеющимся у пользователя продуктам.
+ * Содержит карточку рецепта и число его ингредиентов, которые есть у пользователя.
+ */
+public class IngredientMatch {
+    private final Recipe recipe;
+    private final int matchedIngredients;
+    private final int totalIngredients;
+
+    public IngredientMatch(Recipe recipe, int matchedIngredients, int totalIngredients) {
+        this.recipe = recipe;
+        this.matchedIngredients = matchedIngredients;
+        this.totalIngredients = totalIngredients;
+    }
+
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    public int getMatchedIngredients() {
+        return matchedIngredients;
+    }
+
+    public int getTotalIngredients() {
+        return totalIngredients;
+    }
+
+    /**
+     * Ингредиенты, которых не хватает для приготовления.
+     */
+    public int getMissingIngredients() {
+        return totalIngredients - matchedIngredients;
+    }
+
+    /**
+     * Доля имеющихся ингредиентов рецепта, от 0 до 1.
+     */
+    public float getCoverage() {
+        return totalIngredients > 0 ? (float) matchedIngredients / totalIngredients : 0f;
+    }
+}
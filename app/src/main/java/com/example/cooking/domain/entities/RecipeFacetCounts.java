@@ -0,0 +1,66 @@
+package com.example.cooking.domain.entities;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Счетчики фасетов для текущего {@link RecipeFilter}: сколько рецептов будет найдено
+ * при выборе каждого значения фасета (с учетом остальных фильтров), и общее число результатов.
+ */
+public class RecipeFacetCounts {
+    private final Map<String, Integer> mealTypes;
+    private final Map<String, Integer> foodTypes;
+    private final int liked;
+    private final int notLiked;
+    private final int total;
+
+    public RecipeFacetCounts(Map<String, Integer> mealTypes, Map<String, Integer> foodTypes,
+                             int liked, int notLiked, int total) {
+        this.mealTypes = Collections.unmodifiableMap(new LinkedHashMap<>(mealTypes));
+        this.foodTypes = Collections.unmodifiableMap(new LinkedHashMap<>(foodTypes));
+        this.liked = liked;
+        this.notLiked = notLiked;
+        this.total = total;
+    }
+
+    /**
+     * Тип приема пищи -> число рецептов.
+     */
+    public Map<String, Integer> getMealTypes() {
+        return mealTypes;
+    }
+
+    /**
+     * Тип блюда -> число рецептов.
+     */
+    public Map<String, Integer> getFoodTypes() {
+        return foodTypes;
+    }
+
+    public int getLiked() {
+        return liked;
+    }
+
+    public int getNotLiked() {
+        return notLiked;
+    }
+
+    /**
+     * Число рецептов, удовлетворяющих всем фильтрам.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "RecipeFacetCounts{" +
+               "mealTypes=" + mealTypes +
+               ", foodTypes=" + foodTypes +
+               ", liked=" + liked +
+               ", notLiked=" + notLiked +
+               ", total=" + total +
+               '}';
+    }
+}
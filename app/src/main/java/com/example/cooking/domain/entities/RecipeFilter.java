@@ -0,0 +1,132 @@
+package com.example.cooking.domain.entities;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Набор фасетных фильтров рецептов. Фильтры комбинируются через И,
+ * несколько значений одного фасета (типа приема пищи или типа блюда) - через ИЛИ.
+ * Пустой набор значений или null означает "без фильтра".
+ * Названия ингредиентов сравниваются точно, как они хранятся в рецептах.
+ */
+public class RecipeFilter {
+    private final Set<String> mealTypes = new LinkedHashSet<>();
+    private final Set<String> foodTypes = new LinkedHashSet<>();
+    private Boolean liked;
+    private String authorId;
+    private final Set<String> includedIngredients = new LinkedHashSet<>();
+    private final Set<String> excludedIngredients = new LinkedHashSet<>();
+
+    public RecipeFilter() {
+    }
+
+    /**
+     * Копия фильтра, которую можно изменять независимо от исходного.
+     */
+    public RecipeFilter(RecipeFilter other) {
+        mealTypes.addAll(other.mealTypes);
+        foodTypes.addAll(other.foodTypes);
+        liked = other.liked;
+        authorId = other.authorId;
+        includedIngredients.addAll(other.includedIngredients);
+        excludedIngredients.addAll(other.excludedIngredients);
+    }
+
+    public Set<String> getMealTypes() {
+        return Collections.unmodifiableSet(mealTypes);
+    }
+
+    public void setMealTypes(Collection<String> mealTypes) {
+        replace(this.mealTypes, mealTypes);
+    }
+
+    public Set<String> getFoodTypes() {
+        return Collections.unmodifiableSet(foodTypes);
+    }
+
+    public void setFoodTypes(Collection<String> foodTypes) {
+        replace(this.foodTypes, foodTypes);
+    }
+
+    /**
+     * @return true - только лайкнутые, false - только без лайка, null - без фильтра
+     */
+    public Boolean getLiked() {
+        return liked;
+    }
+
+    public void setLiked(Boolean liked) {
+        this.liked = liked;
+    }
+
+    public String getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(String authorId) {
+        this.authorId = authorId;
+    }
+
+    /**
+     * Ингредиенты, которые обязательно должны быть в рецепте (все).
+     */
+    public Set<String> getIncludedIngredients() {
+        return Collections.unmodifiableSet(includedIngredients);
+    }
+
+    public void setIncludedIngredients(Collection<String> includedIngredients) {
+        replace(this.includedIngredients, includedIngredients);
+    }
+
+    /**
+     * Ингредиенты, которых не должно быть в рецепте (ни одного).
+     */
+    public Set<String> getExcludedIngredients() {
+        return Collections.unmodifiableSet(excludedIngredients);
+    }
+
+    public void setExcludedIngredients(Collection<String> excludedIngredients) {
+        replace(this.excludedIngredients, excludedIngredients);
+    }
+
+    private static void replace(Set<String> target, Collection<String> values) {
+        target.clear();
+        if (values == null) return;
+        for (String value : values) {
+            if (value != null && !value.isEmpty()) target.add(value);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RecipeFilter that = (RecipeFilter) o;
+        return mealTypes.equals(that.mealTypes) &&
+               foodTypes.equals(that.foodTypes) &&
+               Objects.equals(liked, that.liked) &&
+               Objects.equals(authorId, that.authorId) &&
+               includedIngredients.equals(that.includedIngredients) &&
+               excludedIngredients.equals(that.excludedIngredients);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mealTypes, foodTypes, liked, authorId, includedIngredients, excludedIngredients);
+    }
+
+    @Override
+    public String toString() {
+        return "RecipeFilter{" +
+               "mealTypes=" + mealTypes +
+               ", foodTypes=" + foodTypes +
+               ", liked=" + liked +
+               ", authorId='" + authorId + '\'' +
+               ", includedIngredients=" + includedIngredients +
+               ", excludedIngredients=" + excludedIngredients +
+               '}';
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.cooking.domain.usecases;
+
+import android.app.Application;
+import android.util.Log;
+
+import com.example.cooking.data.repositories.UnifiedRecipeRepository;
+import com.example.cooking.domain.entities.IngredientMatch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.rxjava3.core.Single;
+
+/**
+ * Use Case для подбора рецептов по имеющимся продуктам ("приготовить из того, что есть").
+ * Рецепты упорядочены по доле ингредиентов рецепта, которые есть у пользователя.
+ * Подбор выполняется по локальной базе через индекс ингредиентов и не требует сети.
+ * Возвращает холодный поток, подписка выполняется в ViewModel.
+ */
+public class CookFromPantryUseCase {
+    private static final String TAG = "CookFromPantryUseCase";
+    private static final int MAX_RESULTS = 100;
+
+    private final UnifiedRecipeRepository repository;
+
+    public CookFromPantryUseCase(Application application) {
+        this.repository = UnifiedRecipeRepository.getInstance(application);
+    }
+
+    /**
+     * Рецепты, в которых есть хотя бы один из продуктов. Первыми идут рецепты,
+     * все ингредиенты которых есть у пользователя.
+     * @param available продукты пользователя, пустые строки пропускаются
+     */
+    public Single<List<IngredientMatch>> findRecipes(List<String> available) {
+        return find(available, false);
+    }
+
+    /**
+     * Рецепты, в которых есть все указанные продукты, в том же порядке ранжирования.
+     * @param required обязательные продукты, пустые строки пропускаются
+     */
+    public Single<List<IngredientMatch>> findRecipesWithAll(List<String> required) {
+        return find(required, true);
+    }
+
+    private Single<List<IngredientMatch>> find(List<String> products, boolean requireAll) {
+        List<String> names = new ArrayList<>();
+        if (products != null) {
+            for (String product : products) {
+                if (product != null && !product.trim().isEmpty()) {
+                    names.add(product.trim());
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            return Single.just(new ArrayList<>());
+        }
+        Log.d(TAG, "Подбор рецептов по продуктам: " + names + (requireAll ? " (все)" : ""));
+        return repository.findRecipesByIngredients(names, requireAll, MAX_RESULTS);
+    }
+
+    /**
+     * Очищает ресурсы
+     */
+    public void clearResources() {
+        repository.clearDisposables();
+    }
+}
@@ -3,6 +3,7 @@ package com.example.cooking.domain.usecases;
 import android.app.Application;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.paging.PagingData;
 import com.example.cooking.domain.entities.Recipe;
 import com.example.cooking.data.repositories.UnifiedRecipeRepository;
 import com.example.cooking.network.utils.Resource;
@@ -33,10 +34,26 @@ public class RecipeDataUseCase {
     public LiveData<List<Recipe>> getAllRecipesLocalLiveData() {
         return repository.getAllRecipesLocal();
     }
+
+    /**
+     * Получает постраничный поток карточек рецептов из локальной базы данных
+     */
+    public LiveData<PagingData<Recipe>> getRecipesPagedLocal() {
+        return repository.getRecipesPaged();
+    }
+
+    /**
+     * Получает LiveData с лайкнутыми рецептами из локальной базы данных
+     */
+    public LiveData<List<Recipe>> getLikedRecipesLocalLiveData() {
+        return repository.getLikedRecipesLocal();
+    }
     
 
     /**
      * Обновляет рецепты с сервера
+     * @param recipesLiveData получатель списка после синхронизации; может быть null,
+     *                        если экран читает данные через постраничный поток
      */
     public void refreshRecipes(MutableLiveData<Boolean> isRefreshingLiveData, 
                             MutableLiveData<String> errorMessageLiveData,
@@ -3,100 +3,79 @@ package com.example.cooking.domain.usecases;
 import android.app.Application;
 import android.os.Handler;
 import android.os.Looper;
+import android.util.Log;
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.paging.PagingData;
 import com.example.cooking.domain.entities.Recipe;
+import com.example.cooking.domain.entities.RecipeFacetCounts;
+import com.example.cooking.domain.entities.RecipeFilter;
 import com.example.cooking.data.repositories.UnifiedRecipeRepository;
-import com.example.cooking.network.utils.Resource;
+import com.example.cooking.utils.AppExecutors;
 
 import java.util.List;
 
 /**
  * Use Case для операций фильтрации рецептов по категориям
- * Отвечает за фильтрацию рецептов по meal_type и food_type
+ * Отвечает за фильтрацию рецептов по meal_type и food_type, а также по комбинации фасетов
  */
 public class RecipeFilterUseCase {
     private static final String TAG = "RecipeFilterUseCase";
-    
+
     private final UnifiedRecipeRepository repository;
     private final RecipeDataUseCase recipeDataUseCase;
     private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
-    
+
     public RecipeFilterUseCase(Application application) {
         this.repository = UnifiedRecipeRepository.getInstance(application);
         this.recipeDataUseCase = new RecipeDataUseCase(application);
     }
-    
+
     /**
-     * Выполняет фильтрацию рецептов по категории с опциональным автообновлением
+     * Возвращает постраничный поток рецептов выбранной категории.
+     * Поток обновляется автоматически при изменении локальной базы.
      */
-    public void filterRecipesByCategory(String filterKey, String filterType, 
-                                      MutableLiveData<List<Recipe>> filteredResultsLiveData,
-                                      MutableLiveData<String> errorMessageLiveData) {
-        filterRecipesByCategory(filterKey, filterType, filteredResultsLiveData, errorMessageLiveData, null);
+    public LiveData<PagingData<Recipe>> getFilteredRecipesPaged(String filterKey, String filterType) {
+        return repository.getRecipesPagedByCategory(filterKey, filterType);
     }
-    
+
     /**
-     * Выполняет фильтрацию рецептов по категории с автообновлением если данных нет
+     * Рецепты по любой комбинации фасетов: типы приема пищи и блюда, лайк, автор,
+     * обязательные и исключенные ингредиенты. Весь фильтр выполняется одним SQL-запросом,
+     * поток обновляется автоматически при изменении локальной базы.
      */
-    public void filterRecipesByCategory(String filterKey, String filterType, 
-                                      MutableLiveData<List<Recipe>> filteredResultsLiveData,
-                                      MutableLiveData<String> errorMessageLiveData,
-                                      MutableLiveData<Boolean> isRefreshingLiveData) {
-        
-        // Создаем временную MutableLiveData для получения результатов
-        MutableLiveData<List<Recipe>> tempResultsLiveData = new MutableLiveData<List<Recipe>>() {
-            @Override
-            public void postValue(List<Recipe> recipes) {
-                // Переключаемся на main thread для безопасной обработки
-                mainThreadHandler.post(() -> {
-                    handleFilterResults(recipes, filterKey, filterType, filteredResultsLiveData, 
-                                      errorMessageLiveData, isRefreshingLiveData);
-                });
-            }
-        };
-        
-        repository.filterRecipesByCategory(filterKey, filterType, tempResultsLiveData);
+    public LiveData<List<Recipe>> getRecipesByFilter(RecipeFilter filter) {
+        Log.d(TAG, "Фасетный фильтр: " + filter);
+        return repository.getRecipesByFilter(new RecipeFilter(filter));
     }
-    
+
     /**
-     * Обрабатывает результаты фильтрации и определяет нужно ли обновление
+     * Счетчики результатов по каждому значению фасета для текущего фильтра.
+     * Значение фасета считается с учетом всех остальных фильтров, кроме фильтра этого же фасета.
      */
-    private void handleFilterResults(List<Recipe> recipes, String filterKey, String filterType,
-                                   MutableLiveData<List<Recipe>> filteredResultsLiveData,
-                                   MutableLiveData<String> errorMessageLiveData,
-                                   MutableLiveData<Boolean> isRefreshingLiveData) {
-        
-        if (recipes == null || recipes.isEmpty()) {
-            if (isRefreshingLiveData != null) {
-                refreshDataAndFilter(filterKey, filterType, filteredResultsLiveData,
-                                   errorMessageLiveData, isRefreshingLiveData);
-            } else {
-                filteredResultsLiveData.postValue(recipes);
-            }
-        } else {
-            filteredResultsLiveData.postValue(recipes);
-            if (isRefreshingLiveData != null) {
-                isRefreshingLiveData.postValue(false);
-            }
-        }
+    public LiveData<RecipeFacetCounts> getFacetCounts(RecipeFilter filter) {
+        return repository.getFacetCounts(new RecipeFilter(filter));
     }
-    
+
     /**
-     * Обновляет данные с сервера и повторяет фильтрацию
+     * Запускает обновление с сервера, если в локальной базе нет рецептов выбранной категории.
+     * После синхронизации постраничный поток подхватит новые данные сам.
      */
-    public void refreshDataAndFilter(String filterKey, String filterType,
-                                   MutableLiveData<List<Recipe>> filteredResultsLiveData,
-                                   MutableLiveData<String> errorMessageLiveData,
-                                   MutableLiveData<Boolean> isRefreshingLiveData) {
-        
-        MutableLiveData<Resource<List<Recipe>>> dummyLiveData = new MutableLiveData<>();
-        recipeDataUseCase.refreshRecipes(isRefreshingLiveData, errorMessageLiveData, dummyLiveData, () -> {
-            filterRecipesByCategory(filterKey, filterType, filteredResultsLiveData, errorMessageLiveData);
+    public void refreshIfEmpty(String filterKey, String filterType,
+                               MutableLiveData<String> errorMessageLiveData,
+                               MutableLiveData<Boolean> isRefreshingLiveData) {
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            int count = repository.countRecipesByCategory(filterKey, filterType);
+            mainThreadHandler.post(() -> {
+                if (count == 0) {
+                    recipeDataUseCase.refreshRecipes(isRefreshingLiveData, errorMessageLiveData, null, null);
+                } else if (isRefreshingLiveData != null) {
+                    isRefreshingLiveData.setValue(false);
+                }
+            });
         });
     }
-    
 
-    
     /**
      * Очищает ресурсы
      */
@@ -104,4 +83,4 @@ public class RecipeFilterUseCase {
         repository.clearDisposables();
         recipeDataUseCase.clearResources();
     }
-} 
\ No newline at end of file
+}
@@ -2,7 +2,6 @@ package com.example.cooking.domain.usecases;
 
 import android.app.Application;
 import android.util.Log;
-import android.widget.Toast;
 import androidx.lifecycle.MutableLiveData;
 import com.example.cooking.data.repositories.UnifiedRecipeRepository;
 
@@ -27,21 +26,14 @@ public class RecipeLikeUseCase {
     }
     
     /**
-     * Устанавливает статус лайка для рецепта
+     * Устанавливает статус лайка для рецепта.
+     * Лайк сразу применяется локально и отправляется на сервер из очереди изменений,
+     * поэтому работает и без подключения к сети.
      */
     public void setLikeStatus(String userId, int recipeId, boolean newLikeStatus, 
                              MutableLiveData<String> errorMessageLiveData) {
         Log.d(TAG, "setLikeStatus called: id=" + recipeId + " liked=" + newLikeStatus + " networkAvailable=" + isNetworkAvailable());
         
-        if (!isNetworkAvailable()) {
-            String errorMsg = "Вы в офлайн режиме и не можете ставить лайки";
-            if (errorMessageLiveData != null) {
-                errorMessageLiveData.setValue(errorMsg);
-            }
-            Toast.makeText(application, errorMsg, Toast.LENGTH_SHORT).show();
-            return;
-        }
-        
         if (userId == null || userId.equals("0") || userId.isEmpty()) {
             String errorMsg = "Войдите, чтобы установить статус лайка";
             if (errorMessageLiveData != null) {
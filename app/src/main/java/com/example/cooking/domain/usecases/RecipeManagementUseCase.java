@@ -43,7 +43,8 @@ public class RecipeManagementUseCase {
     }
     
     /**
-     * Сохраняет новый рецепт
+     * Сохраняет новый рецепт. Рецепт сразу появляется локально,
+     * на сервер он отправляется из очереди изменений, когда есть сеть.
      */
     public void saveRecipe(Recipe recipe, byte[] imageBytes, RecipeSaveCallback callback) {
         // Валидация рецепта
@@ -60,13 +61,6 @@ public class RecipeManagementUseCase {
             return;
         }
         
-        if (!isNetworkAvailable()) {
-            if (callback != null) {
-                callback.onFailure("Ошибка соединения с сервером. Проверьте подключение к интернету", null);
-            }
-            return;
-        }
-        
         repository.saveRecipe(recipe, imageBytes, new UnifiedRecipeRepository.RecipeCallback<Recipe>() {
             @Override
             public void onSuccess(Recipe savedRecipe) {
@@ -88,7 +82,7 @@ public class RecipeManagementUseCase {
     }
     
     /**
-     * Обновляет существующий рецепт
+     * Обновляет существующий рецепт. Изменения отправляются на сервер из очереди изменений.
      */
     public void updateRecipe(Recipe recipe, byte[] imageBytes, RecipeSaveCallback callback) {
         // Валидация рецепта
@@ -105,13 +99,6 @@ public class RecipeManagementUseCase {
             return;
         }
         
-        if (!isNetworkAvailable()) {
-            if (callback != null) {
-                callback.onFailure("Ошибка соединения с сервером. Проверьте подключение к интернету", null);
-            }
-            return;
-        }
-        
         repository.updateRecipe(recipe, imageBytes, new UnifiedRecipeRepository.RecipeCallback<Recipe>() {
             @Override
             public void onSuccess(Recipe updatedRecipe) {
@@ -137,16 +124,9 @@ public class RecipeManagementUseCase {
     
     
     /**
-     * Удаляет рецепт
+     * Удаляет рецепт. Удаление отправляется на сервер из очереди изменений.
      */
     public void deleteRecipe(int recipeId, DeleteRecipeCallback callback) {
-        if (!isNetworkAvailable()) {
-            if (callback != null) {
-                callback.onDeleteFailure("Невозможно удалить рецепт в офлайн режиме");
-            }
-            return;
-        }
-        
         repository.deleteRecipe(recipeId, new UnifiedRecipeRepository.RecipeCallback<Void>() {
             @Override
             public void onSuccess(Void data) {
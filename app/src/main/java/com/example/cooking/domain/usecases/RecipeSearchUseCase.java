@@ -2,101 +2,146 @@ package com.example.cooking.domain.usecases;
 
 import android.app.Application;
 import android.util.Log;
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+import com.example.cooking.R;
 import com.example.cooking.domain.entities.Recipe;
+import com.example.cooking.data.repositories.SmartSearchPagingSource;
 import com.example.cooking.data.repositories.UnifiedRecipeRepository;
+import com.example.cooking.utils.MySharedPreferences;
 import com.example.cooking.utils.RecipeSearchService;
 
+import java.util.Collections;
 import java.util.List;
 
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
 /**
  * Use Case для операций поиска рецептов
- * Отвечает за все виды поиска: умный поиск и локальный поиск
+ * Отвечает за все виды поиска: умный поиск и локальный поиск.
+ * Возвращает холодные потоки: подписка и отмена устаревших запросов
+ * выполняются в ViewModel (см. {@link com.example.cooking.ui.viewmodels.HomeViewModel}).
  */
 public class RecipeSearchUseCase {
     private static final String TAG = "RecipeSearchUseCase";
-    
+    private static final int SEARCH_PREFETCH_DISTANCE = 5;
+
     private final UnifiedRecipeRepository repository;
+    private final RecipeSearchService searchService;
     private final Application application;
-    
+    private final MySharedPreferences preferences;
+
+    // Результаты, по которым строятся страницы поиска, и источник, созданный по ним
+    private SearchSeed searchSeed = SearchSeed.EMPTY;
+    private SmartSearchPagingSource searchSource;
+
     public RecipeSearchUseCase(Application application) {
         this.application = application;
+        this.preferences = new MySharedPreferences(application);
         this.repository = UnifiedRecipeRepository.getInstance(application);
+        this.searchService = new RecipeSearchService(application);
         Log.d(TAG, "RecipeSearchUseCase создан");
     }
-    
+
     /**
-     * Выполняет поиск рецептов с возможностью использования умного поиска
+     * Поиск рецептов с возможностью использования умного поиска.
+     * Если серверный поиск не удался, сообщает об ошибке и выполняет локальный поиск.
+     * Результат умного поиска из кэша может прийти сразу, а затем обновиться после перепроверки.
+     * @param query поисковый запрос
+     * @param smartSearchEnabled искать на сервере, иначе по локальной базе
+     * @param hybridSearchEnabled искать одновременно локально и на сервере, выдавая первые готовые результаты
+     * @param errorMessageLiveData сообщение о переходе на локальный поиск
      */
-    public void searchRecipes(String query, boolean smartSearchEnabled, 
-                              MutableLiveData<List<Recipe>> searchResultsLiveData,
-                              MutableLiveData<String> errorMessageLiveData,
-                              MutableLiveData<Boolean> isRefreshingLiveData) {
-        Log.d(TAG, "=== ПОИСК НАЧАТ ===");
-        Log.d(TAG, "searchRecipes вызван с параметрами:");
-        Log.d(TAG, "  - query: '" + query + "'");
-        Log.d(TAG, "  - smartSearchEnabled: " + smartSearchEnabled);
-        
-        isRefreshingLiveData.setValue(true);
-        
-        if (smartSearchEnabled) {
-            Log.d(TAG, "Выполняю умный поиск");
-            performSmartSearch(query, searchResultsLiveData, errorMessageLiveData, isRefreshingLiveData);
-        } else {
-            Log.d(TAG, "Выполняю локальный поиск");
-            performLocalSearch(query, searchResultsLiveData, errorMessageLiveData, isRefreshingLiveData);
+    public Observable<List<Recipe>> searchRecipes(String query, boolean smartSearchEnabled,
+                                                  boolean hybridSearchEnabled,
+                                                  MutableLiveData<String> errorMessageLiveData) {
+        if (!smartSearchEnabled) {
+            return performLocalSearch(query).toObservable();
         }
+        if (hybridSearchEnabled) {
+            // Локальный поиск уже входит в гибридный, ошибки источников обрабатываются внутри
+            return searchService.hybridSearch(query, getHedgeDelayMs());
+        }
+        return searchService.search(query, true)
+                .subscribeOn(Schedulers.io())
+                .onErrorResumeNext(throwable -> {
+                    Log.e(TAG, "Ошибка умного поиска, переключаюсь на локальный поиск", throwable);
+                    errorMessageLiveData.postValue(
+                            application.getString(R.string.search_service_generic_error)
+                                    + ". Выполняется локальный поиск.");
+                    return performLocalSearch(query).toObservable();
+                });
     }
-    
+
     /**
-     * Выполняет умный поиск через AI сервис
+     * Постраничные результаты поиска. Pager один на весь срок жизни use case: новый запрос
+     * заменяет первую страницу ({@link #showSearchResults}) и инвалидирует текущий источник,
+     * поэтому коллекторы {@code cachedIn} не накапливаются. Следующие страницы умного поиска
+     * подгружаются при прокрутке за {@link #SEARCH_PREFETCH_DISTANCE} элементов до конца списка
+     * и добавляются к уже показанным. Кэширование в области ViewModel выполняется вызывающей стороной.
      */
-    private void performSmartSearch(String query, 
-                                   MutableLiveData<List<Recipe>> searchResultsLiveData,
-                                   MutableLiveData<String> errorMessageLiveData,
-                                   MutableLiveData<Boolean> isRefreshingLiveData) {
-        Log.d(TAG, "performSmartSearch начат для запроса: '" + query + "'");
-        
-        RecipeSearchService searchService = new RecipeSearchService(application);
-        searchService.searchRecipes(query, new RecipeSearchService.SearchCallback() {
-            @Override
-            public void onSearchResults(List<Recipe> recipes) {
-                Log.d(TAG, "Получены результаты умного поиска: " + (recipes != null ? recipes.size() : 0) + " рецептов");
-                if (recipes != null && !recipes.isEmpty()) {
-                    Log.d(TAG, "Первый рецепт: " + recipes.get(0).getTitle());
-                }
-                
-                searchResultsLiveData.postValue(recipes);
-                Log.d(TAG, "Результаты умного поиска отправлены в LiveData");
-                
-                isRefreshingLiveData.postValue(false);
-            }
-            
-            @Override
-            public void onSearchError(String error) {
-                Log.e(TAG, "Ошибка умного поиска: " + error);
-                errorMessageLiveData.postValue("Ошибка умного поиска: " + error + ". Выполняется локальный поиск.");
-                Log.d(TAG, "Переключаюсь на локальный поиск из-за ошибки");
-                performLocalSearch(query, searchResultsLiveData, errorMessageLiveData, isRefreshingLiveData); 
+    public LiveData<PagingData<Recipe>> getSearchPages() {
+        int pageSize = RecipeSearchService.SEARCH_PAGE_SIZE;
+        PagingConfig config = new PagingConfig(pageSize, SEARCH_PREFETCH_DISTANCE, false, pageSize);
+        Pager<Integer, Recipe> pager = new Pager<>(config, this::createSearchSource);
+        return PagingLiveData.getLiveData(pager);
+    }
+
+    /**
+     * Показывает первую страницу результатов запроса в потоке {@link #getSearchPages()}.
+     * Повтор тех же результатов (гибридный поиск выдает локальные, затем объединенные с сервером)
+     * не перезагружает список. Вызывать из главного потока.
+     * @param firstPage результаты первой страницы или null, чтобы очистить результаты
+     */
+    public void showSearchResults(String query, boolean smartSearchEnabled, List<Recipe> firstPage) {
+        SearchSeed seed = firstPage == null ? SearchSeed.EMPTY
+                : new SearchSeed(query != null ? query : "", firstPage, smartSearchEnabled && searchService.hasMoreSmartResults(query));
+        SmartSearchPagingSource source;
+        synchronized (this) {
+            if (seed.sameAs(searchSeed)) {
+                return;
             }
-        });
-        
-        Log.d(TAG, "RecipeSearchService.searchRecipes вызван, ожидаем результат");
+            searchSeed = seed;
+            source = searchSource;
+        }
+        if (source != null) {
+            source.invalidate();
+        }
     }
-    
+
     /**
-     * Выполняет локальный поиск в базе данных
+     * Источник страниц для текущих результатов. Вызывается Pager при создании и после инвалидации.
      */
-    private void performLocalSearch(String query, 
-                                   MutableLiveData<List<Recipe>> searchResultsLiveData, 
-                                   MutableLiveData<String> errorMessageLiveData, 
-                                   MutableLiveData<Boolean> isRefreshingLiveData) {
-        Log.d(TAG, "performLocalSearch начат для запроса: '" + query + "'");
-        repository.searchInLocalData(query, searchResultsLiveData);
-        isRefreshingLiveData.postValue(false);
-        Log.d(TAG, "Локальный поиск завершен");
+    private synchronized SmartSearchPagingSource createSearchSource() {
+        SearchSeed seed = searchSeed;
+        searchSource = new SmartSearchPagingSource(searchService, seed.query, seed.firstPage, seed.hasMore);
+        return searchSource;
     }
-    
+
+    /**
+     * Задержка простого серверного поиска в гибридном режиме из настроек, рядом с "hybrid_search_enabled".
+     * Если настройка не задана или некорректна, используется {@link RecipeSearchService#DEFAULT_HEDGE_DELAY_MS}.
+     */
+    private long getHedgeDelayMs() {
+        long delayMs = preferences.getLong(RecipeSearchService.PREF_HEDGE_DELAY_MS,
+                RecipeSearchService.DEFAULT_HEDGE_DELAY_MS);
+        return delayMs >= 0 ? delayMs : RecipeSearchService.DEFAULT_HEDGE_DELAY_MS;
+    }
+
+    /**
+     * Локальный полнотекстовый поиск (FTS) в базе данных
+     */
+    private Single<List<Recipe>> performLocalSearch(String query) {
+        Log.d(TAG, "performLocalSearch для запроса: '" + query + "'");
+        return repository.searchInLocalData(query);
+    }
+
     /**
      * Очищает ресурсы
      */
@@ -104,4 +149,37 @@ public class RecipeSearchUseCase {
         Log.d(TAG, "clearResources вызван");
         repository.clearDisposables();
     }
-} 
\ No newline at end of file
+
+    /**
+     * Первая страница результатов запроса и признак наличия следующих страниц на сервере
+     */
+    private static final class SearchSeed {
+        static final SearchSeed EMPTY = new SearchSeed("", Collections.<Recipe>emptyList(), false);
+
+        final String query;
+        final List<Recipe> firstPage;
+        final boolean hasMore;
+
+        SearchSeed(String query, List<Recipe> firstPage, boolean hasMore) {
+            this.query = query;
+            this.firstPage = firstPage;
+            this.hasMore = hasMore;
+        }
+
+        /**
+         * Те же рецепты в том же порядке по тому же запросу
+         */
+        boolean sameAs(SearchSeed other) {
+            if (!query.equals(other.query) || hasMore != other.hasMore
+                    || firstPage.size() != other.firstPage.size()) {
+                return false;
+            }
+            for (int i = 0; i < firstPage.size(); i++) {
+                if (firstPage.get(i).getId() != other.firstPage.get(i).getId()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -8,22 +8,28 @@ import com.example.cooking.network.models.chat.ChatHistoryResponse;
 import com.example.cooking.network.models.chat.ChatMessageRequest;
 import com.example.cooking.network.models.chat.ChatMessageResponse;
 import com.example.cooking.network.models.chat.ChatSessionResponse;
+import com.example.cooking.network.models.likes.LikeBatchRequest;
+import com.example.cooking.network.models.likes.LikeBatchResponse;
 import com.example.cooking.network.models.recipeResponses.LikedRecipesResponse;
+import com.example.cooking.network.models.recipeResponses.RecipeChangesResponse;
 import com.example.cooking.network.models.recipeResponses.RecipesResponse;
 import com.example.cooking.network.models.recipeResponses.SearchResponse;
 
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Multipart;
 import retrofit2.http.POST;
 import retrofit2.http.PUT;
 import retrofit2.http.Part;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Single;
@@ -32,6 +38,11 @@ import io.reactivex.rxjava3.core.Single;
  * Единый интерфейс API для взаимодействия с сервером
  */
 public interface ApiService {
+
+    /**
+     * Заголовок с ключом идемпотентности изменяющего запроса
+     */
+    String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
     
     // =============== Аутентификация и пользователи ===============
     
@@ -56,10 +67,26 @@ public interface ApiService {
     // =============== Рецепты - получение и поиск ===============
     
     /**
-     * Получает список всех рецептов (RxJava версия).
+     * Получает список всех рецептов в виде потока без буферизации тела ответа.
+     * Тело разбирается по мере чтения через {@link com.example.cooking.network.utils.RecipeStreamReader}.
      */
+    @Streaming
     @GET("recipes")
-    Single<RecipesResponse> getRecipesRx();
+    Single<ResponseBody> getRecipesStream();
+    
+    /**
+     * Получает изменения рецептов после курсора since: измененные рецепты и идентификаторы удаленных.
+     * Если курсор устарел, сервер отвечает 410 или выставляет full_sync_required.
+     */
+    @GET("recipes/changes")
+    Single<RecipeChangesResponse> getRecipeChanges(@Query("since") String since);
+    
+    /**
+     * Получает рецепты по списку ID, перечисленных через запятую.
+     * Рецепты, которых нет на сервере, в ответ не попадают.
+     */
+    @GET("recipes/by-ids")
+    Single<RecipesResponse> getRecipesByIds(@Query("ids") String ids);
     
     /**
      * Получает список ID лайкнутых рецептов пользователя.
@@ -75,6 +102,8 @@ public interface ApiService {
     Single<SearchResponse> searchRecipesSimple(@Query("q") String query);
     
     // =============== Рецепты - создание, обновление, удаление ===============
+    // Изменения отправляются из очереди OutboxWorker. Заголовок Idempotency-Key сохраняется
+    // вместе с изменением, поэтому повтор после потерянного ответа не применяется сервером дважды.
     
     /**
      * Метод для ДОБАВЛЕНИЯ нового рецепта 
@@ -82,6 +111,7 @@ public interface ApiService {
     @Multipart
     @POST("recipes/add")
     Single<GeneralServerResponse> addRecipe(
+            @Header(IDEMPOTENCY_KEY_HEADER) String idempotencyKey,
             @Part("title") RequestBody title,
             @Part("ingredients") RequestBody ingredients,
             @Part("instructions") RequestBody instructions,
@@ -94,6 +124,7 @@ public interface ApiService {
     @Multipart
     @PUT("recipes/update/{id}")
     Single<GeneralServerResponse> updateRecipe(
+            @Header(IDEMPOTENCY_KEY_HEADER) String idempotencyKey,
             @Path("id") int recipeId,
             @Part("title") RequestBody title,
             @Part("ingredients") RequestBody ingredients,
@@ -105,12 +136,24 @@ public interface ApiService {
      * Метод для УДАЛЕНИЯ рецепта
      */
     @DELETE("recipes/{id}")
-    Completable deleteRecipe(@Path("id") int recipeId);
+    Completable deleteRecipe(@Header(IDEMPOTENCY_KEY_HEADER) String idempotencyKey, @Path("id") int recipeId);
 
     // =============== Лайки рецептов ===============
 
+    /**
+     * Переключает лайк рецепта. Запрос не идемпотентен сам по себе,
+     * повтор с тем же Idempotency-Key сервер не применяет повторно.
+     */
     @POST("recipes/{recipeId}/like")
-    Completable toggleLikeRecipeCompletable(@Path("recipeId") int recipeId);
+    Completable toggleLikeRecipeCompletable(@Header(IDEMPOTENCY_KEY_HEADER) String idempotencyKey,
+                                            @Path("recipeId") int recipeId);
+
+    /**
+     * Устанавливает итоговые статусы лайков нескольких рецептов одним запросом.
+     */
+    @POST("recipes/likes/batch")
+    Single<LikeBatchResponse> setLikesBatch(@Header(IDEMPOTENCY_KEY_HEADER) String idempotencyKey,
+                                            @Body LikeBatchRequest request);
 
     /**
      * Расширенный поиск рецептов с пагинацией.(пагинация пока что условная)
@@ -0,0 +1,159 @@
+package com.example.cooking.network.cache;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Сетевой интерсептор условных GET-запросов для каталога рецептов и списка лайков.
+ * Добавляет If-None-Match с подтвержденным ETag из {@link ETagStore} и запоминает ETag из ответов 200.
+ * Ответ 304 передается дальше без тела: Retrofit вернет его как HttpException с кодом 304,
+ * и репозиторий пропустит запись в базу. Дискового кэша OkHttp нет: данные этих ответов хранятся в Room.
+ * <p>
+ * Подключается через addNetworkInterceptor, поэтому видит тело в том виде, в каком оно пришло по сети
+ * (до распаковки gzip). Размер ответа для статистики экономии считается по фактически прочитанным байтам,
+ * так как при gzip и chunked-передаче Content-Length неизвестен.
+ */
+public class ETagInterceptor implements Interceptor {
+
+    private static final String TAG = "ETagInterceptor";
+    public static final String ENDPOINT_RECIPES = "recipes";
+    public static final String ENDPOINT_LIKED = "recipes/liked";
+    public static final int HTTP_NOT_MODIFIED = 304;
+
+    private final ETagStore store;
+
+    public ETagInterceptor(Context context) {
+        this.store = ETagStore.getInstance(context);
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpoint = endpointOf(request);
+        if (endpoint == null) {
+            return chain.proceed(request);
+        }
+
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        String key = ETagStore.key(endpoint, user != null ? user.getUid() : null, request.url().encodedQuery());
+        Request.Builder builder = request.newBuilder();
+        String etag = store.getETag(key);
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+
+        Response response = chain.proceed(builder.build());
+        if (response.code() == HTTP_NOT_MODIFIED) {
+            store.recordNotModified(key);
+            Log.d(TAG, "Данные " + endpoint + " не изменились (304), сэкономлено всего: "
+                    + store.getBytesSaved() + " байт");
+        } else if (response.isSuccessful()) {
+            String newETag = response.header("ETag");
+            ResponseBody body = response.body();
+            if (newETag != null && body != null) {
+                store.setPending(key, newETag, -1);
+                return response.newBuilder()
+                        .body(new CountingBody(body, bytes -> store.recordSize(key, newETag, bytes)))
+                        .build();
+            }
+        }
+        return response;
+    }
+
+    private interface SizeListener {
+        void onSize(long bytes);
+    }
+
+    /**
+     * Тело ответа, считающее прочитанные байты. Размер передается слушателю один раз,
+     * когда тело дочитано до конца или закрыто.
+     */
+    private static final class CountingBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+        private long bytesRead;
+        private boolean reported;
+
+        CountingBody(ResponseBody delegate, SizeListener listener) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read == -1) {
+                        report(listener);
+                    } else {
+                        bytesRead += read;
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    report(listener);
+                    super.close();
+                }
+            });
+        }
+
+        private void report(SizeListener listener) {
+            if (!reported) {
+                reported = true;
+                listener.onSize(bytesRead);
+            }
+        }
+
+        @Nullable
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+
+    /**
+     * Эндпоинт с поддержкой ETag или null для остальных запросов.
+     */
+    private static String endpointOf(Request request) {
+        if (!"GET".equals(request.method())) {
+            return null;
+        }
+        String path = request.url().encodedPath();
+        if (path.endsWith("/" + ENDPOINT_LIKED)) {
+            return ENDPOINT_LIKED;
+        }
+        if (path.endsWith("/" + ENDPOINT_RECIPES)) {
+            return ENDPOINT_RECIPES;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.cooking.network.cache;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Хранилище валидаторов (ETag) для условных GET-запросов.
+ * ETag из ответа 200 сначала сохраняется как ожидающий и отправляется в If-None-Match
+ * только после {@link #commit(String)}, то есть когда данные ответа записаны в локальную базу.
+ * Так ответ 304 никогда не приходит на данные, которых нет в базе.
+ * Также ведет счетчик ответов 304 и сэкономленных байт.
+ */
+public final class ETagStore {
+
+    private static final String PREF_NAME = "http_validators";
+    private static final String KEY_BYTES_SAVED = "stat_bytes_saved";
+    private static final String KEY_NOT_MODIFIED = "stat_not_modified";
+    private static final String SEPARATOR = "|";
+
+    private static volatile ETagStore INSTANCE;
+
+    private final SharedPreferences prefs;
+    // Ключ запроса -> "etag\nразмер тела"
+    private final Map<String, String> pending = new HashMap<>();
+
+    private ETagStore(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static ETagStore getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ETagStore.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ETagStore(context);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Ключ запроса: эндпоинт, пользователь и строка запроса.
+     * Эндпоинт идет первым, чтобы по нему можно было подтвердить или сбросить все ключи.
+     */
+    static String key(@NonNull String endpoint, @Nullable String uid, @Nullable String query) {
+        return endpoint + SEPARATOR + (uid == null ? "" : uid) + SEPARATOR + (query == null ? "" : query);
+    }
+
+    /**
+     * Подтвержденный ETag для запроса или null.
+     */
+    @Nullable
+    synchronized String getETag(String key) {
+        String value = prefs.getString(key, null);
+        return value == null ? null : value.substring(0, value.indexOf('\n'));
+    }
+
+    /**
+     * Запоминает ETag из ответа 200 до подтверждения записи данных.
+     * @param contentLength размер тела ответа или -1, если неизвестен
+     */
+    synchronized void setPending(String key, String etag, long contentLength) {
+        pending.put(key, etag + "\n" + contentLength);
+    }
+
+    /**
+     * Сохраняет размер тела ответа, полученного вместе с etag, когда тело прочитано.
+     * Тело может быть дочитано как до, так и после {@link #commit(String)}, поэтому размер
+     * обновляется и у ожидающего, и у подтвержденного ETag, если ETag не сменился.
+     * @param bytes число байт тела, полученных по сети
+     */
+    synchronized void recordSize(String key, String etag, long bytes) {
+        String value = etag + "\n" + bytes;
+        String pendingValue = pending.get(key);
+        if (pendingValue != null && etag.equals(pendingValue.substring(0, pendingValue.indexOf('\n')))) {
+            pending.put(key, value);
+        } else if (etag.equals(getETag(key))) {
+            prefs.edit().putString(key, value).apply();
+        }
+    }
+
+    /**
+     * Данные ответа эндпоинта записаны в базу: ожидающие ETag становятся действующими.
+     */
+    public synchronized void commit(@NonNull String endpoint) {
+        SharedPreferences.Editor editor = prefs.edit();
+        Iterator<Map.Entry<String, String>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, String> entry = iterator.next();
+            if (entry.getKey().startsWith(endpoint + SEPARATOR)) {
+                editor.putString(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+        editor.apply();
+    }
+
+    /**
+     * Сбрасывает ETag эндпоинта, например если локальные данные удалены.
+     * Следующий запрос вернет полный ответ.
+     */
+    public synchronized void invalidate(@NonNull String endpoint) {
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String key : prefs.getAll().keySet()) {
+            if (key.startsWith(endpoint + SEPARATOR)) {
+                editor.remove(key);
+            }
+        }
+        editor.apply();
+        Iterator<String> iterator = pending.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().startsWith(endpoint + SEPARATOR)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Учитывает ответ 304: тело не передавалось, экономия равна размеру последнего полного ответа.
+     */
+    synchronized void recordNotModified(String key) {
+        String value = prefs.getString(key, null);
+        long size = 0;
+        if (value != null) {
+            try {
+                size = Math.max(0, Long.parseLong(value.substring(value.indexOf('\n') + 1)));
+            } catch (NumberFormatException ignored) {
+                // Размер не сохранен
+            }
+        }
+        prefs.edit()
+                .putLong(KEY_BYTES_SAVED, prefs.getLong(KEY_BYTES_SAVED, 0) + size)
+                .putLong(KEY_NOT_MODIFIED, prefs.getLong(KEY_NOT_MODIFIED, 0) + 1)
+                .apply();
+    }
+
+    /**
+     * Сколько байт не пришлось загружать благодаря ответам 304 (за все время).
+     */
+    public long getBytesSaved() {
+        return prefs.getLong(KEY_BYTES_SAVED, 0);
+    }
+
+    /**
+     * Сколько раз сервер ответил 304 (за все время).
+     */
+    public long getNotModifiedCount() {
+        return prefs.getLong(KEY_NOT_MODIFIED, 0);
+    }
+}
@@ -3,30 +3,29 @@ package com.example.cooking.network.interceptors;
 import android.content.Context;
 import android.util.Log;
 import androidx.annotation.NonNull;
-import com.google.android.gms.tasks.Tasks;
+import com.example.cooking.auth.FirebaseTokenCache;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.auth.GetTokenResult;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
 
 import java.io.IOException;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 /**
  * OkHttp Interceptor для добавления Firebase ID токена в заголовок Authorization.
+ * Токен берется из {@link FirebaseTokenCache}, поэтому обычно не требует обращения к Firebase.
+ * При ответе 401 токен принудительно обновляется и запрос повторяется один раз.
  */
 public class AuthInterceptor implements Interceptor {
 
     private static final String TAG = "AuthInterceptor";
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
-    private static final long TOKEN_TIMEOUT_SECONDS = 10;
+    private static final int HTTP_UNAUTHORIZED = 401;
     
     private final Context context;
+    private final FirebaseTokenCache tokenCache;
     
     /**
      * Конструктор
@@ -34,39 +33,51 @@ public class AuthInterceptor implements Interceptor {
      */
     public AuthInterceptor(Context context) {
         this.context = context.getApplicationContext();
+        this.tokenCache = FirebaseTokenCache.getInstance();
     }
 
     @NonNull
     @Override
     public Response intercept(@NonNull Chain chain) throws IOException {
         Request originalRequest = chain.request();
-        Request.Builder requestBuilder = originalRequest.newBuilder();
         
         FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
 
         if (currentUser == null) {
             Log.d(TAG, "Пользователь не авторизован, пропускаем добавление токена.");
-            return chain.proceed(requestBuilder.build());
+            return chain.proceed(originalRequest);
         }
 
-        try {
-            GetTokenResult tokenResult = Tasks.await(currentUser.getIdToken(false), TOKEN_TIMEOUT_SECONDS,
-                    TimeUnit.SECONDS);
-            String idToken = tokenResult.getToken();
+        String idToken = tokenCache.getToken(currentUser);
+        if (idToken == null) {
+            Log.w(TAG, "Не удалось получить Firebase ID токен (null).");
+            return chain.proceed(originalRequest);
+        }
 
-            if (idToken != null) {
-                Log.d(TAG, "Добавляем Firebase ID токен в заголовок Authorization.");
-                requestBuilder.header(AUTHORIZATION_HEADER, BEARER_PREFIX + idToken);
-                return chain.proceed(requestBuilder.build());
-            } else {
-                Log.w(TAG, "Не удалось получить Firebase ID токен (null).");
-                return chain.proceed(requestBuilder.build());
-            }
+        Response response = chain.proceed(withToken(originalRequest, idToken));
+        if (response.code() != HTTP_UNAUTHORIZED) {
+            return response;
+        }
 
-        } catch (ExecutionException | InterruptedException | TimeoutException e) {
-            Log.e(TAG, "Ошибка при получении Firebase ID токена: " + e.getMessage(), e);
-            Thread.currentThread().interrupt();
-            throw new IOException("Ошибка получения токена аутентификации", e);
+        // Токен мог быть отозван или истечь раньше срока: обновляем его и повторяем запрос один раз
+        Log.w(TAG, "Сервер отклонил токен (401), повторяем запрос с обновленным токеном.");
+        String freshToken;
+        try {
+            freshToken = tokenCache.forceRefresh(currentUser, idToken);
+        } catch (IOException e) {
+            Log.e(TAG, "Не удалось обновить токен после 401: " + e.getMessage());
+            return response;
         }
+        if (freshToken == null) {
+            return response;
+        }
+        response.close();
+        return chain.proceed(withToken(originalRequest, freshToken));
+    }
+
+    private static Request withToken(Request request, String idToken) {
+        return request.newBuilder()
+                .header(AUTHORIZATION_HEADER, BEARER_PREFIX + idToken)
+                .build();
     }
-}
\ No newline at end of file
+}
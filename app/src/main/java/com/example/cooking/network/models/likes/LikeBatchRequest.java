@@ -0,0 +1,60 @@
+package com.example.cooking.network.models.likes;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO запроса пакетной установки лайков.
+ * В отличие от переключения, передается итоговый статус лайка каждого рецепта,
+ * поэтому повтор запроса не меняет результат.
+ */
+public class LikeBatchRequest {
+    @SerializedName("changes")
+    private List<LikeChange> changes = new ArrayList<>();
+
+    public LikeBatchRequest(List<LikeChange> changes) {
+        this.changes = changes;
+    }
+
+    public List<LikeChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<LikeChange> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Итоговый статус лайка одного рецепта
+     */
+    public static class LikeChange {
+        @SerializedName("recipe_id")
+        private int recipeId;
+
+        @SerializedName("liked")
+        private boolean liked;
+
+        public LikeChange(int recipeId, boolean liked) {
+            this.recipeId = recipeId;
+            this.liked = liked;
+        }
+
+        public int getRecipeId() {
+            return recipeId;
+        }
+
+        public void setRecipeId(int recipeId) {
+            this.recipeId = recipeId;
+        }
+
+        public boolean isLiked() {
+            return liked;
+        }
+
+        public void setLiked(boolean liked) {
+            this.liked = liked;
+        }
+    }
+}
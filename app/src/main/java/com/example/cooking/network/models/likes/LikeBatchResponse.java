@@ -0,0 +1,27 @@
+package com.example.cooking.network.models.likes;
+
+import com.google.gson.annotations.SerializedName;
+import java.util.ArrayList;
+import java.util.List;
+import com.example.cooking.network.models.BaseApiResponse;
+
+/**
+ * Ответ на пакетную установку лайков
+ */
+public class LikeBatchResponse extends BaseApiResponse {
+    @SerializedName("rejected_ids")
+    private List<Integer> rejectedIds;
+
+    /**
+     * ID рецептов, изменения которых сервер отклонил (например, рецепт удален).
+     * Остальные изменения из запроса применены.
+     * @return список ID
+     */
+    public List<Integer> getRejectedIds() {
+        return rejectedIds != null ? rejectedIds : new ArrayList<>();
+    }
+
+    public void setRejectedIds(List<Integer> rejectedIds) {
+        this.rejectedIds = rejectedIds;
+    }
+}
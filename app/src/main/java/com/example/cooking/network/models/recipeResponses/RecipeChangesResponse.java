@@ -0,0 +1,74 @@
+package com.example.cooking.network.models.recipeResponses;
+
+import com.example.cooking.domain.entities.Recipe;
+import com.example.cooking.network.models.BaseApiResponse;
+import com.google.gson.annotations.SerializedName;
+import java.util.List;
+
+/**
+ * Класс для представления ответа сервера с изменениями рецептов после курсора since.
+ * Содержит добавленные и измененные рецепты, идентификаторы удаленных рецептов
+ * и новый курсор для следующей синхронизации.
+ */
+public class RecipeChangesResponse extends BaseApiResponse {
+
+    @SerializedName("recipes")
+    private List<Recipe> recipes;
+
+    @SerializedName("deleted_ids")
+    private List<Integer> deletedIds;
+
+    @SerializedName("cursor")
+    private String cursor;
+
+    @SerializedName("full_sync_required")
+    private boolean fullSyncRequired;
+
+    /**
+     * Получает добавленные и измененные рецепты
+     * @return список рецептов
+     */
+    public List<Recipe> getRecipes() {
+        return recipes;
+    }
+
+    /**
+     * Получает идентификаторы удаленных рецептов
+     * @return список идентификаторов
+     */
+    public List<Integer> getDeletedIds() {
+        return deletedIds;
+    }
+
+    /**
+     * Получает курсор для следующей синхронизации
+     * @return курсор
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Сервер больше не хранит историю изменений для переданного курсора
+     * @return true, если требуется полная синхронизация
+     */
+    public boolean isFullSyncRequired() {
+        return fullSyncRequired;
+    }
+
+    public void setRecipes(List<Recipe> recipes) {
+        this.recipes = recipes;
+    }
+
+    public void setDeletedIds(List<Integer> deletedIds) {
+        this.deletedIds = deletedIds;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public void setFullSyncRequired(boolean fullSyncRequired) {
+        this.fullSyncRequired = fullSyncRequired;
+    }
+}
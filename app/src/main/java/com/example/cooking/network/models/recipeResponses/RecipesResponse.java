@@ -15,6 +15,9 @@ public class RecipesResponse extends BaseApiResponse {
     
     @SerializedName("count")
     private int count;
+
+    @SerializedName("cursor")
+    private String cursor;
     
     /**
      * Получает список рецептов из ответа
@@ -32,6 +35,14 @@ public class RecipesResponse extends BaseApiResponse {
         return count;
     }
     
+    /**
+     * Получает курсор для последующей инкрементальной синхронизации
+     * @return курсор или null, если сервер его не передал
+     */
+    public String getCursor() {
+        return cursor;
+    }
+    
     /**
      * Устанавливает список рецептов
      * @param recipes список рецептов
@@ -0,0 +1,156 @@
+package com.example.cooking.network.retry;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Автоматический выключатель (circuit breaker) для одного хоста.
+ * После {@link #FAILURE_THRESHOLD} подряд неудачных запросов переходит в состояние OPEN
+ * и на {@link #OPEN_DURATION_MS} отклоняет запросы сразу, не обращаясь к сети.
+ * Затем пропускает один пробный запрос (HALF_OPEN): успех закрывает выключатель,
+ * неудача снова открывает его.
+ */
+public final class CircuitBreaker {
+
+    private static final String TAG = "CircuitBreaker";
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final long OPEN_DURATION_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final Map<String, CircuitBreaker> BREAKERS = new HashMap<>();
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Исключение для запросов, отклоненных открытым выключателем.
+     */
+    public static final class CircuitOpenException extends IOException {
+        public CircuitOpenException(String host) {
+            super("Сервер " + host + " временно недоступен, запрос не отправлен");
+        }
+    }
+
+    private final String host;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMillis;
+    private boolean probeInFlight;
+    private long openedCount;
+    private long rejectedCount;
+
+    private CircuitBreaker(String host) {
+        this.host = host;
+    }
+
+    /**
+     * Возвращает выключатель для хоста, создавая его при первом обращении.
+     */
+    public static CircuitBreaker forHost(@NonNull String host) {
+        synchronized (BREAKERS) {
+            CircuitBreaker breaker = BREAKERS.get(host);
+            if (breaker == null) {
+                breaker = new CircuitBreaker(host);
+                BREAKERS.put(host, breaker);
+            }
+            return breaker;
+        }
+    }
+
+    /**
+     * Снимок состояния всех выключателей для метрик.
+     */
+    public static Map<String, String> snapshot() {
+        Map<String, String> result = new HashMap<>();
+        synchronized (BREAKERS) {
+            for (CircuitBreaker breaker : BREAKERS.values()) {
+                result.put(breaker.host, breaker.toString());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Проверяет, можно ли отправить запрос.
+     * @return false, если выключатель открыт и запрос нужно отклонить
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAtMillis >= OPEN_DURATION_MS) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        rejectedCount++;
+        return false;
+    }
+
+    /**
+     * Запрос дошел до сервера и не завершился серверной ошибкой.
+     */
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            Log.i(TAG, "Выключатель для " + host + " закрыт");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    /**
+     * Запрос завершился сетевой или серверной ошибкой.
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= FAILURE_THRESHOLD) {
+            if (state != State.OPEN) {
+                openedCount++;
+                Log.w(TAG, "Выключатель для " + host + " открыт после " + consecutiveFailures + " ошибок");
+            }
+            state = State.OPEN;
+            openedAtMillis = System.currentTimeMillis();
+            probeInFlight = false;
+        }
+    }
+
+    /**
+     * Запрос отменен до получения результата: пробный запрос можно отправить снова.
+     */
+    public synchronized void onCancel() {
+        probeInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Сколько раз выключатель переходил в состояние OPEN.
+     */
+    public synchronized long getOpenedCount() {
+        return openedCount;
+    }
+
+    /**
+     * Сколько запросов было отклонено без обращения к сети.
+     */
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker{" + host + ", state=" + state + ", failures=" + consecutiveFailures
+                + ", opened=" + openedCount + ", rejected=" + rejectedCount + '}';
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.cooking.network.retry;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.cooking.network.api.ApiService;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.functions.Function;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.reactivestreams.Publisher;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Retrofit;
+import retrofit2.http.DELETE;
+import retrofit2.http.GET;
+import retrofit2.http.HEAD;
+import retrofit2.http.PUT;
+
+/**
+ * Фабрика адаптеров Retrofit, добавляющая к {@link Single} и {@link Completable}
+ * неблокирующие повторные попытки и автоматический выключатель для хоста.
+ * Ожидание между попытками выполняется таймером RxJava и не занимает потоки OkHttp.
+ * Повторяются только идемпотентные запросы (GET, HEAD, PUT, DELETE) и запросы
+ * с заголовком {@link ApiService#IDEMPOTENCY_KEY_HEADER};
+ * выключатель применяется ко всем запросам.
+ * Должна быть добавлена в Retrofit перед RxJava3CallAdapterFactory, которой делегирует создание вызова.
+ */
+public final class RetryCallAdapterFactory extends CallAdapter.Factory {
+
+    private static final String TAG = "RetryCallAdapter";
+
+    private final RetryPolicy policy;
+
+    private RetryCallAdapterFactory(RetryPolicy policy) {
+        this.policy = policy;
+    }
+
+    public static RetryCallAdapterFactory create(RetryPolicy policy) {
+        return new RetryCallAdapterFactory(policy);
+    }
+
+    public RetryPolicy getPolicy() {
+        return policy;
+    }
+
+    @Nullable
+    @Override
+    public CallAdapter<?, ?> get(@NonNull Type returnType, @NonNull Annotation[] annotations, @NonNull Retrofit retrofit) {
+        Class<?> rawType = getRawType(returnType);
+        if (rawType != Single.class && rawType != Completable.class) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        CallAdapter<Object, Object> delegate =
+                (CallAdapter<Object, Object>) retrofit.nextCallAdapter(this, returnType, annotations);
+        return new RetryCallAdapter(delegate, isIdempotent(annotations));
+    }
+
+    private static boolean isIdempotent(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof GET || annotation instanceof HEAD
+                    || annotation instanceof PUT || annotation instanceof DELETE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class RetryCallAdapter implements CallAdapter<Object, Object> {
+        private final CallAdapter<Object, Object> delegate;
+        private final boolean idempotent;
+
+        RetryCallAdapter(CallAdapter<Object, Object> delegate, boolean idempotent) {
+            this.delegate = delegate;
+            this.idempotent = idempotent;
+        }
+
+        @NonNull
+        @Override
+        public Type responseType() {
+            return delegate.responseType();
+        }
+
+        @NonNull
+        @Override
+        public Object adapt(@NonNull Call<Object> call) {
+            Object adapted = delegate.adapt(call);
+            String host = call.request().url().host();
+            boolean retryable = idempotent
+                    || call.request().header(ApiService.IDEMPOTENCY_KEY_HEADER) != null;
+            CircuitBreaker breaker = CircuitBreaker.forHost(host);
+
+            if (adapted instanceof Single) {
+                @SuppressWarnings("unchecked")
+                Single<Object> single = (Single<Object>) adapted;
+                Single<Object> attempt = Single.defer(() -> {
+                    if (!breaker.allowRequest()) {
+                        return Single.error(new CircuitBreaker.CircuitOpenException(host));
+                    }
+                    policy.onRequest(host);
+                    // Каждая попытка выполняется в io-потоке, даже если повтор запущен таймером
+                    return single.subscribeOn(Schedulers.io())
+                            .doOnSuccess(value -> breaker.onSuccess())
+                            .doOnError(error -> recordFailure(breaker, error))
+                            .doOnDispose(breaker::onCancel);
+                });
+                return retryable ? attempt.retryWhen(retryHandler(host)) : attempt;
+            }
+
+            Completable completable = (Completable) adapted;
+            Completable attempt = Completable.defer(() -> {
+                if (!breaker.allowRequest()) {
+                    return Completable.error(new CircuitBreaker.CircuitOpenException(host));
+                }
+                policy.onRequest(host);
+                return completable.subscribeOn(Schedulers.io())
+                        .doOnComplete(breaker::onSuccess)
+                        .doOnError(error -> recordFailure(breaker, error))
+                        .doOnDispose(breaker::onCancel);
+            });
+            return retryable ? attempt.retryWhen(retryHandler(host)) : attempt;
+        }
+
+        private void recordFailure(CircuitBreaker breaker, Throwable error) {
+            if (error instanceof CircuitBreaker.CircuitOpenException) {
+                return;
+            }
+            if (policy.isServerFailure(error)) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+        }
+
+        /**
+         * Обработчик для retryWhen: планирует повтор таймером или пробрасывает ошибку дальше.
+         */
+        private Function<Flowable<Throwable>, Publisher<?>> retryHandler(String host) {
+            return errors -> {
+                AtomicInteger attempts = new AtomicInteger();
+                return errors.flatMap(error -> {
+                    int attempt = attempts.incrementAndGet();
+                    if (attempt > policy.getMaxRetries() || !policy.isRetryable(error)
+                            || !policy.tryAcquireRetry(host)) {
+                        return Flowable.error(error);
+                    }
+                    long delay = policy.delayMillis(attempt, error);
+                    Log.d(TAG, "Повторная попытка #" + attempt + " для " + host + " через " + delay + " мс: "
+                            + error.getMessage());
+                    return Flowable.timer(delay, TimeUnit.MILLISECONDS);
+                });
+            };
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.cooking.network.retry;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Headers;
+import retrofit2.HttpException;
+
+/**
+ * Правила повторных попыток сетевых запросов.
+ * Повторяются сетевые ошибки, ответы 5xx и 429. Задержка выбирается по схеме full jitter:
+ * случайное значение от 0 до min(maxDelay, baseDelay * 2^attempt). Для 429 и 503 учитывается
+ * заголовок Retry-After. Число повторов для каждого хоста ограничено бюджетом:
+ * каждый запрос пополняет его на {@link #BUDGET_DEPOSIT}, каждый повтор тратит единицу,
+ * поэтому при массовых отказах повторы не умножают нагрузку на сервер.
+ */
+public final class RetryPolicy {
+
+    private static final long MAX_DELAY_MS = TimeUnit.SECONDS.toMillis(15);
+    private static final long MAX_RETRY_AFTER_MS = TimeUnit.SECONDS.toMillis(60);
+    private static final double BUDGET_DEPOSIT = 0.2;
+    private static final double BUDGET_MAX = 10;
+
+    private final int maxRetries;
+    private final long baseDelayMillis;
+    private final Random random = new Random();
+    private final Map<String, Double> budgets = new HashMap<>();
+
+    private final AtomicLong retriesScheduled = new AtomicLong();
+    private final AtomicLong retriesDeniedByBudget = new AtomicLong();
+    private final AtomicLong retryAfterHonored = new AtomicLong();
+
+    /**
+     * @param maxRetries максимальное количество повторных попыток одного запроса
+     * @param baseDelayMillis базовая задержка перед первой повторной попыткой
+     */
+    public RetryPolicy(int maxRetries, long baseDelayMillis) {
+        this.maxRetries = maxRetries;
+        this.baseDelayMillis = baseDelayMillis;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Можно ли повторить запрос после этой ошибки.
+     */
+    public boolean isRetryable(Throwable error) {
+        if (error instanceof CircuitBreaker.CircuitOpenException) {
+            return false;
+        }
+        if (error instanceof HttpException) {
+            int code = ((HttpException) error).code();
+            return code >= 500 || code == 429;
+        }
+        return error instanceof IOException;
+    }
+
+    /**
+     * Считается ли ошибка признаком недоступности сервера для автоматического выключателя.
+     * Клиентские ошибки (4xx, кроме 429) означают, что сервер отвечает.
+     */
+    public boolean isServerFailure(Throwable error) {
+        return isRetryable(error);
+    }
+
+    /**
+     * Учитывает новый запрос к хосту: пополняет бюджет повторов.
+     */
+    public synchronized void onRequest(String host) {
+        Double budget = budgets.get(host);
+        double value = budget == null ? BUDGET_MAX : budget;
+        budgets.put(host, Math.min(BUDGET_MAX, value + BUDGET_DEPOSIT));
+    }
+
+    /**
+     * Списывает повтор из бюджета хоста.
+     * @return false, если бюджет исчерпан и повтор делать не нужно
+     */
+    public synchronized boolean tryAcquireRetry(String host) {
+        Double budget = budgets.get(host);
+        double value = budget == null ? BUDGET_MAX : budget;
+        if (value < 1) {
+            retriesDeniedByBudget.incrementAndGet();
+            return false;
+        }
+        budgets.put(host, value - 1);
+        return true;
+    }
+
+    /**
+     * Задержка перед повторной попыткой.
+     * @param attempt номер повторной попытки, начиная с 1
+     * @param error ошибка предыдущей попытки
+     */
+    public long delayMillis(int attempt, Throwable error) {
+        retriesScheduled.incrementAndGet();
+        long retryAfter = retryAfterMillis(error);
+        if (retryAfter >= 0) {
+            retryAfterHonored.incrementAndGet();
+            return Math.min(retryAfter, MAX_RETRY_AFTER_MS);
+        }
+        long cap = Math.min(MAX_DELAY_MS, baseDelayMillis << Math.min(attempt - 1, 16));
+        return (long) (random.nextDouble() * cap);
+    }
+
+    /**
+     * Значение заголовка Retry-After для ответов 429 и 503 в миллисекундах.
+     * Поддерживаются оба формата: число секунд и HTTP-дата.
+     * @return задержка или -1, если заголовка нет
+     */
+    static long retryAfterMillis(Throwable error) {
+        if (!(error instanceof HttpException)) {
+            return -1;
+        }
+        HttpException httpException = (HttpException) error;
+        if ((httpException.code() != 429 && httpException.code() != 503) || httpException.response() == null) {
+            return -1;
+        }
+        Headers headers = httpException.response().headers();
+        String value = headers.get("Retry-After");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim())));
+        } catch (NumberFormatException ignored) {
+            Date date = headers.getDate("Retry-After");
+            return date == null ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Остаток бюджета повторов по хостам.
+     */
+    public synchronized Map<String, Double> getBudgets() {
+        return new HashMap<>(budgets);
+    }
+
+    public long getRetriesScheduled() {
+        return retriesScheduled.get();
+    }
+
+    public long getRetriesDeniedByBudget() {
+        return retriesDeniedByBudget.get();
+    }
+
+    public long getRetryAfterHonored() {
+        return retryAfterHonored.get();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "RetryPolicy{повторов=" + retriesScheduled.get() + ", отклонено бюджетом="
+                + retriesDeniedByBudget.get() + ", по Retry-After=" + retryAfterHonored.get()
+                + ", бюджеты=" + getBudgets() + '}';
+    }
+}
@@ -5,8 +5,10 @@ import android.util.Log;
 
 import com.example.cooking.config.ServerConfig;
 import com.example.cooking.network.api.ApiService;
+import com.example.cooking.network.cache.ETagInterceptor;
 import com.example.cooking.network.interceptors.AuthInterceptor;
-import com.example.cooking.network.interceptors.RetryInterceptor;
+import com.example.cooking.network.retry.RetryCallAdapterFactory;
+import com.example.cooking.network.retry.RetryPolicy;
 
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
@@ -36,6 +38,7 @@ public class NetworkService {
     private static volatile OkHttpClient httpClient;
     private static volatile Retrofit retrofit;
     private static volatile ApiService apiService;
+    private static final RetryPolicy retryPolicy = new RetryPolicy(MAX_RETRY_ATTEMPTS, RETRY_DELAY_MILLIS);
     
     // Закрытый конструктор для предотвращения создания экземпляров
     private NetworkService() {
@@ -65,7 +68,8 @@ public class NetworkService {
                             .protocols(java.util.Arrays.asList(okhttp3.Protocol.HTTP_1_1))
                             .addInterceptor(loggingInterceptor)
                             .addInterceptor(new AuthInterceptor(context))
-                            .addInterceptor(new RetryInterceptor(MAX_RETRY_ATTEMPTS, RETRY_DELAY_MILLIS));
+                            // Сетевой интерсептор видит размер ответа до распаковки gzip
+                            .addNetworkInterceptor(new ETagInterceptor(context));
                     
                     httpClient = builder.build();
                     
@@ -87,13 +91,7 @@ public class NetworkService {
                 if (retrofit == null) {
                     Log.d(TAG, "Создаю Retrofit с базовым URL: " + ServerConfig.BASE_API_URL);
                     
-                    retrofit = new Retrofit.Builder()
-                            .baseUrl(ServerConfig.BASE_API_URL)
-                            .client(getHttpClient(context))
-                            .addCallAdapterFactory(RxJava3CallAdapterFactory.create())
-                            .addConverterFactory(ScalarsConverterFactory.create()) // Для строковых ответов
-                            .addConverterFactory(GsonConverterFactory.create())    // Для JSON ответов
-                            .build();
+                    retrofit = createRetrofit(getHttpClient(context), ServerConfig.BASE_API_URL);
                     
                     Log.d(TAG, "Retrofit создан с базовым URL " + ServerConfig.BASE_API_URL);
                 }
@@ -102,6 +100,22 @@ public class NetworkService {
         return retrofit;
     }
     
+    /**
+     * Создает Retrofit с теми же адаптерами и конвертерами, что и у приложения,
+     * но с переданными клиентом и базовым URL. Используется в тестах с MockWebServer.
+     */
+    public static Retrofit createRetrofit(OkHttpClient client, String baseUrl) {
+        return new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .client(client)
+                // Повторы и выключатель оборачивают вызовы, созданные RxJava3CallAdapterFactory
+                .addCallAdapterFactory(RetryCallAdapterFactory.create(retryPolicy))
+                .addCallAdapterFactory(RxJava3CallAdapterFactory.create())
+                .addConverterFactory(ScalarsConverterFactory.create()) // Для строковых ответов
+                .addConverterFactory(GsonConverterFactory.create())    // Для JSON ответов
+                .build();
+    }
+
     /**
      * Получает сервис для общего API с использованием двойной проверки блокировки
      * для потокобезопасности.
@@ -118,7 +132,11 @@ public class NetworkService {
         }
         return apiService;
     }
-    
 
-    
-} 
\ No newline at end of file
+    /**
+     * Метрики повторных попыток: число повторов, отказы по бюджету и остаток бюджета по хостам.
+     */
+    public static RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.cooking.network.utils;
+
+import com.example.cooking.domain.entities.Recipe;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.ResponseBody;
+
+/**
+ * Потоковый разбор ответа {@code GET /recipes} без материализации всего списка рецептов.
+ * Рецепты читаются из массива {@code recipes} по одному через {@link JsonReader}
+ * (ингредиенты и шаги разбираются {@link Recipe.IngredientsAdapter} и {@link Recipe.StepsAdapter})
+ * и передаются потребителю частями фиксированного размера.
+ */
+public final class RecipeStreamReader {
+
+    private static final Gson gson = new Gson();
+
+    /**
+     * Получатель очередной части рецептов. Вызывается в потоке чтения.
+     */
+    public interface ChunkConsumer {
+        void onChunk(List<Recipe> chunk);
+    }
+
+    /**
+     * Итог чтения: количество прочитанных рецептов и курсор синхронизации из ответа.
+     */
+    public static final class Summary {
+        public final int recipeCount;
+        public final String cursor;
+
+        Summary(int recipeCount, String cursor) {
+            this.recipeCount = recipeCount;
+            this.cursor = cursor;
+        }
+    }
+
+    private RecipeStreamReader() {
+    }
+
+    /**
+     * Читает тело ответа и закрывает его.
+     * @param body тело ответа {@code GET /recipes}
+     * @param chunkSize максимальное число рецептов в одной части
+     * @param consumer получатель частей
+     * @return количество рецептов и курсор (null, если сервер его не передал)
+     * @throws IOException при ошибке сети или некорректном JSON
+     */
+    public static Summary read(ResponseBody body, int chunkSize, ChunkConsumer consumer) throws IOException {
+        try (JsonReader reader = new JsonReader(body.charStream())) {
+            int count = 0;
+            String cursor = null;
+            List<Recipe> chunk = new ArrayList<>(chunkSize);
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("recipes".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        Recipe recipe = gson.fromJson(reader, Recipe.class);
+                        if (recipe == null) {
+                            continue;
+                        }
+                        chunk.add(recipe);
+                        count++;
+                        if (chunk.size() >= chunkSize) {
+                            consumer.onChunk(chunk);
+                            chunk = new ArrayList<>(chunkSize);
+                        }
+                    }
+                    reader.endArray();
+                } else if ("cursor".equals(name) && reader.peek() == JsonToken.STRING) {
+                    cursor = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (!chunk.isEmpty()) {
+                consumer.onChunk(chunk);
+            }
+            return new Summary(count, cursor);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.cooking.network.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.rxjava3.core.Single;
+
+/**
+ * Объединение одновременных одинаковых запросов (single-flight).
+ * Пока запрос с ключом (endpoint, параметры) выполняется, повторные вызовы получают тот же
+ * {@link Single} и его результат вместо отправки нового запроса. После завершения запроса
+ * ключ освобождается, и следующий вызов выполняет запрос заново.
+ * Общий для всего приложения, так как репозитории создаются несколькими use case'ами.
+ */
+public final class SingleFlight {
+
+    private static final String TAG = "SingleFlight";
+    private static volatile SingleFlight INSTANCE;
+
+    private final Map<String, Single<?>> inFlight = new HashMap<>();
+    private final Map<String, Long> coalescedByEndpoint = new HashMap<>();
+    private final AtomicLong executedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    private SingleFlight() {
+    }
+
+    public static SingleFlight getInstance() {
+        if (INSTANCE == null) {
+            synchronized (SingleFlight.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new SingleFlight();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Возвращает общий {@link Single} для запроса с данным ключом.
+     * Запрос выполняется до конца, даже если все подписчики отписались,
+     * а результат (или ошибка) доставляется каждому подписчику.
+     * @param endpoint имя эндпоинта, по нему ведется статистика
+     * @param params параметры запроса, входящие в ключ (может быть null)
+     * @param source холодный {@link Single} запроса; подписка на него выполняется только для первого вызова
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> Single<T> execute(@NonNull String endpoint, String params, @NonNull Single<T> source) {
+        String key = params == null ? endpoint : endpoint + "?" + params;
+        Single<T> existing = (Single<T>) inFlight.get(key);
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            Long endpointCount = coalescedByEndpoint.get(endpoint);
+            coalescedByEndpoint.put(endpoint, endpointCount == null ? 1L : endpointCount + 1);
+            Log.d(TAG, "Запрос " + key + " объединен с уже выполняющимся");
+            return existing;
+        }
+
+        executedCount.incrementAndGet();
+        Single<T> shared = source
+                .doFinally(() -> release(key))
+                .cache();
+        inFlight.put(key, shared);
+        return shared;
+    }
+
+    private synchronized void release(String key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Количество запросов, реально отправленных через single-flight.
+     */
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    /**
+     * Количество вызовов, которые присоединились к уже выполняющемуся запросу.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Количество объединенных вызовов по эндпоинтам.
+     */
+    public synchronized Map<String, Long> getCoalescedByEndpoint() {
+        return new HashMap<>(coalescedByEndpoint);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "SingleFlight{выполнено=" + executedCount.get() + ", объединено=" + coalescedCount.get()
+                + ", по эндпоинтам=" + getCoalescedByEndpoint() + '}';
+    }
+}
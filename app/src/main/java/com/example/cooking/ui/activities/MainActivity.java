@@ -23,6 +23,7 @@ import androidx.appcompat.widget.SearchView;
 import androidx.core.content.ContextCompat;
 
 import com.example.cooking.R;
+import com.example.cooking.ui.fragments.HomeFragment;
 import com.example.cooking.ui.fragments.profile.AuthFragment;
 import com.example.cooking.ui.viewmodels.MainViewModel;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
@@ -352,6 +353,10 @@ public class MainActivity extends AppCompatActivity {
             }
             @Override
             public boolean onQueryTextChange(String newText) {
+                HomeFragment homeFragment = findHomeFragment();
+                if (homeFragment != null) {
+                    homeFragment.onSearchQueryChanged(newText);
+                }
                 return false;
             }
         });
@@ -425,13 +430,24 @@ public class MainActivity extends AppCompatActivity {
         }
         
         // Найдем HomeFragment и вызовем поиск напрямую
+        HomeFragment homeFragment = findHomeFragment();
+        if (homeFragment != null) {
+            homeFragment.performSearch(query);
+        }
+    }
+
+    /**
+     * Возвращает HomeFragment, если он сейчас открыт
+     */
+    private HomeFragment findHomeFragment() {
         NavHostFragment navHostFragment = (NavHostFragment) getSupportFragmentManager().findFragmentById(R.id.nav_host_fragment);
         if (navHostFragment != null) {
             Fragment currentFragment = navHostFragment.getChildFragmentManager().getPrimaryNavigationFragment();
-            if (currentFragment instanceof com.example.cooking.ui.fragments.HomeFragment) {
-                ((com.example.cooking.ui.fragments.HomeFragment) currentFragment).performSearch(query);
+            if (currentFragment instanceof HomeFragment) {
+                return (HomeFragment) currentFragment;
             }
         }
+        return null;
     }
     
     /**
@@ -45,7 +45,7 @@ public class RecipeListAdapter extends ListAdapter<Recipe, RecipeListAdapter.Rec
      * Коллбэк для {@link DiffUtil}, который определяет, как сравнивать элементы списка
      * для эффективного обновления {@link RecyclerView}.
      */
-    private static final DiffUtil.ItemCallback<Recipe> DIFF_CALLBACK = new DiffUtil.ItemCallback<Recipe>() {
+    static final DiffUtil.ItemCallback<Recipe> DIFF_CALLBACK = new DiffUtil.ItemCallback<Recipe>() {
         /**
          * Проверяет, являются ли два объекта одним и тем же элементом.
          * Сравнение обычно производится по уникальному идентификатору.
@@ -145,78 +145,7 @@ public class RecipeListAdapter extends ListAdapter<Recipe, RecipeListAdapter.Rec
     public void onBindViewHolder(@NonNull RecipeViewHolder holder, int position) {
         Recipe recipe = getItem(position);
         Log.d(TAG, "Binding recipe at position=" + position + ", id=" + recipe.getId() + ", liked=" + recipe.isLiked());
-
-        holder.titleTextView.setText(recipe.getTitle());
-        
-        // Загрузка изображения рецепта
-        if (recipe.getPhoto_url() != null && !recipe.getPhoto_url().isEmpty()){
-            Glide.with(holder.imageView.getContext())
-                    .load(recipe.getPhoto_url())
-                    .placeholder(R.drawable.white_card_background) // Заглушка во время загрузки
-                    .error(R.drawable.white_card_background)       // Изображение при ошибке загрузки
-                    .centerCrop()
-                    .into(holder.imageView);
-        } else {
-            // Если URL фото отсутствует, устанавливаем изображение по умолчанию
-            holder.imageView.setImageResource(R.drawable.white_card_background);
-        }
-        
-
-        holder.favoriteButton.setChecked(recipe.isLiked());
-        
-        // Динамическое изменение цвета иконки "Нравится"
-        if (recipe.isLiked()) {
-            holder.favoriteButton.setButtonTintList(ColorStateList.valueOf(Color.parseColor("#FF0031")));
-        } else {
-            holder.favoriteButton.setButtonTintList(null);
-        }
-        
-        // Убедимся, что кнопка избранного всегда поверх других элементов в CardView
-        holder.favoriteButton.bringToFront();
-        
-        // Обработчик нажатия на кнопку "Нравится"
-        holder.favoriteButton.setOnClickListener(v -> {
-            boolean isChecked = holder.favoriteButton.isChecked();
-            Log.d(TAG, "Favorite button clicked for recipeId=" + recipe.getId() + ", newLiked=" + isChecked);
-            
-            // Проверяем авторизацию пользователя
-            if (!FirebaseAuthManager.getInstance().isUserSignedIn()) {
-                // Пользователь не авторизован, показываем уведомление и навигацию
-                Toast.makeText(v.getContext(), "Пожалуйста, авторизуйтесь для лайка", Toast.LENGTH_SHORT).show();
-                // Возвращаем кнопку в исходное состояние
-                holder.favoriteButton.setChecked(!isChecked);
-                return;
-            }
-            
-            // Пользователь авторизован, обрабатываем лайк
-            if (likeListener != null) {
-                holder.favoriteButton.setEnabled(false);
-                likeListener.onRecipeLike(recipe, isChecked);
-                // Включаем кнопку обратно с небольшой задержкой
-                holder.favoriteButton.postDelayed(() -> holder.favoriteButton.setEnabled(true), 500); // 500 мс задержка
-            }
-        });
-        
-        // Обработчик нажатия на саму карточку рецепта для перехода к детальному экрану
-        holder.cardView.setOnClickListener(v -> {
-            Intent intent = new Intent(v.getContext(), RecipeDetailActivity.class);
-            intent.putExtra(RecipeDetailActivity.EXTRA_SELECTED_RECIPE, recipe);
-            Context context = v.getContext();
-            Activity activity = null;
-            Context baseContext = context;
-            while (baseContext instanceof ContextWrapper) {
-                if (baseContext instanceof Activity) {
-                    activity = (Activity) baseContext;
-                    break;
-                }
-                baseContext = ((ContextWrapper) baseContext).getBaseContext();
-            }
-            if (activity != null) {
-                activity.startActivityForResult(intent, 200);
-            } else {
-                context.startActivity(intent);
-            }
-        });
+        holder.bind(recipe, likeListener);
     }
 
     /**
@@ -250,6 +179,98 @@ public class RecipeListAdapter extends ListAdapter<Recipe, RecipeListAdapter.Rec
                 cardView.setLayoutParams(params);
             }
         }
+
+        /**
+         * Заполняет карточку данными рецепта и назначает обработчики нажатий.
+         */
+        void bind(Recipe recipe, OnRecipeLikeListener listener) {
+            cardView.setEnabled(true);
+            favoriteButton.setVisibility(View.VISIBLE);
+            titleTextView.setText(recipe.getTitle());
+        
+            // Загрузка изображения рецепта
+            if (recipe.getPhoto_url() != null && !recipe.getPhoto_url().isEmpty()){
+                Glide.with(imageView.getContext())
+                        .load(recipe.getPhoto_url())
+                        .placeholder(R.drawable.white_card_background) // Заглушка во время загрузки
+                        .error(R.drawable.white_card_background)       // Изображение при ошибке загрузки
+                        .centerCrop()
+                        .into(imageView);
+            } else {
+                // Если URL фото отсутствует, устанавливаем изображение по умолчанию
+                imageView.setImageResource(R.drawable.white_card_background);
+            }
+        
+
+            favoriteButton.setChecked(recipe.isLiked());
+        
+            // Динамическое изменение цвета иконки "Нравится"
+            if (recipe.isLiked()) {
+                favoriteButton.setButtonTintList(ColorStateList.valueOf(Color.parseColor("#FF0031")));
+            } else {
+                favoriteButton.setButtonTintList(null);
+            }
+        
+            // Убедимся, что кнопка избранного всегда поверх других элементов в CardView
+            favoriteButton.bringToFront();
+        
+            // Обработчик нажатия на кнопку "Нравится"
+            favoriteButton.setOnClickListener(v -> {
+                boolean isChecked = favoriteButton.isChecked();
+                Log.d(TAG, "Favorite button clicked for recipeId=" + recipe.getId() + ", newLiked=" + isChecked);
+            
+                // Проверяем авторизацию пользователя
+                if (!FirebaseAuthManager.getInstance().isUserSignedIn()) {
+                    // Пользователь не авторизован, показываем уведомление и навигацию
+                    Toast.makeText(v.getContext(), "Пожалуйста, авторизуйтесь для лайка", Toast.LENGTH_SHORT).show();
+                    // Возвращаем кнопку в исходное состояние
+                    favoriteButton.setChecked(!isChecked);
+                    return;
+                }
+            
+                // Пользователь авторизован, обрабатываем лайк
+                if (listener != null) {
+                    favoriteButton.setEnabled(false);
+                    listener.onRecipeLike(recipe, isChecked);
+                    // Включаем кнопку обратно с небольшой задержкой
+                    favoriteButton.postDelayed(() -> favoriteButton.setEnabled(true), 500); // 500 мс задержка
+                }
+            });
+        
+            // Обработчик нажатия на саму карточку рецепта для перехода к детальному экрану
+            cardView.setOnClickListener(v -> {
+                Intent intent = new Intent(v.getContext(), RecipeDetailActivity.class);
+                intent.putExtra(RecipeDetailActivity.EXTRA_SELECTED_RECIPE, recipe);
+                Context context = v.getContext();
+                Activity activity = null;
+                Context baseContext = context;
+                while (baseContext instanceof ContextWrapper) {
+                    if (baseContext instanceof Activity) {
+                        activity = (Activity) baseContext;
+                        break;
+                    }
+                    baseContext = ((ContextWrapper) baseContext).getBaseContext();
+                }
+                if (activity != null) {
+                    activity.startActivityForResult(intent, 200);
+                } else {
+                    context.startActivity(intent);
+                }
+            });
+        }
+
+        /**
+         * Отображает плейсхолдер для еще не загруженного элемента постраничного списка.
+         */
+        void bindPlaceholder() {
+            titleTextView.setText(null);
+            Glide.with(imageView.getContext()).clear(imageView);
+            imageView.setImageResource(R.drawable.white_card_background);
+            favoriteButton.setOnClickListener(null);
+            favoriteButton.setVisibility(View.INVISIBLE);
+            cardView.setOnClickListener(null);
+            cardView.setEnabled(false);
+        }
     }
 
 } 
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.example.cooking.ui.adapters.Recipe;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+
+import com.example.cooking.R;
+import com.example.cooking.domain.entities.Recipe;
+
+/**
+ * Постраничный адаптер карточек рецептов на основе {@link PagingDataAdapter}.
+ * Использует ту же разметку и {@link RecipeListAdapter.RecipeViewHolder}, что и {@link RecipeListAdapter}.
+ * Для еще не загруженных позиций отображаются плейсхолдеры.
+ */
+public class RecipePagingAdapter extends PagingDataAdapter<Recipe, RecipeListAdapter.RecipeViewHolder> {
+
+    private final RecipeListAdapter.OnRecipeLikeListener likeListener;
+
+    public RecipePagingAdapter(@NonNull RecipeListAdapter.OnRecipeLikeListener likeListener) {
+        super(RecipeListAdapter.DIFF_CALLBACK);
+        this.likeListener = likeListener;
+    }
+
+    @NonNull
+    @Override
+    public RecipeListAdapter.RecipeViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.recipe_card, parent, false);
+        return new RecipeListAdapter.RecipeViewHolder(view, false);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecipeListAdapter.RecipeViewHolder holder, int position) {
+        Recipe recipe = getItem(position);
+        if (recipe == null) {
+            holder.bindPlaceholder();
+        } else {
+            holder.bind(recipe, likeListener);
+        }
+    }
+}
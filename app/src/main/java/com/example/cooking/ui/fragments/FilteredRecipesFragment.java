@@ -5,6 +5,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import android.view.LayoutInflater;
@@ -17,9 +18,12 @@ import com.example.cooking.R;
 import com.example.cooking.domain.entities.Recipe;
 import com.example.cooking.ui.viewmodels.Recipe.FilteredRecipesViewModel;
 import com.example.cooking.ui.adapters.Recipe.RecipeListAdapter;
+import com.example.cooking.ui.adapters.Recipe.RecipePagingAdapter;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.google.android.material.progressindicator.CircularProgressIndicator;
 
+import kotlin.Unit;
+
 /**
  * Фрагмент для отображения списка отфильтрованных рецептов.
  * Получает параметры фильтрации через аргументы навигации.
@@ -31,7 +35,7 @@ public class FilteredRecipesFragment extends Fragment implements RecipeListAdapt
     public static final String ARG_FILTER_TYPE = "filterType";
 
     private FilteredRecipesViewModel viewModel;
-    private RecipeListAdapter adapter;
+    private RecipePagingAdapter adapter;
     private RecyclerView recyclerView;
     private SwipeRefreshLayout swipeRefreshLayout;
     private CircularProgressIndicator progressIndicator;
@@ -95,15 +99,21 @@ public class FilteredRecipesFragment extends Fragment implements RecipeListAdapt
     }
 
     private void setupRecyclerView() {
-        adapter = new RecipeListAdapter(this);
+        adapter = new RecipePagingAdapter(this);
         recyclerView.setLayoutManager(new GridLayoutManager(getContext(), 2));
         recyclerView.setAdapter(adapter);
     }
 
     private void setupObservers() {
-        viewModel.filteredRecipes.observe(getViewLifecycleOwner(), recipes -> {
-            adapter.submitList(recipes);
-            showEmptyView(recipes == null || recipes.isEmpty());
+        viewModel.filteredRecipes.observe(getViewLifecycleOwner(), pagingData ->
+                adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
+
+        // Пустой экран показываем, только когда первая страница загружена и элементов нет
+        adapter.addLoadStateListener(loadStates -> {
+            boolean loaded = loadStates.getRefresh() instanceof LoadState.NotLoading;
+            Boolean isRefreshing = viewModel.isRefreshing.getValue();
+            showEmptyView(loaded && adapter.getItemCount() == 0 && (isRefreshing == null || !isRefreshing));
+            return Unit.INSTANCE;
         });
 
         viewModel.isRefreshing.observe(getViewLifecycleOwner(), isRefreshing -> {
@@ -8,27 +8,27 @@ import android.view.ViewGroup;
 import android.widget.Toast;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.example.cooking.R;
 import com.example.cooking.domain.entities.Recipe;
-import com.example.cooking.network.utils.Resource;
 import com.example.cooking.ui.adapters.Recipe.RecipeListAdapter;
+import com.example.cooking.ui.adapters.Recipe.RecipePagingAdapter;
 import com.example.cooking.ui.viewmodels.HomeViewModel;
-import com.example.cooking.utils.MySharedPreferences;
 
-import java.util.List;
+import kotlin.Unit;
 
 /**
  * Фрагмент главного экрана.
- * Отображает сетку рецептов в виде карточек.
+ * Отображает сетку рецептов в виде карточек, страницы подгружаются при прокрутке.
  */
 public class HomeFragment extends Fragment implements RecipeListAdapter.OnRecipeLikeListener {
     private static final String TAG = "HomeFragment";
     
     private RecyclerView recyclerView;
-    private RecipeListAdapter adapter;
+    private RecipePagingAdapter adapter;
     private SwipeRefreshLayout swipeRefreshLayout;
     private View emptyView;
     
@@ -61,7 +61,7 @@ public class HomeFragment extends Fragment implements RecipeListAdapter.OnRecipe
         recyclerView.setDrawingCacheQuality(View.DRAWING_CACHE_QUALITY_HIGH);
         
         // Инициализируем адаптер
-        adapter = new RecipeListAdapter(this);
+        adapter = new RecipePagingAdapter(this);
         recyclerView.setAdapter(adapter);
         
         // Настраиваем swipe-to-refresh
@@ -74,39 +74,24 @@ public class HomeFragment extends Fragment implements RecipeListAdapter.OnRecipe
     }
     
     private void setupObservers() {
-        // Наблюдение за основным списком рецептов
-        homeViewModel.recipes.observe(getViewLifecycleOwner(), resource -> {
-            Log.d(TAG, "setupObservers: Получен Resource: " + (resource != null ? resource.getStatus() : "null"));
-            if (resource == null) {
-                Log.w(TAG, "setupObservers: resource is null");
-                return;
-            }
-
-            Log.d(TAG, "setupObservers: Status = " + resource.getStatus() + 
-                      ", Data size = " + (resource.getData() != null ? resource.getData().size() : "null") +
-                      ", Message = " + resource.getMessage());
+        // Наблюдение за страницами рецептов (лента или результаты поиска)
+        homeViewModel.recipePages.observe(getViewLifecycleOwner(), pagingData -> {
+            Log.d(TAG, "setupObservers: получены новые данные для постраничного списка");
+            adapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData);
+        });
 
-            // Управляем видимостью ProgressBar
-            swipeRefreshLayout.setRefreshing(resource.getStatus() == Resource.Status.LOADING);
-            
-            if (resource.getStatus() == Resource.Status.SUCCESS) {
-                List<Recipe> recipes = resource.getData();
-                Log.d(TAG, "setupObservers: SUCCESS - обновляем adapter с " + (recipes != null ? recipes.size() : 0) + " рецептами");
-                if (recipes != null && !recipes.isEmpty()) {
-                    Log.d(TAG, "setupObservers: Первый рецепт: " + recipes.get(0).getTitle());
-                }
-                adapter.submitList(recipes);
-                showEmptyView(recipes == null || recipes.isEmpty());
-            } else if (resource.getStatus() == Resource.Status.ERROR) {
-                Log.e(TAG, "setupObservers: ERROR - " + resource.getMessage());
-                // Показываем ошибку и пустой вид, если данных нет
-                if (resource.getData() == null || resource.getData().isEmpty()) {
-                    showEmptyView(true);
+        homeViewModel.isRefreshing.observe(getViewLifecycleOwner(), isRefreshing ->
+                swipeRefreshLayout.setRefreshing(isRefreshing != null && isRefreshing));
 
-                }
-            } else if (resource.getStatus() == Resource.Status.LOADING) {
-                Log.d(TAG, "setupObservers: LOADING...");
+        // Пустой экран показываем, только когда загрузка завершена и элементов нет
+        adapter.addLoadStateListener(loadStates -> {
+            boolean loaded = loadStates.getRefresh() instanceof LoadState.NotLoading;
+            showEmptyView(loaded && adapter.getItemCount() == 0);
+            if (loadStates.getRefresh() instanceof LoadState.Error) {
+                Log.e(TAG, "setupObservers: ошибка загрузки страницы",
+                        ((LoadState.Error) loadStates.getRefresh()).getError());
             }
+            return Unit.INSTANCE;
         });
     }
     
@@ -158,6 +143,14 @@ public class HomeFragment extends Fragment implements RecipeListAdapter.OnRecipe
         homeViewModel.performSearch(query);
     }
     
+    /**
+     * Передает текст поиска по мере ввода, поиск выполнится после паузы в наборе
+     * @param query текущий текст строки поиска
+     */
+    public void onSearchQueryChanged(String query) {
+        homeViewModel.onSearchQueryChanged(query);
+    }
+    
     /**
      * Сбрасывает поиск и возвращается к показу всех рецептов
      */
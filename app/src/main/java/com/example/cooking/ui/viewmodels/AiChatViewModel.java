@@ -7,6 +7,7 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import com.example.cooking.R;
 import com.example.cooking.data.repositories.ChatRepository;
+import com.example.cooking.data.repositories.RecipeFillThroughRepository;
 import com.example.cooking.data.repositories.RecipeLocalRepository;
 import com.example.cooking.domain.entities.Message;
 import com.example.cooking.network.models.chat.ChatMessage;
@@ -54,17 +55,21 @@ public class AiChatViewModel extends AndroidViewModel {
                 // Загрузка истории с рецептами: формируем список сообщений и прикрепляем рецепты сразу после каждого ответа
                 AppExecutors.getInstance().diskIO().execute(() -> {
                     RecipeLocalRepository localRepo = new RecipeLocalRepository(getApplication());
+                    // Рецепты всех сообщений истории, которых нет в базе, догружаем одним проходом
+                    List<Integer> allRecipeIds = new ArrayList<>();
+                    for (ChatMessage chatMsg : response.getMessages()) {
+                        if (chatMsg.getRecipeIds() != null) {
+                            allRecipeIds.addAll(chatMsg.getRecipeIds());
+                        }
+                    }
+                    new RecipeFillThroughRepository(getApplication()).fillMissing(allRecipeIds);
                     List<Message> fullList = new ArrayList<>();
                     for (ChatMessage chatMsg : response.getMessages()) {
                         // текстовое сообщение
                         fullList.add(new Message(chatMsg.getMessage(), chatMsg.isUser()));
                         // вложенные рецепты (если есть)
                         if (chatMsg.getRecipeIds() != null && !chatMsg.getRecipeIds().isEmpty()) {
-                            List<Recipe> recipes = new ArrayList<>();
-                            for (Integer id : chatMsg.getRecipeIds()) {
-                                Recipe recipe = localRepo.getRecipeByIdSync(id);
-                                if (recipe != null) recipes.add(recipe);
-                            }
+                            List<Recipe> recipes = localRepo.getRecipeCardsByIds(chatMsg.getRecipeIds());
                             if (!recipes.isEmpty()) {
                                 fullList.add(new Message(recipes));
                             }
@@ -132,12 +137,9 @@ public class AiChatViewModel extends AndroidViewModel {
 
                 if (response.getHasRecipes() && response.getRecipesIds() != null && !response.getRecipesIds().isEmpty()) {
                     AppExecutors.getInstance().diskIO().execute(() -> {
+                        new RecipeFillThroughRepository(getApplication()).fillMissing(response.getRecipesIds());
                         RecipeLocalRepository localRepo = new RecipeLocalRepository(getApplication());
-                        List<Recipe> recipes = new ArrayList<>();
-                        for (int id : response.getRecipesIds()) {
-                            Recipe recipe = localRepo.getRecipeByIdSync(id);
-                            if (recipe != null) recipes.add(recipe);
-                        }
+                        List<Recipe> recipes = localRepo.getRecipeCardsByIds(response.getRecipesIds());
                         if (!recipes.isEmpty()) {
                             List<Message> finalList = new ArrayList<>(listWithoutRecipes);
                             finalList.add(new Message(recipes));
@@ -14,7 +14,6 @@ import com.example.cooking.domain.usecases.RecipeDataUseCase;
 import com.example.cooking.domain.usecases.RecipeLikeUseCase;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * ViewModel для экрана избранных рецептов.
@@ -42,15 +41,11 @@ public class FavoritesViewModel extends AndroidViewModel {
         recipeDataUseCase = new RecipeDataUseCase(application);
         recipeLikeUseCase = new RecipeLikeUseCase(application);
 
-        // Подписываемся на основной источник всех рецептов
-        LiveData<List<Recipe>> allRecipesSource = recipeDataUseCase.getAllRecipesLocalLiveData();
+        // Подписываемся на лайкнутые рецепты, фильтрация выполняется в SQL
+        LiveData<List<Recipe>> likedRecipesSource = recipeDataUseCase.getLikedRecipesLocalLiveData();
 
-        _favoriteRecipes.addSource(allRecipesSource, allRecipes -> {
-            if (allRecipes != null) {
-                // Фильтруем только лайкнутые
-                List<Recipe> likedRecipes = allRecipes.stream()
-                        .filter(Recipe::isLiked)
-                        .collect(Collectors.toList());
+        _favoriteRecipes.addSource(likedRecipesSource, likedRecipes -> {
+            if (likedRecipes != null) {
                 _favoriteRecipes.setValue(likedRecipes);
             }
         });
@@ -8,33 +8,43 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
 import com.example.cooking.domain.entities.Recipe;
 import com.example.cooking.auth.FirebaseAuthManager;
 import com.example.cooking.domain.usecases.RecipeDataUseCase;
 import com.example.cooking.domain.usecases.RecipeLikeUseCase;
 import com.example.cooking.domain.usecases.RecipeSearchUseCase;
-import com.example.cooking.network.utils.Resource;
 import com.example.cooking.utils.MySharedPreferences;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
 
 /**
  * ViewModel для HomeFragment.
- * Отвечает за состояние главного экрана, включая список рецептов,
+ * Отвечает за состояние главного экрана, включая постраничный список рецептов,
  * статус загрузки и обработку ошибок.
  */
 public class HomeViewModel extends AndroidViewModel {
     
     private static final String TAG = "HomeViewModel";
+    private static final long SEARCH_DEBOUNCE_MS = 350;
+    private static final int MIN_SEARCH_QUERY_LENGTH = 2;
 
     private final RecipeDataUseCase recipeDataUseCase;
     private final RecipeLikeUseCase recipeLikeUseCase;
     private final RecipeSearchUseCase recipeSearchUseCase;
 
-    // Основной источник данных для UI
-    private final MediatorLiveData<Resource<List<Recipe>>> _recipes = new MediatorLiveData<>();
-    public final LiveData<Resource<List<Recipe>>> recipes = _recipes;
+    // Основной источник данных для UI: страницы ленты или результаты поиска
+    private final MediatorLiveData<PagingData<Recipe>> _recipePages = new MediatorLiveData<>();
+    public final LiveData<PagingData<Recipe>> recipePages = _recipePages;
 
     // Состояние для Swipe-to-Refresh
     private final MutableLiveData<Boolean> _isRefreshing = new MutableLiveData<>(false);
@@ -46,60 +56,68 @@ public class HomeViewModel extends AndroidViewModel {
 
     private final MutableLiveData<String> _searchQuery = new MutableLiveData<>("");
     
-    // Результаты поиска
-    private final MutableLiveData<List<Recipe>> _searchResults = new MutableLiveData<>();
+    // Первая страница результатов поиска и страницы, построенные по ней
+    private final MutableLiveData<SearchResults> _searchResults = new MutableLiveData<>();
+    private final LiveData<PagingData<Recipe>> searchPages;
 
     private boolean isInitialLoadDone = false;
     private volatile boolean isCurrentlyRefreshing = false;
     private final MutableLiveData<Boolean> _isSearchMode = new MutableLiveData<>(false);
 
+    // Поисковые запросы по мере ввода; обрабатываются конвейером из setupSearchPipeline()
+    private final PublishSubject<SearchRequest> searchRequests = PublishSubject.create();
+    private final Disposable searchSubscription;
+
     public HomeViewModel(@NonNull Application application) {
         super(application);
         this.recipeDataUseCase = new RecipeDataUseCase(application);
         this.recipeLikeUseCase = new RecipeLikeUseCase(application);
         this.recipeSearchUseCase = new RecipeSearchUseCase(application);
 
-        // Устанавливаем начальное состояние загрузки
-        _recipes.setValue(Resource.loading(null));
-
-        // Подписываемся на локальные данные из БД.
-        // MediatorLiveData будет автоматически получать обновления.
-        LiveData<List<Recipe>> localRecipesSource = recipeDataUseCase.getAllRecipesLocalLiveData();
+        // Постраничный поток карточек из БД, кэшируется в области ViewModel.
+        // Страницы подгружаются при прокрутке, изменения таблицы приходят через инвалидацию Room.
+        LiveData<PagingData<Recipe>> pagedRecipesSource =
+                PagingLiveData.cachedIn(recipeDataUseCase.getRecipesPagedLocal(), this);
         
-        _recipes.addSource(localRecipesSource, recipesList -> {
-            Boolean isSearchMode = _isSearchMode.getValue();
-            if (isSearchMode == null || !isSearchMode) {
-                // Показываем обычные данные только если не в режиме поиска
-                _recipes.setValue(Resource.success(recipesList));
+        _recipePages.addSource(pagedRecipesSource, pagingData -> {
+            if (!isSearchMode()) {
+                // Показываем ленту только если не в режиме поиска
+                _recipePages.setValue(pagingData);
             }
         });
 
+        // Один поток страниц поиска на ViewModel: новый запрос инвалидирует его источник.
+        // Результаты умного поиска дополняются следующими страницами при прокрутке:
+        // Paging добавляет страницы к списку, не пересчитывая уже показанные элементы
+        searchPages = PagingLiveData.cachedIn(recipeSearchUseCase.getSearchPages(), this);
+
         // Подписываемся на результаты поиска
-        _recipes.addSource(_searchResults, searchResults -> {
-            Boolean isSearchMode = _isSearchMode.getValue();
-            if (isSearchMode != null && isSearchMode) {
+        _recipePages.addSource(searchPages, pages -> {
+            if (isSearchMode()) {
                 // Показываем результаты поиска только в режиме поиска
-                _recipes.setValue(Resource.success(searchResults));
+                _recipePages.setValue(pages);
             }
         });
         
         // Подписываемся на изменение режима поиска
-        _recipes.addSource(_isSearchMode, isSearchMode -> {
+        _recipePages.addSource(_isSearchMode, isSearchMode -> {
             if (isSearchMode != null && !isSearchMode) {
-                // Выходим из режима поиска - показываем локальные данные
-                List<Recipe> localRecipes = localRecipesSource.getValue();
-                if (localRecipes != null) {
-                    _recipes.setValue(Resource.success(localRecipes));
+                // Выходим из режима поиска - показываем ленту
+                PagingData<Recipe> pages = pagedRecipesSource.getValue();
+                if (pages != null) {
+                    _recipePages.setValue(pages);
                 }
             } else if (isSearchMode != null && isSearchMode) {
                 // Входим в режим поиска - показываем результаты поиска если есть
-                List<Recipe> searchResults = _searchResults.getValue();
-                if (searchResults != null) {
-                    _recipes.setValue(Resource.success(searchResults));
+                PagingData<Recipe> pages = searchPages.getValue();
+                if (_searchResults.getValue() != null && pages != null) {
+                    _recipePages.setValue(pages);
                 }
             }
         });
 
+        searchSubscription = setupSearchPipeline();
+
         // Запускаем первичную загрузку данных
         loadInitialRecipes();
     }
@@ -126,7 +144,7 @@ public class HomeViewModel extends AndroidViewModel {
         isCurrentlyRefreshing = true;
         _isRefreshing.setValue(true);
 
-        recipeDataUseCase.refreshRecipes(_isRefreshing, _errorMessage, _recipes, () -> {
+        recipeDataUseCase.refreshRecipes(_isRefreshing, _errorMessage, null, () -> {
             isCurrentlyRefreshing = false;
         });
     }
@@ -147,39 +165,140 @@ public class HomeViewModel extends AndroidViewModel {
         recipeLikeUseCase.setLikeStatus(userId, recipe.getId(), isLiked, _errorMessage);
     }
 
+    private boolean isSearchMode() {
+        Boolean isSearchMode = _isSearchMode.getValue();
+        return isSearchMode != null && isSearchMode;
+    }
+
+    /**
+     * Сохраняет первую страницу результатов поиска и передает ее в поток страниц.
+     * Повторные результаты с теми же рецептами (гибридный поиск) не перезагружают список.
+     */
+    private void setSearchResults(SearchResults results) {
+        _searchResults.setValue(results);
+        if (results == null) {
+            recipeSearchUseCase.showSearchResults(null, false, null);
+        } else {
+            recipeSearchUseCase.showSearchResults(results.query, results.smartSearchEnabled, results.recipes);
+        }
+    }
+
+    /**
+     * Поиск по мере ввода: запрос выполняется после паузы в наборе {@link #SEARCH_DEBOUNCE_MS}.
+     * Вызывать из главного потока.
+     */
+    public void onSearchQueryChanged(String query) {
+        submitQuery(query, false);
+    }
+
+    /**
+     * Поиск по явному подтверждению запроса: выполняется сразу, без ожидания паузы
+     * и без ограничения на минимальную длину. Вызывать из главного потока.
+     */
     public void performSearch(String query) {
         Log.d(TAG, "performSearch called with query: '" + query + "'");
-        _searchQuery.setValue(query);
-        
-        if (query == null || query.trim().isEmpty()) {
+        submitQuery(query, true);
+    }
+
+    private void submitQuery(String query, boolean immediate) {
+        String trimmed = query != null ? query.trim() : "";
+        _searchQuery.setValue(trimmed);
+
+        if (trimmed.isEmpty()) {
             // Пустой запрос - выходим из режима поиска и показываем все рецепты
             Log.d(TAG, "Пустой запрос, выходим из режима поиска");
             _isSearchMode.setValue(false);
-            _searchResults.setValue(null); // Очищаем результаты поиска
-            return;
+            setSearchResults(null); // Очищаем результаты поиска
+            _isRefreshing.setValue(false);
+        } else {
+            _isSearchMode.setValue(true);
         }
-        
-        // Переходим в режим поиска
-        _isSearchMode.setValue(true);
-        Log.d(TAG, "Переходим в режим поиска");
-        
-        // Проверяем настройки умного поиска
+
+        // Пустой запрос тоже отправляется в конвейер, чтобы отменить выполняющийся поиск
         MySharedPreferences preferences = new MySharedPreferences(getApplication());
         boolean smartSearchEnabled = preferences.getBoolean("smart_search_enabled", true);
-        Log.d(TAG, "Smart search enabled: " + smartSearchEnabled);
-        
-        // Выполняем поиск через UseCase
-        recipeSearchUseCase.searchRecipes(query.trim(), smartSearchEnabled, _searchResults, _errorMessage, _isRefreshing);
+        boolean hybridSearchEnabled = preferences.getBoolean("hybrid_search_enabled", true);
+        searchRequests.onNext(new SearchRequest(trimmed, smartSearchEnabled, hybridSearchEnabled, immediate));
     }
 
+    /**
+     * Конвейер поиска. debounce пропускает промежуточные состояния ввода,
+     * distinctUntilChanged не повторяет поиск с тем же запросом и режимом (кроме явного подтверждения),
+     * switchMap при новом запросе отписывается от предыдущего, что отменяет
+     * его HTTP-запрос в OkHttp. Переключение и доставка результатов выполняются в главном потоке,
+     * поэтому ответ на устаревший запрос не может перезаписать новые результаты.
+     */
+    private Disposable setupSearchPipeline() {
+        return searchRequests
+                .debounce(request -> request.immediate || request.query.isEmpty()
+                        ? Observable.<Long>empty()
+                        : Observable.timer(SEARCH_DEBOUNCE_MS, TimeUnit.MILLISECONDS))
+                .filter(request -> request.immediate || request.query.isEmpty()
+                        || request.query.length() >= MIN_SEARCH_QUERY_LENGTH)
+                .distinctUntilChanged((previous, current) -> !current.immediate
+                        && previous.query.equals(current.query)
+                        && previous.smartSearchEnabled == current.smartSearchEnabled
+                        && previous.hybridSearchEnabled == current.hybridSearchEnabled)
+                .observeOn(AndroidSchedulers.mainThread())
+                .switchMap(request -> {
+                    if (request.query.isEmpty()) {
+                        return Observable.<List<Recipe>>empty();
+                    }
+                    Log.d(TAG, "Поиск: '" + request.query + "', smart: " + request.smartSearchEnabled);
+                    return recipeSearchUseCase
+                            .searchRecipes(request.query, request.smartSearchEnabled,
+                                    request.hybridSearchEnabled, _errorMessage)
+                            .observeOn(AndroidSchedulers.mainThread())
+                            .doOnSubscribe(d -> _isRefreshing.setValue(true))
+                            .onErrorReturnItem(Collections.<Recipe>emptyList())
+                            .map(recipes -> new SearchResults(request.query, request.smartSearchEnabled, recipes));
+                })
+                .subscribe(results -> {
+                    Log.d(TAG, "Результаты поиска: " + results.recipes.size());
+                    setSearchResults(results);
+                    _isRefreshing.setValue(false);
+                }, throwable -> Log.e(TAG, "Конвейер поиска остановлен", throwable));
+    }
+
+    /**
+     * Первая страница результатов поиска по запросу
+     */
+    private static final class SearchResults {
+        final String query;
+        final boolean smartSearchEnabled;
+        final List<Recipe> recipes;
+
+        SearchResults(String query, boolean smartSearchEnabled, List<Recipe> recipes) {
+            this.query = query;
+            this.smartSearchEnabled = smartSearchEnabled;
+            this.recipes = recipes;
+        }
+    }
+
+    /**
+     * Поисковый запрос вместе с режимом поиска на момент ввода
+     */
+    private static final class SearchRequest {
+        final String query;
+        final boolean smartSearchEnabled;
+        final boolean hybridSearchEnabled;
+        final boolean immediate;
+
+        SearchRequest(String query, boolean smartSearchEnabled, boolean hybridSearchEnabled, boolean immediate) {
+            this.query = query;
+            this.smartSearchEnabled = smartSearchEnabled;
+            this.hybridSearchEnabled = hybridSearchEnabled;
+            this.immediate = immediate;
+        }
+    }
 
-    
     /**
      * Очистить ресурсы
      */
     @Override
     protected void onCleared() {
         super.onCleared();
+        searchSubscription.dispose();
         recipeDataUseCase.clearResources();
         recipeLikeUseCase.clearResources();
         recipeSearchUseCase.clearResources();
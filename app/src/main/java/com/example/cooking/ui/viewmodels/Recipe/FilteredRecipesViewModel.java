@@ -2,9 +2,13 @@ package com.example.cooking.ui.viewmodels.Recipe;
 
 import android.app.Application;
 import androidx.annotation.NonNull;
+import androidx.core.util.Pair;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
 import com.example.cooking.domain.entities.Recipe;
 import com.example.cooking.ui.fragments.FilteredRecipesFragment;
@@ -13,17 +17,17 @@ import com.example.cooking.domain.usecases.RecipeFilterUseCase;
 import com.example.cooking.domain.usecases.RecipeLikeUseCase;
 import com.example.cooking.utils.MySharedPreferences;
 
-import java.util.Collections;
-import java.util.List;
+import java.util.Objects;
 
 /**
  * ViewModel для {@link FilteredRecipesFragment}.
- * Отвечает за фильтрацию рецептов на основе выбранной категории,
- * используя единый источник данных из SharedRecipeViewModel.
+ * Отдает постраничный поток рецептов выбранной категории,
+ * страницы загружаются из локальной базы по мере прокрутки.
  */
 public class FilteredRecipesViewModel extends AndroidViewModel {
-    private final MutableLiveData<List<Recipe>> _filteredRecipes = new MutableLiveData<>(Collections.emptyList());
-    public final LiveData<List<Recipe>> filteredRecipes = _filteredRecipes;
+    // Текущий фильтр: (filterKey, filterType)
+    private final MutableLiveData<Pair<String, String>> _filter = new MutableLiveData<>();
+    public final LiveData<PagingData<Recipe>> filteredRecipes;
 
     private final MutableLiveData<String> _errorMessage = new MutableLiveData<>();
     public final LiveData<String> errorMessage = _errorMessage;
@@ -40,25 +44,30 @@ public class FilteredRecipesViewModel extends AndroidViewModel {
         recipeDataUseCase = new RecipeDataUseCase(application);
         recipeFilterUseCase = new RecipeFilterUseCase(application);
         recipeLikeUseCase = new RecipeLikeUseCase(application);
+
+        filteredRecipes = Transformations.switchMap(_filter, filter -> PagingLiveData.cachedIn(
+                recipeFilterUseCase.getFilteredRecipesPaged(filter.first, filter.second), this));
     }
 
     public void loadFilteredRecipes(String filterKey, String filterType) {
         _isRefreshing.setValue(true);
-        
-        // Используем единый метод фильтрации с автообновлением
-        recipeFilterUseCase.filterRecipesByCategory(filterKey, filterType, _filteredRecipes, _errorMessage, _isRefreshing);
+
+        Pair<String, String> filter = new Pair<>(filterKey, filterType);
+        if (!Objects.equals(_filter.getValue(), filter)) {
+            _filter.setValue(filter);
+        }
+        // Если в категории пока нет рецептов, подтягиваем их с сервера
+        recipeFilterUseCase.refreshIfEmpty(filterKey, filterType, _errorMessage, _isRefreshing);
     }
 
     public void toggleLikeStatus(Recipe recipe, boolean isLiked) {
         MySharedPreferences preferences = new MySharedPreferences(getApplication());
         recipeLikeUseCase.setLikeStatus(preferences.getUserId(), recipe.getId(), isLiked, _errorMessage);
     }
-    
+
     public void refreshData() {
-        // Получаем текущие параметры фильтрации (можно сохранить в полях класса)
-        // Пока используем общее обновление через RecipeDataUseCase
-        MutableLiveData<com.example.cooking.network.utils.Resource<List<Recipe>>> dummyLiveData = new MutableLiveData<>();
-        recipeDataUseCase.refreshRecipes(_isRefreshing, _errorMessage, dummyLiveData, null);
+        // Постраничный поток обновится через инвалидацию базы после синхронизации
+        recipeDataUseCase.refreshRecipes(_isRefreshing, _errorMessage, null, null);
     }
 
     @Override
@@ -68,4 +77,4 @@ public class FilteredRecipesViewModel extends AndroidViewModel {
         recipeFilterUseCase.clearResources();
         recipeLikeUseCase.clearResources();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+package com.example.cooking.utils;
+
+import com.example.cooking.domain.entities.Recipe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Слияние результатов гибридного поиска из нескольких источников.
+ * Ранжирование детерминированное (Reciprocal Rank Fusion): рецепт получает от каждого источника
+ * вес источника / (K + позиция), очки источников складываются, при равенстве выше меньший ID.
+ * Поэтому итоговый порядок не зависит от того, в каком порядке пришли ответы,
+ * а рецепт, найденный несколькими источниками, поднимается выше.
+ * Не потокобезопасен: вызовы {@link #add} должны быть последовательными, как элементы Observable.merge.
+ */
+final class HybridSearchMerger {
+
+    /**
+     * Источник результатов и его вес в итоговом ранжировании
+     */
+    enum Source {
+        SMART(1.0),
+        SIMPLE(0.7),
+        LOCAL(0.5);
+
+        final double weight;
+
+        Source(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final int RANK_CONSTANT = 60;
+
+    private final Map<Source, List<Recipe>> results = new EnumMap<>(Source.class);
+
+    /**
+     * Добавляет результат источника и возвращает новый объединенный список без повторов по ID.
+     */
+    List<Recipe> add(Source source, List<Recipe> recipes) {
+        results.put(source, recipes);
+        return merge();
+    }
+
+    private List<Recipe> merge() {
+        Map<Integer, Double> scores = new HashMap<>();
+        Map<Integer, Recipe> recipesById = new HashMap<>();
+        for (Map.Entry<Source, List<Recipe>> entry : results.entrySet()) {
+            List<Recipe> recipes = entry.getValue();
+            for (int rank = 0; rank < recipes.size(); rank++) {
+                Recipe recipe = recipes.get(rank);
+                Double score = scores.get(recipe.getId());
+                double add = entry.getKey().weight / (RANK_CONSTANT + rank + 1);
+                scores.put(recipe.getId(), score == null ? add : score + add);
+                recipesById.put(recipe.getId(), recipe);
+            }
+        }
+
+        List<Integer> ids = new ArrayList<>(scores.keySet());
+        Collections.sort(ids, (a, b) -> {
+            int byScore = Double.compare(scores.get(b), scores.get(a));
+            return byScore != 0 ? byScore : Integer.compare(a, b);
+        });
+        List<Recipe> merged = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            merged.add(recipesById.get(id));
+        }
+        return merged;
+    }
+}
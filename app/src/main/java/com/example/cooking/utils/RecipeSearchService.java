@@ -9,85 +9,184 @@ import com.example.cooking.domain.entities.Recipe;
 import com.example.cooking.network.api.ApiService;
 import com.example.cooking.network.models.recipeResponses.SearchResponse;
 import com.example.cooking.network.services.NetworkService;
+import com.example.cooking.data.repositories.RecipeFillThroughRepository;
 import com.example.cooking.data.repositories.RecipeLocalRepository;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
-import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 
+/**
+ * Серверный поиск рецептов: умный поиск с откатом на простой, с кэшем результатов {@link SearchResultCache}.
+ * Возвращает холодный поток без подписки, поэтому отменой запроса управляет
+ * подписчик: dispose отменяет HTTP-запрос OkHttp и обращение к базе.
+ */
 public class RecipeSearchService {
 
     private static final String TAG = "RecipeSearchService";
 
-    public interface SearchCallback {
-        void onSearchResults(List<Recipe> recipes);
-        void onSearchError(String error);
-    }
+    /**
+     * Задержка запуска простого серверного поиска в гибридном режиме по умолчанию:
+     * типичное время ответа простого поиска, дольше которого умный поиск уже заметно тормозит выдачу.
+     */
+    public static final long DEFAULT_HEDGE_DELAY_MS = 800;
+
+    /**
+     * Ключ настройки с задержкой простого серверного поиска в гибридном режиме, мс
+     */
+    public static final String PREF_HEDGE_DELAY_MS = "hybrid_search_hedge_delay_ms";
+
+    /**
+     * Размер страницы умного поиска
+     */
+    public static final int SEARCH_PAGE_SIZE = 20;
 
     private final Context context;
     private final ApiService apiService;
     private final RecipeLocalRepository localRepository;
-    private final CompositeDisposable disposables = new CompositeDisposable();
+    private final RecipeFillThroughRepository fillThroughRepository;
+    private final SearchResultCache searchCache;
 
     public RecipeSearchService(Context context) {
         this.context = context.getApplicationContext();
         this.apiService = NetworkService.getApiService(context);
         this.localRepository = new RecipeLocalRepository(context);
+        this.fillThroughRepository = new RecipeFillThroughRepository(context);
+        this.searchCache = SearchResultCache.getInstance(context);
     }
 
-    public void searchRecipes(String query, SearchCallback callback) {
-        Log.d(TAG, "searchRecipes start for query: '" + query + "'");
-
+    /**
+     * Поиск рецептов на сервере. Запрос выполняется при подписке.
+     * Если результат запроса есть в {@link SearchResultCache}, он выдается сразу без обращения к серверу.
+     * Устаревший результат тоже выдается сразу, затем запрос перепроверяется на сервере,
+     * и новый результат выдается вторым элементом, если список рецептов изменился.
+     * @param query поисковый запрос
+     * @param smartSearchEnabled использовать умный поиск с откатом на простой
+     * @return рецепты из локальной базы в порядке релевантности сервера
+     */
+    public Observable<List<Recipe>> search(String query, boolean smartSearchEnabled) {
         if (query == null || query.trim().isEmpty()) {
             Log.d(TAG, "Поисковый запрос пуст, возвращаем пустой список.");
-            callback.onSearchResults(Collections.emptyList());
-            return;
+            return Observable.just(Collections.emptyList());
         }
+        Log.d(TAG, "search for query: '" + query + "', smart: " + smartSearchEnabled);
 
-        MySharedPreferences preferences = new MySharedPreferences(context);
-        boolean smartSearchEnabled = preferences.getBoolean("smart_search_enabled", true);
-        Log.d(TAG, "Smart search enabled: " + smartSearchEnabled);
+        SearchResultCache.Entry cached = searchCache.get(query, smartSearchEnabled);
+        if (cached == null) {
+            return fetchIds(query, smartSearchEnabled)
+                    .flatMap(ids -> loadRecipes(ids, smartSearchEnabled))
+                    .toObservable();
+        }
 
-        Single<List<Recipe>> searchSingle = smartSearchEnabled
-                ? performSmartSearch(query)
-                : performSimpleSearch(query);
+        Log.d(TAG, "Search cache hit (" + searchCache.getStats() + "), revalidate: " + cached.needsRevalidation());
+        Observable<List<Recipe>> fromCache = Single.fromCallable(() -> loadRecipesSync(cached.recipeIds))
+                .toObservable();
+        if (!cached.needsRevalidation()) {
+            return fromCache;
+        }
+        // Ошибка перепроверки не должна скрывать уже показанный результат из кэша
+        Maybe<List<Recipe>> revalidated = fetchIds(query, smartSearchEnabled)
+                .filter(ids -> !ids.equals(cached.recipeIds))
+                .map(this::loadRecipesSync)
+                .onErrorComplete();
+        return fromCache.concatWith(revalidated);
+    }
 
-        disposables.add(
-            searchSingle
+    /**
+     * Гибридный поиск: локальный FTS и умный поиск запускаются сразу, а простой серверный поиск -
+     * через hedgeDelayMs, если умный поиск к этому времени не ответил. Первый полученный результат
+     * выдается сразу, каждый следующий сливается с предыдущими ({@link HybridSearchMerger})
+     * и выдается, если итоговый список изменился. Ошибка одного источника не прерывает остальные.
+     * @param query поисковый запрос
+     * @param hedgeDelayMs задержка запуска простого серверного поиска, мс
+     */
+    public Observable<List<Recipe>> hybridSearch(String query, long hedgeDelayMs) {
+        if (query == null || query.trim().isEmpty()) {
+            return Observable.just(Collections.emptyList());
+        }
+        Log.d(TAG, "hybrid search for query: '" + query + "', hedge: " + hedgeDelayMs + " ms");
+
+        Observable<SourceResult> local = Single
+                .fromCallable(() -> new SourceResult(HybridSearchMerger.Source.LOCAL, localRepository.searchRecipes(query)))
                 .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(
-                    recipes -> {
-                        Log.d(TAG, "Search successful, found recipes: " + recipes.size());
-                        callback.onSearchResults(recipes);
-                    },
-                    throwable -> {
-                        Log.e(TAG, "Search failed", throwable);
-                        callback.onSearchError(context.getString(R.string.search_service_generic_error));
-                    }
-                )
-        );
+                .toObservable()
+                .onErrorResumeNext(throwable -> skipSource(HybridSearchMerger.Source.LOCAL, throwable));
+
+        // Свежий результат из кэша заменяет запрос умного поиска, тогда простой поиск не запускается вовсе
+        SearchResultCache.Entry cached = searchCache.get(query, true);
+        Single<List<Integer>> smartIds = cached != null && !cached.needsRevalidation()
+                ? Single.just(cached.recipeIds)
+                : smartSearchIds(query);
+        Observable<SourceResult> smart = smartIds
+                .subscribeOn(Schedulers.io())
+                .map(ids -> new SourceResult(HybridSearchMerger.Source.SMART, loadRecipesSync(ids)))
+                .toObservable()
+                .onErrorResumeNext(throwable -> skipSource(HybridSearchMerger.Source.SMART, throwable));
+
+        Observable<SourceResult> simple = Single.timer(hedgeDelayMs, TimeUnit.MILLISECONDS)
+                .flatMap(tick -> performSimpleSearch(query).subscribeOn(Schedulers.io()))
+                .map(ids -> new SourceResult(HybridSearchMerger.Source.SIMPLE, loadRecipesSync(ids)))
+                .toObservable()
+                .onErrorResumeNext(throwable -> skipSource(HybridSearchMerger.Source.SIMPLE, throwable));
+
+        // Ответ умного поиска отменяет ожидающий или выполняющийся простой поиск.
+        // Если умный поиск не удался, простой продолжает работу (never вместо завершения).
+        Observable<SourceResult> server = smart.publish(sharedSmart -> Observable.merge(
+                sharedSmart,
+                simple.takeUntil(sharedSmart.concatWith(Observable.never()))));
+
+        return Observable.defer(() -> {
+            HybridSearchMerger merger = new HybridSearchMerger();
+            return Observable.merge(local, server)
+                    .map(result -> merger.add(result.source, result.recipes))
+                    .distinctUntilChanged(RecipeSearchService::sameIds)
+                    .defaultIfEmpty(Collections.emptyList());
+        });
     }
 
-    private Single<List<Recipe>> performSmartSearch(String query) {
-        int page = 1;
-        int perPage = 20;
-        String formattedQuery = "\"" + query.trim() + "\"";
-        Log.d(TAG, "Performing smart search with query: " + formattedQuery);
+    private static Observable<SourceResult> skipSource(HybridSearchMerger.Source source, Throwable throwable) {
+        Log.w(TAG, "Hybrid search source " + source + " failed", throwable);
+        return Observable.empty();
+    }
 
-        return apiService.searchRecipes(formattedQuery, page, perPage)
-                .flatMap(this::processSearchResponse)
-                .doOnSuccess(recipes -> {
-                    if (!recipes.isEmpty()) {
-                        String foundMessage = context.getResources().getQuantityString(R.plurals.search_service_recipes_found, recipes.size(), recipes.size());
-                        showToastOnMainThread(foundMessage);
-                    }
-                })
+    private static boolean sameIds(List<Recipe> previous, List<Recipe> current) {
+        if (previous.size() != current.size()) return false;
+        for (int i = 0; i < previous.size(); i++) {
+            if (previous.get(i).getId() != current.get(i).getId()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Результат одного источника гибридного поиска
+     */
+    private static final class SourceResult {
+        final HybridSearchMerger.Source source;
+        final List<Recipe> recipes;
+
+        SourceResult(HybridSearchMerger.Source source, List<Recipe> recipes) {
+            this.source = source;
+            this.recipes = recipes;
+        }
+    }
+
+    /**
+     * ID найденных рецептов с сервера. Успешный результат сохраняется в кэш под режимом,
+     * который его вернул: при откате умного поиска на простой - под простым.
+     */
+    private Single<List<Integer>> fetchIds(String query, boolean smartSearchEnabled) {
+        return smartSearchEnabled ? performSmartSearch(query) : performSimpleSearch(query);
+    }
+
+    private Single<List<Integer>> performSmartSearch(String query) {
+        return smartSearchIds(query)
                 .onErrorResumeNext(throwable -> {
                     Log.w(TAG, "Smart search failed, falling back to simple search.", throwable);
                     showToastOnMainThread(context.getString(R.string.search_service_smart_search_error));
@@ -95,50 +194,112 @@ public class RecipeSearchService {
                 });
     }
 
-    private Single<List<Recipe>> performSimpleSearch(String query) {
+    /**
+     * Умный поиск без отката на простой (первая страница). Успешный результат сохраняется в кэш
+     * вместе с общим числом результатов, по которому {@link #hasMoreSmartResults(String)}
+     * определяет, есть ли следующие страницы.
+     */
+    private Single<List<Integer>> smartSearchIds(String query) {
+        return requestSmartPage(query, 1)
+                .map(response -> {
+                    List<Integer> ids = parseIds(response);
+                    searchCache.put(query, true, ids, response.getTotalResults());
+                    return ids;
+                });
+    }
+
+    private Single<SearchResponse> requestSmartPage(String query, int page) {
+        String formattedQuery = "\"" + query.trim() + "\"";
+        Log.d(TAG, "Performing smart search with query: " + formattedQuery + ", page: " + page);
+        return apiService.searchRecipes(formattedQuery, page, SEARCH_PAGE_SIZE);
+    }
+
+    /**
+     * Есть ли у умного поиска результаты после первой страницы, закэшированной для запроса.
+     */
+    public boolean hasMoreSmartResults(String query) {
+        SearchResultCache.Entry entry = searchCache.peek(query, true);
+        return entry != null && entry.totalResults > entry.recipeIds.size();
+    }
+
+    /**
+     * Страница результатов умного поиска начиная со второй. Запрос выполняется при подписке на io-потоке.
+     * @param page номер страницы, первая страница - 1
+     */
+    public Single<SearchPage> searchPage(String query, int page) {
+        return requestSmartPage(query, page)
+                .subscribeOn(Schedulers.io())
+                .map(response -> {
+                    List<Integer> ids = parseIds(response);
+                    boolean hasMore = !ids.isEmpty() && page * SEARCH_PAGE_SIZE < response.getTotalResults();
+                    return new SearchPage(loadRecipesSync(ids), hasMore);
+                });
+    }
+
+    /**
+     * Страница результатов умного поиска
+     */
+    public static final class SearchPage {
+        public final List<Recipe> recipes;
+        public final boolean hasMore;
+
+        SearchPage(List<Recipe> recipes, boolean hasMore) {
+            this.recipes = recipes;
+            this.hasMore = hasMore;
+        }
+    }
+
+    private Single<List<Integer>> performSimpleSearch(String query) {
         Log.d(TAG, "Performing simple search with query: " + query);
         return apiService.searchRecipesSimple(query.trim())
-                .flatMap(this::processSearchResponse);
+                .map(RecipeSearchService::parseIds)
+                .doOnSuccess(ids -> searchCache.put(query, false, ids, -1));
     }
 
-    private Single<List<Recipe>> processSearchResponse(SearchResponse response) {
+    private static List<Integer> parseIds(SearchResponse response) {
         if (response == null || response.getData() == null || response.getData().getResults() == null) {
             Log.d(TAG, "Response or data is null, returning empty list.");
-            return Single.just(Collections.emptyList());
+            return Collections.emptyList();
         }
-
         List<String> ids = response.getData().getResults();
-        if (ids.isEmpty()) {
-            Log.d(TAG, "No recipe IDs found in response.");
-            return Single.just(Collections.emptyList());
+        List<Integer> recipeIds = new ArrayList<>(ids.size());
+        for (String idStr : ids) {
+            try {
+                recipeIds.add(Integer.parseInt(idStr));
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Invalid recipe ID format: " + idStr, e);
+            }
         }
+        return recipeIds;
+    }
 
-        Log.d(TAG, "Processing " + ids.size() + " recipe IDs from search response.");
-        return Single.fromCallable(() -> {
-            List<Recipe> fullRecipes = new ArrayList<>();
-            int foundCount = 0;
-            int notFoundCount = 0;
-            for (String idStr : ids) {
-                try {
-                    int id = Integer.parseInt(idStr);
-                    Recipe full = localRepository.getRecipeByIdSync(id);
-                    if (full != null) {
-                        fullRecipes.add(full);
-                        foundCount++;
-                    } else {
-                        notFoundCount++;
+    /**
+     * Рецепты результата поиска, полученного с сервера (не из кэша).
+     */
+    private Single<List<Recipe>> loadRecipes(List<Integer> recipeIds, boolean smartSearchEnabled) {
+        return Single.fromCallable(() -> loadRecipesSync(recipeIds))
+                .doOnSuccess(recipes -> {
+                    if (smartSearchEnabled && !recipes.isEmpty()) {
+                        String foundMessage = context.getResources().getQuantityString(R.plurals.search_service_recipes_found, recipes.size(), recipes.size());
+                        showToastOnMainThread(foundMessage);
                     }
-                } catch (NumberFormatException e) {
-                    Log.w(TAG, "Invalid recipe ID format: " + idStr, e);
-                }
-            }
-            Log.d(TAG, "DB lookup complete. Found: " + foundCount + ", Not Found: " + notFoundCount);
-            return fullRecipes;
-        });
+                });
     }
 
-    public void cancel() {
-        disposables.clear();
+    private List<Recipe> loadRecipesSync(List<Integer> recipeIds) {
+        if (recipeIds.isEmpty()) {
+            Log.d(TAG, "No recipe IDs found in response.");
+            return Collections.emptyList();
+        }
+        Log.d(TAG, "Processing " + recipeIds.size() + " recipe IDs from search response.");
+        // Рецепты, которых еще нет в базе, догружаем с сервера до показа результатов
+        fillThroughRepository.fillMissing(recipeIds);
+        // Один запрос к базе на всю страницу результатов вместо запроса на каждый ID
+        // Результаты показываются карточками, полный рецепт загружает экран деталей
+        List<Recipe> recipes = localRepository.getRecipeCardsByIds(recipeIds);
+        Log.d(TAG, "DB lookup complete. Found: " + recipes.size()
+                + ", Not Found: " + (recipeIds.size() - recipes.size()));
+        return recipes;
     }
 
     private void showToastOnMainThread(String message) {
@@ -0,0 +1,218 @@
+package com.example.cooking.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Кэш результатов серверного поиска: нормализованный запрос и режим (умный/простой) -> список ID рецептов.
+ * Хранятся только ID, сами рецепты читаются из локальной базы, поэтому изменения рецептов
+ * и лайков видны и в закэшированных результатах.
+ * <p>
+ * Не больше {@link #MAX_ENTRIES} запросов, вытесняется давно не использованный (LRU).
+ * Запись старше {@link #FRESH_TTL_MS} или помеченная устаревшей после синхронизации каталога
+ * показывается сразу, но требует перепроверки на сервере; запись старше {@link #MAX_AGE_MS} удаляется.
+ * Записи сохраняются в SharedPreferences и переживают перезапуск процесса.
+ */
+public final class SearchResultCache {
+
+    private static final String TAG = "SearchResultCache";
+    private static final String PREF_NAME = "search_result_cache";
+    private static final String KEY_ENTRIES = "entries";
+    private static final int MAX_ENTRIES = 50;
+    private static final long FRESH_TTL_MS = 10 * 60 * 1000L;       // 10 минут
+    private static final long MAX_AGE_MS = 24 * 60 * 60 * 1000L;    // 24 часа
+
+    private static volatile SearchResultCache INSTANCE;
+
+    private final SharedPreferences prefs;
+    private final Gson gson = new Gson();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private long hits;
+    private long misses;
+
+    private SearchResultCache(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        restore();
+    }
+
+    public static SearchResultCache getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (SearchResultCache.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new SearchResultCache(context);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Ключ кэша: режим и запрос в нижнем регистре, без лишних пробелов, с "ё" -> "е".
+     */
+    static String key(@NonNull String query, boolean smartSearchEnabled) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT).replace('ё', 'е').replaceAll("\\s+", " ");
+        return (smartSearchEnabled ? "smart:" : "simple:") + normalized;
+    }
+
+    /**
+     * Закэшированный результат запроса или null.
+     */
+    @Nullable
+    public synchronized Entry get(@NonNull String query, boolean smartSearchEnabled) {
+        String key = key(query, smartSearchEnabled);
+        Entry entry = entries.get(key);
+        if (entry != null && System.currentTimeMillis() - entry.fetchedAt > MAX_AGE_MS) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * Закэшированный результат запроса или null, без учета в статистике и без проверки возраста.
+     */
+    @Nullable
+    public synchronized Entry peek(@NonNull String query, boolean smartSearchEnabled) {
+        return entries.get(key(query, smartSearchEnabled));
+    }
+
+    /**
+     * Сохраняет результат запроса, полученный от сервера.
+     * @param totalResults общее число результатов на сервере или -1, если неизвестно
+     */
+    public synchronized void put(@NonNull String query, boolean smartSearchEnabled,
+                                 @NonNull List<Integer> recipeIds, int totalResults) {
+        entries.put(key(query, smartSearchEnabled), new Entry(Collections.unmodifiableList(new ArrayList<>(recipeIds)),
+                totalResults, System.currentTimeMillis(), false));
+        persist();
+    }
+
+    /**
+     * Каталог изменился при синхронизации: все записи остаются доступными,
+     * но при следующем обращении будут перепроверены на сервере.
+     */
+    public synchronized void markAllStale() {
+        if (entries.isEmpty()) return;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (!entry.stale) {
+                e.setValue(new Entry(entry.recipeIds, entry.totalResults, entry.fetchedAt, true));
+            }
+        }
+        persist();
+        Log.d(TAG, "Результаты поиска помечены устаревшими: " + entries.size());
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        prefs.edit().remove(KEY_ENTRIES).apply();
+    }
+
+    /**
+     * Доля обращений, найденных в кэше, с момента запуска процесса.
+     */
+    public synchronized String getStats() {
+        long total = hits + misses;
+        return "попаданий=" + hits + ", промахов=" + misses
+                + (total > 0 ? String.format(Locale.ROOT, " (%.0f%%)", hits * 100.0 / total) : "");
+    }
+
+    private void persist() {
+        prefs.edit().putString(KEY_ENTRIES, gson.toJson(toStored())).apply();
+    }
+
+    private List<StoredEntry> toStored() {
+        List<StoredEntry> stored = new ArrayList<>(entries.size());
+        // Порядок LinkedHashMap от давно использованных к недавним сохраняется при восстановлении
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            stored.add(new StoredEntry(e.getKey(), e.getValue()));
+        }
+        return stored;
+    }
+
+    private void restore() {
+        String json = prefs.getString(KEY_ENTRIES, null);
+        if (json == null) return;
+        try {
+            List<StoredEntry> stored = gson.fromJson(json, new TypeToken<List<StoredEntry>>() {}.getType());
+            if (stored == null) return;
+            long now = System.currentTimeMillis();
+            for (StoredEntry s : stored) {
+                if (s.key != null && s.ids != null && now - s.fetchedAt <= MAX_AGE_MS) {
+                    entries.put(s.key, new Entry(Collections.unmodifiableList(s.ids), s.total, s.fetchedAt, s.stale));
+                }
+            }
+            Log.d(TAG, "Восстановлено результатов поиска: " + entries.size());
+        } catch (Exception e) {
+            Log.w(TAG, "Не удалось восстановить кэш поиска", e);
+            prefs.edit().remove(KEY_ENTRIES).apply();
+        }
+    }
+
+    /**
+     * Закэшированный результат поиска
+     */
+    public static final class Entry {
+        public final List<Integer> recipeIds;       // Первая страница результатов
+        public final int totalResults;              // Всего результатов на сервере, -1 если неизвестно
+        final long fetchedAt;
+        final boolean stale;
+
+        Entry(List<Integer> recipeIds, int totalResults, long fetchedAt, boolean stale) {
+            this.recipeIds = recipeIds;
+            this.totalResults = totalResults;
+            this.fetchedAt = fetchedAt;
+            this.stale = stale;
+        }
+
+        /**
+         * Результат нужно перепроверить на сервере: истек срок свежести или изменился каталог.
+         */
+        public boolean needsRevalidation() {
+            return stale || System.currentTimeMillis() - fetchedAt > FRESH_TTL_MS;
+        }
+    }
+
+    /**
+     * Формат записи в SharedPreferences
+     */
+    private static final class StoredEntry {
+        String key;
+        List<Integer> ids;
+        int total;
+        long fetchedAt;
+        boolean stale;
+
+        StoredEntry(String key, Entry entry) {
+            this.key = key;
+            this.ids = entry.recipeIds;
+            this.total = entry.totalResults;
+            this.fetchedAt = entry.fetchedAt;
+            this.stale = entry.stale;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.cooking.data.repositories;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.cooking.data.database.PendingMutationDao;
+import com.example.cooking.data.database.PendingMutationEntity;
+import com.example.cooking.network.api.ApiService;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava3.RxJava3CallAdapterFactory;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Тесты {@link LikeSyncEngine}: отложенная отправка, взаимное гашение нажатий,
+ * пакетный запрос и переход на переключения по одному. Сервер имитирует {@link MockWebServer},
+ * время - {@link TestScheduler}, база - списки в памяти.
+ */
+public class LikeSyncEngineTest {
+
+    private static final String BATCH_PATH = "/api/recipes/likes/batch";
+    private static final String IDEMPOTENCY_KEY = ApiService.IDEMPOTENCY_KEY_HEADER;
+
+    private MockWebServer server;
+    private TestScheduler scheduler;
+    private FakeLocalLikes localLikes;
+    private FakeOutboxDao outboxDao;
+    private LikeSyncEngine engine;
+    private int flushCount;
+    private int rejectedCount;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        ApiService apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addCallAdapterFactory(RxJava3CallAdapterFactory.create())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiService.class);
+        scheduler = new TestScheduler();
+        localLikes = new FakeLocalLikes();
+        outboxDao = new FakeOutboxDao();
+        engine = new LikeSyncEngine(localLikes, outboxDao, apiService, scheduler,
+                () -> flushCount++, () -> rejectedCount++);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void flush_waits_for_pause_in_taps() {
+        engine.setLiked(1, true);
+        scheduler.advanceTimeBy(LikeSyncEngine.DEBOUNCE_MS - 1, TimeUnit.MILLISECONDS);
+        assertEquals(0, flushCount);
+
+        // Новое нажатие переносит отправку
+        engine.setLiked(2, true);
+        scheduler.advanceTimeBy(LikeSyncEngine.DEBOUNCE_MS - 1, TimeUnit.MILLISECONDS);
+        assertEquals(0, flushCount);
+
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        assertEquals(1, flushCount);
+    }
+
+    @Test
+    public void flush_is_not_delayed_past_max_wait() {
+        long tapInterval = LikeSyncEngine.DEBOUNCE_MS - 500;
+        long elapsed = 0;
+        for (int recipeId = 1; elapsed + tapInterval < LikeSyncEngine.MAX_WAIT_MS; recipeId++) {
+            engine.setLiked(recipeId, true);
+            scheduler.advanceTimeBy(tapInterval, TimeUnit.MILLISECONDS);
+            elapsed += tapInterval;
+        }
+        engine.setLiked(100, true);
+        scheduler.advanceTimeBy(LikeSyncEngine.MAX_WAIT_MS - elapsed - 1, TimeUnit.MILLISECONDS);
+        assertEquals(0, flushCount);
+
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        assertEquals(1, flushCount);
+    }
+
+    @Test
+    public void opposite_tap_cancels_pending_change() {
+        engine.setLiked(1, true);
+        engine.setLiked(1, false);
+
+        assertFalse(localLikes.isLiked(1));
+        assertTrue(outboxDao.getAll().isEmpty());
+        assertTrue(engine.send(outboxDao.getPendingLikes()).isEmpty());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void repeated_tap_with_same_status_is_ignored() {
+        localLikes.liked.add(1);
+        engine.setLiked(1, true);
+
+        assertTrue(outboxDao.getAll().isEmpty());
+        scheduler.advanceTimeBy(LikeSyncEngine.MAX_WAIT_MS, TimeUnit.MILLISECONDS);
+        assertEquals(0, flushCount);
+    }
+
+    @Test
+    public void likes_are_sent_in_one_batch_with_stable_idempotency_key() throws Exception {
+        localLikes.liked.add(3);
+        engine.setLiked(1, true);
+        engine.setLiked(2, true);
+        engine.setLiked(2, false);      // Гасит предыдущее изменение
+        engine.setLiked(3, false);
+
+        server.enqueue(new MockResponse().setResponseCode(503));
+        Set<Integer> failed = engine.send(outboxDao.getPendingLikes());
+        assertEquals(new HashSet<>(Arrays.asList(1, 3)), failed);
+        assertEquals(2, outboxDao.getAll().size());
+
+        server.enqueue(new MockResponse().setBody("{\"success\":true,\"rejected_ids\":[]}"));
+        failed = engine.send(outboxDao.getPendingLikes());
+        assertTrue(failed.isEmpty());
+        assertTrue(outboxDao.getAll().isEmpty());
+
+        assertEquals(2, server.getRequestCount());
+        RecordedRequest first = server.takeRequest();
+        RecordedRequest retry = server.takeRequest();
+        assertEquals("POST", first.getMethod());
+        assertEquals(BATCH_PATH, first.getPath());
+        assertEquals(BATCH_PATH, retry.getPath());
+        assertNotNull(first.getHeader(IDEMPOTENCY_KEY));
+        assertEquals(first.getHeader(IDEMPOTENCY_KEY), retry.getHeader(IDEMPOTENCY_KEY));
+
+        JsonArray changes = JsonParser.parseString(retry.getBody().readUtf8())
+                .getAsJsonObject().getAsJsonArray("changes");
+        assertEquals(2, changes.size());
+        assertChange(changes.get(0).getAsJsonObject(), 1, true);
+        assertChange(changes.get(1).getAsJsonObject(), 3, false);
+    }
+
+    @Test
+    public void batch_key_changes_with_batch_contents() throws Exception {
+        engine.setLiked(1, true);
+        server.enqueue(new MockResponse().setResponseCode(503));
+        engine.send(outboxDao.getPendingLikes());
+
+        engine.setLiked(2, true);
+        server.enqueue(new MockResponse().setBody("{\"rejected_ids\":[]}"));
+        engine.send(outboxDao.getPendingLikes());
+
+        String firstKey = server.takeRequest().getHeader(IDEMPOTENCY_KEY);
+        String secondKey = server.takeRequest().getHeader(IDEMPOTENCY_KEY);
+        assertFalse(firstKey.equals(secondKey));
+    }
+
+    @Test
+    public void unsupported_batch_falls_back_to_toggles() throws Exception {
+        for (int code : new int[]{404, 405, 501}) {
+            tearDown();
+            setUp();
+
+            engine.setLiked(1, true);
+            engine.setLiked(2, true);
+            List<PendingMutationEntity> pending = outboxDao.getPendingLikes();
+
+            server.enqueue(new MockResponse().setResponseCode(code));
+            server.enqueue(new MockResponse());
+            server.enqueue(new MockResponse());
+            assertTrue(engine.send(pending).isEmpty());
+            assertTrue(outboxDao.getAll().isEmpty());
+
+            assertEquals(BATCH_PATH, server.takeRequest().getPath());
+            RecordedRequest toggle1 = server.takeRequest();
+            RecordedRequest toggle2 = server.takeRequest();
+            assertEquals("/api/recipes/1/like", toggle1.getPath());
+            assertEquals("/api/recipes/2/like", toggle2.getPath());
+            assertEquals(pending.get(0).getIdempotencyKey(), toggle1.getHeader(IDEMPOTENCY_KEY));
+            assertEquals(pending.get(1).getIdempotencyKey(), toggle2.getHeader(IDEMPOTENCY_KEY));
+
+            // Пакетный запрос больше не пробуется
+            engine.setLiked(3, true);
+            server.enqueue(new MockResponse());
+            assertTrue(engine.send(outboxDao.getPendingLikes()).isEmpty());
+            assertEquals("Код " + code, "/api/recipes/3/like", server.takeRequest().getPath());
+        }
+    }
+
+    @Test
+    public void rejected_ids_are_dropped_from_queue() {
+        engine.setLiked(1, true);
+        engine.setLiked(2, true);
+
+        server.enqueue(new MockResponse().setBody("{\"success\":true,\"rejected_ids\":[2]}"));
+        assertTrue(engine.send(outboxDao.getPendingLikes()).isEmpty());
+
+        assertTrue(outboxDao.getAll().isEmpty());
+        assertEquals(1, rejectedCount);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void rejected_batch_is_dropped_without_retry() {
+        engine.setLiked(1, true);
+
+        server.enqueue(new MockResponse().setResponseCode(400));
+        assertTrue(engine.send(outboxDao.getPendingLikes()).isEmpty());
+
+        assertTrue(outboxDao.getAll().isEmpty());
+        assertEquals(1, rejectedCount);
+    }
+
+    private static void assertChange(JsonObject change, int recipeId, boolean liked) {
+        assertEquals(recipeId, change.get("recipe_id").getAsInt());
+        assertEquals(liked, change.get("liked").getAsBoolean());
+    }
+
+    /**
+     * Локальные статусы лайков в памяти.
+     */
+    private static final class FakeLocalLikes implements LikeSyncEngine.LocalLikes {
+        final Set<Integer> liked = new HashSet<>();
+
+        @Override
+        public <T> T runInTransaction(Callable<T> action) {
+            try {
+                return action.call();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public boolean isLiked(int recipeId) {
+            return liked.contains(recipeId);
+        }
+
+        @Override
+        public void setLiked(int recipeId, boolean isLiked) {
+            if (isLiked) {
+                liked.add(recipeId);
+            } else {
+                liked.remove(recipeId);
+            }
+        }
+    }
+
+    /**
+     * Очередь изменений в памяти с автоинкрементным ID, как в таблице pending_mutations.
+     */
+    private static final class FakeOutboxDao implements PendingMutationDao {
+        private final List<PendingMutationEntity> rows = new ArrayList<>();
+        private long nextId = 1;
+
+        @Override
+        public long insert(PendingMutationEntity mutation) {
+            mutation.setId(nextId++);
+            rows.add(mutation);
+            return mutation.getId();
+        }
+
+        @Override
+        public List<PendingMutationEntity> getAll() {
+            return new ArrayList<>(rows);
+        }
+
+        @Override
+        public List<PendingMutationEntity> getPendingLikes() {
+            List<PendingMutationEntity> likes = new ArrayList<>();
+            for (PendingMutationEntity row : rows) {
+                if (PendingMutationEntity.TYPE_LIKE.equals(row.getType())) likes.add(row);
+            }
+            return likes;
+        }
+
+        @Override
+        public PendingMutationEntity getLastPendingLike(int recipeId) {
+            List<PendingMutationEntity> likes = getPendingLikes();
+            for (int i = likes.size() - 1; i >= 0; i--) {
+                if (likes.get(i).getRecipeId() == recipeId) return likes.get(i);
+            }
+            return null;
+        }
+
+        @Override
+        public List<Integer> getRecipeIdsWithPendingChanges() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public int getMinRecipeId() {
+            return 0;
+        }
+
+        @Override
+        public int countNewerThan(long id) {
+            int count = 0;
+            for (PendingMutationEntity row : rows) {
+                if (row.getId() > id) count++;
+            }
+            return count;
+        }
+
+        @Override
+        public LiveData<Integer> observeCount() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void deleteById(long id) {
+            deleteByIds(Collections.singletonList(id));
+        }
+
+        @Override
+        public void deleteByIds(List<Long> ids) {
+            Iterator<PendingMutationEntity> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                if (ids.contains(iterator.next().getId())) iterator.remove();
+            }
+        }
+
+        @Override
+        public void deleteByRecipeId(int recipeId) {
+            Iterator<PendingMutationEntity> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getRecipeId() == recipeId) iterator.remove();
+            }
+        }
+
+        @Override
+        public void recordFailure(long id, String error) {
+            for (PendingMutationEntity row : rows) {
+                if (row.getId() == id) row.setAttempts(row.getAttempts() + 1);
+            }
+        }
+
+        @Override
+        public void remapRecipeId(int tempId, int serverId) {
+            for (PendingMutationEntity row : rows) {
+                if (row.getRecipeId() == tempId) row.setRecipeId(serverId);
+            }
+        }
+
+        @Override
+        public void deleteAll() {
+            rows.clear();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.cooking.data.repositories;
+
+import com.example.cooking.data.database.RecipeEntity;
+import com.example.cooking.data.database.RecipeRowState;
+import com.example.cooking.domain.entities.Ingredient;
+import com.example.cooking.domain.entities.Recipe;
+import com.example.cooking.domain.entities.Step;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Тесты {@link RecipeDiffEngine} на каталоге из 5000 рецептов: повторная загрузка неизменного
+ * каталога не дает ни одной записи, изменения, новые, удаленные и защищенные рецепты
+ * попадают в свои списки.
+ */
+public class RecipeDiffEngineTest {
+
+    private static final int CATALOG_SIZE = 5000;
+    private static final int CHUNK_SIZE = 500;
+
+    private List<RecipeRowState> existing;
+
+    @Before
+    public void setUp() {
+        // Строки базы соответствуют каталогу, сохраненному при прошлой синхронизации
+        existing = new ArrayList<>(CATALOG_SIZE);
+        for (Recipe recipe : catalog()) {
+            existing.add(rowState(recipe));
+        }
+    }
+
+    @Test
+    public void unchanged_catalog_needs_no_writes() {
+        RecipeDiffEngine.Result result = RecipeDiffEngine.diff(existing, catalog());
+
+        assertTrue(result.isEmpty());
+        assertEquals(0, result.getInsertedCount());
+        assertEquals(0, result.getUpdatedCount());
+        assertEquals(0, result.getDeletedCount());
+        assertEquals(CATALOG_SIZE, result.getUnchangedCount());
+    }
+
+    @Test
+    public void unchanged_catalog_in_chunks_needs_no_writes() {
+        RecipeDiffEngine engine = new RecipeDiffEngine(existing);
+        List<Recipe> recipes = catalog();
+        int unchanged = 0;
+        for (int i = 0; i < recipes.size(); i += CHUNK_SIZE) {
+            RecipeDiffEngine.Result chunk = engine.diffChunk(recipes.subList(i, i + CHUNK_SIZE));
+            assertTrue(chunk.isEmpty());
+            unchanged += chunk.getUnchangedCount();
+        }
+
+        assertTrue(engine.getMissingIds().isEmpty());
+        assertEquals(CATALOG_SIZE, unchanged);
+    }
+
+    @Test
+    public void changed_content_is_updated() {
+        List<Recipe> recipes = catalog();
+        recipes.get(9).setTitle("Новое название");
+        recipes.get(19).getIngredients().get(0).setCount(99);
+        recipes.get(29).getSteps().get(1).setInstruction("Запекать 40 минут");
+
+        RecipeDiffEngine.Result result = RecipeDiffEngine.diff(existing, recipes);
+
+        assertEquals(Arrays.asList(10, 20, 30), idsOf(result.toUpdate));
+        assertEquals("Новое название", result.toUpdate.get(0).getTitle());
+        assertEquals(0, result.getInsertedCount());
+        assertEquals(0, result.getDeletedCount());
+        assertEquals(CATALOG_SIZE - 3, result.getUnchangedCount());
+    }
+
+    @Test
+    public void like_change_updates_only_like_status() {
+        List<Recipe> recipes = catalog();
+        recipes.get(0).setLiked(true);      // Лайк поставлен на сервере
+        existing.get(1).setLiked(true);     // Лайк снят на сервере
+
+        RecipeDiffEngine.Result result = RecipeDiffEngine.diff(existing, recipes);
+
+        assertTrue(result.toUpdate.isEmpty());
+        assertEquals(Collections.singletonList(1), result.toLike);
+        assertEquals(Collections.singletonList(2), result.toUnlike);
+        assertEquals(2, result.getUpdatedCount());
+    }
+
+    @Test
+    public void new_recipe_is_inserted_and_missing_recipe_is_deleted() {
+        List<Recipe> recipes = catalog();
+        recipes.remove(41);                              // Рецепт 42 удален на сервере
+        recipes.add(recipe(CATALOG_SIZE + 1));
+
+        RecipeDiffEngine.Result result = RecipeDiffEngine.diff(existing, recipes);
+
+        assertEquals(Collections.singletonList(CATALOG_SIZE + 1), idsOf(result.toInsert));
+        assertEquals(Collections.singletonList(42), result.toDelete);
+        assertEquals(0, result.getUpdatedCount());
+        assertEquals(CATALOG_SIZE - 1, result.getUnchangedCount());
+    }
+
+    @Test
+    public void protected_recipes_are_neither_updated_nor_deleted() {
+        List<Recipe> recipes = catalog();
+        recipes.get(4).setTitle("Изменено на сервере");  // Рецепт 5 изменен локально и еще не отправлен
+        recipes.remove(6);                               // Рецепт 7 удален локально, удаление в очереди
+        Recipe created = recipe(CATALOG_SIZE + 1);
+
+        RecipeDiffEngine.Result result = RecipeDiffEngine.diff(existing,
+                new HashSet<>(Arrays.asList(5, 7, CATALOG_SIZE + 1)), append(recipes, created));
+
+        assertTrue(result.isEmpty());
+        assertEquals(CATALOG_SIZE, result.getUnchangedCount());
+    }
+
+    @Test
+    public void duplicate_ids_are_counted_once() {
+        List<Recipe> recipes = catalog();
+        Recipe duplicate = recipe(1);
+        duplicate.setTitle("Дубликат");
+
+        RecipeDiffEngine.Result result = RecipeDiffEngine.diff(existing, append(recipes, duplicate));
+
+        assertTrue(result.isEmpty());
+        assertEquals(CATALOG_SIZE, result.getUnchangedCount());
+    }
+
+    /**
+     * Синтетический каталог: каждый вызов создает новые объекты с тем же содержимым,
+     * как при повторной загрузке с сервера.
+     */
+    private static List<Recipe> catalog() {
+        List<Recipe> recipes = new ArrayList<>(CATALOG_SIZE);
+        for (int id = 1; id <= CATALOG_SIZE; id++) {
+            recipes.add(recipe(id));
+        }
+        return recipes;
+    }
+
+    private static Recipe recipe(int id) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setTitle("Рецепт " + id);
+        recipe.setCreated_at("2024-01-01");
+        recipe.setUserId("user" + id % 10);
+        recipe.setMealType(id % 2 == 0 ? "lunch" : "dinner");
+        recipe.setFoodType("soup");
+        recipe.setPhoto_url("https://example.com/" + id + ".jpg");
+        ArrayList<Ingredient> ingredients = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setName("ингредиент " + (id + i) % 50);
+            ingredient.setCount(i + 1);
+            ingredient.setType("г");
+            ingredients.add(ingredient);
+        }
+        recipe.setIngredients(ingredients);
+        ArrayList<Step> steps = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Step step = new Step();
+            step.setNumber(i);
+            step.setInstruction("Шаг " + i + " рецепта " + id);
+            steps.add(step);
+        }
+        recipe.setSteps(steps);
+        return recipe;
+    }
+
+    private static RecipeRowState rowState(Recipe recipe) {
+        RecipeEntity entity = new RecipeEntity(recipe);
+        RecipeRowState row = new RecipeRowState();
+        row.setId(entity.getId());
+        row.setContentHash(entity.getContentHash());
+        row.setLiked(entity.isLiked());
+        return row;
+    }
+
+    private static List<Recipe> append(List<Recipe> recipes, Recipe recipe) {
+        List<Recipe> result = new ArrayList<>(recipes);
+        result.add(recipe);
+        return result;
+    }
+
+    private static List<Integer> idsOf(List<RecipeEntity> entities) {
+        List<Integer> ids = new ArrayList<>(entities.size());
+        for (RecipeEntity entity : entities) {
+            ids.add(entity.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.cooking.data.repositories;
+
+import com.example.cooking.domain.entities.Recipe;
+import com.example.cooking.network.api.ApiService;
+import com.example.cooking.network.services.NetworkService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * Тесты запроса изменений рецептов {@link RecipeRemoteRepository#requestChanges}
+ * через ApiService приложения, направленный на {@link MockWebServer}.
+ */
+public class RecipeRemoteRepositoryTest {
+
+    private MockWebServer server;
+    private ApiService apiService;
+    private RecordingCallback callback;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        apiService = NetworkService.createRetrofit(new OkHttpClient(), server.url("/").toString())
+                .create(ApiService.class);
+        callback = new RecordingCallback();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void changes_and_tombstones_are_passed_with_new_cursor() throws Exception {
+        server.enqueue(json("{\"success\":true,"
+                + "\"recipes\":[{\"id\":5,\"title\":\"Борщ\"},{\"id\":6,\"title\":\"Щи\"}],"
+                + "\"deleted_ids\":[3,4],\"cursor\":\"c2\"}"));
+
+        requestChanges("c1");
+
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+        assertEquals("GET", request.getMethod());
+        assertEquals("/recipes/changes?since=c1", request.getPath());
+        assertEquals(1, callback.loadedCount);
+        assertEquals(2, callback.changed.size());
+        assertEquals(5, callback.changed.get(0).getId());
+        assertEquals("Щи", callback.changed.get(1).getTitle());
+        assertEquals(Arrays.asList(3, 4), callback.deletedIds);
+        assertEquals("c2", callback.cursor);
+    }
+
+    @Test
+    public void only_tombstones_give_empty_changes() throws Exception {
+        server.enqueue(json("{\"deleted_ids\":[7],\"cursor\":\"c3\"}"));
+
+        requestChanges("c2");
+
+        assertEquals(1, callback.loadedCount);
+        assertTrue(callback.changed.isEmpty());
+        assertEquals(Arrays.asList(7), callback.deletedIds);
+        assertEquals("c3", callback.cursor);
+    }
+
+    @Test
+    public void empty_delta_still_advances_cursor() throws Exception {
+        server.enqueue(json("{\"recipes\":[],\"deleted_ids\":[],\"cursor\":\"c4\"}"));
+
+        requestChanges("c3");
+
+        assertEquals(1, callback.loadedCount);
+        assertTrue(callback.changed.isEmpty());
+        assertTrue(callback.deletedIds.isEmpty());
+        assertEquals("c4", callback.cursor);
+    }
+
+    @Test
+    public void cursor_is_sent_url_encoded() throws Exception {
+        server.enqueue(json("{\"cursor\":\"2024-05-01T10:00:00+03:00#2\"}"));
+
+        requestChanges("2024-05-01T09:00:00+03:00#1");
+
+        assertEquals("/recipes/changes?since=2024-05-01T09%3A00%3A00%2B03%3A00%231",
+                server.takeRequest(5, TimeUnit.SECONDS).getPath());
+        // Курсор из ответа передается без изменений, чтобы сохраниться вместе с изменениями
+        assertEquals("2024-05-01T10:00:00+03:00#2", callback.cursor);
+    }
+
+    @Test
+    public void gone_cursor_requires_full_sync() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(410));
+
+        requestChanges("old");
+
+        assertEquals(1, callback.invalidCount);
+        assertEquals(0, callback.loadedCount);
+        assertNull(callback.error);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void full_sync_required_flag_invalidates_cursor() throws Exception {
+        server.enqueue(json("{\"full_sync_required\":true,\"recipes\":[{\"id\":1}],\"cursor\":\"c9\"}"));
+
+        requestChanges("old");
+
+        assertEquals(1, callback.invalidCount);
+        assertEquals(0, callback.loadedCount);
+        assertNull(callback.cursor);
+    }
+
+    @Test
+    public void missing_cursor_invalidates_cursor() throws Exception {
+        server.enqueue(json("{\"recipes\":[{\"id\":1}],\"deleted_ids\":[]}"));
+
+        requestChanges("c1");
+
+        assertEquals(1, callback.invalidCount);
+        assertEquals(0, callback.loadedCount);
+    }
+
+    @Test
+    public void client_error_is_reported_without_invalidating_cursor() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(400));
+
+        requestChanges("c1");
+
+        assertEquals(0, callback.invalidCount);
+        assertEquals(0, callback.loadedCount);
+        assertNotNull(callback.error);
+    }
+
+    /**
+     * Выполняет запрос и ждет вызова callback: попытки запроса выполняются в io-потоке.
+     */
+    private void requestChanges(String since) throws InterruptedException {
+        RecipeRemoteRepository.requestChanges(apiService.getRecipeChanges(since), Schedulers.trampoline(), callback);
+        assertTrue("Нет ответа на запрос изменений", callback.done.await(5, TimeUnit.SECONDS));
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    private static final class RecordingCallback implements RecipeRemoteRepository.RecipeChangesCallback {
+        int loadedCount;
+        int invalidCount;
+        List<Recipe> changed;
+        List<Integer> deletedIds;
+        String cursor;
+        String error;
+        final CountDownLatch done = new CountDownLatch(1);
+
+        @Override
+        public void onChangesLoaded(List<Recipe> changed, List<Integer> deletedIds, String cursor) {
+            loadedCount++;
+            this.changed = changed;
+            this.deletedIds = deletedIds;
+            this.cursor = cursor;
+            done.countDown();
+        }
+
+        @Override
+        public void onCursorInvalid() {
+            invalidCount++;
+            done.countDown();
+        }
+
+        @Override
+        public void onDataNotAvailable(String error) {
+            this.error = error;
+            done.countDown();
+        }
+    }
+}
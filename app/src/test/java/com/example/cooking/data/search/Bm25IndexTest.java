@@ -0,0 +1,126 @@
+package com.example.cooking.data.search;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Тесты {@link Bm25Index} на синтетическом каталоге из 5000 рецептов:
+ * порядок ранжирования по полям, стемминг и синонимы, удаление, время поиска.
+ */
+public class Bm25IndexTest {
+
+    private static final int CATALOG_SIZE = 5000;
+    private static final String[] WORDS = {
+            "картофель", "лук", "морковь", "курица", "говядина", "соль", "перец", "масло", "мука", "яйцо",
+            "сахар", "молоко", "сыр", "помидоры", "чеснок", "укроп", "свекла", "капуста", "рис", "гречка"
+    };
+
+    private Bm25Index index;
+
+    @Before
+    public void setUp() {
+        index = new Bm25Index();
+        // Фиксированное зерно: каталог одинаков при каждом запуске
+        Random random = new Random(1);
+        for (int id = 1; id <= CATALOG_SIZE; id++) {
+            StringBuilder ingredients = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                ingredients.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            StringBuilder steps = new StringBuilder();
+            for (int i = 0; i < 40; i++) {
+                steps.append(WORDS[random.nextInt(WORDS.length)]).append(i % 7 == 0 ? " нарезать " : " варить ");
+            }
+            index.put(id, "Блюдо " + WORDS[random.nextInt(WORDS.length)] + " " + id,
+                    ingredients.toString(), steps.toString());
+        }
+    }
+
+    @Test
+    public void title_match_ranks_above_ingredients_and_steps() {
+        // Длина полей как у рецептов каталога, чтобы нормализация длины не влияла на порядок
+        String ingredients = "мука сахар яйцо масло соль молоко сода";
+        StringBuilder steps = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            steps.append("смешать муку и сахар, выпекать в духовке ");
+        }
+        index.put(10003, "Пирог с яблоками", ingredients + " яблоки", steps + "подать шарлотку к чаю");
+        index.put(10002, "Пирог с яблоками", ingredients + " шарлотка", steps + "подать к чаю");
+        index.put(10001, "Шарлотка с яблоками", ingredients + " яблоки", steps + "подать к чаю");
+
+        assertEquals(Arrays.asList(10001, 10002, 10003), index.search("шарлотка", 10));
+    }
+
+    @Test
+    public void documents_with_all_terms_are_preferred() {
+        index.put(10001, "Суп с фрикадельками", "фарш", "Варить");
+        index.put(10002, "Фрикадельки в томате", "фарш томат", "Тушить");
+        index.put(10003, "Томатный суп", "томат", "Варить");
+
+        // Есть документ со всеми словами запроса - документы с частью слов не возвращаются
+        assertEquals(Arrays.asList(10002), index.search("фрикадельки томат", 10));
+        // Ни один документ не содержит все слова - возвращаются документы хотя бы с одним
+        List<Integer> results = index.search("фрикадельки ананас", 10);
+        assertEquals(Arrays.asList(10001, 10002), results);
+    }
+
+    @Test
+    public void word_forms_match_through_stemming() {
+        index.put(10001, "Курица с грибами", "курица грибы сливки", "Обжарить");
+
+        assertEquals(Integer.valueOf(10001), index.search("грибами", 5).get(0));
+        assertEquals(Integer.valueOf(10001), index.search("гриб", 5).get(0));
+        assertEquals(Integer.valueOf(10001), index.search("грибов", 5).get(0));
+    }
+
+    @Test
+    public void synonyms_expand_query() {
+        index.put(10001, "Картошка жареная", "картошка лук масло", "Нарезать картошку");
+
+        List<Integer> results = index.search("картофелем", 20);
+        assertTrue("Синоним должен найти рецепт с картошкой", results.contains(10001));
+        assertEquals(Integer.valueOf(10001), index.search("картошкой", 5).get(0));
+    }
+
+    @Test
+    public void unknown_word_finds_nothing() {
+        assertTrue(index.search("ананасы", 10).isEmpty());
+    }
+
+    @Test
+    public void removed_and_replaced_documents_are_not_returned() {
+        index.put(10001, "Борщ", "свекла капуста картофель", "Варить");
+        assertEquals(Arrays.asList(10001), index.search("борщ", 5));
+
+        index.put(10001, "Щи", "капуста", "Варить");
+        assertTrue(index.search("борщ", 5).isEmpty());
+        assertEquals(Arrays.asList(10001), index.search("щи", 5));
+
+        index.remove(10001);
+        assertTrue(index.search("щи", 5).isEmpty());
+        assertEquals(CATALOG_SIZE, index.size());
+    }
+
+    @Test
+    public void search_over_catalog_is_fast() {
+        String query = "картофель с луком";
+        for (int i = 0; i < 50; i++) {
+            index.search(query, 20);    // Прогрев JIT
+        }
+        int runs = 100;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            index.search(query, 20);
+        }
+        double averageMs = (System.nanoTime() - start) / 1e6 / runs;
+        System.out.println("Bm25Index: " + CATALOG_SIZE + " рецептов, средний поиск " + averageMs + " мс");
+        // Порог с большим запасом, чтобы тест не зависел от машины
+        assertTrue("Средний поиск " + averageMs + " мс", averageMs < 50);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.cooking.data.search;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Тесты {@link IngredientIndex}: нормализация названий, пересечение и объединение продуктов,
+ * ранжирование по доле имеющихся ингредиентов, удаление и замена рецептов, ограничение числа результатов.
+ */
+public class IngredientIndexTest {
+
+    private IngredientIndex index;
+
+    @Before
+    public void setUp() {
+        index = new IngredientIndex();
+        index.put(1, Arrays.asList("Картофель", "Лук репчатый", "Соль"));
+        index.put(2, Arrays.asList("Курица", "Картофель", "Морковь", "Чеснок", "Соль", "Перец"));
+        index.put(3, Arrays.asList("Яйца", "Молоко", "Мука"));
+        index.put(4, Arrays.asList("Лук", "Морковь"));
+    }
+
+    @Test
+    public void normalize_ignores_case_yo_and_word_forms() {
+        assertEquals(IngredientIndex.normalize("Свёкла"), IngredientIndex.normalize("свекла"));
+        assertEquals(IngredientIndex.normalize("помидоры"), IngredientIndex.normalize("Помидор"));
+        assertEquals(IngredientIndex.normalize("Лук  репчатый!"), IngredientIndex.normalize("лук репчатый"));
+        assertNull(IngredientIndex.normalize("  , "));
+    }
+
+    @Test
+    public void product_matches_ingredient_word_forms_and_synonyms() {
+        assertEquals(Arrays.asList(1, 2), ids(index.search(Collections.singletonList("картофеля"), false, 10)));
+        // "картошка" - синоним "картофеля"
+        assertEquals(Arrays.asList(1, 2), ids(index.search(Collections.singletonList("Картошка"), false, 10)));
+        // "лук" соответствует и "лук", и "лук репчатый"
+        assertEquals(Arrays.asList(4, 1), ids(index.search(Collections.singletonList("лук"), false, 10)));
+    }
+
+    @Test
+    public void requireAll_intersects_and_otherwise_unites_products() {
+        List<String> products = Arrays.asList("картофель", "морковь");
+
+        assertEquals(Collections.singletonList(2), ids(index.search(products, true, 10)));
+        // Рецепт 4: 1 из 2; рецепты 2 и 1: по 1/3, больше совпавших у рецепта 2
+        assertEquals(Arrays.asList(4, 2, 1), ids(index.search(products, false, 10)));
+        assertTrue(index.search(Arrays.asList("картофель", "мука"), true, 10).isEmpty());
+    }
+
+    @Test
+    public void recipes_are_ranked_by_covered_fraction_of_ingredients() {
+        List<IngredientIndex.Match> matches =
+                index.search(Arrays.asList("картофель", "соль", "лук"), false, 10);
+
+        // 3 из 3, затем 1 из 2, затем 2 из 6
+        assertEquals(Arrays.asList(1, 4, 2), ids(matches));
+        assertEquals(3, matches.get(0).matchedIngredients);
+        assertEquals(3, matches.get(0).totalIngredients);
+        assertEquals(1f, matches.get(0).getCoverage(), 0f);
+        assertEquals(0.5f, matches.get(1).getCoverage(), 0f);
+        assertEquals(2, matches.get(2).matchedIngredients);
+        assertEquals(6, matches.get(2).totalIngredients);
+    }
+
+    @Test
+    public void equal_coverage_is_ordered_by_matched_count_then_id() {
+        index.put(5, Arrays.asList("Яйца", "Молоко"));
+        index.put(6, Arrays.asList("Молоко", "Яйца"));
+
+        // Рецепт 3: 2 из 3; рецепты 5 и 6: 2 из 2, одинаково - по ID
+        assertEquals(Arrays.asList(5, 6, 3), ids(index.search(Arrays.asList("яйцо", "молоко"), true, 10)));
+    }
+
+    @Test
+    public void removed_and_replaced_recipes_are_updated() {
+        index.remove(1);
+        assertEquals(Collections.singletonList(2), ids(index.search(Collections.singletonList("картофель"), false, 10)));
+        assertEquals(3, index.size());
+
+        // Освободившийся слот занимает новый рецепт, старые ингредиенты к нему не относятся
+        index.put(7, Arrays.asList("Рис", "Соль"));
+        assertEquals(Collections.singletonList(2), ids(index.search(Collections.singletonList("картофель"), false, 10)));
+        assertEquals(Arrays.asList(7, 2), ids(index.search(Collections.singletonList("соль"), false, 10)));
+
+        // Повторный put заменяет ингредиенты рецепта
+        index.put(4, Arrays.asList("Рис"));
+        assertFalse(ids(index.search(Collections.singletonList("морковь"), false, 10)).contains(4));
+        assertEquals(Arrays.asList(4, 7), ids(index.search(Collections.singletonList("рис"), false, 10)));
+        assertEquals(4, index.size());
+
+        // Рецепт без ингредиентов не индексируется
+        index.put(4, Collections.singletonList(" "));
+        assertEquals(Collections.singletonList(7), ids(index.search(Collections.singletonList("рис"), false, 10)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void limit_cuts_ranked_results() {
+        List<String> products = Arrays.asList("картофель", "соль", "лук", "морковь");
+
+        assertEquals(Arrays.asList(1, 4), ids(index.search(products, false, 2)));
+        assertEquals(3, index.search(products, false, 10).size());
+        assertTrue(index.search(products, false, 0).isEmpty());
+    }
+
+    @Test
+    public void unknown_or_empty_products_find_nothing() {
+        assertTrue(index.search(Collections.singletonList("ананас"), false, 10).isEmpty());
+        assertTrue(index.search(Collections.<String>emptyList(), false, 10).isEmpty());
+        assertTrue(index.search(Collections.singletonList("и"), false, 10).isEmpty());
+    }
+
+    private static List<Integer> ids(List<IngredientIndex.Match> matches) {
+        List<Integer> ids = new ArrayList<>(matches.size());
+        for (IngredientIndex.Match match : matches) {
+            ids.add(match.recipeId);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.cooking.data.search;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Тесты {@link TrigramIndex}: расстояние редактирования, поиск с опечатками и время поиска
+ * по синтетическому каталогу.
+ */
+public class TrigramIndexTest {
+
+    @Test
+    public void editDistance_counts_basic_edits() {
+        assertEquals(0, TrigramIndex.editDistance("борщ", "борщ", 1));
+        assertEquals(1, TrigramIndex.editDistance("барщ", "борщ", 1));           // Замена
+        assertEquals(1, TrigramIndex.editDistance("спагети", "спагетти", 2));    // Пропуск
+        assertEquals(1, TrigramIndex.editDistance("пиццца", "пицца", 2));        // Лишняя буква
+    }
+
+    @Test
+    public void editDistance_counts_transposition_as_one_edit() {
+        assertEquals(1, TrigramIndex.editDistance("шралотка", "шарлотка", 2));
+        assertEquals(1, TrigramIndex.editDistance("омлте", "омлет", 1));
+        assertEquals(2, TrigramIndex.editDistance("шралотко", "шарлотка", 2));
+    }
+
+    @Test
+    public void editDistance_stops_after_max() {
+        // Разница длин больше max - расстояние не вычисляется
+        assertEquals(2, TrigramIndex.editDistance("суп", "солянка", 1));
+        // Ни одна строка матрицы не укладывается в max - возвращается max + 1, а не точное расстояние 6
+        assertEquals(3, TrigramIndex.editDistance("абвгде", "жзиклм", 2));
+        assertEquals(2, TrigramIndex.editDistance("борщ", "плов", 1));
+    }
+
+    @Test
+    public void search_finds_title_with_typo() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Шарлотка с яблоками", "яблоки мука сахар яйца");
+        index.put(2, "Спагетти карбонара", "спагетти бекон сыр");
+        index.put(3, "Борщ", "свекла капуста картофель");
+
+        assertEquals(Arrays.asList(1), index.search("шарлотко", 10));
+        assertEquals(Arrays.asList(2), index.search("спагети", 10));
+        assertEquals(Arrays.asList(3), index.search("барщ", 10));
+        assertTrue(index.search("xyz", 10).isEmpty());
+    }
+
+    @Test
+    public void search_ranks_title_above_ingredients() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Пирог", "яблоки корица");
+        index.put(2, "Яблоки печеные", "мед корица");
+
+        assertEquals(Arrays.asList(2, 1), index.search("яблоко", 10));
+    }
+
+    @Test
+    public void search_returns_all_words_matches_before_partial() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Шарлотка", "яблоки мука сахар");
+        index.put(2, "Яблочная шарлотка", "яблоки мука сахар");
+        index.put(3, "Яблочный пирог", "яблоки мука");
+
+        // Рецепт с обоими словами вытесняет рецепты только с одним словом
+        assertEquals(Arrays.asList(2), index.search("яблочня шарлотко", 10));
+        // Все слова не нашлись ни в одном рецепте - возвращаются рецепты с любым из них
+        List<Integer> partial = index.search("шарлотко пицца", 10);
+        assertEquals(Arrays.asList(1, 2), partial);
+    }
+
+    @Test
+    public void removed_documents_are_not_returned() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Шарлотка", "яблоки");
+        index.put(2, "Шарлотка быстрая", "яблоки");
+        index.remove(1);
+
+        assertEquals(Arrays.asList(2), index.search("шарлотко", 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void search_over_catalog_is_fast() {
+        String[] dishes = {"шарлотка", "спагетти", "борщ", "пицца", "лазанья", "омлет", "плов", "солянка",
+                "окрошка", "сырники", "блины", "пельмени", "котлеты", "рагу", "запеканка", "пирог"};
+        String[] adjectives = {"яблочная", "домашний", "быстрый", "классический", "итальянский", "овощной"};
+        String[] ingredients = {"картофель", "лук", "морковь", "курица", "говядина", "соль", "перец", "масло",
+                "мука", "яйцо", "сахар", "молоко", "сыр", "помидоры", "чеснок", "укроп", "свекла", "капуста"};
+        int catalogSize = 20000;
+        TrigramIndex index = new TrigramIndex();
+        Random random = new Random(1);
+        for (int id = 1; id <= catalogSize; id++) {
+            // Случайное слово в названии растит словарь, как уникальные названия в реальном каталоге
+            String title = adjectives[random.nextInt(adjectives.length)] + " " + dishes[random.nextInt(dishes.length)]
+                    + " " + Integer.toString(random.nextInt(100000), 36) + "ый";
+            StringBuilder recipeIngredients = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                recipeIngredients.append(ingredients[random.nextInt(ingredients.length)]).append(' ');
+            }
+            index.put(id, title, recipeIngredients.toString());
+        }
+
+        String[] queries = {"шарлотко", "спагети", "яблочня шарлотка", "барщ", "кортофель", "xyz"};
+        for (int i = 0; i < 20; i++) {
+            for (String query : queries) index.search(query, 50);   // Прогрев JIT
+        }
+        int runs = 10;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            for (String query : queries) index.search(query, 50);
+        }
+        double averageMs = (System.nanoTime() - start) / 1e6 / runs / queries.length;
+        System.out.println("TrigramIndex: " + catalogSize + " рецептов, средний поиск " + averageMs + " мс");
+        // Порог с большим запасом, чтобы тест не зависел от машины
+        assertTrue("Средний поиск " + averageMs + " мс", averageMs < 50);
+        assertFalse(index.search("шарлотко", 5).isEmpty());
+    }
+}